@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007-2020 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -12,15 +12,25 @@ package org.eclipse.tcf.core;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.eclipse.tcf.internal.core.ServiceManager;
 import org.eclipse.tcf.internal.core.Token;
+import org.eclipse.tcf.internal.core.TokenMap;
 import org.eclipse.tcf.internal.core.TransportManager;
 import org.eclipse.tcf.internal.services.local.LocatorService;
 import org.eclipse.tcf.internal.services.remote.GenericProxy;
@@ -94,12 +104,45 @@ public abstract class AbstractChannel implements IChannel {
          * The array of bytes that accompanies the message
          */
         byte[] data;
+        /**
+         * Command result data in a pooled buffer, used by the receiver thread instead of 'data'
+         * when the result is decoded by the receiver thread
+         */
+        JSON.Binary data_buf;
+        /**
+         * Command result arguments, decoded by the receiver thread
+         */
+        Object[] args;
+        /**
+         * Error decoding command result arguments
+         */
+        Exception args_error;
 
-        boolean is_sent;
-        boolean is_canceled;
+        /**
+         * Transmission state: 0 - queued, MSG_SENT or MSG_CANCELED.
+         * Updated without locking, see send_state_updater.
+         */
+        volatile int send_state;
 
         Collection<TraceListener> trace;
 
+        /**
+         * Sequence number of command, in the order commands are sent
+         */
+        long seq;
+        /**
+         * Key of idempotent query command, null if the command cannot be folded
+         */
+        QueryKey query;
+        /**
+         * Number of identical query commands that wait for the result of this command
+         */
+        int folded;
+        /**
+         * True if result data must be kept for folded commands, guarded by result_decoders monitor
+         */
+        boolean keep_data;
+
         /**
          * Constructs a Message of the given type. Type could be 'C', 'R', 'N' 'P' or 'E'
          * @param type type of message
@@ -146,17 +189,101 @@ public abstract class AbstractChannel implements IChannel {
         }
     }
 
+    /**
+     * Pending commands of a service, see setPendingCommandLimit()
+     */
+    private static class ServiceCommands {
+        /** Number of commands that are transmitted (or queued for transmission) and waiting for results */
+        int sent;
+        /** Max number of sent commands, 0 means no limit */
+        int limit;
+        /** Commands that are held because of the limit */
+        final LinkedList<Message> held = new LinkedList<Message>();
+    }
+
+    /**
+     * Identity of an idempotent query command: service, command name and encoded arguments
+     */
+    private static final class QueryKey {
+        final String service;
+        final String name;
+        final byte[] args;
+        final int hash;
+
+        QueryKey(String service, String name, byte[] args) {
+            this.service = service;
+            this.name = name;
+            this.args = args;
+            hash = (service.hashCode() * 31 + name.hashCode()) * 31 + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof QueryKey)) return false;
+            QueryKey k = (QueryKey)o;
+            return hash == k.hash && service.equals(k.service) && name.equals(k.name) && Arrays.equals(args, k.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Query command that is not transmitted, it gets the result of identical query that is already sent
+     */
+    private static final class FoldedCommand {
+        final Token token;
+        final Message wire;
+        /** Sequence number of the last command sent before this one */
+        final long seq;
+        boolean done;
+        byte[] data;
+        Exception error;
+
+        FoldedCommand(Token token, Message wire, long seq) {
+            this.token = token;
+            this.wire = wire;
+            this.seq = seq;
+        }
+    }
+
+    private static class CongestionListenerInfo {
+        final int threshold;
+        final ICongestionListener listener;
+        boolean congested;
+
+        CongestionListenerInfo(int threshold, ICongestionListener listener) {
+            this.threshold = threshold;
+            this.listener = listener;
+        }
+    }
+
     private final LinkedList<Map<String,String>> redirect_queue = new LinkedList<Map<String,String>>();
     private final Map<Class<?>,IService> local_service_by_class = new HashMap<Class<?>,IService>();
     private final Map<Class<?>,IService> remote_service_by_class = new HashMap<Class<?>,IService>();
     private final Map<String,IService> local_service_by_name = new HashMap<String,IService>();
     private final Map<String,IService> remote_service_by_name = new HashMap<String,IService>();
-    private final LinkedList<Message> out_queue = new LinkedList<Message>();
+    private final Queue<Message> out_queue = new ConcurrentLinkedQueue<Message>();
+    private final AtomicReference<Message> out_flow_control = new AtomicReference<Message>();
+    private volatile boolean out_waiting;
+    private volatile boolean out_eos;
+    private final CountDownLatch out_closed = new CountDownLatch(1);
+    private boolean io_started;
     private final Collection<IChannelListener> channel_listeners = new ArrayList<IChannelListener>();
     private final Map<String,IChannel.IEventListener[]> event_listeners = new HashMap<String,IChannel.IEventListener[]>();
     private final Map<String,IChannel.ICommandServer> command_servers = new HashMap<String,IChannel.ICommandServer>();
     private final LinkedList<IPeer> remote_peer_list = new LinkedList<IPeer>();
-    private final Map<String,Message> out_tokens = new LinkedHashMap<String,Message>();
+    private final TokenMap<Message> out_tokens = new TokenMap<Message>();
+    /* Accessed by the dispatch thread and the receiver thread, guarded by its monitor */
+    private final TokenMap<Message> result_decoders = new TokenMap<Message>();
+    private final Map<QueryKey,Message> inflight_queries = new HashMap<QueryKey,Message>();
+    /* Folded commands in the order they are sent */
+    private final LinkedList<FoldedCommand> folded_commands = new LinkedList<FoldedCommand>();
+    private long command_seq;
+    private final Map<String,ServiceCommands> service_commands = new HashMap<String,ServiceCommands>();
+    private final List<CongestionListenerInfo> congestion_listeners = new ArrayList<CongestionListenerInfo>();
     private final Thread inp_thread;
     private final Thread out_thread;
     private boolean notifying_channel_opened;
@@ -167,8 +294,50 @@ public abstract class AbstractChannel implements IChannel {
     private IPeer remote_peer;
     private Proxy proxy;
     private boolean zero_copy;
+    private volatile boolean compression_offered;
+    private volatile boolean compression;
+    private boolean compression_negotiated;
+    private long input_time;
+
+    /**
+     * Name of pseudo-service that is listed in Hello message to offer message compression.
+     */
+    private static final String COMPRESSION = "Deflate";
 
     private static final int pending_command_limit = 32;
+
+    /**
+     * Identical idempotent commands that are sent while a previous one is still waiting for result,
+     * get the result of the previous command instead of being transmitted again.
+     * Can be disabled with "org.eclipse.tcf.core.channel.fold_commands" system property.
+     */
+    private static final boolean fold_commands =
+            !"false".equals(System.getProperty("org.eclipse.tcf.core.channel.fold_commands"));
+
+    /**
+     * Read-only query commands that can be folded, see isIdempotentCommand()
+     */
+    private static final Map<String,Set<String>> idempotent_commands = new HashMap<String,Set<String>>();
+
+    static {
+        String[] ctx_queries = { "getContext", "getChildren" };
+        idempotent_commands.put("RunControl", new HashSet<String>(Arrays.asList("getContext", "getChildren", "getState")));
+        idempotent_commands.put("Memory", new HashSet<String>(Arrays.asList(ctx_queries)));
+        idempotent_commands.put("Registers", new HashSet<String>(Arrays.asList(ctx_queries)));
+        idempotent_commands.put("StackTrace", new HashSet<String>(Arrays.asList(ctx_queries)));
+        idempotent_commands.put("Processes", new HashSet<String>(Arrays.asList(ctx_queries)));
+    }
+
+    private static final int MSG_SENT = 1;
+    private static final int MSG_CANCELED = 2;
+    private static final AtomicIntegerFieldUpdater<Message> send_state_updater =
+            AtomicIntegerFieldUpdater.newUpdater(Message.class, "send_state");
+
+    /**
+     * Max time, in nanoseconds, a message can stay in the transmitter buffer
+     * while the transmitter is coalescing a burst of messages.
+     */
+    private static final long max_flush_delay = getMaxFlushDelay();
     private int local_congestion_level = -100;
     private int remote_congestion_level = -100;
     private long local_congestion_time;
@@ -213,13 +382,17 @@ public abstract class AbstractChannel implements IChannel {
              * Byte array used as temporary storage of bytes read on {@code readBytes}
              */
             byte[] buf = new byte[1024];
+            /**
+             * Initial size of pooled buffers used by {@code readPooledBytes}
+             */
+            final int pooled_size = 0x1000;
             /**
              * Byte array used as temporary storage of bytes read on {@code readString}
              */
             char[] cbf = new char[1024];
 
             /**
-             * Byte array used to store the error
+             * Error report received with end of stream message
              */
             byte[] eos_err_report;
 
@@ -238,25 +411,91 @@ public abstract class AbstractChannel implements IChannel {
              * @throws IOException if it finds EOM or EOS reading from input stream
              */
             private byte[] readBytes(int end) throws IOException {
+                int len = readData(end);
+                if (len == 0) return empty_byte_array;
+                byte[] res = new byte[len];
+                System.arraycopy(buf, 0, res, 0, len);
+                return res;
+            }
+
+            /**
+             * Reads a token from a channel, numeric tokens are decoded without allocating the ID bytes
+             * @return the token
+             * @throws IOException if it finds EOM or EOS reading from input stream
+             */
+            private Token readToken() throws IOException {
+                int len = readData(0);
+                return Token.valueOf(buf, 0, len);
+            }
+
+            /**
+             * Reads message data directly into a pooled buffer
+             * @return binary data bloc containing all the bytes read
+             * @throws IOException if it finds EOS reading from input stream
+             */
+            private JSON.Binary readPooledBytes() throws IOException {
+                JSON.Binary bin = JSON.Binary.allocate(pooled_size);
                 int len = 0;
-                for (;;) {
-                    int ch = read();
-                    if (ch <= 0) {
-                        if (ch == end) break;
-                        if (ch == EOM) throw new IOException("Unexpected end of message");
+                try {
+                    for (;;) {
+                        if (len >= bin.bytes.length) {
+                            JSON.Binary tmp = JSON.Binary.allocate(bin.bytes.length * 2);
+                            System.arraycopy(bin.bytes, 0, tmp.bytes, 0, len);
+                            bin.release();
+                            bin = tmp;
+                        }
+                        int n = read(bin.bytes, len, bin.bytes.length - len);
+                        if (n > 0) {
+                            len += n;
+                            continue;
+                        }
+                        int ch = read();
+                        if (ch == EOM) break;
                         if (ch < 0) throw new IOException("Communication channel is closed by remote peer");
+                        bin.bytes[len++] = (byte)ch;
                     }
+                }
+                catch (IOException x) {
+                    bin.release();
+                    throw x;
+                }
+                /* The slice keeps the pooled buffer until the message is decoded */
+                JSON.Binary res = bin.slice(0, len);
+                bin.release();
+                return res;
+            }
+
+            /**
+             * Reads bytes from a channel into the temporary buffer
+             * @param end the first byte character
+             * @return number of bytes read
+             * @throws IOException if it finds EOM or EOS reading from input stream
+             */
+            private int readData(int end) throws IOException {
+                int len = 0;
+                for (;;) {
                     if (len >= buf.length) {
                         byte[] tmp = new byte[buf.length * 2];
                         System.arraycopy(buf, 0, tmp, 0, len);
                         buf = tmp;
                     }
+                    if (end == EOM) {
+                        /* Message data can contain zero bytes, so it can be read in blocks */
+                        int n = read(buf, len, buf.length - len);
+                        if (n > 0) {
+                            len += n;
+                            continue;
+                        }
+                    }
+                    int ch = read();
+                    if (ch <= 0) {
+                        if (ch == end) break;
+                        if (ch == EOM) throw new IOException("Unexpected end of message");
+                        if (ch < 0) throw new IOException("Communication channel is closed by remote peer");
+                    }
                     buf[len++] = (byte)ch;
                 }
-                if (len == 0) return empty_byte_array;
-                byte[] res = new byte[len];
-                System.arraycopy(buf, 0, res, 0, len);
-                return res;
+                return len;
             }
 
             /**
@@ -330,7 +569,6 @@ public abstract class AbstractChannel implements IChannel {
                         if (n == EOS) {
                             try {
                                 eos_err_report = readBytes(EOM);
-                                if (eos_err_report.length == 0 || eos_err_report.length == 1 && eos_err_report[0] == 0) eos_err_report = null;
                             }
                             catch (Exception x) {
                             }
@@ -340,15 +578,24 @@ public abstract class AbstractChannel implements IChannel {
                         if (read() != 0) error();
                         switch (msg.type) {
                         case 'C':
-                            msg.token = new Token(readBytes(0));
+                            msg.token = readToken();
                             msg.service = readString();
                             msg.name = readString();
                             msg.data = readBytes(EOM);
                             break;
-                        case 'P':
                         case 'R':
+                            msg.token = readToken();
+                            if (trace_listeners == null && hasResultDecoder(msg.token)) {
+                                /* The result is decoded by this thread, the data buffer can be reused */
+                                msg.data_buf = readPooledBytes();
+                            }
+                            else {
+                                msg.data = readBytes(EOM);
+                            }
+                            break;
+                        case 'P':
                         case 'N':
-                            msg.token = new Token(readBytes(0));
+                            msg.token = readToken();
                             msg.data = readBytes(EOM);
                             break;
                         case 'E':
@@ -362,50 +609,14 @@ public abstract class AbstractChannel implements IChannel {
                         default:
                             error();
                         }
-                        /*
-                         * Message handling is done in the dispatch thread
-                         */
-                        Protocol.invokeLater(new Runnable() {
-                            public void run() {
-                                handleInput(msg);
-                            }
-                        });
+                        dispatchInput(msg);
                         int delay = local_congestion_level;
                         if (delay > 0) sleep(delay);
                     }
-                    Protocol.invokeLater(new Runnable() {
-                        public void run() {
-                            if (out_tokens.isEmpty() && eos_err_report == null && state != STATE_OPENING) {
-                                close();
-                            }
-                            else {
-                                IOException x = new IOException("Communication channel is closed by remote peer");
-                                if (eos_err_report != null) {
-                                    try {
-                                        Object[] args = JSON.parseSequence(eos_err_report);
-                                        if (args.length > 0 && args[0] != null) {
-                                            x.initCause(new Exception(Command.toErrorString(args[0])));
-                                        }
-                                    }
-                                    catch (IOException e) {
-                                    }
-                                }
-                                terminate(x);
-                            }
-                        }
-                    });
+                    dispatchEndOfStream(eos_err_report);
                 }
                 catch (final Throwable x) {
-                    try {
-                        Protocol.invokeLater(new Runnable() {
-                            public void run() {
-                                terminate(x);
-                            }
-                        });
-                    }
-                    catch (IllegalStateException y) {
-                        // TCF event dispatcher has shut down
-                    }
+                    dispatchError(x);
                 }
             }
         };
@@ -440,6 +651,16 @@ public abstract class AbstractChannel implements IChannel {
                 }
             }
 
+            void writeToken(Token t) throws IOException {
+                int pos = t.writeBytes(out_buf, out_buf_pos);
+                if (pos < 0 || pos >= out_buf.length) {
+                    writeString(t.getID());
+                    return;
+                }
+                out_buf_pos = pos;
+                out_buf[out_buf_pos++] = 0;
+            }
+
             void writeString(String s) throws IOException {
                 int l = s.length();
                 for (int i = 0; i < l; i++) {
@@ -477,67 +698,58 @@ public abstract class AbstractChannel implements IChannel {
             @Override
             public void run() {
                 try {
+                    boolean unflushed = false;
+                    long batch_time = 0;
                     while (true) {
-                        Message msg = null;
-                        boolean last = false;
-                        synchronized (out_queue) {
-                            while (out_queue.size() == 0) out_queue.wait();
-                            msg = out_queue.removeFirst();
-                            if (msg == null) break;
-                            last = out_queue.isEmpty();
-                            if (msg.is_canceled) {
-                                if (last) flush();
-                                continue;
+                        if (out_eos) break;
+                        Message msg = pollOutput();
+                        if (msg == null) {
+                            /* The queue is drained - transmit the batch and wait for more messages */
+                            if (unflushed) {
+                                prepareFlush();
+                                flush();
+                                unflushed = false;
                             }
-                            msg.is_sent = true;
-                        }
-                        if (msg.trace != null) {
-                            final Message m = msg;
-                            Protocol.invokeLater(new Runnable() {
-                                public void run() {
-                                    for (TraceListener l : m.trace) {
-                                        try {
-                                            l.onMessageSent(m.type, m.token == null ? null : m.token.getID(),
-                                                    m.service, m.name, m.data);
-                                        }
-                                        catch (Throwable x) {
-                                            Protocol.log("Exception in channel listener", x);
-                                        }
-                                    }
-                                }
-                            });
+                            out_waiting = true;
+                            if (out_queue.isEmpty() && out_flow_control.get() == null && !out_eos) {
+                                LockSupport.park(this);
+                            }
+                            out_waiting = false;
+                            continue;
                         }
                         out_buf_pos = 0;
                         out_buf[out_buf_pos++] = (byte)msg.type;
                         out_buf[out_buf_pos++] = 0;
-                        if (msg.token != null) writeString(msg.token.getID());
+                        if (msg.token != null) writeToken(msg.token);
                         if (msg.service != null) writeString(msg.service);
                         if (msg.name != null) writeString(msg.name);
                         if (msg.data != null) writeBytes(msg.data);
                         write(out_buf, 0, out_buf_pos);
                         write(EOM);
+                        if (!unflushed) {
+                            unflushed = true;
+                            batch_time = System.nanoTime();
+                        }
                         int delay = 0;
                         int level = remote_congestion_level;
                         if (level > 0) delay = level * 10;
-                        if (last || delay > 0) flush();
+                        if (delay > 0 || System.nanoTime() - batch_time >= max_flush_delay) {
+                            prepareFlush();
+                            flush();
+                            unflushed = false;
+                        }
                         if (delay > 0) sleep(delay);
-                        else yield();
                     }
                     write(EOS);
                     write(EOM);
+                    prepareFlush();
                     flush();
                 }
                 catch (final Throwable x) {
-                    try {
-                        Protocol.invokeLater(new Runnable() {
-                            public void run() {
-                                terminate(x);
-                            }
-                        });
-                    }
-                    catch (IllegalStateException y) {
-                        // TCF event dispatcher has shut down
-                    }
+                    dispatchError(x);
+                }
+                finally {
+                    out_closed.countDown();
                 }
             }
         };
@@ -547,12 +759,22 @@ public abstract class AbstractChannel implements IChannel {
 
     protected void start() {
         assert Protocol.isDispatchThread();
-        Protocol.invokeLater(new Runnable() {
+        io_started = true;
+        Protocol.invokeLaterInPartition(this, new Runnable() {
             public void run() {
                 try {
                     if (proxy != null) return;
                     if (state == STATE_CLOSED) return;
                     ServiceManager.onChannelCreated(AbstractChannel.this, local_service_by_name);
+                    if (isCompressionSupported()) {
+                        IService deflate = new IService() {
+                            public String getName() {
+                                return COMPRESSION;
+                            }
+                        };
+                        local_service_by_name.put(deflate.getName(), deflate);
+                        compression_offered = true;
+                    }
                     makeServiceByClassMap(local_service_by_name, local_service_by_class);
                     Object[] args = new Object[]{ local_service_by_name.keySet() };
                     sendEvent(Protocol.getLocator(), "Hello", JSON.toJSONSequence(args));
@@ -562,10 +784,188 @@ public abstract class AbstractChannel implements IChannel {
                 }
             }
         });
+        startIO();
+    }
+
+    /**
+     * Start channel I/O.
+     * Default implementation starts receiver and transmitter threads,
+     * which use read(), write() and flush() methods of the channel.
+     * Asynchronous transports override this method to do I/O by other means, and then use
+     * dispatchInput(), pollOutput() and related methods to exchange messages with the channel.
+     * @since 1.7
+     */
+    protected void startIO() {
         inp_thread.start();
         out_thread.start();
     }
 
+    private boolean hasResultDecoder(Token token) {
+        synchronized (result_decoders) {
+            return result_decoders.containsKey(token.getNumber());
+        }
+    }
+
+    /**
+     * Pass a message received from the remote peer to the channel.
+     * Command results are decoded by the calling thread, other message handling is done in the dispatch thread.
+     * Called by the receiver thread or by I/O thread of asynchronous transport.
+     * @param msg - received message
+     * @since 1.7
+     */
+    protected final void dispatchInput(final Message msg) {
+        if (msg.type == 'R') {
+            /*
+             * Decode result arguments here to offload the dispatch thread
+             */
+            Message req = null;
+            boolean keep_data = false;
+            synchronized (result_decoders) {
+                req = result_decoders.remove(msg.token.getNumber());
+                if (req != null) keep_data = req.keep_data;
+            }
+            Command cmd = req == null ? null : (Command)req.token.getListener();
+            JSON.Binary data = msg.data_buf;
+            msg.data_buf = null;
+            if (cmd != null) {
+                if (data == null) data = new JSON.Binary(msg.data, 0, msg.data.length);
+                try {
+                    msg.args = cmd.decode(data);
+                }
+                catch (Exception x) {
+                    msg.args_error = x;
+                }
+            }
+            if (data != null) {
+                /* Command can be canceled or tracing enabled after the data was received,
+                 * results of query commands are also decoded by folded commands */
+                if (msg.data == null && (cmd == null || trace_listeners != null || keep_data)) msg.data = data.toByteArray();
+                data.release();
+            }
+        }
+        Protocol.invokeLaterInPartition(this, new Runnable() {
+            public void run() {
+                handleInput(msg);
+            }
+        });
+    }
+
+    /**
+     * Notify the channel that end of stream is received from the remote peer.
+     * Called by the receiver thread or by I/O thread of asynchronous transport.
+     * @param err_report - error report data that came with end of stream message, or null.
+     * @since 1.7
+     */
+    protected final void dispatchEndOfStream(byte[] err_report) {
+        String err_msg = null;
+        if (err_report != null && err_report.length > 0 && !(err_report.length == 1 && err_report[0] == 0)) {
+            err_msg = "";
+            try {
+                Object[] args = JSON.parseSequence(err_report);
+                if (args.length > 0 && args[0] != null) err_msg = Command.toErrorString(args[0]);
+            }
+            catch (IOException e) {
+            }
+        }
+        final String eos_err_msg = err_msg;
+        Protocol.invokeLaterInPartition(this, new Runnable() {
+            public void run() {
+                if (out_tokens.isEmpty() && eos_err_msg == null && state != STATE_OPENING) {
+                    close();
+                }
+                else {
+                    IOException x = new IOException("Communication channel is closed by remote peer");
+                    if (eos_err_msg != null && eos_err_msg.length() > 0) {
+                        x.initCause(new Exception(eos_err_msg));
+                    }
+                    terminate(x);
+                }
+            }
+        });
+    }
+
+    /**
+     * Notify the channel about I/O error. The channel is terminated.
+     * Called by channel I/O threads.
+     * @param x - the error
+     * @since 1.7
+     */
+    protected final void dispatchError(final Throwable x) {
+        try {
+            Protocol.invokeLaterInPartition(this, new Runnable() {
+                public void run() {
+                    terminate(x);
+                }
+            });
+        }
+        catch (IllegalStateException y) {
+            // TCF event dispatcher has shut down
+        }
+    }
+
+    /**
+     * Get next message to be transmitted.
+     * The message is marked as sent and cannot be canceled after this call.
+     * Called by the transmitter thread or by I/O thread of asynchronous transport.
+     * @return next message or null if output queue is empty.
+     * @since 1.7
+     */
+    protected final Message pollOutput() {
+        for (;;) {
+            /* Flow control messages are sent ahead of other messages */
+            Message msg = out_flow_control.getAndSet(null);
+            if (msg == null) msg = out_queue.poll();
+            if (msg == null) return null;
+            if (!send_state_updater.compareAndSet(msg, 0, MSG_SENT)) continue;
+            if (msg.trace != null) {
+                final Message m = msg;
+                Protocol.invokeLaterInPartition(this, new Runnable() {
+                    public void run() {
+                        for (TraceListener l : m.trace) {
+                            try {
+                                l.onMessageSent(m.type, m.token == null ? null : m.token.getID(),
+                                        m.service, m.name, m.data);
+                            }
+                            catch (Throwable x) {
+                                Protocol.log("Exception in channel listener", x);
+                            }
+                        }
+                    }
+                });
+            }
+            return msg;
+        }
+    }
+
+    /**
+     * Check if the channel is closing and end of stream should be transmitted
+     * instead of remaining messages.
+     * @return true if the channel output is closing.
+     * @since 1.7
+     */
+    protected final boolean isOutputClosing() {
+        return out_eos;
+    }
+
+    /**
+     * Asynchronous transport calls this method after end of stream is transmitted.
+     * @since 1.7
+     */
+    protected final void outputClosed() {
+        out_closed.countDown();
+    }
+
+    /**
+     * Called when new messages are added to the output queue, or when the channel output is closing.
+     * Default implementation wakes up the transmitter thread.
+     * Asynchronous transports override this method to schedule transmission.
+     * The method can be called by any thread.
+     * @since 1.7
+     */
+    protected void onOutputPending() {
+        if (out_waiting) LockSupport.unpark(out_thread);
+    }
+
     /**
      * Redirect this channel to given peer using this channel remote peer locator service as a proxy.
      * @param peer_id - peer that will become new remote communication endpoint of this channel
@@ -709,6 +1109,7 @@ public abstract class AbstractChannel implements IChannel {
     }
 
     public void removeTraceListener(TraceListener listener) {
+        if (trace_listeners == null) return;
         trace_listeners = new ArrayList<TraceListener>(trace_listeners);
         trace_listeners.remove(listener);
         if (trace_listeners.isEmpty()) trace_listeners = null;
@@ -786,12 +1187,11 @@ public abstract class AbstractChannel implements IChannel {
     }
 
     private void sendEndOfStream(long timeout) throws Exception {
-        synchronized (out_queue) {
-            out_queue.clear();
-            out_queue.add(null);
-            out_queue.notifyAll();
-        }
-        out_thread.join(timeout);
+        out_eos = true;
+        out_queue.clear();
+        if (!io_started) return;
+        onOutputPending();
+        out_closed.await(timeout, TimeUnit.MILLISECONDS);
     }
 
     private void close(final Throwable error) {
@@ -828,7 +1228,7 @@ public abstract class AbstractChannel implements IChannel {
                 Protocol.log("Exception in channel listener", x);
             }
         }
-        Protocol.invokeLater(new Runnable() {
+        Protocol.invokeLaterInPartition(this, new Runnable() {
             public void run() {
                 if (!out_tokens.isEmpty()) {
                     Exception x = null;
@@ -842,6 +1242,7 @@ public abstract class AbstractChannel implements IChannel {
                             if (s.length() > 72) s = s.substring(0, 72) + "...]";
                             IOException y = new IOException("Command " + s + " aborted");
                             y.initCause(x);
+                            if (msg.folded > 0) setFoldedResult(msg, null, y);
                             msg.token.getListener().terminated(msg.token, y);
                         }
                         catch (Throwable e) {
@@ -850,6 +1251,12 @@ public abstract class AbstractChannel implements IChannel {
                     }
                     out_tokens.clear();
                 }
+                deliverFolded();
+                synchronized (result_decoders) {
+                    result_decoders.clear();
+                }
+                inflight_queries.clear();
+                service_commands.clear();
                 if (channel_listeners.size() > 0) {
                     for (IChannelListener l : channel_listeners.toArray(
                             new IChannelListener[channel_listeners.size()])) {
@@ -958,16 +1365,67 @@ public abstract class AbstractChannel implements IChannel {
 
     private void addToOutQueue(Message msg) {
         msg.trace = trace_listeners;
-        synchronized (out_queue) {
-            out_queue.add(msg);
-            out_queue.notifyAll();
+        out_queue.add(msg);
+        /* Wake up the transmitter only if it is idle, it drains the queue in batches otherwise */
+        onOutputPending();
+    }
+
+    private static long getMaxFlushDelay() {
+        long delay = 1000;
+        String name = "org.eclipse.tcf.core.channel.max_flush_delay";
+        try {
+            String s = System.getProperty(name);
+            if (s != null) delay = Long.parseLong(s);
         }
+        catch (NumberFormatException x) {
+            Protocol.log("Invalid value of system property " + name, x);
+        }
+        return delay * 1000;
     }
 
     public IToken sendCommand(IService service, String name, byte[] args, ICommandListener listener) {
         assert Protocol.isDispatchThread();
         if (state == STATE_OPENING) throw new Error("Channel is waiting for Hello message");
         if (state == STATE_CLOSED) throw new Error("Channel is closed");
+        QueryKey query = null;
+        if (fold_commands && listener instanceof Command && args != null &&
+                isIdempotentCommand(service.getName(), name)) {
+            query = new QueryKey(service.getName(), name, args);
+            Message wire = inflight_queries.get(query);
+            if (wire != null && wire.token.getListener().getClass() == listener.getClass()) {
+                synchronized (result_decoders) {
+                    /* The receiver thread keeps result data only if it is not decoded yet */
+                    if (result_decoders.get(wire.token.getNumber()) == wire) wire.keep_data = true;
+                    else wire = null;
+                }
+            }
+            else {
+                wire = null;
+            }
+            if (wire != null) {
+                /* Same query is already waiting for result - don't transmit it again */
+                final FoldedCommand[] folded = new FoldedCommand[1];
+                Token token = new Token(listener) {
+                    @Override
+                    public boolean cancel() {
+                        assert Protocol.isDispatchThread();
+                        if (state != STATE_OPEN) return false;
+                        /* The command is removed from the list when the result is delivered */
+                        if (!folded_commands.remove(folded[0])) return false;
+                        if (!folded[0].done) folded[0].wire.folded--;
+                        return true;
+                    }
+                };
+                folded[0] = new FoldedCommand(token, wire, command_seq);
+                folded_commands.add(folded[0]);
+                wire.folded++;
+                return token;
+            }
+        }
+        else if (inflight_queries.size() > 0) {
+            /* The command can change target state, results of pending queries can be stale */
+            inflight_queries.clear();
+        }
         final Message msg = new Message('C');
         msg.service = service.getName();
         msg.name = name;
@@ -978,20 +1436,169 @@ public abstract class AbstractChannel implements IChannel {
                 assert msg.token == this;
                 assert Protocol.isDispatchThread();
                 if (state != STATE_OPEN) return false;
-                synchronized (out_queue) {
-                    if (msg.is_sent) return false;
-                    msg.is_canceled = true;
+                /* Other commands are waiting for the result */
+                if (msg.folded > 0) return false;
+                if (!send_state_updater.compareAndSet(msg, 0, MSG_CANCELED)) return false;
+                out_tokens.remove(getNumber());
+                synchronized (result_decoders) {
+                    result_decoders.remove(getNumber());
                 }
-                out_tokens.remove(getID());
+                if (msg.query != null && inflight_queries.get(msg.query) == msg) inflight_queries.remove(msg.query);
+                ServiceCommands sc = service_commands.get(msg.service);
+                if (!sc.held.remove(msg)) onCommandDone(sc);
+                checkCongestion();
                 return true;
             }
         };
         msg.token = token;
-        out_tokens.put(token.getID(), msg);
-        addToOutQueue(msg);
+        msg.seq = ++command_seq;
+        msg.query = query;
+        out_tokens.put(token.getNumber(), msg);
+        if (query != null) inflight_queries.put(query, msg);
+        if (listener instanceof Command) {
+            synchronized (result_decoders) {
+                result_decoders.put(token.getNumber(), msg);
+            }
+        }
+        ServiceCommands sc = getServiceCommands(msg.service);
+        if (sc.limit > 0 && sc.sent >= sc.limit) {
+            sc.held.add(msg);
+        }
+        else {
+            sc.sent++;
+            addToOutQueue(msg);
+        }
+        checkCongestion();
         return token;
     }
 
+    /**
+     * Check if a command is a query that does not change state of the remote peer.
+     * Identical query commands that are sent while a previous one is waiting for result
+     * are not transmitted, they get the result of the previous command.
+     * Pending queries are forgotten when any other command is sent or an event is received,
+     * so the folded commands never get a result that is older than the command.
+     * Results of folded commands are delivered in the order the commands are sent.
+     * Default implementation accepts only an explicit list of read-only queries:
+     * getContext and getChildren of RunControl, Memory, Registers, StackTrace and Processes services,
+     * and RunControl.getState.
+     * Clients can override this method to add or exclude commands.
+     * @param service - service name.
+     * @param name - command name.
+     * @return true if the command can be folded.
+     * @since 1.7
+     */
+    protected boolean isIdempotentCommand(String service, String name) {
+        Set<String> names = idempotent_commands.get(service);
+        return names != null && names.contains(name);
+    }
+
+    private void setFoldedResult(Message cmd, byte[] data, Exception error) {
+        for (FoldedCommand f : folded_commands) {
+            if (f.wire != cmd || f.done) continue;
+            f.done = true;
+            f.data = data;
+            f.error = error;
+        }
+        cmd.folded = 0;
+    }
+
+    /*
+     * Deliver results of folded commands in the order the commands are sent:
+     * a folded command gets its result after all commands sent between the command
+     * that was transmitted for it and itself.
+     */
+    private void deliverFolded() {
+        while (folded_commands.size() > 0) {
+            FoldedCommand f = folded_commands.getFirst();
+            if (!f.done) return;
+            if (f.seq > f.wire.seq) {
+                for (Message m : out_tokens.values()) {
+                    if (m.seq > f.wire.seq && m.seq <= f.seq) return;
+                }
+            }
+            folded_commands.removeFirst();
+            try {
+                if (f.error != null) f.token.getListener().terminated(f.token, f.error);
+                else f.token.getListener().result(f.token, f.data);
+            }
+            catch (Throwable x) {
+                Protocol.log("Exception in command listener", x);
+            }
+        }
+    }
+
+    private ServiceCommands getServiceCommands(String service) {
+        ServiceCommands sc = service_commands.get(service);
+        if (sc == null) service_commands.put(service, sc = new ServiceCommands());
+        return sc;
+    }
+
+    private void onCommandDone(ServiceCommands sc) {
+        sc.sent--;
+        releaseHeldCommands(sc);
+    }
+
+    private void releaseHeldCommands(ServiceCommands sc) {
+        while (sc.held.size() > 0 && (sc.limit <= 0 || sc.sent < sc.limit)) {
+            sc.sent++;
+            addToOutQueue(sc.held.removeFirst());
+        }
+    }
+
+    public int getPendingCommandCount(String service) {
+        assert Protocol.isDispatchThread();
+        if (service == null) return out_tokens.size();
+        ServiceCommands sc = service_commands.get(service);
+        if (sc == null) return 0;
+        return sc.sent + sc.held.size();
+    }
+
+    public void setPendingCommandLimit(String service, int limit) {
+        assert Protocol.isDispatchThread();
+        assert service != null;
+        ServiceCommands sc = getServiceCommands(service);
+        sc.limit = limit;
+        releaseHeldCommands(sc);
+    }
+
+    public void addCongestionListener(int threshold, ICongestionListener listener) {
+        assert Protocol.isDispatchThread();
+        assert listener != null;
+        congestion_listeners.add(new CongestionListenerInfo(threshold, listener));
+        checkCongestion();
+    }
+
+    public void removeCongestionListener(ICongestionListener listener) {
+        assert Protocol.isDispatchThread();
+        for (int i = 0; i < congestion_listeners.size(); i++) {
+            if (congestion_listeners.get(i).listener == listener) {
+                congestion_listeners.remove(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Notify congestion listeners if congestion level crossed their thresholds
+     */
+    private void checkCongestion() {
+        if (congestion_listeners.isEmpty()) return;
+        int level = getCongestion();
+        for (CongestionListenerInfo info : congestion_listeners.toArray(
+                new CongestionListenerInfo[congestion_listeners.size()])) {
+            boolean congested = level > info.threshold;
+            if (congested == info.congested) continue;
+            info.congested = congested;
+            try {
+                info.listener.congestionChanged(level, congested);
+            }
+            catch (Throwable x) {
+                Protocol.log("Exception in congestion listener", x);
+            }
+        }
+    }
+
     /**
      * Send a command's progress response. Used for commands that can deliver partial results.
      * @param token token associated with this command/response
@@ -1060,6 +1667,51 @@ public abstract class AbstractChannel implements IChannel {
         return zero_copy;
     }
 
+    /**
+     * Get time when the last message was received from the remote peer.
+     * Clients can use it to check that the peer is alive without sending extra commands.
+     * Must be called from the dispatch thread.
+     * @return time in milliseconds, as returned by System.currentTimeMillis(), or 0 if nothing was received.
+     * @since 1.7
+     */
+    public long getInputTime() {
+        assert Protocol.isDispatchThread();
+        return input_time;
+    }
+
+    /**
+     * Check if the channel implementation can compress messages.
+     * If true, the channel offers compression to the remote peer in Hello message.
+     * Default implementation returns false.
+     * @return true if compression is supported.
+     * @since 1.7
+     */
+    protected boolean isCompressionSupported() {
+        return false;
+    }
+
+    /**
+     * Check if message compression was offered to the remote peer.
+     * If true, the remote peer can start sending compressed data any time after receiving Hello message.
+     * The method can be called by any thread.
+     * @return true if compression was offered.
+     * @since 1.7
+     */
+    protected boolean isCompressionOffered() {
+        return compression_offered;
+    }
+
+    /**
+     * Check if both peers support message compression.
+     * Outgoing messages can be compressed after this method returns true.
+     * The method can be called by any thread.
+     * @return true if compression is negotiated.
+     * @since 1.7
+     */
+    protected boolean isCompressionEnabled() {
+        return compression;
+    }
+
     /**
      * Handles the message received from the channel
      * @param msg
@@ -1071,6 +1723,7 @@ public abstract class AbstractChannel implements IChannel {
         if (state == STATE_CLOSED) {
             return;
         }
+        input_time = System.currentTimeMillis();
         if (trace_listeners != null) {
             for (TraceListener l : trace_listeners) {
                 try {
@@ -1090,10 +1743,20 @@ public abstract class AbstractChannel implements IChannel {
             case 'P':
             case 'R':
             case 'N':
-                String token_id = msg.token.getID();
-                cmd = msg.type == 'P' ? out_tokens.get(token_id) : out_tokens.remove(token_id);
+                int token_num = msg.token.getNumber();
+                cmd = msg.type == 'P' ? out_tokens.get(token_num) : out_tokens.remove(token_num);
+                if (msg.type == 'N') {
+                    synchronized (result_decoders) {
+                        result_decoders.remove(token_num);
+                    }
+                }
                 if (cmd == null) {
-                    throw new Exception("Invalid token received: " + token_id);
+                    throw new Exception("Invalid token received: " + msg.token.getID());
+                }
+                if (msg.type != 'P') {
+                    if (cmd.query != null && inflight_queries.get(cmd.query) == cmd) inflight_queries.remove(cmd.query);
+                    onCommandDone(service_commands.get(cmd.service));
+                    checkCongestion();
                 }
                 token = cmd.token;
                 break;
@@ -1124,7 +1787,14 @@ public abstract class AbstractChannel implements IChannel {
                 sendCongestionLevel();
                 break;
             case 'R':
-                token.getListener().result(token, msg.data);
+                if (msg.args != null || msg.args_error != null) {
+                    ((Command)token.getListener()).result(token, msg.args, msg.args_error);
+                }
+                else {
+                    token.getListener().result(token, msg.data);
+                }
+                if (cmd.folded > 0) setFoldedResult(cmd, msg.data, null);
+                if (folded_commands.size() > 0) deliverFolded();
                 sendCongestionLevel();
                 break;
             case 'N':
@@ -1136,12 +1806,17 @@ public abstract class AbstractChannel implements IChannel {
                     else {
                         s = "Command is not recognized: " + cmd.service + "." + cmd.name;
                     }
-                    token.getListener().terminated(token, new ErrorReport(s, IErrorReport.TCF_ERROR_INV_COMMAND));
+                    ErrorReport error = new ErrorReport(s, IErrorReport.TCF_ERROR_INV_COMMAND);
+                    token.getListener().terminated(token, error);
+                    if (cmd.folded > 0) setFoldedResult(cmd, null, error);
+                    if (folded_commands.size() > 0) deliverFolded();
                 }
                 break;
             case 'E':
                 assert msg.service != null;
                 assert msg.name != null;
+                /* An event can change results of pending queries */
+                if (inflight_queries.size() > 0) inflight_queries.clear();
                 boolean hello = msg.service.equals(ILocator.NAME) && msg.name.equals("Hello");
                 if (hello) {
                     remote_service_by_name.clear();
@@ -1149,6 +1824,11 @@ public abstract class AbstractChannel implements IChannel {
                     ServiceManager.onChannelOpened(this, (Collection<String>)JSON.parseSequence(msg.data)[0], remote_service_by_name);
                     makeServiceByClassMap(remote_service_by_name, remote_service_by_class);
                     zero_copy = remote_service_by_name.containsKey("ZeroCopy");
+                    if (!compression_negotiated) {
+                        /* Compression is a property of the link, so Hello messages after redirect don't change it */
+                        compression_negotiated = true;
+                        compression = compression_offered && remote_service_by_name.containsKey(COMPRESSION);
+                    }
                 }
                 if (proxy != null && state == STATE_OPEN) {
                     proxy.onEvent(msg.service, msg.name, msg.data);
@@ -1197,6 +1877,7 @@ public abstract class AbstractChannel implements IChannel {
                 int len = msg.data.length;
                 if (len > 0 && msg.data[len - 1] == 0) len--;
                 remote_congestion_level = Integer.parseInt(new String(msg.data, 0, len, "ASCII"));
+                checkCongestion();
                 for (IChannelListener l : channel_listeners.toArray(
                         new IChannelListener[channel_listeners.size()])) {
                     try {
@@ -1239,20 +1920,16 @@ public abstract class AbstractChannel implements IChannel {
         int i = (level - local_congestion_level) / 8;
         if (i != 0) level = local_congestion_level + i;
         local_congestion_time = time;
-        synchronized (out_queue) {
-            Message msg = out_queue.isEmpty() ? null : out_queue.get(0);
-            if (msg == null || msg.type != 'F') {
-                msg = new Message('F');
-                out_queue.add(0, msg);
-                out_queue.notify();
-            }
-            StringBuilder buffer = new StringBuilder();
-            buffer.append(local_congestion_level);
-            buffer.append((char)0); // 0 terminate
-            msg.data = buffer.toString().getBytes("ASCII");
-            msg.trace = trace_listeners;
-            local_congestion_level = level;
-        }
+        Message msg = new Message('F');
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(local_congestion_level);
+        buffer.append((char)0); // 0 terminate
+        msg.data = buffer.toString().getBytes("ASCII");
+        msg.trace = trace_listeners;
+        local_congestion_level = level;
+        /* Replaces flow control message that is not sent yet, if any */
+        out_flow_control.set(msg);
+        onOutputPending();
     }
 
     /**
@@ -1263,6 +1940,22 @@ public abstract class AbstractChannel implements IChannel {
      */
     protected abstract int read() throws IOException;
 
+    /**
+     * Read a block of data bytes from the channel input stream.
+     * The method does not block and stops before any end of message or end of stream marker,
+     * it returns 0 if no data bytes are available without blocking. Caller should use read() in that case.
+     * Default implementation always returns 0, stream oriented channels are expected to override it.
+     * @param buf - buffer to store the bytes.
+     * @param pos - offset in the buffer.
+     * @param len - maximum number of bytes to read.
+     * @return number of bytes stored in the buffer.
+     * @throws IOException
+     * @since 1.7
+     */
+    protected int read(byte[] buf, int pos, int len) throws IOException {
+        return 0;
+    }
+
     /**
      * Write one byte into the channel output stream.
      * The method argument can be one of two special values:
@@ -1274,6 +1967,16 @@ public abstract class AbstractChannel implements IChannel {
      */
     protected abstract void write(int n) throws IOException;
 
+    /**
+     * Called by the transmitter thread before flush().
+     * Subclasses can override the method to flush their encoder state, for example, compression stream.
+     * Default implementation does nothing.
+     * @throws IOException
+     * @since 1.7
+     */
+    protected void prepareFlush() throws IOException {
+    }
+
     /**
      * Flush the channel output stream.
      * All buffered data should be transmitted immediately.
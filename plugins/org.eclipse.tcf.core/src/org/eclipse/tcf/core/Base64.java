@@ -109,6 +109,58 @@ public final class Base64 {
         return buf;
     }
 
+    /**
+     * Decode BASE64 string that is given as an array of ASCII characters,
+     * for example, a string in a JSON message that is not yet converted to Java string.
+     * @param inp - array of ASCII characters
+     * @param pos - position of the string in the array
+     * @param len - length of the string
+     * @return decoded bytes
+     * @since 1.7
+     */
+    public static byte[] toByteArray(byte[] inp, int pos, int len) {
+        if (len % 4 != 0) {
+            throw new IllegalArgumentException(
+                    "BASE64 string length must be a multiple of four.");
+        }
+        int end = pos + len;
+        int out_len = len / 4 * 3;
+        if (len > 0 && inp[end - 1] == '=') {
+            out_len--;
+            if (inp[end - 2] == '=') {
+                out_len--;
+            }
+        }
+        byte[] buf = new byte[out_len];
+        int out_pos = 0;
+        while (pos < end) {
+            int n0, n1, n2, n3;
+            int ch0 = inp[pos++] & 0xff;
+            int ch1 = inp[pos++] & 0xff;
+            int ch2 = inp[pos++] & 0xff;
+            int ch3 = inp[pos++] & 0xff;
+            if (ch0 >= char2int.length || (n0 = char2int[ch0]) < 0) {
+                throw new IllegalArgumentException("Illegal character " + ch0);
+            }
+            if (ch1 >= char2int.length || (n1 = char2int[ch1]) < 0) {
+                throw new IllegalArgumentException("Illegal character " + ch1);
+            }
+            buf[out_pos++] = (byte)((n0 << 2) | (n1 >> 4));
+            if (ch2 == '=') break;
+            if (ch2 >= char2int.length || (n2 = char2int[ch2]) < 0) {
+                throw new IllegalArgumentException("Illegal character " + ch2);
+            }
+            buf[out_pos++] = (byte)((n1 << 4) | (n2 >> 2));
+            if (ch3 == '=') break;
+            if (ch3 >= char2int.length || (n3 = char2int[ch3]) < 0) {
+                throw new IllegalArgumentException("Illegal character " + ch3);
+            }
+            buf[out_pos++] = (byte)((n2 << 6) | n3);
+        }
+        assert out_pos == out_len;
+        return buf;
+    }
+
     /*
      * See RFC 2045.
      */
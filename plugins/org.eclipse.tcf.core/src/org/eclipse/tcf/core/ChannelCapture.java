@@ -0,0 +1,557 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.util.TCFTraceBuffer;
+
+/**
+ * ChannelCapture records every message crossing a channel into a compact binary capture file.
+ * A record contains time, direction, message type, token, service, name and raw message data.
+ * Messages are captured by a trace listener into TCFTraceBuffer and written to the file by a background thread.
+ * If the buffer overflows, a record with number of dropped messages is written instead.
+ *
+ * Along with the capture file, an index file is written: file name + ".idx".
+ * The index contains file offsets of every 64th record, and of every command, by token,
+ * so a capture can be seeked quickly by time or by command token, see ChannelCapture.Reader.
+ *
+ * A capture can be played back by ChannelReplay.
+ *
+ * @since 1.7
+ */
+public class ChannelCapture implements AbstractChannel.TraceListener {
+
+    /** Index file name extension */
+    public static final String INDEX_FILE_EXT = ".idx";
+
+    /** Record kinds */
+    public static final char
+        RECORD_MESSAGE = 'M',
+        RECORD_CLOSED = 'X',
+        RECORD_DROPPED = 'D';
+
+    private static final byte[] MAGIC = { 'T', 'C', 'F', 'C', 'A', 'P', 0, 1 };
+
+    private static final int INDEX_INTERVAL = 64;
+
+    private static final int BUFFER_SIZE = 0x10000;
+
+    private static final Executor executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "TCF Channel Capture");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Capture record.
+     */
+    public static class Record {
+        /** Record kind: RECORD_MESSAGE, RECORD_CLOSED or RECORD_DROPPED */
+        public char kind;
+        /** Time in milliseconds since capture start */
+        public long time;
+        /** Offset of the record in the capture file */
+        public long offset;
+        /** true if the message was received from the remote peer */
+        public boolean received;
+        /** Message type: 'C', 'R', 'P', 'N', 'E' or 'F' */
+        public char type;
+        public String token;
+        public String service;
+        public String name;
+        public byte[] data;
+        /** Error message of RECORD_CLOSED, or null */
+        public String error;
+        /** Number of dropped messages for RECORD_DROPPED */
+        public long dropped;
+
+        @Override
+        public String toString() {
+            StringBuffer bf = new StringBuffer();
+            bf.append('[');
+            bf.append(time);
+            bf.append(' ');
+            bf.append(kind);
+            if (kind == RECORD_MESSAGE) {
+                bf.append(received ? " <- " : " -> ");
+                bf.append(type);
+                if (token != null) bf.append(' ').append(token);
+                if (service != null) bf.append(' ').append(service);
+                if (name != null) bf.append(' ').append(name);
+            }
+            bf.append(']');
+            return bf.toString();
+        }
+    }
+
+    private final File file;
+    private final TCFTraceBuffer buffer;
+
+    /* Writer state, accessed only by the executor thread */
+    private DataOutputStream out;
+    private DataOutputStream idx;
+    private long out_pos;
+    private final long start_time;
+    private long record_cnt;
+    private boolean closed;
+    private final CountDownLatch files_closed = new CountDownLatch(1);
+
+    /* The channel of attach(), accessed only by the dispatch thread */
+    private AbstractChannel channel;
+
+    /**
+     * Create a capture file. Use AbstractChannel.addTraceListener() to start capturing messages of a channel.
+     * The file is created by the capture writer thread, errors are reported by Protocol.log().
+     * @param file - the capture file, existing file is overwritten.
+     */
+    public ChannelCapture(final File file) {
+        this.file = file;
+        start_time = System.currentTimeMillis();
+        buffer = new TCFTraceBuffer(BUFFER_SIZE, executor, new TCFTraceBuffer.Consumer() {
+            public void onRecord(TCFTraceBuffer.Record r) {
+                try {
+                    if (r.type == RECORD_CLOSED) {
+                        if (closed) return;
+                        Throwable error = (Throwable)r.arg;
+                        writeHeader(RECORD_CLOSED, r.time);
+                        writeString(error == null ? null : error.toString());
+                        closeFiles();
+                    }
+                    else if (!closed) {
+                        if (r.type == 'C' || record_cnt % INDEX_INTERVAL == 0) writeIndex(r);
+                        writeHeader(RECORD_MESSAGE, r.time);
+                        write(r.received ? 1 : 0);
+                        write(r.type);
+                        writeString(r.token);
+                        writeString(r.service);
+                        writeString(r.name);
+                        writeBytes(r.data);
+                    }
+                }
+                catch (IOException x) {
+                    Protocol.log("Cannot write channel capture file " + ChannelCapture.this.file, x);
+                    closeFiles();
+                }
+            }
+
+            public void onBatchDone(long dropped) {
+                try {
+                    if (dropped > 0 && !closed) {
+                        writeHeader(RECORD_DROPPED, System.currentTimeMillis());
+                        writeNumber(dropped);
+                    }
+                    if (!closed) out.flush();
+                }
+                catch (IOException x) {
+                    Protocol.log("Cannot write channel capture file " + ChannelCapture.this.file, x);
+                    closeFiles();
+                }
+            }
+        });
+        /* The executor runs tasks in order, so the files are open before any record is written */
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    openFiles();
+                }
+                catch (IOException x) {
+                    Protocol.log("Cannot create channel capture file " + file, x);
+                    closeFiles();
+                }
+            }
+        });
+    }
+
+    /**
+     * Create a capture file and start capturing messages of a channel.
+     * @param channel - the channel.
+     * @param file - the capture file, existing file is overwritten.
+     * @return capture object.
+     */
+    public static ChannelCapture start(AbstractChannel channel, File file) {
+        assert Protocol.isDispatchThread();
+        ChannelCapture c = new ChannelCapture(file);
+        c.attach(channel);
+        return c;
+    }
+
+    /**
+     * Start capturing messages of a channel.
+     * The capture is removed from trace listeners of the channel by close().
+     * Must be called from the dispatch thread.
+     * @param channel - the channel.
+     */
+    public void attach(AbstractChannel channel) {
+        assert Protocol.isDispatchThread();
+        assert this.channel == null;
+        channel.addTraceListener(this);
+        this.channel = channel;
+    }
+
+    /**
+     * Stop capturing and close the capture file.
+     * If the capture was started by start() or attach(), it is removed from trace listeners of the channel,
+     * in that case the method must be called from the dispatch thread.
+     * Messages captured before this call are still written to the file.
+     */
+    public void close() {
+        if (channel != null) {
+            assert Protocol.isDispatchThread();
+            channel.removeTraceListener(this);
+            channel = null;
+        }
+        onChannelClosed(null);
+    }
+
+    /**
+     * Wait until the capture file is written and closed, after close() or after the channel is closed.
+     * @param timeout - max time to wait in milliseconds.
+     * @return true if the file is closed.
+     * @throws InterruptedException
+     */
+    public boolean waitClosed(long timeout) throws InterruptedException {
+        return files_closed.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the capture file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of messages dropped because the capture writer could not keep up.
+     */
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    public void onMessageReceived(char type, String token, String service, String name, byte[] data) {
+        buffer.add(this, type, true, token, service, name, data);
+    }
+
+    public void onMessageSent(char type, String token, String service, String name, byte[] data) {
+        buffer.add(this, type, false, token, service, name, data);
+    }
+
+    public void onChannelClosed(Throwable error) {
+        /* The close record must not be dropped, it is queued out of band if the buffer is full */
+        buffer.addReliable(this, RECORD_CLOSED, error);
+    }
+
+    private void writeIndex(TCFTraceBuffer.Record r) throws IOException {
+        if (r.type == 'C' && r.token != null) {
+            idx.write('C');
+            idx.writeLong(r.time - start_time);
+            idx.writeLong(out_pos);
+            idx.writeUTF(r.token);
+        }
+        else {
+            idx.write('T');
+            idx.writeLong(r.time - start_time);
+            idx.writeLong(out_pos);
+        }
+    }
+
+    private void writeHeader(char kind, long time) throws IOException {
+        write(kind);
+        writeNumber(Math.max(0, time - start_time));
+        record_cnt++;
+    }
+
+    private void write(int n) throws IOException {
+        out.write(n);
+        out_pos++;
+    }
+
+    private void writeNumber(long n) throws IOException {
+        while ((n & ~0x7fL) != 0) {
+            write((int)(n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        write((int)n);
+    }
+
+    private void writeBytes(byte[] b) throws IOException {
+        if (b == null) {
+            writeNumber(0);
+            return;
+        }
+        writeNumber(b.length + 1);
+        out.write(b);
+        out_pos += b.length;
+    }
+
+    private void writeString(String s) throws IOException {
+        writeBytes(s == null ? null : s.getBytes("UTF-8"));
+    }
+
+    private void openFiles() throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 0x10000));
+        idx = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.getPath() + INDEX_FILE_EXT)));
+        out.write(MAGIC);
+        out.writeLong(start_time);
+        out_pos = MAGIC.length + 8;
+        idx.write(MAGIC);
+    }
+
+    private void closeFiles() {
+        if (closed) return;
+        closed = true;
+        closeFile(out);
+        closeFile(idx);
+        files_closed.countDown();
+    }
+
+    private void closeFile(Closeable stream) {
+        if (stream == null) return;
+        try {
+            stream.close();
+        }
+        catch (IOException x) {
+            Protocol.log("Cannot close channel capture file " + file, x);
+        }
+    }
+
+    /**
+     * Capture file reader.
+     * Records are read sequentially; the reader can be positioned by time or by command token,
+     * using the index file. If the index file is missing, the index is built by scanning the capture.
+     */
+    public static class Reader implements Closeable {
+
+        private final File file;
+        private final long start_time;
+        private final List<long[]> time_index = new ArrayList<long[]>();
+        private final Map<String,Long> token_index = new HashMap<String,Long>();
+        private FileInputStream file_inp;
+        private DataInputStream inp;
+        private long inp_pos;
+        private boolean index_loaded;
+
+        public Reader(File file) throws IOException {
+            this.file = file;
+            file_inp = new FileInputStream(file);
+            inp = new DataInputStream(new BufferedInputStream(file_inp, 0x10000));
+            byte[] magic = new byte[MAGIC.length];
+            inp.readFully(magic);
+            for (int i = 0; i < magic.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    close();
+                    throw new IOException("Invalid channel capture file: " + file);
+                }
+            }
+            start_time = inp.readLong();
+            inp_pos = MAGIC.length + 8;
+        }
+
+        /**
+         * @return capture start time, as returned by System.currentTimeMillis().
+         */
+        public long getStartTime() {
+            return start_time;
+        }
+
+        /**
+         * Read next record.
+         * @return the record or null at end of the capture.
+         * A truncated last record, for example, of a capture that was not closed properly, is treated as end of the capture.
+         * @throws IOException
+         */
+        public Record next() throws IOException {
+            Record r = new Record();
+            r.offset = inp_pos;
+            try {
+                int kind = inp.read();
+                if (kind < 0) return null;
+                inp_pos++;
+                r.kind = (char)kind;
+                r.time = readNumber();
+                switch (r.kind) {
+                case RECORD_MESSAGE:
+                    r.received = readByte() != 0;
+                    r.type = (char)readByte();
+                    r.token = readString();
+                    r.service = readString();
+                    r.name = readString();
+                    r.data = readBytes();
+                    break;
+                case RECORD_CLOSED:
+                    r.error = readString();
+                    break;
+                case RECORD_DROPPED:
+                    r.dropped = readNumber();
+                    break;
+                default:
+                    throw new IOException("Invalid channel capture record at " + r.offset);
+                }
+            }
+            catch (EOFException x) {
+                return null;
+            }
+            return r;
+        }
+
+        /**
+         * Position the reader at the first record with time greater or equal to given time.
+         * @param time - time in milliseconds since capture start.
+         * @throws IOException
+         */
+        public void seek(long time) throws IOException {
+            loadIndex();
+            long pos = MAGIC.length + 8;
+            int l = 0;
+            int h = time_index.size() - 1;
+            while (l <= h) {
+                int m = (l + h) >>> 1;
+                long[] e = time_index.get(m);
+                if (e[0] < time) {
+                    pos = e[1];
+                    l = m + 1;
+                }
+                else {
+                    h = m - 1;
+                }
+            }
+            setPosition(pos);
+            for (;;) {
+                Record r = next();
+                if (r == null) return;
+                if (r.time >= time) {
+                    setPosition(r.offset);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Position the reader at the command with given token.
+         * @param token - command token ID.
+         * @return true if the command is found.
+         * @throws IOException
+         */
+        public boolean seekToken(String token) throws IOException {
+            loadIndex();
+            Long pos = token_index.get(token);
+            if (pos == null) return false;
+            setPosition(pos.longValue());
+            return true;
+        }
+
+        public void close() throws IOException {
+            inp.close();
+        }
+
+        private void loadIndex() throws IOException {
+            if (index_loaded) return;
+            index_loaded = true;
+            File f = new File(file.getPath() + INDEX_FILE_EXT);
+            if (f.exists()) {
+                DataInputStream idx = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+                try {
+                    byte[] magic = new byte[MAGIC.length];
+                    idx.readFully(magic);
+                    for (;;) {
+                        int kind = idx.read();
+                        if (kind < 0) break;
+                        long time = idx.readLong();
+                        long pos = idx.readLong();
+                        time_index.add(new long[]{ time, pos });
+                        if (kind == 'C') token_index.put(idx.readUTF(), pos);
+                    }
+                    return;
+                }
+                catch (EOFException x) {
+                    /* Truncated index, the last entries are ignored */
+                    return;
+                }
+                finally {
+                    idx.close();
+                }
+            }
+            /* No index file, build the index by scanning the capture */
+            long pos = inp_pos;
+            setPosition(MAGIC.length + 8);
+            int cnt = 0;
+            for (;;) {
+                Record r = next();
+                if (r == null) break;
+                if (cnt++ % INDEX_INTERVAL == 0) time_index.add(new long[]{ r.time, r.offset });
+                if (r.kind == RECORD_MESSAGE && r.type == 'C' && r.token != null) {
+                    token_index.put(r.token, r.offset);
+                }
+            }
+            setPosition(pos);
+        }
+
+        private void setPosition(long pos) throws IOException {
+            file_inp.getChannel().position(pos);
+            inp = new DataInputStream(new BufferedInputStream(file_inp, 0x10000));
+            inp_pos = pos;
+        }
+
+        private int readByte() throws IOException {
+            int n = inp.read();
+            if (n < 0) throw new EOFException();
+            inp_pos++;
+            return n;
+        }
+
+        private long readNumber() throws IOException {
+            long n = 0;
+            int shift = 0;
+            for (;;) {
+                int b = readByte();
+                n |= (long)(b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return n;
+                shift += 7;
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            long n = readNumber();
+            if (n == 0) return null;
+            byte[] b = new byte[(int)(n - 1)];
+            inp.readFully(b);
+            inp_pos += b.length;
+            return b;
+        }
+
+        private String readString() throws IOException {
+            byte[] b = readBytes();
+            if (b == null) return null;
+            return new String(b, "UTF-8");
+        }
+    }
+}
@@ -0,0 +1,680 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.tcf.internal.core.ChannelSelector;
+import org.eclipse.tcf.internal.core.Token;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * ChannelNIO is a TCP channel that does all I/O asynchronously in shared selector threads,
+ * see ChannelSelector. Unlike ChannelTCP, it does not need a connect thread and a pair
+ * of receiver and transmitter threads per connection.
+ * The channel uses same message framing on the wire as StreamChannel.
+ *
+ * Selector threads only split the input into messages. Received messages are passed to the channel,
+ * including decoding of command results, by a small pool of decoder threads, in order of arrival,
+ * so a large reply does not delay other channels of the selector thread. While more than
+ * MAX_INPUT_PENDING bytes of received messages are waiting for decoder threads, the channel
+ * stops reading the socket.
+ *
+ * Note: the channel does not support SSL.
+ * @since 1.7
+ */
+public class ChannelNIO extends AbstractChannel {
+
+    private static final int ESC = StreamChannel.ESC;
+
+    /* Message decoder states */
+    private static final int
+        M_TYPE = 0,
+        M_SEP = 1,
+        M_FIELD = 2,
+        M_DATA = 3,
+        M_EOS = 4,
+        M_DONE = 5;
+
+    /**
+     * Max number of bytes of received messages waiting for a decoder thread,
+     * reading is resumed when half of them are processed.
+     */
+    private static final int MAX_INPUT_PENDING = 0x100000;
+
+    private static final Executor decoder = createDecoder();
+
+    private final ChannelSelector selector;
+    private volatile SocketChannel socket;
+    private volatile SelectionKey key;
+    private int timeout;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    private final AtomicBoolean out_scheduled = new AtomicBoolean();
+    private final ByteBuffer inp_buf = ByteBuffer.allocate(0x10000);
+    private final ByteBuffer out_buf = ByteBuffer.allocateDirect(0x10000);
+
+    /* Receiver state, accessed only by the selector thread */
+    private int esc_state;
+    private int bin_data_size;
+    private int bin_data_acc;
+    private int bin_data_shift;
+    private int msg_state;
+    private int msg_fields;
+    private int msg_field;
+    private Message msg;
+    private byte[] fld_buf = new byte[0x400];
+    private int fld_len;
+
+    /* Received messages waiting for a decoder thread */
+    private final Queue<Input> inp_queue = new ConcurrentLinkedQueue<Input>();
+    private final AtomicInteger inp_pending = new AtomicInteger();
+    private final AtomicBoolean inp_scheduled = new AtomicBoolean();
+    private final AtomicBoolean inp_throttled = new AtomicBoolean();
+
+    /* Transmitter state, accessed only by the selector thread */
+    private byte[] enc_buf = new byte[0x4000];
+    private final byte[] tkn_buf = new byte[16];
+    private int enc_pos;
+    private int enc_len;
+    private boolean eos_sent;
+    private boolean out_done;
+
+    private final ChannelSelector.Handler handler = new ChannelSelector.Handler() {
+        public void ready(SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    socket.finishConnect();
+                    key.interestOps(0);
+                    onSocketConnected(null);
+                    return;
+                }
+                if (key.isReadable()) doInput();
+                if (key.isValid() && key.isWritable()) doOutput();
+            }
+            catch (Throwable x) {
+                key.cancel();
+                if (!started) onSocketConnected(x);
+                else if (!closed) dispatchError(x);
+            }
+        }
+    };
+
+    /**
+     * Received message, or end of stream if msg is null.
+     */
+    private static class Input {
+        final Message msg;
+        final byte[] eos;
+        final int size;
+
+        Input(Message msg, byte[] eos, int size) {
+            this.msg = msg;
+            this.eos = eos;
+            this.size = size;
+        }
+    }
+
+    private final Runnable input_task = new Runnable() {
+        public void run() {
+            for (;;) {
+                Input i = inp_queue.poll();
+                if (i == null) {
+                    inp_scheduled.set(false);
+                    /* Re-check, a message could be queued after poll() */
+                    if (inp_queue.isEmpty() || !inp_scheduled.compareAndSet(false, true)) return;
+                    continue;
+                }
+                try {
+                    if (i.msg != null) dispatchInput(i.msg);
+                    else dispatchEndOfStream(i.eos);
+                }
+                catch (Throwable x) {
+                    if (!closed) dispatchError(x);
+                }
+                int n = inp_pending.addAndGet(-i.size);
+                if (n <= MAX_INPUT_PENDING / 2 && inp_throttled.compareAndSet(true, false)) {
+                    selector.invokeLater(resume_input);
+                }
+            }
+        }
+    };
+
+    private final Runnable resume_input = new Runnable() {
+        public void run() {
+            SelectionKey key = ChannelNIO.this.key;
+            if (closed || msg_state == M_DONE || !key.isValid()) return;
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    };
+
+    private final Runnable output_task = new Runnable() {
+        public void run() {
+            out_scheduled.set(false);
+            try {
+                doOutput();
+            }
+            catch (Throwable x) {
+                if (!closed) dispatchError(x);
+            }
+        }
+    };
+
+    /**
+     * Construct a channel and connect it to a remote peer.
+     * @param remote_peer - remote peer to which we want to connect
+     * @param host - host name or IP address of the remote peer
+     * @param port - port of the remote peer
+     */
+    public ChannelNIO(IPeer remote_peer, final String host, final int port) {
+        super(remote_peer);
+        ChannelSelector s = null;
+        try {
+            s = ChannelSelector.getSelector();
+        }
+        catch (final IOException x) {
+            onSocketConnected(x);
+        }
+        selector = s;
+        if (selector == null) return;
+        Protocol.invokeLater(new Runnable() {
+            public void run() {
+                if (timeout > 0) {
+                    Protocol.invokeLater(timeout, new Runnable() {
+                        public void run() {
+                            if (!started && !closed) terminate(new IOException("Connect timed out"));
+                        }
+                    });
+                }
+                selector.invokeLater(new Runnable() {
+                    public void run() {
+                        try {
+                            socket = SocketChannel.open();
+                            socket.socket().setTcpNoDelay(true);
+                            socket.socket().setKeepAlive(true);
+                            key = selector.register(socket, 0, handler);
+                            if (socket.connect(new InetSocketAddress(host, port))) {
+                                onSocketConnected(null);
+                            }
+                            else {
+                                key.interestOps(SelectionKey.OP_CONNECT);
+                            }
+                        }
+                        catch (Throwable x) {
+                            onSocketConnected(x);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Construct a channel for already connected socket.
+     * @param local_peer - local peer
+     * @param remote_peer - remote peer
+     * @param socket - connected socket channel
+     * @throws IOException
+     */
+    public ChannelNIO(IPeer local_peer, IPeer remote_peer, final SocketChannel socket) throws IOException {
+        super(local_peer, remote_peer);
+        this.socket = socket;
+        socket.socket().setTcpNoDelay(true);
+        socket.socket().setKeepAlive(true);
+        selector = ChannelSelector.getSelector();
+        selector.invokeLater(new Runnable() {
+            public void run() {
+                try {
+                    key = selector.register(socket, 0, handler);
+                    onSocketConnected(null);
+                }
+                catch (Throwable x) {
+                    onSocketConnected(x);
+                }
+            }
+        });
+    }
+
+    public void setConnectTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    private void onSocketConnected(final Throwable x) {
+        Protocol.invokeLater(new Runnable() {
+            public void run() {
+                if (x != null) {
+                    terminate(x);
+                    closed = true;
+                }
+                if (closed) {
+                    try {
+                        if (socket != null) socket.close();
+                    }
+                    catch (IOException y) {
+                        Protocol.log("Cannot close socket", y);
+                    }
+                }
+                else {
+                    started = true;
+                    start();
+                }
+            }
+        });
+    }
+
+    private static Executor createDecoder() {
+        int n = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor e = new ThreadPoolExecutor(n, n, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            int cnt;
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "TCF Channel Decoder " + cnt++);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        e.allowCoreThreadTimeOut(true);
+        return e;
+    }
+
+    @Override
+    protected void startIO() {
+        selector.invokeLater(new Runnable() {
+            public void run() {
+                if (closed || !key.isValid()) return;
+                key.interestOps(SelectionKey.OP_READ);
+                output_task.run();
+            }
+        });
+    }
+
+    @Override
+    protected void onOutputPending() {
+        if (started && out_scheduled.compareAndSet(false, true)) {
+            selector.invokeLater(output_task);
+        }
+    }
+
+    private void doInput() throws IOException {
+        int rd = socket.read(inp_buf);
+        if (rd < 0) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            if (msg_state != M_DONE) {
+                msg_state = M_DONE;
+                addInput(new Input(null, null, 0));
+            }
+            return;
+        }
+        byte[] buf = inp_buf.array();
+        int pos = 0;
+        int end = inp_buf.position();
+        while (pos < end && msg_state != M_DONE) {
+            if (bin_data_size > 0) {
+                if (msg_state == M_DATA) {
+                    /* Zero-copy binary data is copied as is */
+                    int n = Math.min(end - pos, bin_data_size);
+                    addInputBytes(buf, pos, n);
+                    bin_data_size -= n;
+                    pos += n;
+                }
+                else {
+                    bin_data_size--;
+                    onInputByte(buf[pos++] & 0xff);
+                }
+                continue;
+            }
+            if (esc_state == 0 && msg_state >= M_FIELD) {
+                /* Copy a run of bytes up to next escape sequence or field separator */
+                int i = pos;
+                if (msg_state == M_FIELD) {
+                    while (i < end && buf[i] != ESC && buf[i] != 0) i++;
+                }
+                else {
+                    while (i < end && buf[i] != ESC) i++;
+                }
+                if (i > pos) {
+                    addInputBytes(buf, pos, i - pos);
+                    pos = i;
+                    continue;
+                }
+            }
+            int b = buf[pos++] & 0xff;
+            switch (esc_state) {
+            case 0:
+                if (b == ESC) esc_state = 1;
+                else onInputByte(b);
+                break;
+            case 1:
+                esc_state = 0;
+                switch (b) {
+                case 0: onInputByte(ESC); break;
+                case 1: onInputByte(EOM); break;
+                case 2: onInputByte(EOS); break;
+                case 3:
+                    esc_state = 2;
+                    bin_data_acc = 0;
+                    bin_data_shift = 0;
+                    break;
+                default:
+                    throw new IOException("Invalid escape sequence: " + ESC + " " + b);
+                }
+                break;
+            case 2:
+                bin_data_acc |= (b & 0x7f) << bin_data_shift;
+                bin_data_shift += 7;
+                if ((b & 0x80) == 0) {
+                    bin_data_size = bin_data_acc;
+                    esc_state = 0;
+                }
+                break;
+            }
+        }
+        inp_buf.clear();
+    }
+
+    /**
+     * Queue a received message for a decoder thread.
+     * Stop reading the socket if too much data is waiting.
+     */
+    private void addInput(Input i) {
+        inp_queue.add(i);
+        int n = inp_pending.addAndGet(i.size);
+        if (inp_scheduled.compareAndSet(false, true)) decoder.execute(input_task);
+        if (n > MAX_INPUT_PENDING && inp_throttled.compareAndSet(false, true)) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            /* Decoder threads could catch up before the flag was set */
+            if (inp_pending.get() <= MAX_INPUT_PENDING / 2 && inp_throttled.compareAndSet(true, false)) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void onInputByte(int b) throws IOException {
+        switch (msg_state) {
+        case M_TYPE:
+            if (b == EOM) return;
+            if (b == EOS) {
+                fld_len = 0;
+                msg_state = M_EOS;
+                return;
+            }
+            switch (b) {
+            case 'C': msg_fields = 3; break;
+            case 'P':
+            case 'R':
+            case 'N': msg_fields = 1; break;
+            case 'E': msg_fields = 2; break;
+            case 'F': msg_fields = 0; break;
+            default: throw new IOException("Protocol syntax error");
+            }
+            msg = new Message((char)b);
+            msg_field = 0;
+            msg_state = M_SEP;
+            return;
+        case M_SEP:
+            if (b != 0) throw new IOException("Protocol syntax error");
+            fld_len = 0;
+            msg_state = msg_fields > 0 ? M_FIELD : M_DATA;
+            return;
+        case M_FIELD:
+            if (b < 0) throw inputError(b);
+            if (b != 0) {
+                addInputByte(b);
+                return;
+            }
+            setMessageField();
+            fld_len = 0;
+            if (++msg_field == msg_fields) msg_state = M_DATA;
+            return;
+        case M_DATA:
+            if (b == EOM) {
+                msg.data = getInputBytes();
+                Message m = msg;
+                msg = null;
+                msg_state = M_TYPE;
+                addInput(new Input(m, null, m.data.length));
+                return;
+            }
+            if (b < 0) throw inputError(b);
+            addInputByte(b);
+            return;
+        case M_EOS:
+            if (b == EOM) {
+                msg_state = M_DONE;
+                addInput(new Input(null, getInputBytes(), 0));
+                return;
+            }
+            if (b >= 0) addInputByte(b);
+            return;
+        }
+    }
+
+    private IOException inputError(int b) {
+        if (b == EOM) return new IOException("Unexpected end of message");
+        return new IOException("Communication channel is closed by remote peer");
+    }
+
+    private void addInputByte(int b) {
+        if (fld_len >= fld_buf.length) {
+            byte[] tmp = new byte[fld_buf.length * 2];
+            System.arraycopy(fld_buf, 0, tmp, 0, fld_len);
+            fld_buf = tmp;
+        }
+        fld_buf[fld_len++] = (byte)b;
+    }
+
+    private void addInputBytes(byte[] buf, int pos, int len) {
+        if (fld_len + len > fld_buf.length) {
+            int size = fld_buf.length * 2;
+            while (size < fld_len + len) size *= 2;
+            byte[] tmp = new byte[size];
+            System.arraycopy(fld_buf, 0, tmp, 0, fld_len);
+            fld_buf = tmp;
+        }
+        System.arraycopy(buf, pos, fld_buf, fld_len, len);
+        fld_len += len;
+    }
+
+    private byte[] getInputBytes() {
+        byte[] res = new byte[fld_len];
+        System.arraycopy(fld_buf, 0, res, 0, fld_len);
+        return res;
+    }
+
+    private void setMessageField() throws IOException {
+        if (msg.type == 'E') {
+            if (msg_field == 0) msg.service = new String(fld_buf, 0, fld_len, "UTF-8");
+            else msg.name = new String(fld_buf, 0, fld_len, "UTF-8");
+        }
+        else if (msg_field == 0) {
+            msg.token = Token.valueOf(fld_buf, 0, fld_len);
+        }
+        else if (msg_field == 1) {
+            msg.service = new String(fld_buf, 0, fld_len, "UTF-8");
+        }
+        else {
+            msg.name = new String(fld_buf, 0, fld_len, "UTF-8");
+        }
+    }
+
+    private void doOutput() throws IOException {
+        if (out_done || closed || key == null || !key.isValid()) return;
+        for (;;) {
+            /* Transmit pending bytes */
+            while (enc_pos < enc_len || out_buf.position() > 0) {
+                int n = Math.min(out_buf.remaining(), enc_len - enc_pos);
+                out_buf.put(enc_buf, enc_pos, n);
+                enc_pos += n;
+                out_buf.flip();
+                socket.write(out_buf);
+                boolean full = out_buf.hasRemaining();
+                out_buf.compact();
+                if (full) {
+                    /* Socket buffer is full, continue when it becomes writable */
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            enc_pos = 0;
+            enc_len = 0;
+            if (eos_sent) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                out_done = true;
+                outputClosed();
+                return;
+            }
+            if (isOutputClosing()) {
+                addOutputEscape(2);
+                addOutputEscape(1);
+                eos_sent = true;
+                continue;
+            }
+            /* Encode a batch of queued messages */
+            while (enc_len < 0x10000) {
+                Message m = pollOutput();
+                if (m == null) break;
+                encodeMessage(m);
+            }
+            if (enc_len == 0) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    private void encodeMessage(Message m) throws IOException {
+        addOutputByte(m.type);
+        addOutputByte(0);
+        if (m.token != null) {
+            int pos = m.token.writeBytes(tkn_buf, 0);
+            if (pos < 0) addOutputString(m.token.getBytes());
+            else addOutputString(tkn_buf, pos);
+        }
+        if (m.service != null) addOutputString(m.service.getBytes("UTF-8"));
+        if (m.name != null) addOutputString(m.name.getBytes("UTF-8"));
+        if (m.data != null) {
+            byte[] buf = m.data;
+            int len = buf.length;
+            if (len > 32 && isZeroCopySupported()) {
+                addOutputEscape(3);
+                int n = len;
+                for (;;) {
+                    if (n <= 0x7f) {
+                        addOutputRaw(n);
+                        break;
+                    }
+                    addOutputRaw((n & 0x7f) | 0x80);
+                    n = n >> 7;
+                }
+                ensureOutputSpace(len);
+                System.arraycopy(buf, 0, enc_buf, enc_len, len);
+                enc_len += len;
+            }
+            else {
+                ensureOutputSpace(len * 2);
+                int pos = 0;
+                while (pos < len) {
+                    int i = pos;
+                    while (i < len && buf[i] != ESC) i++;
+                    System.arraycopy(buf, pos, enc_buf, enc_len, i - pos);
+                    enc_len += i - pos;
+                    pos = i;
+                    if (pos < len) {
+                        enc_buf[enc_len++] = ESC;
+                        enc_buf[enc_len++] = 0;
+                        pos++;
+                    }
+                }
+            }
+        }
+        addOutputEscape(1);
+    }
+
+    private void ensureOutputSpace(int n) {
+        if (enc_len + n <= enc_buf.length) return;
+        int size = enc_buf.length * 2;
+        while (size < enc_len + n) size *= 2;
+        byte[] tmp = new byte[size];
+        System.arraycopy(enc_buf, 0, tmp, 0, enc_len);
+        enc_buf = tmp;
+    }
+
+    private void addOutputRaw(int b) {
+        ensureOutputSpace(1);
+        enc_buf[enc_len++] = (byte)b;
+    }
+
+    private void addOutputByte(int b) {
+        ensureOutputSpace(2);
+        enc_buf[enc_len++] = (byte)b;
+        if (b == ESC) enc_buf[enc_len++] = 0;
+    }
+
+    private void addOutputEscape(int n) {
+        ensureOutputSpace(2);
+        enc_buf[enc_len++] = ESC;
+        enc_buf[enc_len++] = (byte)n;
+    }
+
+    private void addOutputString(byte[] s) {
+        addOutputString(s, s.length);
+    }
+
+    private void addOutputString(byte[] s, int len) {
+        for (int i = 0; i < len; i++) addOutputByte(s[i] & 0xff);
+        addOutputByte(0);
+    }
+
+    /*
+     * ChannelNIO does all I/O in selector threads, so blocking stream methods are not used.
+     */
+
+    @Override
+    protected final int read() throws IOException {
+        throw new IOException("Blocking read is not supported");
+    }
+
+    @Override
+    protected final void write(int n) throws IOException {
+        throw new IOException("Blocking write is not supported");
+    }
+
+    @Override
+    protected final void flush() throws IOException {
+        throw new IOException("Blocking flush is not supported");
+    }
+
+    @Override
+    protected void stop() throws IOException {
+        closed = true;
+        if (socket != null) socket.close();
+        if (selector != null) selector.invokeLater(new Runnable() {
+            public void run() {
+                /* Selector must process the key cancellation to release the socket */
+            }
+        });
+    }
+}
@@ -107,6 +107,12 @@ public class ChannelPIPE extends StreamChannel {
         out.write(buf);
     }
 
+    @Override
+    protected final void put(byte[] buf, int pos, int len) throws IOException {
+        if (closed) return;
+        out.write(buf, pos, len);
+    }
+
     @Override
     protected final void flush() throws IOException {
         if (closed) return;
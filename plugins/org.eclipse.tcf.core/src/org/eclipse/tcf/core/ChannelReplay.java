@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.eclipse.tcf.internal.core.Token;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * ChannelReplay plays back a capture file recorded by ChannelCapture.
+ * The channel takes the role of the remote peer: messages that were received in the capture
+ * are delivered to the client, messages sent by the client are consumed.
+ *
+ * Commands sent by the client are matched to the commands of the capture by service and command name,
+ * in order of sending. Replies and progress messages are delivered with the token of the matching client command,
+ * and are held back until the client has sent that command. Replies to commands that are not in the capture,
+ * for example, because they were sent before capturing started, are skipped. If the client does not send
+ * a matching command within the command timeout, COMMAND_TIMEOUT by default, the reply is skipped too.
+ *
+ * Events are delivered at their original timing, scaled by replay speed, or as fast as possible
+ * if the speed is 0. At the end of the capture the channel is closed.
+ *
+ * Replay channels are opened by "Replay" transport, using peer attributes
+ * ATTR_CAPTURE_FILE and ATTR_REPLAY_SPEED.
+ *
+ * @since 1.7
+ */
+public class ChannelReplay extends AbstractChannel {
+
+    /** Peer attribute: path of the capture file */
+    public static final String ATTR_CAPTURE_FILE = "CaptureFile";
+
+    /** Peer attribute: replay speed factor, 1 - original timing, 0 - as fast as possible */
+    public static final String ATTR_REPLAY_SPEED = "ReplaySpeed";
+
+    /** Default max time in milliseconds to wait for the client to send a command that matches a reply of the capture */
+    public static final long COMMAND_TIMEOUT = 60000;
+
+    private final ChannelCapture.Reader reader;
+    private final double speed;
+    private final long command_timeout;
+    private final Object lock = new Object();
+    private final Thread thread;
+    private boolean output_pending;
+    private boolean closed;
+
+    /* Replay thread state */
+    private final Map<String,LinkedList<String>> client_cmds = new HashMap<String,LinkedList<String>>();
+    private final Map<String,LinkedList<String>> capture_cmds = new HashMap<String,LinkedList<String>>();
+    private final Map<String,String> token_map = new HashMap<String,String>();
+    private long time_base = -1;
+    private long replay_start;
+    private boolean eos_sent;
+    private boolean dropped_logged;
+    private boolean skipped_logged;
+
+    public ChannelReplay(IPeer remote_peer, File file, double speed) throws IOException {
+        this(remote_peer, file, speed, COMMAND_TIMEOUT);
+    }
+
+    /**
+     * @param remote_peer - the peer that the channel stands for.
+     * @param file - the capture file.
+     * @param speed - replay speed factor, 1 - original timing, 0 - as fast as possible.
+     * @param command_timeout - max time in milliseconds to wait for the client to send a command
+     * that matches a reply of the capture.
+     * @throws IOException
+     */
+    public ChannelReplay(IPeer remote_peer, File file, double speed, long command_timeout) throws IOException {
+        super(remote_peer);
+        reader = new ChannelCapture.Reader(file);
+        this.speed = speed;
+        this.command_timeout = command_timeout;
+        thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    replay();
+                }
+                catch (Throwable x) {
+                    if (!isClosed()) dispatchError(x);
+                }
+            }
+        };
+        thread.setName("TCF Channel Replay");
+        thread.setDaemon(true);
+        start();
+    }
+
+    @Override
+    protected void startIO() {
+        thread.start();
+    }
+
+    @Override
+    protected void onOutputPending() {
+        synchronized (lock) {
+            output_pending = true;
+            lock.notifyAll();
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private void replay() throws IOException {
+        for (;;) {
+            ChannelCapture.Record r = reader.next();
+            if (r == null || r.kind == ChannelCapture.RECORD_CLOSED) break;
+            if (r.kind == ChannelCapture.RECORD_DROPPED) {
+                if (!dropped_logged) {
+                    dropped_logged = true;
+                    Protocol.log("Channel capture is incomplete, " + r.dropped + " messages were dropped", null);
+                }
+                continue;
+            }
+            if (!r.received) {
+                if (r.type == 'C' && r.token != null) {
+                    addCommand(capture_cmds, client_cmds, r.service + '.' + r.name, r.token, true);
+                }
+                continue;
+            }
+            if (!waitTime(r.time)) return;
+            Message m = new Message(r.type);
+            if (r.token != null) {
+                String id = r.token;
+                if (r.type == 'R' || r.type == 'P' || r.type == 'N') {
+                    id = waitCommand(r.token);
+                    if (id == null) {
+                        if (isClosed()) return;
+                        if (!skipped_logged) {
+                            skipped_logged = true;
+                            Protocol.log("Channel replay: skipping reply to unmatched command " + r.token, null);
+                        }
+                        continue;
+                    }
+                    if (r.type != 'P') token_map.remove(r.token);
+                }
+                m.token = new Token(id.getBytes("UTF-8"));
+            }
+            m.service = r.service;
+            m.name = r.name;
+            m.data = r.data;
+            dispatchInput(m);
+        }
+        dispatchEndOfStream(null);
+        while (waitOutput(0)) pollMessages();
+    }
+
+    /**
+     * Add a command to the list of unmatched commands, or match it with a command from the other side.
+     */
+    private void addCommand(Map<String,LinkedList<String>> list, Map<String,LinkedList<String>> other,
+            String key, String id, boolean capture) {
+        LinkedList<String> l = other.get(key);
+        if (l != null && l.size() > 0) {
+            String x = l.removeFirst();
+            if (l.size() == 0) other.remove(key);
+            if (capture) token_map.put(id, x);
+            else token_map.put(x, id);
+            return;
+        }
+        l = list.get(key);
+        if (l == null) list.put(key, l = new LinkedList<String>());
+        l.add(id);
+    }
+
+    /**
+     * Consume messages sent by the client.
+     */
+    private void pollMessages() {
+        while (!eos_sent) {
+            if (isOutputClosing()) {
+                eos_sent = true;
+                outputClosed();
+                return;
+            }
+            Message m = pollOutput();
+            if (m == null) return;
+            if (m.type == 'C') addCommand(client_cmds, capture_cmds, m.service + '.' + m.name, m.token.getID(), false);
+        }
+    }
+
+    /**
+     * Find a command in the list of unmatched capture commands.
+     * @param remove - true to remove the command from the list.
+     * @return false if the list does not contain the command.
+     */
+    private boolean findCaptureCommand(String capture_id, boolean remove) {
+        for (Map.Entry<String,LinkedList<String>> e : capture_cmds.entrySet()) {
+            LinkedList<String> l = e.getValue();
+            if (!l.contains(capture_id)) continue;
+            if (remove) {
+                l.remove(capture_id);
+                if (l.size() == 0) capture_cmds.remove(e.getKey());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Wait until the client sends a command that matches a command of the capture.
+     * @return client token ID, or null if the channel is closed, the command is not in the capture,
+     * or the client did not send a matching command within the command timeout.
+     */
+    private String waitCommand(String capture_id) throws IOException {
+        long deadline = System.currentTimeMillis() + command_timeout;
+        for (;;) {
+            pollMessages();
+            String id = token_map.get(capture_id);
+            if (id != null) return id;
+            /* The command was sent before capturing started, or it was dropped */
+            if (!findCaptureCommand(capture_id, false)) return null;
+            long delay = deadline - System.currentTimeMillis();
+            if (delay <= 0 || !waitOutput(delay)) {
+                /* Don't match the command to a later client command, its replies are skipped */
+                findCaptureCommand(capture_id, true);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Wait until a capture time, scaled by replay speed.
+     * @return false if the channel is closed.
+     */
+    private boolean waitTime(long time) throws IOException {
+        pollMessages();
+        if (speed <= 0) return !isClosed();
+        if (time_base < 0) {
+            time_base = time;
+            replay_start = System.currentTimeMillis();
+        }
+        long deadline = replay_start + (long)((time - time_base) / speed);
+        for (;;) {
+            long delay = deadline - System.currentTimeMillis();
+            if (delay <= 0) return !isClosed();
+            if (!waitOutput(delay)) return false;
+            pollMessages();
+        }
+    }
+
+    /**
+     * Wait for client output.
+     * @param timeout - max time to wait in milliseconds, 0 means no timeout.
+     * @return false if the channel is closed.
+     */
+    private boolean waitOutput(long timeout) throws IOException {
+        synchronized (lock) {
+            try {
+                if (!output_pending && !closed) lock.wait(timeout);
+            }
+            catch (InterruptedException x) {
+                throw new InterruptedIOException();
+            }
+            output_pending = false;
+            return !closed;
+        }
+    }
+
+    @Override
+    protected final int read() throws IOException {
+        throw new IOException("Blocking read is not supported");
+    }
+
+    @Override
+    protected final void write(int n) throws IOException {
+        throw new IOException("Blocking write is not supported");
+    }
+
+    @Override
+    protected final void flush() throws IOException {
+        throw new IOException("Blocking flush is not supported");
+    }
+
+    @Override
+    protected void stop() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        reader.close();
+    }
+}
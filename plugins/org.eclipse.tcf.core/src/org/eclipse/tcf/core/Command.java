@@ -107,15 +107,25 @@ public abstract class Command implements IChannel.ICommandListener {
     }
 
     public void result(IToken token, byte[] data) {
-        assert this.token == token;
         Exception error = null;
         Object[] args = null;
         try {
-            args = JSON.parseSequence(data);
+            args = decode(new JSON.Binary(data, 0, data.length));
         }
         catch (Exception e) {
             error = e;
         }
+        result(token, args, error);
+    }
+
+    /**
+     * Deliver command result that was already decoded by the channel receiver thread.
+     * @param token - command token
+     * @param args - decoded result arguments, or null if decoding failed
+     * @param error - decoding error, or null
+     */
+    void result(IToken token, Object[] args, Exception error) {
+        assert this.token == token;
         assert !done;
         done = true;
         done(error, args);
@@ -130,6 +140,25 @@ public abstract class Command implements IChannel.ICommandListener {
 
     public abstract void done(Exception error, Object[] args);
 
+    /**
+     * Decode command result data.
+     * The method is called by the channel receiver thread, so it must not access
+     * data that is confined to the dispatch thread.
+     * Default implementation creates generic JSON objects, see JSON.parseSequence().
+     * Clients can override the method to decode results directly into their own data types,
+     * see JSON.Reader. The returned array is passed to done().
+     * The data can be in a pooled buffer that is released by the caller after the method returns,
+     * so decoded objects must not reference the buffer, unless they are slices created by
+     * Binary.slice() or JSON.Reader.nextBinarySlice().
+     * @param data - command result data
+     * @return command result arguments
+     * @throws IOException
+     * @since 1.7
+     */
+    protected Object[] decode(JSON.Binary data) throws IOException {
+        return JSON.parseSequence(data.bytes, data.offs, data.size);
+    }
+
     private int getArgSizeLimit() {
         if (arg_size_limit == Integer.MAX_VALUE) {
             arg_size_limit = 100;
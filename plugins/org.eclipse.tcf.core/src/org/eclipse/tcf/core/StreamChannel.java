@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007-2019 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,13 @@
 package org.eclipse.tcf.core;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.Protocol;
 
 /**
  * Abstract implementation of IChannel interface for stream oriented transport protocols.
@@ -22,6 +27,11 @@ import org.eclipse.tcf.protocol.IPeer;
  *
  * StreamChannel uses escape sequences to represent End-Of-Message and End-Of-Stream markers.
  *
+ * If enabled by "org.eclipse.tcf.core.channel.compression" system property, StreamChannel offers
+ * message compression in Hello message. If the remote peer supports compression too, each peer
+ * sends an escape sequence followed by deflate compressed stream, which is flushed at end of each
+ * batch of messages.
+ *
  * Clients can subclass StreamChannel to support particular stream oriented transport (wire) protocol.
  * Also, see ChannelTCP for a concrete IChannel implementation that works on top of TCP sockets as a transport.
  */
@@ -29,8 +39,20 @@ public abstract class StreamChannel extends AbstractChannel {
 
     public static final int ESC = 3;
 
+    private static final boolean compression_enabled = Boolean.getBoolean("org.eclipse.tcf.core.channel.compression");
+
+    /* Deflater.deflate(byte[],int,int,int) with SYNC_FLUSH mode is available since Java 7 */
+    private static final int SYNC_FLUSH = 2;
+    private static final Method deflate_method = getDeflateMethod();
+    private static final byte[] compression_marker = { ESC, 4 };
+
     private int bin_data_size;
 
+    private Deflater deflater;
+    private byte[] dfl_buf;
+    private Inflater inflater;
+    private byte[] inf_buf;
+
     private final byte[] esc_buf = new byte[0x1000];
 
     private final byte[] inp_buf = new byte[0x4000];
@@ -45,6 +67,17 @@ public abstract class StreamChannel extends AbstractChannel {
         super(local_peer, remote_peer);
     }
 
+    private static Method getDeflateMethod() {
+        if (!compression_enabled) return null;
+        try {
+            return Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+        }
+        catch (Exception x) {
+            Protocol.log("Channel compression requires Java 7 or later", x);
+            return null;
+        }
+    }
+
     protected abstract int get() throws IOException;
     protected abstract void put(int n) throws IOException;
 
@@ -81,9 +114,7 @@ public abstract class StreamChannel extends AbstractChannel {
     protected final int read() throws IOException {
         for (;;) {
             while (inp_buf_pos >= inp_buf_len) {
-                inp_buf_len = get(inp_buf);
-                inp_buf_pos = 0;
-                if (inp_buf_len < 0) return EOS;
+                if (fill() < 0) return EOS;
             }
             int res = inp_buf[inp_buf_pos++] & 0xff;
             if (bin_data_size > 0) {
@@ -92,9 +123,7 @@ public abstract class StreamChannel extends AbstractChannel {
             }
             if (res != ESC) return res;
             while (inp_buf_pos >= inp_buf_len) {
-                inp_buf_len = get(inp_buf);
-                inp_buf_pos = 0;
-                if (inp_buf_len < 0) return EOS;
+                if (fill() < 0) return EOS;
             }
             int n = inp_buf[inp_buf_pos++] & 0xff;
             switch (n) {
@@ -104,42 +133,151 @@ public abstract class StreamChannel extends AbstractChannel {
             case 3:
                 for (int i = 0;; i += 7) {
                     while (inp_buf_pos >= inp_buf_len) {
-                        inp_buf_len = get(inp_buf);
-                        inp_buf_pos = 0;
-                        if (inp_buf_len < 0) return EOS;
+                        if (fill() < 0) return EOS;
                     }
                     int m = inp_buf[inp_buf_pos++] & 0xff;
                     bin_data_size |= (m & 0x7f) << i;
                     if ((m & 0x80) == 0) break;
                 }
                 break;
+            case 4:
+                /* Rest of the stream is compressed */
+                if (inflater != null || !isCompressionOffered()) throw new IOException("Invalid escape sequence: " + ESC + " " + n);
+                inflater = new Inflater(true);
+                inf_buf = new byte[inp_buf.length];
+                int len = inp_buf_len - inp_buf_pos;
+                System.arraycopy(inp_buf, inp_buf_pos, inf_buf, 0, len);
+                inflater.setInput(inf_buf, 0, len);
+                inp_buf_pos = inp_buf_len = 0;
+                break;
             default:
                 throw new IOException("Invalid escape sequence: " + ESC + " " + n);
             }
         }
     }
 
+    private int fill() throws IOException {
+        inp_buf_pos = 0;
+        if (inflater == null) return inp_buf_len = get(inp_buf);
+        try {
+            for (;;) {
+                int n = inflater.inflate(inp_buf);
+                if (n > 0) return inp_buf_len = n;
+                if (inflater.finished() || inflater.needsDictionary()) throw new IOException("Invalid compressed stream");
+                n = get(inf_buf);
+                if (n < 0) return inp_buf_len = -1;
+                inflater.setInput(inf_buf, 0, n);
+            }
+        }
+        catch (DataFormatException x) {
+            IOException y = new IOException("Invalid compressed stream");
+            y.initCause(x);
+            throw y;
+        }
+    }
+
+    private void send(byte[] buf, int pos, int len) throws IOException {
+        if (deflater == null) {
+            put(buf, pos, len);
+            return;
+        }
+        deflater.setInput(buf, pos, len);
+        while (!deflater.needsInput()) {
+            int n = deflater.deflate(dfl_buf);
+            if (n > 0) put(dfl_buf, 0, n);
+        }
+    }
+
+    /*
+     * Compression is enabled by the dispatch thread when Hello message is received,
+     * but output stream is switched to compressed mode only at a message boundary,
+     * so a message is never split by the compression marker.
+     */
+    private void startCompression() throws IOException {
+        if (deflater != null || !isCompressionEnabled()) return;
+        put(compression_marker, 0, 2);
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        dfl_buf = new byte[0x4000];
+    }
+
+    @Override
+    protected boolean isCompressionSupported() {
+        return deflate_method != null;
+    }
+
+    @Override
+    protected void prepareFlush() throws IOException {
+        if (deflater == null) return;
+        try {
+            for (;;) {
+                int n = (Integer)deflate_method.invoke(deflater, dfl_buf, 0, dfl_buf.length, SYNC_FLUSH);
+                if (n > 0) put(dfl_buf, 0, n);
+                if (n < dfl_buf.length) break;
+            }
+        }
+        catch (Exception x) {
+            IOException y = new IOException("Cannot flush compressed stream");
+            y.initCause(x);
+            throw y;
+        }
+    }
+
+    /**
+     * @since 1.7
+     */
+    @Override
+    protected final int read(byte[] buf, int pos, int len) throws IOException {
+        int cnt = 0;
+        while (cnt < len && inp_buf_pos < inp_buf_len) {
+            int n = inp_buf_len - inp_buf_pos;
+            if (n > len - cnt) n = len - cnt;
+            if (bin_data_size > 0) {
+                if (n > bin_data_size) n = bin_data_size;
+                bin_data_size -= n;
+            }
+            else {
+                /* Copy bytes up to next escape sequence */
+                int i = inp_buf_pos;
+                int end = i + n;
+                while (i < end && inp_buf[i] != ESC) i++;
+                n = i - inp_buf_pos;
+                if (n == 0) break;
+            }
+            System.arraycopy(inp_buf, inp_buf_pos, buf, pos + cnt, n);
+            inp_buf_pos += n;
+            cnt += n;
+        }
+        return cnt;
+    }
+
     @Override
     protected final void write(int n) throws IOException {
         switch (n) {
         case ESC:
             esc_buf[0] = ESC;
             esc_buf[1] = 0;
-            put(esc_buf, 0, 2);
+            send(esc_buf, 0, 2);
             break;
         case EOM:
             esc_buf[0] = ESC;
             esc_buf[1] = 1;
-            put(esc_buf, 0, 2);
+            send(esc_buf, 0, 2);
+            startCompression();
             break;
         case EOS:
             esc_buf[0] = ESC;
             esc_buf[1] = 2;
-            put(esc_buf, 0, 2);
+            send(esc_buf, 0, 2);
             break;
         default:
             assert n >= 0 && n <= 0xff;
-            put(n);
+            if (deflater == null) {
+                put(n);
+            }
+            else {
+                esc_buf[0] = (byte)n;
+                send(esc_buf, 0, 1);
+            }
             break;
         }
     }
@@ -164,22 +302,47 @@ public abstract class StreamChannel extends AbstractChannel {
                 esc_buf[esc_buf_pos++] = (byte)((n & 0x7f) | 0x80);
                 n = n >> 7;
             }
-            put(esc_buf, 0, esc_buf_pos);
-            put(buf, pos, len);
+            send(esc_buf, 0, esc_buf_pos);
+            send(buf, pos, len);
         }
         else {
+            /*
+             * Long runs of bytes without ESC are transmitted directly from the caller buffer,
+             * short runs are collected in esc_buf to avoid a put() call per run.
+             */
             int esc_buf_pos = 0;
             int end = pos + len;
-            for (int i = pos; i < end; i++) {
-                if (esc_buf_pos + 2 > esc_buf.length) {
-                    put(esc_buf, 0, esc_buf_pos);
-                    esc_buf_pos = 0;
+            while (pos < end) {
+                int i = pos;
+                while (i < end && buf[i] != ESC) i++;
+                int n = i - pos;
+                if (n >= 0x100) {
+                    if (esc_buf_pos > 0) {
+                        send(esc_buf, 0, esc_buf_pos);
+                        esc_buf_pos = 0;
+                    }
+                    send(buf, pos, n);
+                }
+                else {
+                    if (esc_buf_pos + n > esc_buf.length) {
+                        send(esc_buf, 0, esc_buf_pos);
+                        esc_buf_pos = 0;
+                    }
+                    System.arraycopy(buf, pos, esc_buf, esc_buf_pos, n);
+                    esc_buf_pos += n;
+                }
+                pos = i;
+                if (pos < end) {
+                    if (esc_buf_pos + 2 > esc_buf.length) {
+                        send(esc_buf, 0, esc_buf_pos);
+                        esc_buf_pos = 0;
+                    }
+                    esc_buf[esc_buf_pos++] = ESC;
+                    esc_buf[esc_buf_pos++] = 0;
+                    pos++;
                 }
-                byte b = buf[i];
-                esc_buf[esc_buf_pos++] = b;
-                if (b == ESC) esc_buf[esc_buf_pos++] = 0;
             }
-            put(esc_buf, 0, esc_buf_pos);
+            if (esc_buf_pos > 0) send(esc_buf, 0, esc_buf_pos);
         }
     }
 }
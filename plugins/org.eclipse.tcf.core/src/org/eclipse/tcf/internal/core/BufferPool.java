@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of byte arrays that are used to receive binary message data.
+ * Arrays are allocated in power of two size classes, so a returned array can be longer than requested.
+ * Total size of free arrays kept in the pool is limited by "org.eclipse.tcf.core.buffer_pool_size"
+ * system property, default is 32MB. The pool can be used by any thread.
+ */
+public class BufferPool {
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 26;
+
+    private static final long max_pool_size = Long.getLong("org.eclipse.tcf.core.buffer_pool_size", 0x2000000);
+
+    private static final AtomicLong pool_size = new AtomicLong();
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final Queue<byte[]>[] pools = new Queue[MAX_SHIFT - MIN_SHIFT + 1];
+
+    static {
+        for (int i = 0; i < pools.length; i++) pools[i] = new ConcurrentLinkedQueue<byte[]>();
+    }
+
+    private static int getSizeClass(int size) {
+        if (size > 1 << MAX_SHIFT) return -1;
+        int shift = MIN_SHIFT;
+        while (1 << shift < size) shift++;
+        return shift - MIN_SHIFT;
+    }
+
+    /**
+     * Get an array of at least given size.
+     * @param size - minimal array length.
+     * @return array of bytes, contents is not initialized.
+     */
+    public static byte[] alloc(int size) {
+        int n = getSizeClass(size);
+        if (n < 0) return new byte[size];
+        byte[] buf = pools[n].poll();
+        if (buf != null) {
+            pool_size.addAndGet(-buf.length);
+            return buf;
+        }
+        return new byte[1 << (n + MIN_SHIFT)];
+    }
+
+    /**
+     * Return an array to the pool.
+     * The array must not be used by the caller after this call.
+     * @param buf - array that was allocated by alloc().
+     */
+    public static void free(byte[] buf) {
+        int n = getSizeClass(buf.length);
+        if (n < 0 || buf.length != 1 << (n + MIN_SHIFT)) return;
+        if (pool_size.addAndGet(buf.length) > max_pool_size) {
+            pool_size.addAndGet(-buf.length);
+            return;
+        }
+        pools[n].add(buf);
+    }
+}
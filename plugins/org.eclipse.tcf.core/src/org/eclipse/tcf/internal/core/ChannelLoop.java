@@ -80,6 +80,57 @@ public class ChannelLoop extends StreamChannel {
         }
     }
 
+    @Override
+    protected synchronized int get(byte[] dst) throws IOException {
+        try {
+            while (buf_inp == buf_out) {
+                if (closed) return -1;
+                waiting = true;
+                wait();
+            }
+            int n = (buf_inp > buf_out ? buf_inp : buf.length) - buf_out;
+            if (n > dst.length) n = dst.length;
+            System.arraycopy(buf, buf_out, dst, 0, n);
+            buf_out = (buf_out + n) % buf.length;
+            if (waiting) {
+                waiting = false;
+                notifyAll();
+            }
+            return n;
+        }
+        catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Override
+    protected synchronized void put(byte[] src, int pos, int len) throws IOException {
+        try {
+            while (len > 0) {
+                /* One slot is always kept free to distinguish full buffer from empty one */
+                int n = buf_out > buf_inp ? buf_out - buf_inp - 1 : buf.length - buf_inp - (buf_out == 0 ? 1 : 0);
+                if (n > 0) {
+                    if (n > len) n = len;
+                    System.arraycopy(src, pos, buf, buf_inp, n);
+                    buf_inp = (buf_inp + n) % buf.length;
+                    pos += n;
+                    len -= n;
+                    if (waiting) {
+                        waiting = false;
+                        notifyAll();
+                    }
+                    continue;
+                }
+                if (closed) return;
+                waiting = true;
+                wait();
+            }
+        }
+        catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
     @Override
     protected void flush() throws IOException {
     }
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.core;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * I/O thread with a selector that is shared by many asynchronous channels.
+ * A small pool of selector threads serves all channels, so the number of threads
+ * does not grow with the number of connections.
+ */
+public class ChannelSelector extends Thread {
+
+    /**
+     * Clients implement Handler interface to receive I/O readiness notifications.
+     * Handlers are called by the selector thread, they must not block.
+     */
+    public interface Handler {
+        void ready(SelectionKey key);
+    }
+
+    private static ChannelSelector[] pool;
+    private static int pool_next;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    private ChannelSelector(int n) throws IOException {
+        selector = Selector.open();
+        setName("TCF Channel Selector " + n);
+        setDaemon(true);
+    }
+
+    /**
+     * Get selector thread for a new channel.
+     * Channels are distributed between threads of the pool in round robin order.
+     * Pool size can be set with "org.eclipse.tcf.core.selector_threads" system property.
+     * @return selector thread
+     * @throws IOException
+     */
+    public static synchronized ChannelSelector getSelector() throws IOException {
+        if (pool == null) {
+            int n = Math.min(4, Runtime.getRuntime().availableProcessors());
+            String name = "org.eclipse.tcf.core.selector_threads";
+            try {
+                String s = System.getProperty(name);
+                if (s != null) n = Integer.parseInt(s);
+            }
+            catch (NumberFormatException x) {
+                Protocol.log("Invalid value of system property " + name, x);
+            }
+            if (n < 1) n = 1;
+            pool = new ChannelSelector[n];
+        }
+        ChannelSelector s = pool[pool_next];
+        if (s == null) {
+            s = pool[pool_next] = new ChannelSelector(pool_next);
+            s.start();
+        }
+        pool_next = (pool_next + 1) % pool.length;
+        return s;
+    }
+
+    /**
+     * Execute a task in the selector thread.
+     * Channel registration and changes of interest set must be done this way.
+     * @param task
+     */
+    public void invokeLater(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Register a channel with the selector. Must be called by the selector thread.
+     * @param channel - selectable channel, it is configured for non-blocking mode.
+     * @param ops - initial interest set.
+     * @param handler - readiness handler.
+     * @return selection key.
+     * @throws IOException
+     */
+    public SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws IOException {
+        assert Thread.currentThread() == this;
+        channel.configureBlocking(false);
+        return channel.register(selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        for (;;) {
+            try {
+                for (;;) {
+                    Runnable r = tasks.poll();
+                    if (r == null) break;
+                    r.run();
+                }
+                selector.select();
+                Iterator<SelectionKey> i = selector.selectedKeys().iterator();
+                while (i.hasNext()) {
+                    SelectionKey key = i.next();
+                    i.remove();
+                    if (!key.isValid()) continue;
+                    ((Handler)key.attachment()).ready(key);
+                }
+            }
+            catch (Throwable x) {
+                Protocol.log("Unhandled exception in TCF channel selector", x);
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2011 Freescale Semiconductor, Inc. and others.
+ * Copyright (c) 2010-2026 Freescale Semiconductor, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,11 @@
 package org.eclipse.tcf.internal.core;
 
 import java.text.DecimalFormatSymbols;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.util.TCFTraceBuffer;
 
 /**
  * Internal utility methods used for logging/tracing.
@@ -21,6 +24,35 @@ public class LoggingUtil {
 
     private static final char DECIMAL_DELIMITER = new DecimalFormatSymbols().getDecimalSeparator();
 
+    /*
+     * Trace messages are logged synchronously, in order with other log messages.
+     * Setting "org.eclipse.tcf.core.tracing.async" system property to "true" makes tracing capture
+     * the messages with a time stamp and log them by a background thread, so tracing does not block
+     * the dispatch thread or I/O threads on the logger. In that case, messages can be dropped
+     * if the logger cannot keep up, and they can be logged after later Protocol.log() messages.
+     */
+    private static final boolean async_trace = Boolean.getBoolean("org.eclipse.tcf.core.tracing.async");
+
+    /* Lazy creation of the trace buffer and its thread */
+    private static class TraceBuffer {
+        static final TCFTraceBuffer buffer = new TCFTraceBuffer(0x1000,
+                Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "TCF Trace Logger");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }),
+                new TCFTraceBuffer.Consumer() {
+                    public void onRecord(TCFTraceBuffer.Record r) {
+                        Protocol.log(getDebugTime(r.time) + ' ' + r.arg, null);
+                    }
+                    public void onBatchDone(long dropped) {
+                        if (dropped > 0) Protocol.log(getDebugTime() + " " + dropped + " trace messages dropped", null);
+                    }
+                });
+    }
+
     /**
      * Returns a relative timestamp in the form "seconds,milliseconds". Each
      * segment is zero-padded to three digits, ensuring a consistent length of
@@ -31,10 +63,12 @@ public class LoggingUtil {
      * roughly every 16 minutes.
      */
     public static String getDebugTime() {
+        return getDebugTime(System.currentTimeMillis());
+    }
+
+    private static String getDebugTime(long time) {
         StringBuilder traceBuilder = new StringBuilder();
 
-        // Record the time
-        long time = System.currentTimeMillis();
         long seconds = (time / 1000) % 1000;
         if (seconds < 100) traceBuilder.append('0');
         if (seconds < 10) traceBuilder.append('0');
@@ -58,6 +92,7 @@ public class LoggingUtil {
      *            the trace message
      */
     public static void trace(String msg) {
-        Protocol.log(getDebugTime() + ' ' + msg, null);
+        if (async_trace) TraceBuffer.buffer.add(null, 'L', msg);
+        else Protocol.log(getDebugTime() + ' ' + msg, null);
     }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.tcf.internal.core;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.tcf.protocol.IChannel;
 import org.eclipse.tcf.protocol.IToken;
 
@@ -21,24 +23,29 @@ public class Token implements IToken {
     /**
      * Internal static variable used to update the Token ID for the given command
      */
-    private static int cnt = 0;
+    private static final AtomicInteger cnt = new AtomicInteger();
 
+    /**
+     * Numeric value of the Token ID, or -1 if the ID is not a decimal number.
+     * Tokens created by this side of a channel always have numeric IDs,
+     * so replies can be matched without string conversion.
+     */
+    private final int num;
     /**
      * Token ID. This is what is seen when we
      */
-    private final String id;
+    private String id;
     /**
      * Byte representation of the Token ID
      */
-    private final byte[] bytes;
+    private byte[] bytes;
     /**
      * ICommandListener associated with this token
      */
     private final IChannel.ICommandListener listener;
 
     public Token() {
-        id = null;
-        bytes = null;
+        num = -1;
         listener = null;
     }
 
@@ -49,10 +56,7 @@ public class Token implements IToken {
      */
     public Token(IChannel.ICommandListener listener) {
         this.listener = listener;
-        id = Integer.toString(cnt++);
-        int l = id.length();
-        bytes = new byte[l];
-        for (int i = 0; i < l; i++) bytes[i] = (byte)id.charAt(i);
+        num = cnt.getAndIncrement() & 0x7fffffff;
     }
 
     /**
@@ -63,30 +67,124 @@ public class Token implements IToken {
     public Token(byte[] bytes) {
         this.bytes = bytes;
         listener = null;
-        int l = bytes.length;
-        char[] bf = new char[l];
-        for (int i = 0; i < l; i++) bf[i] = (char)(bytes[i] & 0xff);
-        id = new String(bf);
+        num = parseNumber(bytes, 0, bytes.length);
+    }
+
+    private Token(int num) {
+        this.num = num;
+        listener = null;
+    }
+
+    /**
+     * Constructs a token from a region of a byte array.
+     * Numeric IDs are decoded without copying the bytes.
+     * @param buf - buffer that contains token bytes.
+     * @param pos - start position.
+     * @param len - number of bytes.
+     * @return the token.
+     */
+    public static Token valueOf(byte[] buf, int pos, int len) {
+        int num = parseNumber(buf, pos, len);
+        if (num >= 0) return new Token(num);
+        byte[] bytes = new byte[len];
+        System.arraycopy(buf, pos, bytes, 0, len);
+        return new Token(bytes);
+    }
+
+    /**
+     * Parse canonical decimal representation of a non-negative int.
+     * @return the number, or -1 if the bytes are not a canonical decimal number.
+     */
+    private static int parseNumber(byte[] buf, int pos, int len) {
+        if (len == 0 || len > 10) return -1;
+        if (len > 1 && buf[pos] == '0') return -1;
+        long n = 0;
+        for (int i = 0; i < len; i++) {
+            int ch = buf[pos + i];
+            if (ch < '0' || ch > '9') return -1;
+            n = n * 10 + (ch - '0');
+        }
+        if (n > Integer.MAX_VALUE) return -1;
+        return (int)n;
     }
 
     public boolean cancel() {
         return false;
     }
 
+    /**
+     * @return numeric value of the token ID, or -1 if the ID is not a decimal number.
+     */
+    public int getNumber() {
+        return num;
+    }
+
     public String getID() {
+        if (id == null) {
+            if (bytes != null) {
+                int l = bytes.length;
+                char[] bf = new char[l];
+                for (int i = 0; i < l; i++) bf[i] = (char)(bytes[i] & 0xff);
+                id = new String(bf);
+            }
+            else if (num >= 0) {
+                id = Integer.toString(num);
+            }
+        }
         return id;
     }
 
     public byte[] getBytes() {
+        if (bytes == null && num >= 0) {
+            byte[] b = new byte[getDigits(num)];
+            putDigits(num, b, b.length);
+            bytes = b;
+        }
         return bytes;
     }
 
+    /**
+     * Write the token ID into a byte array.
+     * @param buf - destination buffer.
+     * @param pos - destination position.
+     * @return position after the token ID, or -1 if the buffer does not have enough space.
+     */
+    public int writeBytes(byte[] buf, int pos) {
+        if (num >= 0) {
+            int end = pos + getDigits(num);
+            if (end > buf.length) return -1;
+            putDigits(num, buf, end);
+            return end;
+        }
+        byte[] b = getBytes();
+        if (b == null || pos + b.length > buf.length) return -1;
+        System.arraycopy(b, 0, buf, pos, b.length);
+        return pos + b.length;
+    }
+
+    private static int getDigits(int n) {
+        int l = 1;
+        while (n >= 10) {
+            n /= 10;
+            l++;
+        }
+        return l;
+    }
+
+    private static void putDigits(int n, byte[] buf, int end) {
+        do {
+            buf[--end] = (byte)('0' + n % 10);
+            n /= 10;
+        }
+        while (n > 0);
+    }
+
     public IChannel.ICommandListener getListener() {
         return listener;
     }
 
     @Override
     public String toString() {
-        return id;
+        return getID();
     }
 }
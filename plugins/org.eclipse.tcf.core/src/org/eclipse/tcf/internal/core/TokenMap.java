@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Map of numeric token IDs to values.
+ * The map is an open addressing hash table with linear probing, keys are kept in an int array,
+ * so lookups don't need String hashing or boxing.
+ * Values are listed in insertion order, which is independent of token numbers,
+ * since token numbers wrap around.
+ *
+ * The class is not thread safe.
+ */
+public class TokenMap<V> {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private long[] order;
+    private long order_cnt;
+    private int mask;
+    private int size;
+
+    public TokenMap() {
+        alloc(32);
+    }
+
+    private void alloc(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        order = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int hash(int key) {
+        int h = key * 0x9e3779b9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    private int find(int key) {
+        if (key < 0) return -1;
+        int i = hash(key);
+        for (;;) {
+            int k = keys[i];
+            if (k == key) return i;
+            if (k == EMPTY) return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = find(key);
+        if (i < 0) return null;
+        return (V)values[i];
+    }
+
+    /**
+     * Add a value to the map.
+     * @param key - token number, must not be negative.
+     * @param value - the value.
+     * @return previous value, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) throw new IllegalArgumentException("Invalid token number: " + key);
+        if ((size + 1) * 2 > keys.length) rehash(keys.length * 2);
+        int i = hash(key);
+        for (;;) {
+            int k = keys[i];
+            if (k == key) {
+                V v = (V)values[i];
+                values[i] = value;
+                return v;
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                order[i] = order_cnt++;
+                size++;
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = find(key);
+        if (i < 0) return null;
+        V v = (V)values[i];
+        /* Shift following entries of the probe sequence back, so lookups don't need tombstones */
+        int j = i;
+        for (;;) {
+            j = (j + 1) & mask;
+            int k = keys[j];
+            if (k == EMPTY) break;
+            int h = hash(k);
+            /* Move the entry if its home slot is not in the range (i, j] */
+            if (i <= j ? i < h && h <= j : i < h || h <= j) continue;
+            keys[i] = k;
+            values[i] = values[j];
+            order[i] = order[j];
+            i = j;
+        }
+        keys[i] = EMPTY;
+        values[i] = null;
+        size--;
+        return v;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return list of values, in the order the keys were added.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        Integer[] slots = new Integer[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) slots[n++] = i;
+        }
+        Arrays.sort(slots, new Comparator<Integer>() {
+            public int compare(Integer x, Integer y) {
+                long a = order[x];
+                long b = order[y];
+                return a < b ? -1 : a > b ? 1 : 0;
+            }
+        });
+        List<V> res = new ArrayList<V>(size);
+        for (int i : slots) res.add((V)values[i]);
+        return res;
+    }
+
+    private void rehash(int capacity) {
+        int[] k = keys;
+        Object[] v = values;
+        long[] o = order;
+        alloc(capacity);
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] == EMPTY) continue;
+            int j = hash(k[i]);
+            while (keys[j] != EMPTY) j = (j + 1) & mask;
+            keys[j] = k[i];
+            values[j] = v[i];
+            order[j] = o[i];
+        }
+    }
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.tcf.internal.core;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -19,7 +21,9 @@ import java.util.Set;
 
 import org.eclipse.tcf.core.AbstractChannel;
 import org.eclipse.tcf.core.ChannelHTTP;
+import org.eclipse.tcf.core.ChannelNIO;
 import org.eclipse.tcf.core.ChannelPIPE;
+import org.eclipse.tcf.core.ChannelReplay;
 import org.eclipse.tcf.core.ChannelTCP;
 import org.eclipse.tcf.protocol.IChannel;
 import org.eclipse.tcf.protocol.IPeer;
@@ -38,6 +42,11 @@ import org.eclipse.tcf.services.ILocator;
  */
 public class TransportManager {
 
+    /**
+     * If true, TCP channels use shared selector threads instead of a pair of threads per channel.
+     */
+    private static final boolean USE_NIO = Boolean.getBoolean("org.eclipse.tcf.core.transport.nio");
+
     /**
      * Collection of Channels
      */
@@ -67,6 +76,7 @@ public class TransportManager {
                 String host = attrs.get(IPeer.ATTR_IP_HOST);
                 String port = attrs.get(IPeer.ATTR_IP_PORT);
                 if (host == null) throw new IllegalArgumentException("No host name");
+                if (USE_NIO) return new ChannelNIO(peer, host, parsePort(port));
                 return new ChannelTCP(peer, host, parsePort(port), false);
             }
         });
@@ -128,6 +138,36 @@ public class TransportManager {
                 return new ChannelLoop(peer);
             }
         });
+
+        addTransportProvider(new ITransportProvider() {
+
+            public String getName() {
+                return "Replay";
+            }
+
+            public IChannel openChannel(IPeer peer) {
+                assert getName().equals(peer.getTransportName());
+                Map<String,String> attrs = peer.getAttributes();
+                String file = attrs.get(ChannelReplay.ATTR_CAPTURE_FILE);
+                String speed = attrs.get(ChannelReplay.ATTR_REPLAY_SPEED);
+                if (file == null) throw new IllegalArgumentException("No capture file name");
+                try {
+                    return new ChannelReplay(peer, new File(file), speed == null ? 1 : Double.parseDouble(speed));
+                }
+                catch (NumberFormatException x) {
+                    IllegalArgumentException y = new IllegalArgumentException(
+                            "Invalid value of \"ReplaySpeed\" attribute. Must be a number.");
+                    y.initCause(x);
+                    throw y;
+                }
+                catch (IOException x) {
+                    IllegalArgumentException y = new IllegalArgumentException(
+                            "Cannot open capture file " + file);
+                    y.initCause(x);
+                    throw y;
+                }
+            }
+        });
     }
 
     /**
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.services.local;
+
+import java.io.UnsupportedEncodingException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.ILocator;
+
+/**
+ * Queue of discovery packets received by LocatorService socket reading threads.
+ *
+ * A reading thread copies a packet, parses peer attributes of CONF_PEER_INFO packet and queues it,
+ * it does not wait for the dispatch thread. The dispatch thread handles queued packets in batches.
+ * If the dispatch thread cannot keep up, new packets are dropped - discovery tolerates lost packets.
+ */
+public class LocatorInputQueue {
+
+    /**
+     * Peer attribute names and values are repeated in every CONF_PEER_INFO packet,
+     * they are interned to avoid keeping many copies of same strings.
+     */
+    private static final ConcurrentHashMap<String,String> attr_strings = new ConcurrentHashMap<String,String>();
+    private static final int MAX_ATTR_STRINGS = 0x4000;
+
+    /**
+     * Wrapper for final class DatagramPacket so its toString() can present
+     * the value in the debugger in a readable fashion.
+     */
+    public static class InputPacket {
+
+        private final DatagramPacket p;
+
+        /** Peer attributes of CONF_PEER_INFO packet, parsed by the receiver thread */
+        private final Map<String,String> attrs;
+
+        InputPacket(DatagramPacket p, Map<String,String> attrs) {
+            this.p = p;
+            this.attrs = attrs;
+        }
+
+        /**
+         * @return peer attributes of CONF_PEER_INFO packet, or null if not parsed.
+         */
+        public Map<String,String> getAttributes() {
+            return attrs;
+        }
+
+        public DatagramPacket getPacket() {
+            return p;
+        }
+
+        public int getLength() {
+            return p.getLength();
+        }
+
+        public byte[] getData() {
+            return p.getData();
+        }
+
+        public int getPort() {
+            return p.getPort();
+        }
+
+        public InetAddress getAddress() {
+            return p.getAddress();
+        }
+
+        @Override
+        public String toString() {
+            return "[address=" + p.getAddress().toString()
+                 + ",port=" + p.getPort()
+                 + ",data=\"" + new String(p.getData(), 0, p.getLength()) + "\"]";
+        }
+    }
+
+    /**
+     * Handler of queued packets, called by the dispatch thread.
+     */
+    public interface Handler {
+        void handlePacket(InputPacket p);
+    }
+
+    private final Queue<InputPacket> queue = new ConcurrentLinkedQueue<InputPacket>();
+    private final AtomicInteger queue_size = new AtomicInteger();
+    private final AtomicBoolean posted = new AtomicBoolean();
+    private final int max_size;
+    private final Handler handler;
+
+    private final Runnable drain = new Runnable() {
+        public void run() {
+            posted.set(false);
+            for (;;) {
+                InputPacket p = queue.poll();
+                if (p == null) break;
+                queue_size.decrementAndGet();
+                handler.handlePacket(p);
+            }
+        }
+    };
+
+    /**
+     * @param max_size - max number of packets waiting for the dispatch thread.
+     * @param handler - handler of the packets.
+     */
+    public LocatorInputQueue(int max_size, Handler handler) {
+        this.max_size = max_size;
+        this.handler = handler;
+    }
+
+    /**
+     * Copy a received packet and queue it for the dispatch thread.
+     * Can be called by any thread, the packet buffer can be reused when the method returns.
+     * @param dp - received packet.
+     * @return false if the queue is full and the packet is dropped.
+     */
+    public boolean add(DatagramPacket dp) {
+        if (queue_size.get() >= max_size) return false;
+        int len = dp.getLength();
+        byte[] buf = Arrays.copyOfRange(dp.getData(), dp.getOffset(), dp.getOffset() + len);
+        Map<String,String> attrs = null;
+        if (len >= 8 && buf[4] == ILocator.CONF_PEER_INFO) {
+            try {
+                attrs = parsePeerAttributes(buf, len);
+            }
+            catch (UnsupportedEncodingException x) {
+                /* Reported by the dispatch thread */
+            }
+        }
+        queue.add(new InputPacket(new DatagramPacket(buf, len, dp.getAddress(), dp.getPort()), attrs));
+        queue_size.incrementAndGet();
+        if (posted.compareAndSet(false, true)) Protocol.invokeLater(drain);
+        return true;
+    }
+
+    /**
+     * @return number of packets waiting for the dispatch thread.
+     */
+    public int size() {
+        return queue_size.get();
+    }
+
+    /**
+     * Parse peer attributes in CONF_PEER_INFO packet data.
+     * Attribute names and values are interned.
+     * Can be called by any thread.
+     *
+     * @param data - the packet data
+     * @param size - the packet size
+     * @return a map containing the attributes
+     * @throws UnsupportedEncodingException
+     */
+    public static Map<String,String> parsePeerAttributes(byte[] data, int size) throws UnsupportedEncodingException {
+        Map<String,String> map = new HashMap<String,String>();
+        String s = new String(data, 8, size - 8, "UTF-8");
+        int l = s.length();
+        int i = 0;
+        while (i < l) {
+            int i0 = i;
+            while (i < l && s.charAt(i) != '=' && s.charAt(i) != 0) i++;
+            int i1 = i;
+            if (i < l && s.charAt(i) == '=') i++;
+            int i2 = i;
+            while (i < l && s.charAt(i) != 0) i++;
+            int i3 = i;
+            if (i < l && s.charAt(i) == 0) i++;
+            String key = internAttrString(s.substring(i0, i1));
+            String val = internAttrString(s.substring(i2, i3));
+            map.put(key, val);
+        }
+        return map;
+    }
+
+    private static String internAttrString(String s) {
+        String r = attr_strings.get(s);
+        if (r != null) return r;
+        if (attr_strings.size() >= MAX_ATTR_STRINGS) attr_strings.clear();
+        r = attr_strings.putIfAbsent(s, s);
+        return r != null ? r : s;
+    }
+}
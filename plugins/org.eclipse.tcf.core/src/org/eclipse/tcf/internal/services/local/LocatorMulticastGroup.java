@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.services.local;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.Enumeration;
+
+import org.eclipse.tcf.internal.core.LoggingUtil;
+
+/**
+ * UDP multicast group that is used by LocatorService in multicast discovery mode.
+ *
+ * The group socket shares the port with other locators on the host, and joins the group
+ * on all multicast capable network interfaces, including loop-back interfaces,
+ * so locators on a host that has no network connection can discover each other.
+ */
+public class LocatorMulticastGroup {
+
+    private final InetAddress group;
+    private final int port;
+    private final MulticastSocket socket;
+    private final boolean trace;
+
+    /**
+     * Create a socket that receives group packets.
+     * @param group - multicast group address.
+     * @param port - UDP port.
+     * @param trace - true to trace errors joining the group.
+     * @throws IOException
+     */
+    public LocatorMulticastGroup(InetAddress group, int port, boolean trace) throws IOException {
+        this.group = group;
+        this.port = port;
+        this.trace = trace;
+        socket = new MulticastSocket(null);
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(port));
+        InetSocketAddress addr = new InetSocketAddress(group, port);
+        int cnt = 0;
+        Enumeration<NetworkInterface> e = NetworkInterface.getNetworkInterfaces();
+        while (e != null && e.hasMoreElements()) {
+            NetworkInterface f = e.nextElement();
+            try {
+                /* Some systems, e.g. Linux, don't report multicast support for loop-back interface, but it works */
+                if (!f.isUp() || !f.supportsMulticast() && !f.isLoopback()) continue;
+                socket.joinGroup(addr, f);
+                cnt++;
+            }
+            catch (IOException x) {
+                if (trace) LoggingUtil.trace("Cannot join multicast group on " + f.getName() + ": " + x);
+            }
+        }
+        /* Use default interface */
+        if (cnt == 0) socket.joinGroup(addr, null);
+    }
+
+    /**
+     * @return multicast group address.
+     */
+    public InetAddress getAddress() {
+        return group;
+    }
+
+    /**
+     * @return UDP port of the group.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return the socket that receives group packets.
+     */
+    public MulticastSocket getSocket() {
+        return socket;
+    }
+
+    /**
+     * Send a packet to the group.
+     * @param out - socket to use for sending, replies are received by this socket.
+     * @param net_if - network interface, null means the default interface.
+     * @param buf - packet data.
+     * @param size - packet size.
+     * @throws IOException
+     */
+    public void send(MulticastSocket out, NetworkInterface net_if, byte[] buf, int size) throws IOException {
+        if (net_if != null) out.setNetworkInterface(net_if);
+        out.send(new DatagramPacket(buf, size, group, port));
+    }
+
+    /**
+     * Close the group socket.
+     */
+    public void close() {
+        socket.close();
+        if (trace) LoggingUtil.trace("Closed multicast group socket " + group.getHostAddress() + ":" + port);
+    }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.services.local;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.tcf.core.Command;
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.internal.core.LoggingUtil;
+import org.eclipse.tcf.internal.core.RemotePeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.JSON;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.ILocator;
+
+/**
+ * Client of a locator registry - a TCF agent that does peer discovery on behalf of many hosts.
+ * The client keeps a channel open to the registry, gets the registry peer list once,
+ * after that it receives only changes, as Locator service events.
+ * Peers are added to the local peer table as RemotePeer objects, so they age out
+ * the same way as peers discovered by UDP if the registry becomes unreachable.
+ *
+ * Registry address is set by "org.eclipse.tcf.core.discovery.registry" system property as host:port.
+ * The class is public, so it can be tested against a stand-in registry.
+ */
+public class LocatorRegistryClient implements IChannel.IChannelListener, IChannel.IEventListener {
+
+    private final String host;
+    private final String port;
+    private final boolean trace;
+    private IChannel channel;
+
+    /**
+     * @param address - registry address as host:port, null means local host default port.
+     * @param trace - true to trace connection state changes.
+     */
+    public LocatorRegistryClient(String address, boolean trace) {
+        String h = "127.0.0.1";
+        String p = "1534";
+        if (address != null) {
+            int i = address.lastIndexOf(':');
+            if (i >= 0) {
+                h = address.substring(0, i);
+                p = address.substring(i + 1);
+            }
+            else if (address.length() > 0) {
+                h = address;
+            }
+        }
+        host = h;
+        port = p;
+        this.trace = trace;
+    }
+
+    /**
+     * Open a channel to the registry, if it is not open yet.
+     * Called periodically by the locator timer, so the connection is restored when the registry restarts.
+     */
+    public void connect() {
+        assert Protocol.isDispatchThread();
+        if (channel != null) return;
+        Map<String,String> attrs = new HashMap<String,String>();
+        attrs.put(IPeer.ATTR_ID, "Registry:" + host + ":" + port);
+        attrs.put(IPeer.ATTR_NAME, "Locator Registry");
+        attrs.put(IPeer.ATTR_TRANSPORT_NAME, "TCP");
+        attrs.put(IPeer.ATTR_IP_HOST, host);
+        attrs.put(IPeer.ATTR_IP_PORT, port);
+        try {
+            channel = new TransientPeer(attrs).openChannel();
+            channel.addChannelListener(this);
+        }
+        catch (Throwable x) {
+            channel = null;
+            if (trace) LoggingUtil.trace("Cannot connect to locator registry " + host + ":" + port + ": " + x);
+        }
+    }
+
+    /**
+     * Close the channel to the registry.
+     * Peers that were obtained from the registry age out the same way as after registry failure.
+     */
+    public void close() {
+        assert Protocol.isDispatchThread();
+        if (channel != null) channel.close();
+    }
+
+    public void onChannelOpened() {
+        ILocator locator = channel.getRemoteService(ILocator.class);
+        if (locator == null) {
+            channel.terminate(new Exception("Locator registry does not provide Locator service"));
+            return;
+        }
+        if (trace) LoggingUtil.trace("Connected to locator registry " + host + ":" + port);
+        channel.addEventListener(locator, this);
+        new Command(channel, locator, "getPeers", null) {
+            @SuppressWarnings("unchecked")
+            @Override
+            public void done(Exception error, Object[] args) {
+                if (error == null) {
+                    assert args.length == 2;
+                    error = toError(args[0]);
+                }
+                if (error != null) {
+                    if (channel.getState() != IChannel.STATE_CLOSED) channel.terminate(error);
+                    return;
+                }
+                Collection<Map<String,String>> c = (Collection<Map<String,String>>)args[1];
+                if (c != null) {
+                    for (Map<String,String> m : c) updatePeer(m);
+                }
+            }
+        };
+    }
+
+    public void congestionLevel(int level) {
+    }
+
+    public void onChannelClosed(Throwable error) {
+        if (trace) LoggingUtil.trace("Disconnected from locator registry " + host + ":" + port +
+                (error != null ? ": " + error : ""));
+        channel = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void event(String name, byte[] data) {
+        try {
+            Object[] args = JSON.parseSequence(data);
+            if (name.equals("peerAdded") || name.equals("peerChanged")) {
+                assert args.length == 1;
+                updatePeer((Map<String,String>)args[0]);
+            }
+            else if (name.equals("peerRemoved")) {
+                assert args.length == 1;
+                IPeer peer = LocatorService.getLocator().getPeers().get(args[0]);
+                if (peer instanceof RemotePeer) ((RemotePeer)peer).dispose();
+            }
+            else if (name.equals("peerHeartBeat")) {
+                assert args.length == 1;
+                IPeer peer = LocatorService.getLocator().getPeers().get(args[0]);
+                if (peer instanceof RemotePeer) ((RemotePeer)peer).updateAttributes(peer.getAttributes());
+            }
+        }
+        catch (Throwable x) {
+            channel.terminate(x);
+        }
+    }
+
+    private void updatePeer(Map<String,String> attrs) {
+        if (attrs == null) return;
+        String id = attrs.get(IPeer.ATTR_ID);
+        if (id == null) return;
+        IPeer peer = LocatorService.getLocator().getPeers().get(id);
+        if (peer instanceof RemotePeer) {
+            ((RemotePeer)peer).updateAttributes(attrs);
+        }
+        else if (peer == null) {
+            new RemotePeer(attrs);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007-2020 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
@@ -37,6 +38,7 @@ import org.eclipse.tcf.internal.core.LocalPeer;
 import org.eclipse.tcf.internal.core.LoggingUtil;
 import org.eclipse.tcf.internal.core.RemotePeer;
 import org.eclipse.tcf.internal.core.ServiceManager;
+import org.eclipse.tcf.internal.services.local.LocatorInputQueue.InputPacket;
 import org.eclipse.tcf.core.AbstractChannel;
 import org.eclipse.tcf.core.UserDefPeer;
 import org.eclipse.tcf.protocol.IChannel;
@@ -76,11 +78,22 @@ public class LocatorService implements ILocator {
 
     private static final Map<String,IPeer> peers = new HashMap<String,IPeer>();
     private static final ArrayList<LocatorListener> listeners = new ArrayList<LocatorListener>();
+    private static LocatorListener[] listener_array = new LocatorListener[0];
     private static final HashSet<String> error_log = new HashSet<String>();
 
     private final HashSet<SubNet> subnets = new HashSet<SubNet>();
     private final ArrayList<Slave> slaves = new ArrayList<Slave>();
     private final byte[] inp_buf = new byte[MAX_PACKET_SIZE];
+
+    /**
+     * Packets received by input_thread, waiting to be handled by the dispatch thread.
+     */
+    private final LocatorInputQueue inp_queue = new LocatorInputQueue(MAX_INP_QUEUE_SIZE, new LocatorInputQueue.Handler() {
+        public void handlePacket(InputPacket p) {
+            handleDatagramPacket(p);
+        }
+    });
+    private static final int MAX_INP_QUEUE_SIZE = 1024;
     private final byte[] out_buf = new byte[MAX_PACKET_SIZE];
 
     private InetAddress loopback_addr;
@@ -90,6 +103,26 @@ public class LocatorService implements ILocator {
      */
     private static boolean TRACE_DISCOVERY = System.getProperty("org.eclipse.tcf.core.tracing.discovery") != null;
 
+    /**
+     * Discovery modes, selected by "org.eclipse.tcf.core.discovery" system property:
+     * "broadcast" - default, UDP broadcast on all subnets, other locators on same host are slaves of the master locator,
+     *     which owns the discovery port and relays packets to them;
+     * "multicast" - UDP multicast to the group set by "org.eclipse.tcf.core.discovery.group" property,
+     *     all locators on a host receive group packets directly, hosts that are not group members are not disturbed;
+     * "registry" - no UDP traffic, peers are obtained from a locator registry agent,
+     *     see LocatorRegistryClient.
+     */
+    private static final int
+        MODE_BROADCAST = 0,
+        MODE_MULTICAST = 1,
+        MODE_REGISTRY = 2;
+
+    private static final int discovery_mode = getDiscoveryMode();
+
+    private LocatorMulticastGroup multicast;
+    private final byte[] multicast_buf = new byte[MAX_PACKET_SIZE];
+    private LocatorRegistryClient registry;
+
     /**
      * Internal Subnetwork Representation
      */
@@ -99,6 +132,7 @@ public class LocatorService implements ILocator {
         final InetAddress broadcast;
         final String host_name;
 
+        NetworkInterface net_if;
         long last_slaves_req_time;
         boolean send_all_ok;
 
@@ -305,49 +339,10 @@ public class LocatorService implements ILocator {
         }
     };
 
-    /**
-     * Wrapper for final class DatagramPacket so its toString() can present
-     * the value in the debugger in a readable fashion.
-     */
-    private static class InputPacket {
-
-        final DatagramPacket p;
-
-        InputPacket(DatagramPacket p) {
-            this.p = p;
-        }
-
-        DatagramPacket getPacket() {
-            return p;
-        }
-
-        int getLength() {
-            return p.getLength();
-        }
-
-        byte[] getData() {
-            return p.getData();
-        }
-
-        int getPort() {
-            return p.getPort();
-        }
-
-        InetAddress getAddress() {
-            return p.getAddress();
-        }
-
-        @Override
-        public String toString() {
-            return "[address=" + p.getAddress().toString()
-                 + ",port=" + p.getPort()
-                 + ",data=\"" + new String(p.getData(), 0, p.getLength()) + "\"]";
-        }
-    }
-
     /**
      * LocatorService's thread for handling packets received from other Peers, as part of the discovery.
-     * Its run method delegates the handling of the packet to the dispatch thread, using the {@code handleDatagramPacket} method.
+     * Peer attributes are parsed by this thread, then the packet is queued and handled by the dispatch thread,
+     * using the {@code handleDatagramPacket} method.
      * Thread's name is: TCF Locator Receiver
      */
     private final Thread input_thread = new Thread() {
@@ -356,13 +351,7 @@ public class LocatorService implements ILocator {
                 for (;;) {
                     DatagramSocket socket = LocatorService.this.socket;
                     try {
-                        final InputPacket p = new InputPacket(new DatagramPacket(inp_buf, inp_buf.length));
-                        socket.receive(p.getPacket());
-                        Protocol.invokeAndWait(new Runnable() {
-                            public void run() {
-                                handleDatagramPacket(p);
-                            }
-                        });
+                        receivePacket(socket, inp_buf);
                     }
                     catch (IllegalStateException x) {
                         // TCF event dispatch is shut down
@@ -381,6 +370,43 @@ public class LocatorService implements ILocator {
         }
     };
 
+    /**
+     * Thread for receiving multicast discovery packets, used in multicast mode only.
+     * Thread's name is: TCF Locator Multicast Receiver
+     */
+    private final Thread multicast_thread = new Thread() {
+        public void run() {
+            try {
+                for (;;) {
+                    try {
+                        receivePacket(multicast.getSocket(), multicast_buf);
+                    }
+                    catch (IllegalStateException x) {
+                        // TCF event dispatch is shut down
+                        return;
+                    }
+                    catch (Exception x) {
+                        log("Cannot read from multicast socket", x);
+                        sleep(2000);
+                    }
+                }
+            }
+            catch (Throwable x) {
+                log("Unhandled exception in socket reading thread", x);
+            }
+        }
+    };
+
+    /**
+     * Receive a packet and queue it for the dispatch thread.
+     * Called by the receiver threads.
+     */
+    private void receivePacket(DatagramSocket socket, byte[] buf) throws IOException {
+        DatagramPacket dp = new DatagramPacket(buf, buf.length);
+        socket.receive(dp);
+        inp_queue.add(dp);
+    }
+
     static {
         ServiceManager.addServiceProvider(new IServiceProvider() {
 
@@ -433,6 +459,15 @@ public class LocatorService implements ILocator {
         return socket;
     }
 
+    private static int getDiscoveryMode() {
+        String s = System.getProperty("org.eclipse.tcf.core.discovery");
+        if (s == null || s.equals("broadcast")) return MODE_BROADCAST;
+        if (s.equals("multicast")) return MODE_MULTICAST;
+        if (s.equals("registry")) return MODE_REGISTRY;
+        Protocol.log("Invalid value of system property org.eclipse.tcf.core.discovery: " + s, null);
+        return MODE_BROADCAST;
+    }
+
     /**
      * Creates a local instance of the LocatorService which involves creating:
      * 1. LocalPeer
@@ -457,16 +492,34 @@ public class LocatorService implements ILocator {
             out_buf[5] = 0;
             out_buf[6] = 0;
             out_buf[7] = 0;
-            try {
-                socket = createSocket(false);
+            if (discovery_mode == MODE_MULTICAST) {
+                /* The socket is used to send packets and to receive replies, group packets are received by multicast_socket */
+                socket = new MulticastSocket();
+                InetAddress group = InetAddress.getByName(System.getProperty("org.eclipse.tcf.core.discovery.group", "239.255.15.34"));
+                multicast = new LocatorMulticastGroup(group, DISCOVERY_PORT, TRACE_DISCOVERY);
+                multicast_thread.setName("TCF Locator Multicast Receiver");
+                multicast_thread.setDaemon(true);
                 if (TRACE_DISCOVERY) {
-                    LoggingUtil.trace("Became the master agent (bound to port " + socket.getLocalPort() + ")");
+                    LoggingUtil.trace("Joined multicast group " + multicast.getAddress().getHostAddress() + " (bound to port " + socket.getLocalPort() + ")");
                 }
             }
-            catch (SocketException x) {
+            else if (discovery_mode == MODE_REGISTRY) {
+                /* Discovery packets are not sent, the socket is never bound to the discovery port */
                 socket = createSocket(true);
-                if (TRACE_DISCOVERY) {
-                    LoggingUtil.trace("Became a slave agent (bound to port " + socket.getLocalPort() + ")");
+                registry = new LocatorRegistryClient(System.getProperty("org.eclipse.tcf.core.discovery.registry"), TRACE_DISCOVERY);
+            }
+            else {
+                try {
+                    socket = createSocket(false);
+                    if (TRACE_DISCOVERY) {
+                        LoggingUtil.trace("Became the master agent (bound to port " + socket.getLocalPort() + ")");
+                    }
+                }
+                catch (SocketException x) {
+                    socket = createSocket(true);
+                    if (TRACE_DISCOVERY) {
+                        LoggingUtil.trace("Became a slave agent (bound to port " + socket.getLocalPort() + ")");
+                    }
                 }
             }
             input_thread.setName("TCF Locator Receiver");
@@ -482,11 +535,13 @@ public class LocatorService implements ILocator {
                 @Override
                 public void run() {
                     input_thread.start();
+                    if (multicast != null) multicast_thread.start();
                     timer_thread.start();
                     dns_lookup_thread.start();
+                    if (registry != null) registry.connect();
                 }
             });
-            listeners.add(new LocatorListener() {
+            addListener(new LocatorListener() {
                 @Override
                 public void peerAdded(IPeer peer) {
                     sendPeerInfo(peer, null, 0);
@@ -534,7 +589,8 @@ public class LocatorService implements ILocator {
      * @return array of locator listeners
      */
     public static LocatorListener[] getListeners() {
-        return listeners.toArray(new LocatorListener[listeners.size()]);
+        /* The array is replaced when the listener list changes, callers must not modify it */
+        return listener_array;
     }
 
     /**
@@ -692,8 +748,9 @@ public class LocatorService implements ILocator {
         if (stale_peers != null) {
             for (RemotePeer p : stale_peers) p.dispose();
         }
+        if (registry != null) registry.connect();
         /* Try to become a master */
-        if (socket.getLocalPort() != DISCOVERY_PORT && last_master_packet_time + DATA_RETENTION_PERIOD / 2 <= time) {
+        if (discovery_mode == MODE_BROADCAST && socket.getLocalPort() != DISCOVERY_PORT && last_master_packet_time + DATA_RETENTION_PERIOD / 2 <= time) {
             try {
                 DatagramSocket s0 = socket;
                 socket = createSocket(false);
@@ -706,7 +763,7 @@ public class LocatorService implements ILocator {
             }
         }
         if (refreshSubNetList(nets)) sendPeersRequest(null, 0);
-        if (socket.getLocalPort() != DISCOVERY_PORT) {
+        if (discovery_mode == MODE_BROADCAST && socket.getLocalPort() != DISCOVERY_PORT) {
             for (SubNet subnet : subnets) {
                 addSlave(subnet.address, socket.getLocalPort(), time);
             }
@@ -722,6 +779,8 @@ public class LocatorService implements ILocator {
      * @return the slave which was created using the given parameters
      */
     private Slave addSlave(InetAddress addr, int port, long timestamp) {
+        /* Only broadcast mode needs slaves, multicast packets are received by all locators of a host */
+        if (discovery_mode != MODE_BROADCAST) return null;
         /*
          * Check if there's an slave already in the list of known slaves, and if there is refresh the timestamp of the last packet received and return it
          */
@@ -951,22 +1010,35 @@ public class LocatorService implements ILocator {
      * @return true if the datagram was sent, false is the datagram was not sent
      */
     private boolean sendDatagramPacket(SubNet subnet, int size, InetAddress addr, int port) {
+        if (discovery_mode == MODE_REGISTRY) return false;
         try {
-            if (addr == null) {
-                addr = subnet.address.equals(loopback_addr) ? loopback_addr : subnet.broadcast;
+            if (addr == null && discovery_mode == MODE_MULTICAST) {
+                addr = multicast.getAddress();
                 port = DISCOVERY_PORT;
-                for (Slave slave : slaves) {
-                    sendDatagramPacket(subnet, size, slave.address, slave.port);
+                if (subnet.address instanceof Inet4Address != addr instanceof Inet4Address) return false;
+                /* Locators on this host get group packets through multicast loop-back,
+                 * so loop-back subnet is used only if the host has no other network connection */
+                if (subnet.address.isLoopbackAddress() && hasNetworkSubNet(addr)) return false;
+                if (subnet.net_if == null) subnet.net_if = NetworkInterface.getByInetAddress(subnet.address);
+                multicast.send((MulticastSocket)socket, subnet.net_if, out_buf, size);
+            }
+            else {
+                if (addr == null) {
+                    addr = subnet.address.equals(loopback_addr) ? loopback_addr : subnet.broadcast;
+                    port = DISCOVERY_PORT;
+                    for (Slave slave : slaves) {
+                        sendDatagramPacket(subnet, size, slave.address, slave.port);
+                    }
                 }
+                if (!subnet.contains(addr)) return false;
+                if (port == socket.getLocalPort() && addr.equals(subnet.address)) return false;
+                socket.send(new DatagramPacket(out_buf, size, addr, port));
             }
-            if (!subnet.contains(addr)) return false;
-            if (port == socket.getLocalPort() && addr.equals(subnet.address)) return false;
-            socket.send(new DatagramPacket(out_buf, size, addr, port));
 
             if (TRACE_DISCOVERY) {
                 Map<String,String> map = null;
                 switch (out_buf[4]) {
-                case CONF_PEER_INFO: map = parsePeerAtrributes(out_buf, size); break;
+                case CONF_PEER_INFO: map = LocatorInputQueue.parsePeerAttributes(out_buf, size); break;
                 case CONF_SLAVES_INFO: map = parseIDs(out_buf, size); break;
                 case CONF_PEERS_REMOVED: map = parseIDs(out_buf, size); break;
                 }
@@ -981,32 +1053,16 @@ public class LocatorService implements ILocator {
     }
 
     /**
-     * Parse peer attributes in CONF_PEER_INFO packet data.
-     *
-     * @param data - the packet data
-     * @param size - the packet size
-     * @return a map containing the attributes
-     * @throws UnsupportedEncodingException
+     * Check if there is a subnet, other than loop-back, that can be used to send packets to given address.
+     * @param addr - destination address.
+     * @return true if such subnet exists.
      */
-    private static Map<String,String> parsePeerAtrributes(byte[] data, int size) throws UnsupportedEncodingException {
-        Map<String,String> map = new HashMap<String,String>();
-        String s = new String(data, 8, size - 8, "UTF-8");
-        int l = s.length();
-        int i = 0;
-        while (i < l) {
-            int i0 = i;
-            while (i < l && s.charAt(i) != '=' && s.charAt(i) != 0) i++;
-            int i1 = i;
-            if (i < l && s.charAt(i) == '=') i++;
-            int i2 = i;
-            while (i < l && s.charAt(i) != 0) i++;
-            int i3 = i;
-            if (i < l && s.charAt(i) == 0) i++;
-            String key = s.substring(i0, i1);
-            String val = s.substring(i2, i3);
-            map.put(key, val);
+    private boolean hasNetworkSubNet(InetAddress addr) {
+        for (SubNet subnet : subnets) {
+            if (subnet.address.isLoopbackAddress()) continue;
+            if (subnet.address instanceof Inet4Address == addr instanceof Inet4Address) return true;
         }
-        return map;
+        return false;
     }
 
     /**
@@ -1249,7 +1305,7 @@ public class LocatorService implements ILocator {
                         long delay = DATA_RETENTION_PERIOD / 3;
                         if (remote_port != DISCOVERY_PORT) delay = DATA_RETENTION_PERIOD / 3 * 2;
                         else if (!subnet.address.equals(remote_address)) delay = DATA_RETENTION_PERIOD / 2;
-                        if (subnet.last_slaves_req_time + delay <= time) {
+                        if (discovery_mode == MODE_BROADCAST && subnet.last_slaves_req_time + delay <= time) {
                             sendSlavesRequest(subnet, remote_address, remote_port);
                             subnet.last_slaves_req_time = time;
                         }
@@ -1271,7 +1327,8 @@ public class LocatorService implements ILocator {
      */
     private void handlePeerInfoPacket(InputPacket p) {
         try {
-            Map<String,String> map = parsePeerAtrributes(p.getData(), p.getLength());
+            Map<String,String> map = p.getAttributes();
+            if (map == null) map = LocatorInputQueue.parsePeerAttributes(p.getData(), p.getLength());
             if (TRACE_DISCOVERY) traceDiscoveryPacket(true, "CONF_PEER_INFO", map, p);
             String id = map.get(IPeer.ATTR_ID);
             if (id == null) throw new Exception("Invalid peer info: no ID");
@@ -1463,11 +1520,13 @@ public class LocatorService implements ILocator {
         assert listener != null;
         assert Protocol.isDispatchThread();
         listeners.add(listener);
+        listener_array = listeners.toArray(new LocatorListener[listeners.size()]);
     }
 
     public void removeListener(LocatorListener listener) {
         assert Protocol.isDispatchThread();
         listeners.remove(listener);
+        listener_array = listeners.toArray(new LocatorListener[listeners.size()]);
     }
 
     /**
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.tcf.internal.services.remote;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -281,22 +282,48 @@ public class FileSystemProxy implements IFileSystem {
         String id = ((FileHandle)handle).id;
         return new FileSystemCommand("read", new Object[]{
                 id, Long.valueOf(offset), Integer.valueOf(len) }) {
+            @Override
+            protected Object[] decode(JSON.Binary data) throws IOException {
+                /* File data is passed to the client as a slice of reply data, without copying */
+                JSON.Reader r = new JSON.Reader(data);
+                JSON.Binary bytes = r.nextBinarySlice();
+                r.endArgument();
+                Object error = r.nextValue();
+                r.endArgument();
+                Object eof = r.nextValue();
+                r.endArgument();
+                return new Object[]{ bytes, error, eof };
+            }
             public void done(Exception error, Object[] args) {
                 Status s = null;
-                byte[] b = null;
+                JSON.Binary b = null;
                 boolean eof = false;
                 if (error != null) {
                     s = new Status(error);
                 }
                 else {
                     assert args.length == 3;
+                    b = (JSON.Binary)args[0];
                     s = toFSError(args[1]);
                     if (s == null) {
-                        b = JSON.toByteArray(args[0]);
                         eof = ((Boolean)args[2]).booleanValue();
                     }
+                    else if (b != null) {
+                        b.release();
+                        b = null;
+                    }
+                }
+                if (done instanceof DoneReadBinary) {
+                    ((DoneReadBinary)done).doneReadBinary(token, s, b, eof);
+                }
+                else {
+                    byte[] arr = null;
+                    if (b != null) {
+                        arr = b.toByteArray();
+                        b.release();
+                    }
+                    done.doneRead(token, s, arr, eof);
                 }
-                done.doneRead(token, s, b, eof);
             }
         }.token;
     }
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.services.remote;
+
+import java.io.IOException;
+
+import org.eclipse.tcf.core.Command;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IService;
+import org.eclipse.tcf.protocol.JSON;
+
+/**
+ * Command with standard "getChildren" reply: error report followed by array of context IDs.
+ * The reply is decoded directly into array of strings, without intermediate collection objects.
+ */
+abstract class GetChildrenCommand extends Command {
+
+    GetChildrenCommand(IChannel channel, IService service, String command, Object[] args) {
+        super(channel, service, command, args);
+    }
+
+    @Override
+    protected Object[] decode(JSON.Binary data) throws IOException {
+        JSON.Reader r = new JSON.Reader(data);
+        Object error = r.nextValue();
+        r.endArgument();
+        String[] ids = r.nextStringArray();
+        r.endArgument();
+        return new Object[]{ error, ids };
+    }
+
+    @Override
+    public void done(Exception error, Object[] args) {
+        String[] arr = null;
+        if (error == null) {
+            assert args.length == 2;
+            error = toError(args[0]);
+            arr = (String[])args[1];
+        }
+        doneGetChildren(error, arr);
+    }
+
+    abstract void doneGetChildren(Exception error, String[] ids);
+}
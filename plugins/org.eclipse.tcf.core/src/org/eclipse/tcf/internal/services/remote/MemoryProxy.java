@@ -246,6 +246,21 @@ public class MemoryProxy implements IMemory {
             return new MemoryCommand("get", new Object[] {
                     getID(), addr, word_size, size, mode
                 } ) {
+                    @Override
+                    protected Object[] decode(JSON.Binary data) throws IOException {
+                        /*
+                         * Keep memory data in a slice of the reply buffer, without intermediate arrays.
+                         * The client buffer is confined to the dispatch thread, the data is copied into it by done().
+                         */
+                        JSON.Reader r = new JSON.Reader(data);
+                        JSON.Binary bytes = r.nextBinarySlice();
+                        r.endArgument();
+                        Object error = r.nextValue();
+                        r.endArgument();
+                        Object ranges = r.nextValue();
+                        r.endArgument();
+                        return new Object[]{ bytes, error, ranges };
+                    }
                     public void done(Exception error, Object[] args) {
                         MemoryError e = null;
                         if (error != null) {
@@ -253,7 +268,14 @@ public class MemoryProxy implements IMemory {
                         }
                         else {
                             assert args.length == 3;
-                            JSON.toByteArray(buf, offs, size, args[0]);
+                            JSON.Binary bytes = (JSON.Binary)args[0];
+                            int n = 0;
+                            if (bytes != null) {
+                                n = Math.min(bytes.size, size);
+                                System.arraycopy(bytes.bytes, bytes.offs, buf, offs, n);
+                                bytes.release();
+                            }
+                            Arrays.fill(buf, offs + n, offs + size, (byte)0);
                             e = toMemoryError(addr, args[1], args[2]);
                         }
                         done.doneMemory(token, e);
@@ -347,16 +369,10 @@ public class MemoryProxy implements IMemory {
     }
 
     public IToken getChildren(String parent_context_id, final DoneGetChildren done) {
-        return new Command(channel, this, "getChildren", new Object[]{ parent_context_id }) {
+        return new GetChildrenCommand(channel, this, "getChildren", new Object[]{ parent_context_id }) {
             @Override
-            public void done(Exception error, Object[] args) {
-                String[] arr = null;
-                if (error == null) {
-                    assert args.length == 2;
-                    error = toError(args[0]);
-                    arr = toStringArray(args[1]);
-                }
-                done.doneGetChildren(token, error, arr);
+            void doneGetChildren(Exception error, String[] ids) {
+                done.doneGetChildren(token, error, ids);
             }
         }.token;
     }
@@ -161,12 +161,16 @@ public class RegistersProxy implements IRegisters {
             return new Command(channel, RegistersProxy.this, "get",
                     new Object[]{ getID() }) {
                 @Override
+                protected Object[] decode(JSON.Binary data) throws IOException {
+                    return decodeValue(data);
+                }
+                @Override
                 public void done(Exception error, Object[] args) {
                     byte[] val = null;
                     if (error == null) {
                         assert args.length == 2;
                         error = toError(args[0]);
-                        val = JSON.toByteArray(args[1]);
+                        val = (byte[])args[1];
                     }
                     done.doneGet(token, error, val);
                 }
@@ -217,16 +221,10 @@ public class RegistersProxy implements IRegisters {
     }
 
     public IToken getChildren(String parent_context_id, final DoneGetChildren done) {
-        return new Command(channel, this, "getChildren", new Object[]{ parent_context_id }) {
+        return new GetChildrenCommand(channel, this, "getChildren", new Object[]{ parent_context_id }) {
             @Override
-            public void done(Exception error, Object[] args) {
-                String[] arr = null;
-                if (error == null) {
-                    assert args.length == 2;
-                    error = toError(args[0]);
-                    arr = toStringArray(args[1]);
-                }
-                done.doneGetChildren(token, error, arr);
+            void doneGetChildren(Exception error, String[] ids) {
+                done.doneGetChildren(token, error, ids);
             }
         }.token;
     }
@@ -249,13 +247,17 @@ public class RegistersProxy implements IRegisters {
 
     public IToken getm(Location[] locs, final DoneGet done) {
         return new Command(channel, this, "getm", new Object[]{ locs }) {
+            @Override
+            protected Object[] decode(JSON.Binary data) throws IOException {
+                return decodeValue(data);
+            }
             @Override
             public void done(Exception error, Object[] args) {
                 byte[] val = null;
                 if (error == null) {
                     assert args.length == 2;
                     error = toError(args[0]);
-                    val = JSON.toByteArray(args[1]);
+                    val = (byte[])args[1];
                 }
                 done.doneGet(token, error, val);
             }
@@ -307,11 +309,18 @@ public class RegistersProxy implements IRegisters {
         if (l != null) channel.removeEventListener(this, l);
     }
 
-    @SuppressWarnings("unchecked")
-    private String[] toStringArray(Object o) {
-        if (o == null) return null;
-        Collection<String> c = (Collection<String>)o;
-        return (String[])c.toArray(new String[c.size()]);
+
+    /**
+     * Decode register value reply: error report followed by binary data.
+     * The value is decoded directly from reply data, without intermediate string objects.
+     */
+    private static Object[] decodeValue(JSON.Binary data) throws IOException {
+        JSON.Reader r = new JSON.Reader(data);
+        Object error = r.nextValue();
+        r.endArgument();
+        byte[] val = r.nextBinary();
+        r.endArgument();
+        return new Object[]{ error, val };
     }
 
     @SuppressWarnings("unchecked")
@@ -276,16 +276,10 @@ public class RunControlProxy implements IRunControl {
     }
 
     public IToken getChildren(String parent_context_id, final DoneGetChildren done) {
-        return new Command(channel, this, "getChildren", new Object[]{ parent_context_id }) {
+        return new GetChildrenCommand(channel, this, "getChildren", new Object[]{ parent_context_id }) {
             @Override
-            public void done(Exception error, Object[] args) {
-                String[] arr = null;
-                if (error == null) {
-                    assert args.length == 2;
-                    error = toError(args[0]);
-                    arr = toStringArray(args[1]);
-                }
-                done.doneGetChildren(token, error, arr);
+            void doneGetChildren(Exception error, String[] ids) {
+                done.doneGetChildren(token, error, ids);
             }
         }.token;
     }
@@ -88,31 +88,19 @@ public class StackTraceProxy implements IStackTrace {
     }
 
     public IToken getChildren(String parent_context_id, final DoneGetChildren done) {
-        return new Command(channel, this, "getChildren", new Object[]{ parent_context_id }) {
+        return new GetChildrenCommand(channel, this, "getChildren", new Object[]{ parent_context_id }) {
             @Override
-            public void done(Exception error, Object[] args) {
-                String[] arr = null;
-                if (error == null) {
-                    assert args.length == 2;
-                    error = toError(args[0]);
-                    arr = toStringArray(args[1]);
-                }
-                done.doneGetChildren(token, error, arr);
+            void doneGetChildren(Exception error, String[] ids) {
+                done.doneGetChildren(token, error, ids);
             }
         }.token;
     }
 
     public IToken getChildrenRange(String parent_context_id, int range_start, int range_end, final DoneGetChildren done) {
-        return new Command(channel, this, "getChildrenRange", new Object[]{ parent_context_id, range_start, range_end }) {
+        return new GetChildrenCommand(channel, this, "getChildrenRange", new Object[]{ parent_context_id, range_start, range_end }) {
             @Override
-            public void done(Exception error, Object[] args) {
-                String[] arr = null;
-                if (error == null) {
-                    assert args.length == 2;
-                    error = toError(args[0]);
-                    arr = toStringArray(args[1]);
-                }
-                done.doneGetChildren(token, error, arr);
+            void doneGetChildren(Exception error, String[] ids) {
+                done.doneGetChildren(token, error, ids);
             }
         }.token;
     }
@@ -147,11 +135,4 @@ public class StackTraceProxy implements IStackTrace {
         }
         return ctx;
     }
-
-    @SuppressWarnings("unchecked")
-    private String[] toStringArray(Object o) {
-        if (o == null) return null;
-        Collection<String> c = (Collection<String>)o;
-        return (String[])c.toArray(new String[c.size()]);
-    }
 }
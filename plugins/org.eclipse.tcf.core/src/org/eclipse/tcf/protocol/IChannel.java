@@ -316,4 +316,58 @@ public interface IChannel {
      * @param peer_attrs - peer that will become new remote communication endpoint of this channel
      */
     void redirect(Map<String,String> peer_attrs);
+
+    /**
+     * Get number of commands that were sent and are waiting for results.
+     * Commands that are held by the channel because of pending command limit are included.
+     * @param service - service name, or null to count commands of all services.
+     * @return number of pending commands.
+     * @since 1.7
+     */
+    int getPendingCommandCount(String service);
+
+    /**
+     * Limit number of commands of a service that are transmitted and waiting for results.
+     * When the limit is reached, sendCommand() still returns a token, but the command is held
+     * by the channel and transmitted later, when results of earlier commands of the service are received.
+     * Commands of same service are transmitted in the order of sendCommand() calls.
+     * Note that commands of other services can be transmitted before a held command.
+     * @param service - service name.
+     * @param limit - maximal number of pending commands, 0 means no limit.
+     * @since 1.7
+     */
+    void setPendingCommandLimit(String service, int limit);
+
+    /**
+     * Congestion listener interface.
+     * @since 1.7
+     */
+    interface ICongestionListener {
+
+        /**
+         * Called when out-bound traffic congestion level of the channel crosses the listener threshold.
+         * @param level - current congestion level, see getCongestion().
+         * @param congested - true if the level is above the threshold.
+         */
+        void congestionChanged(int level, boolean congested);
+    }
+
+    /**
+     * Subscribe a congestion listener.
+     * The listener is notified each time channel congestion level goes above or drops back below the threshold.
+     * Unlike IChannelListener.congestionLevel(), the listener also reflects changes of number of pending commands.
+     * Clients that produce a lot of commands, for example, read-ahead or polling, can use the listener
+     * to throttle themselves.
+     * @param threshold - congestion level threshold, in range -100..100.
+     * @param listener - congestion listener implementation.
+     * @since 1.7
+     */
+    void addCongestionListener(int threshold, ICongestionListener listener);
+
+    /**
+     * Remove a congestion listener.
+     * @param listener - congestion listener implementation.
+     * @since 1.7
+     */
+    void removeCongestionListener(ICongestionListener listener);
 }
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.protocol;
+
+/**
+ * Event queue that keeps a separate sub-queue (partition) for each source of events,
+ * for example, for each communication channel.
+ *
+ * All events are still dispatched by the single dispatch thread, so framework data remains
+ * confined to that thread. Events of same partition are dispatched in same order as queued,
+ * but events of different partitions can be reordered to give each partition a fair share
+ * of the dispatch thread. This way a burst of events from one source does not delay
+ * events from other sources.
+ *
+ * Events queued with IEventQueue.invokeLater() belong to the default partition.
+ *
+ * @since 1.7
+ */
+public interface IPartitionedEventQueue extends IEventQueue {
+
+    /**
+     * Causes <code>runnable</code> to have its <code>run</code>
+     * method called in the dispatch thread of this event queue.
+     * Events of a partition are dispatched in same order as queued.
+     *
+     * @param partition - object that identifies the partition, compared by identity,
+     *                    null means the default partition.
+     * @param runnable  the <code>Runnable</code> whose <code>run</code>
+     *                  method should be executed asynchronously.
+     */
+    void invokeLater(Object partition, Runnable runnable);
+}
@@ -20,8 +20,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.tcf.core.Base64;
+import org.eclipse.tcf.internal.core.BufferPool;
 
 
 /**
@@ -37,6 +40,9 @@ import org.eclipse.tcf.core.Base64;
  * Clients can enable writing support for objects of a other classes by
  * registering ObjectWriter interface implementation.
  *
+ * Encoder and decoder state is kept per thread, so the methods of this class
+ * can be called concurrently from the dispatch thread and channel I/O threads.
+ *
  * @noinstantiate This class is not intended to be instantiated by clients.
  */
 public final class JSON {
@@ -50,7 +56,7 @@ public final class JSON {
     }
 
     private static final Map<Class<?>,ObjectWriter<?>> object_writers =
-        new HashMap<Class<?>,ObjectWriter<?>>();
+        new ConcurrentHashMap<Class<?>,ObjectWriter<?>>();
 
     /** Wrapper class for binary byte blocs */
     public final static class Binary {
@@ -58,234 +64,284 @@ public final class JSON {
         public final int offs;
         public final int size;
 
+        /* Reference count of pooled buffer, shared by all slices of the buffer, null if not pooled */
+        private final AtomicInteger refs;
+        private boolean released;
+
         public Binary(byte[] bytes, int offs, int size) {
+            this(bytes, offs, size, null);
+        }
+
+        private Binary(byte[] bytes, int offs, int size, AtomicInteger refs) {
             this.bytes = bytes;
             this.offs = offs;
             this.size = size;
+            this.refs = refs;
         }
-    }
-
-    private static char[] tmp_buf = new char[0x1000];
-    private static byte[] tmp_bbf = new byte[0x1000];
-    private static int tmp_buf_pos;
-    private static boolean zero_copy;
-    private static Binary[] bin_buf = new Binary[0x10];
-    private static int bin_buf_pos;
-
-    private static byte[] inp;
-    private static int inp_pos;
-    private static int cur_ch;
 
-    // This buffer is used to create nice error reports
-    private static final char[] err_buf = new char[100];
-    private static int err_buf_pos;
-    private static int err_buf_cnt;
+        /**
+         * Allocate binary data bloc in a pooled buffer.
+         * The buffer is returned to the pool when the bloc and all its slices are released.
+         * @param size - size of the bloc.
+         * @return new binary data bloc.
+         * @since 1.7
+         */
+        public static Binary allocate(int size) {
+            return new Binary(BufferPool.alloc(size), 0, size, new AtomicInteger(1));
+        }
 
-    /**
-     * Add a handler for converting objects of a particular class into JSON.
-     * @param cls - a class
-     * @param writer - ObjectWriter implementation that provides generation of JSON for a given class.
-     */
-    public static <X> void addObjectWriter(Class<X> cls, ObjectWriter<X> writer) {
-        object_writers.put(cls, writer);
-    }
+        /**
+         * Create a bloc that shares the buffer with this bloc.
+         * If the buffer is pooled, it is not returned to the pool until the slice is released.
+         * @param offs - offset of the slice in the buffer.
+         * @param size - size of the slice.
+         * @return new binary data bloc.
+         * @since 1.7
+         */
+        public Binary slice(int offs, int size) {
+            assert !released;
+            assert offs >= 0 && offs + size <= bytes.length;
+            if (refs != null) refs.incrementAndGet();
+            return new Binary(bytes, offs, size, refs);
+        }
 
-    /**
-     * Write a character into JSON output buffer.
-     * Clients should not call this method directly, except from ObjectWriter implementation.
-     * @param ch
-     */
-    public static void write(char ch) {
-        if (tmp_buf_pos >= tmp_buf.length) {
-            char[] tmp = new char[tmp_buf.length * 2];
-            System.arraycopy(tmp_buf, 0, tmp, 0, tmp_buf_pos);
-            tmp_buf = tmp;
+        /**
+         * Release the bloc. If this is the last reference to a pooled buffer,
+         * the buffer is returned to the pool. The bloc data must not be accessed after this call.
+         * Releasing of a bloc is optional - buffers of unreleased blocs are garbage collected.
+         * The method should be called only once for a bloc.
+         * @since 1.7
+         */
+        public void release() {
+            if (refs == null || released) return;
+            released = true;
+            if (refs.decrementAndGet() == 0) BufferPool.free(bytes);
         }
-        tmp_buf[tmp_buf_pos++] = ch;
-    }
 
-    /**
-     * Write a string into JSON output buffer.
-     * The string is written "as-is". Call writeObject() to convert a String into JSON string.
-     * Clients should not call this method directly, except from ObjectWriter implementation.
-     * @param s - a string
-     */
-    public static void write(String s) {
-        int l = s.length();
-        for (int i = 0; i < l; i++) {
-            char ch = s.charAt(i);
-            if (tmp_buf_pos >= tmp_buf.length) write(ch);
-            else tmp_buf[tmp_buf_pos++] = ch;
+        /**
+         * Copy the bloc data into new array of bytes.
+         * @return array of bytes.
+         * @since 1.7
+         */
+        public byte[] toByteArray() {
+            if (refs == null && offs == 0 && size == bytes.length) return bytes;
+            byte[] res = new byte[size];
+            System.arraycopy(bytes, offs, res, 0, size);
+            return res;
         }
     }
 
     /**
-     * Write a non-negative integer number into JSON output buffer.
-     * Clients should not call this method directly, except from ObjectWriter implementation.
-     * @param n - a number
+     * Encoder/decoder state. Each thread that uses JSON gets its own instance,
+     * so channel I/O threads can encode and decode messages concurrently with
+     * the dispatch thread.
      */
-    public static void writeUInt(int n) {
-        assert n >= 0;
-        if (n >= 10) writeUInt(n / 10);
-        write((char)('0' + n % 10));
-    }
+    private static final class Codec {
 
-    private static int readUTF8Char() {
-        if (inp_pos >= inp.length) return -1;
-        int ch = inp[inp_pos++];
-        if (ch < 0) {
-            int n = 0;
-            if ((ch & 0xe0) == 0xc0) {
-                ch &= 0x1f;
-                n = 1;
-            }
-            else if ((ch & 0xf0) == 0xe0) {
-                ch &= 0x0f;
-                n = 2;
-            }
-            else if ((ch & 0xf8) == 0xf0) {
-                ch &= 0x07;
-                n = 3;
-            }
-            else if ((ch & 0xfc) == 0xf8) {
-                ch &= 0x03;
-                n = 4;
-            }
-            else if ((ch & 0xfe) == 0xfc) {
-                ch &= 0x01;
-                n = 5;
-            }
-            while (n > 0) {
-                if (inp_pos >= inp.length || (inp[inp_pos] & 0xc0) != 0x80) break;
-                ch = (ch << 6) | (inp[inp_pos++] & 0x3f);
-                n--;
+        private Codec outer;
+        private boolean busy;
+
+        private char[] tmp_buf;
+        private byte[] tmp_bbf;
+        private int tmp_buf_pos;
+        private boolean zero_copy;
+        private Binary[] bin_buf = new Binary[0x10];
+        private int bin_buf_pos;
+
+        private byte[] inp;
+        private int inp_pos;
+        private int inp_end;
+        private int cur_ch;
+
+        // This buffer is used to create nice error reports
+        private final char[] err_buf = new char[100];
+        private int err_buf_pos;
+        private int err_buf_cnt;
+
+        Codec(int buf_size) {
+            tmp_buf = new char[buf_size];
+            tmp_bbf = new byte[buf_size];
+        }
+
+        void write(char ch) {
+            if (tmp_buf_pos >= tmp_buf.length) {
+                char[] tmp = new char[tmp_buf.length * 2];
+                System.arraycopy(tmp_buf, 0, tmp, 0, tmp_buf_pos);
+                tmp_buf = tmp;
             }
-            while (n > 0) {
-                ch = ch << 6;
-                n--;
+            tmp_buf[tmp_buf_pos++] = ch;
+        }
+
+        void write(String s) {
+            int l = s.length();
+            for (int i = 0; i < l; i++) {
+                char ch = s.charAt(i);
+                if (tmp_buf_pos >= tmp_buf.length) write(ch);
+                else tmp_buf[tmp_buf_pos++] = ch;
             }
-            if (ch < 0) ch = 0;
         }
-        return ch;
-    }
 
-    private static void read() throws IOException {
-        cur_ch = readUTF8Char();
-        err_buf[err_buf_pos++] = (char)cur_ch;
-        if (err_buf_pos >= err_buf.length) {
-            err_buf_pos = 0;
-            err_buf_cnt++;
+        void writeUInt(int n) {
+            assert n >= 0;
+            if (n >= 10) writeUInt(n / 10);
+            write((char)('0' + n % 10));
         }
-    }
 
-    private static void skipWS() throws IOException {
-        while (cur_ch <= ' ') {
-            switch (cur_ch) {
-            case '\r':
-            case '\n':
-            case '\t':
-            case ' ':
-                read();
-                break;
-            default:
-                return;
+        private int readUTF8Char() {
+            if (inp_pos >= inp_end) return -1;
+            int ch = inp[inp_pos++];
+            if (ch < 0) {
+                int n = 0;
+                if ((ch & 0xe0) == 0xc0) {
+                    ch &= 0x1f;
+                    n = 1;
+                }
+                else if ((ch & 0xf0) == 0xe0) {
+                    ch &= 0x0f;
+                    n = 2;
+                }
+                else if ((ch & 0xf8) == 0xf0) {
+                    ch &= 0x07;
+                    n = 3;
+                }
+                else if ((ch & 0xfc) == 0xf8) {
+                    ch &= 0x03;
+                    n = 4;
+                }
+                else if ((ch & 0xfe) == 0xfc) {
+                    ch &= 0x01;
+                    n = 5;
+                }
+                while (n > 0) {
+                    if (inp_pos >= inp_end || (inp[inp_pos] & 0xc0) != 0x80) break;
+                    ch = (ch << 6) | (inp[inp_pos++] & 0x3f);
+                    n--;
+                }
+                while (n > 0) {
+                    ch = ch << 6;
+                    n--;
+                }
+                if (ch < 0) ch = 0;
             }
+            return ch;
         }
-    }
-
-    private static void error() throws IOException {
-        error("syntax error");
-    }
 
-    private static void error(String msg) throws IOException {
-        StringBuffer bf = new StringBuffer();
-        bf.append("JSON " + msg + ":");
-        int cnt = 0;
-        boolean nl = true;
-        for (int i = 0;; i++) {
-            char ch = 0;
-            if (err_buf_cnt == 0 && i < err_buf_pos) {
-                ch = err_buf[i];
+        private void read() throws IOException {
+            cur_ch = readUTF8Char();
+            err_buf[err_buf_pos++] = (char)cur_ch;
+            if (err_buf_pos >= err_buf.length) {
+                err_buf_pos = 0;
+                err_buf_cnt++;
             }
-            else if (err_buf_cnt > 0 && i < err_buf.length) {
-                ch = err_buf[(err_buf_pos + i) % err_buf.length];
+        }
+
+        private void skipWS() throws IOException {
+            while (cur_ch <= ' ') {
+                switch (cur_ch) {
+                case '\r':
+                case '\n':
+                case '\t':
+                case ' ':
+                    read();
+                    break;
+                default:
+                    return;
+                }
             }
-            else {
-                int n = readUTF8Char();
-                if (n < 0) break;
-                ch = (char)n;
-            }
-            if (nl) {
-                bf.append("\n ");
-                if (err_buf_cnt == 0) bf.append(cnt);
-                else bf.append('*');
-                bf.append(": ");
-                if (cnt == 0 && err_buf_cnt > 0) bf.append("...");
-                nl = false;
-            }
-            if (ch == 0) {
-                cnt++;
-                nl = true;
-                continue;
-            }
-            bf.append(ch);
-        }
-        throw new IOException(bf.toString());
-    }
+        }
 
-    private static int readHexDigit() throws IOException {
-        int n = 0;
-        if (cur_ch >= '0' && cur_ch <= '9') n = cur_ch - '0';
-        else if (cur_ch >= 'A' && cur_ch <= 'F') n = cur_ch - 'A' + 10;
-        else if (cur_ch >= 'a' && cur_ch <= 'f') n = cur_ch - 'a' + 10;
-        else error();
-        read();
-        return n;
-    }
+        private void error() throws IOException {
+            error("syntax error");
+        }
 
-    private static Object readFloat(boolean sign, BigInteger val) throws IOException {
-        int scale = 0;
-        int fraction = 0;
-        if (cur_ch == '.') {
-            read();
-            while (cur_ch >= '0' && cur_ch <= '9') {
-                val = val.multiply(BigInteger.valueOf(10));
-                val = val.add(BigInteger.valueOf(cur_ch - '0'));
-                fraction++;
-                read();
+        private void error(String msg) throws IOException {
+            StringBuffer bf = new StringBuffer();
+            bf.append("JSON " + msg + ":");
+            int cnt = 0;
+            boolean nl = true;
+            for (int i = 0;; i++) {
+                char ch = 0;
+                if (err_buf_cnt == 0 && i < err_buf_pos) {
+                    ch = err_buf[i];
+                }
+                else if (err_buf_cnt > 0 && i < err_buf.length) {
+                    ch = err_buf[(err_buf_pos + i) % err_buf.length];
+                }
+                else {
+                    int n = readUTF8Char();
+                    if (n < 0) break;
+                    ch = (char)n;
+                }
+                if (nl) {
+                    bf.append("\n ");
+                    if (err_buf_cnt == 0) bf.append(cnt);
+                    else bf.append('*');
+                    bf.append(": ");
+                    if (cnt == 0 && err_buf_cnt > 0) bf.append("...");
+                    nl = false;
+                }
+                if (ch == 0) {
+                    cnt++;
+                    nl = true;
+                    continue;
+                }
+                bf.append(ch);
             }
+            throw new IOException(bf.toString());
         }
-        if (cur_ch == 'E' || cur_ch == 'e') {
+
+        private int readHexDigit() throws IOException {
+            int n = 0;
+            if (cur_ch >= '0' && cur_ch <= '9') n = cur_ch - '0';
+            else if (cur_ch >= 'A' && cur_ch <= 'F') n = cur_ch - 'A' + 10;
+            else if (cur_ch >= 'a' && cur_ch <= 'f') n = cur_ch - 'a' + 10;
+            else error();
             read();
-            boolean neg = cur_ch == '-';
-            if (neg || cur_ch == '+') read();
-            while (cur_ch >= '0' && cur_ch <= '9') {
-                scale = scale * 10 + cur_ch - '0';
+            return n;
+        }
+
+        private Object readFloat(boolean sign, BigInteger val) throws IOException {
+            int scale = 0;
+            int fraction = 0;
+            if (cur_ch == '.') {
+                read();
+                while (cur_ch >= '0' && cur_ch <= '9') {
+                    val = val.multiply(BigInteger.valueOf(10));
+                    val = val.add(BigInteger.valueOf(cur_ch - '0'));
+                    fraction++;
+                    read();
+                }
+            }
+            if (cur_ch == 'E' || cur_ch == 'e') {
                 read();
+                boolean neg = cur_ch == '-';
+                if (neg || cur_ch == '+') read();
+                while (cur_ch >= '0' && cur_ch <= '9') {
+                    scale = scale * 10 + cur_ch - '0';
+                    read();
+                }
+                if (neg) scale = -scale;
             }
-            if (neg) scale = -scale;
+            if (sign) val = val.negate();
+            return new BigDecimal(val, fraction - scale);
         }
-        if (sign) val = val.negate();
-        return new BigDecimal(val, fraction - scale);
-    }
 
-    private static Object readNestedObject() throws IOException {
-        skipWS();
-        switch (cur_ch) {
-        case '(':
+        private byte[] readBinary() throws IOException {
             read();
             int len = 0;
             while (cur_ch >= '0' && cur_ch <= '9') {
                 len = len * 10 + (cur_ch - '0');
                 read();
             }
-            if (cur_ch != ')') error();
+            if (cur_ch != ')' || len > inp_end - inp_pos) error();
             byte[] res = new byte[len];
             System.arraycopy(inp, inp_pos, res, 0, len);
             inp_pos += len;
             read();
             return res;
-        case '"':
+        }
+
+        private String readString() throws IOException {
             read();
             tmp_buf_pos = 0;
             for (;;) {
@@ -344,7 +400,7 @@ public final class JSON {
                 else {
                     tmp_buf[tmp_buf_pos++] = (char)cur_ch;
                 }
-                if (inp_pos >= inp.length || inp[inp_pos] < 0) {
+                if (inp_pos >= inp_end || inp[inp_pos] < 0) {
                     cur_ch = readUTF8Char();
                 }
                 else {
@@ -358,80 +414,9 @@ public final class JSON {
             }
             read();
             return new String(tmp_buf, 0, tmp_buf_pos);
-        case '[':
-            read();
-            skipWS();
-            List<Object> l = new ArrayList<Object>();
-            if (cur_ch <= 0) error();
-            if (cur_ch != ']') {
-                for (;;) {
-                    l.add(readNestedObject());
-                    skipWS();
-                    if (cur_ch == ']') break;
-                    if (cur_ch != ',') error();
-                    read();
-                }
-            }
-            read();
-            return Collections.unmodifiableList(l);
-        case '{':
-            read();
-            skipWS();
-            Map<String,Object> m = new HashMap<String,Object>();
-            if (cur_ch <= 0) error();
-            if (cur_ch != '}') {
-                for (;;) {
-                    String key = (String)readNestedObject();
-                    skipWS();
-                    if (cur_ch != ':') error();
-                    read();
-                    Object val = readNestedObject();
-                    m.put(key, val);
-                    skipWS();
-                    if (cur_ch == '}') break;
-                    if (cur_ch != ',') error();
-                    read();
-                }
-            }
-            read();
-            return Collections.unmodifiableMap(m);
-        case 'n':
-            read();
-            if (cur_ch != 'u') error();
-            read();
-            if (cur_ch != 'l') error();
-            read();
-            if (cur_ch != 'l') error();
-            read();
-            return null;
-        case 'f':
-            read();
-            if (cur_ch != 'a') error();
-            read();
-            if (cur_ch != 'l') error();
-            read();
-            if (cur_ch != 's') error();
-            read();
-            if (cur_ch != 'e') error();
-            read();
-            return Boolean.FALSE;
-        case 't':
-            read();
-            if (cur_ch != 'r') error();
-            read();
-            if (cur_ch != 'u') error();
-            read();
-            if (cur_ch != 'e') error();
-            read();
-            return Boolean.TRUE;
-        case 'N':
-            read();
-            if (cur_ch != 'a') error();
-            read();
-            if (cur_ch != 'N') error();
-            read();
-            return Float.NaN;
-        default:
+        }
+
+        private Object readNumber() throws IOException {
             boolean neg = cur_ch == '-';
             if (neg) read();
             if (cur_ch >= '0' && cur_ch <= '9') {
@@ -477,200 +462,773 @@ public final class JSON {
             error();
             return null;
         }
-    }
 
-    /**
-     * Write an object into JSON output buffer.
-     * Clients should not call this method directly, except from ObjectWriter implementation.
-     * @param o - an object to write
-     */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    public static void writeObject(Object o) throws IOException {
-        if (o == null) {
-            write("null");
-        }
-        else if (o instanceof Boolean) {
-            write(o.toString());
-        }
-        else if (o instanceof Number) {
-            write(o.toString());
-        }
-        else if (o instanceof String) {
-            String s = (String)o;
-            char[] arr = new char[s.length()];
-            s.getChars(0, arr.length, arr, 0);
-            writeObject(arr);
-        }
-        else if (o instanceof char[]) {
-            char[] s = (char[])o;
-            write('"');
-            int l = s.length;
-            for (int i = 0; i < l; i++) {
-                char ch = s[i];
-                switch (ch) {
-                case 0:
-                    write("\\u0000");
-                    break;
-                case 1:
-                    write("\\u0001");
-                    break;
-                case '\r':
-                    write("\\r");
-                    break;
-                case '\n':
-                    write("\\n");
-                    break;
-                case '\t':
-                    write("\\t");
-                    break;
-                case '\b':
-                    write("\\b");
-                    break;
-                case '\f':
-                    write("\\f");
-                    break;
-                case '"':
-                case '\\':
-                    write('\\');
-                default:
-                    if (tmp_buf_pos >= tmp_buf.length) write(ch);
-                    else tmp_buf[tmp_buf_pos++] = ch;
+        private Object readNestedObject() throws IOException {
+            skipWS();
+            switch (cur_ch) {
+            case '(':
+                return readBinary();
+            case '"':
+                return readString();
+            case '[':
+                read();
+                skipWS();
+                List<Object> l = new ArrayList<Object>();
+                if (cur_ch <= 0) error();
+                if (cur_ch != ']') {
+                    for (;;) {
+                        l.add(readNestedObject());
+                        skipWS();
+                        if (cur_ch == ']') break;
+                        if (cur_ch != ',') error();
+                        read();
+                    }
+                }
+                read();
+                return Collections.unmodifiableList(l);
+            case '{':
+                read();
+                skipWS();
+                Map<String,Object> m = new HashMap<String,Object>();
+                if (cur_ch <= 0) error();
+                if (cur_ch != '}') {
+                    for (;;) {
+                        String key = (String)readNestedObject();
+                        skipWS();
+                        if (cur_ch != ':') error();
+                        read();
+                        Object val = readNestedObject();
+                        m.put(key, val);
+                        skipWS();
+                        if (cur_ch == '}') break;
+                        if (cur_ch != ',') error();
+                        read();
+                    }
                 }
+                read();
+                return Collections.unmodifiableMap(m);
+            case 'n':
+                read();
+                if (cur_ch != 'u') error();
+                read();
+                if (cur_ch != 'l') error();
+                read();
+                if (cur_ch != 'l') error();
+                read();
+                return null;
+            case 'f':
+                read();
+                if (cur_ch != 'a') error();
+                read();
+                if (cur_ch != 'l') error();
+                read();
+                if (cur_ch != 's') error();
+                read();
+                if (cur_ch != 'e') error();
+                read();
+                return Boolean.FALSE;
+            case 't':
+                read();
+                if (cur_ch != 'r') error();
+                read();
+                if (cur_ch != 'u') error();
+                read();
+                if (cur_ch != 'e') error();
+                read();
+                return Boolean.TRUE;
+            case 'N':
+                read();
+                if (cur_ch != 'a') error();
+                read();
+                if (cur_ch != 'N') error();
+                read();
+                return Float.NaN;
+            default:
+                return readNumber();
             }
-            write('"');
         }
-        else if (o instanceof Binary) {
-            Binary b = (Binary)o;
-            if (zero_copy) {
-                write('(');
-                write(Integer.toString(b.size));
-                write(')');
-                write((char)1);
-                bin_buf[bin_buf_pos++] = b;
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        void writeObject(Object o) throws IOException {
+            if (o == null) {
+                write("null");
             }
-            else {
-                writeObject(Base64.toBase64(b.bytes, b.offs, b.size));
-            }
-        }
-        else if (o instanceof byte[]) {
-            write('[');
-            byte[] arr = (byte[])o;
-            boolean comma = false;
-            for (int i = 0; i < arr.length; i++) {
-                if (comma) write(',');
-                writeUInt(arr[i] & 0xff);
-                comma = true;
-            }
-            write(']');
-        }
-        else if (o instanceof Object[]) {
-            write('[');
-            Object[] arr = (Object[])o;
-            boolean comma = false;
-            for (int i = 0; i < arr.length; i++) {
-                if (comma) write(',');
-                writeObject(arr[i]);
-                comma = true;
-            }
-            write(']');
-        }
-        else if (o instanceof Collection) {
-            write('[');
-            boolean comma = false;
-            for (Iterator<Object> i = ((Collection<Object>)o).iterator(); i.hasNext();) {
-                if (comma) write(',');
-                writeObject(i.next());
-                comma = true;
-            }
-            write(']');
-        }
-        else if (o instanceof Map) {
-            Map<String,Object> map = (Map<String,Object>)o;
-            write('{');
-            boolean comma = false;
-            for (Iterator<Map.Entry<String,Object>> i = map.entrySet().iterator(); i.hasNext();) {
-                if (comma) write(',');
-                Map.Entry<String,Object> e = i.next();
-                writeObject(e.getKey());
-                write(':');
-                writeObject(e.getValue());
-                comma = true;
-            }
-            write('}');
-        }
-        else {
-            ObjectWriter writer = object_writers.get(o.getClass());
-            if (writer == null) {
-                for (Class<?> c : object_writers.keySet()) {
-                    if (c.isInstance(o)) {
-                        writer = object_writers.get(c);
+            else if (o instanceof Boolean) {
+                write(o.toString());
+            }
+            else if (o instanceof Number) {
+                write(o.toString());
+            }
+            else if (o instanceof String) {
+                String s = (String)o;
+                char[] arr = new char[s.length()];
+                s.getChars(0, arr.length, arr, 0);
+                writeObject(arr);
+            }
+            else if (o instanceof char[]) {
+                char[] s = (char[])o;
+                write('"');
+                int l = s.length;
+                for (int i = 0; i < l; i++) {
+                    char ch = s[i];
+                    switch (ch) {
+                    case 0:
+                        write("\\u0000");
+                        break;
+                    case 1:
+                        write("\\u0001");
+                        break;
+                    case '\r':
+                        write("\\r");
+                        break;
+                    case '\n':
+                        write("\\n");
                         break;
+                    case '\t':
+                        write("\\t");
+                        break;
+                    case '\b':
+                        write("\\b");
+                        break;
+                    case '\f':
+                        write("\\f");
+                        break;
+                    case '"':
+                    case '\\':
+                        write('\\');
+                    default:
+                        if (tmp_buf_pos >= tmp_buf.length) write(ch);
+                        else tmp_buf[tmp_buf_pos++] = ch;
                     }
                 }
+                write('"');
             }
-            if (writer != null) {
-                writer.write(o);
+            else if (o instanceof Binary) {
+                Binary b = (Binary)o;
+                if (zero_copy) {
+                    write('(');
+                    write(Integer.toString(b.size));
+                    write(')');
+                    write((char)1);
+                    bin_buf[bin_buf_pos++] = b;
+                }
+                else {
+                    writeObject(Base64.toBase64(b.bytes, b.offs, b.size));
+                }
             }
-            else {
-                throw new IOException("JSON: unsupported object type:" + o.getClass());
+            else if (o instanceof byte[]) {
+                write('[');
+                byte[] arr = (byte[])o;
+                boolean comma = false;
+                for (int i = 0; i < arr.length; i++) {
+                    if (comma) write(',');
+                    writeUInt(arr[i] & 0xff);
+                    comma = true;
+                }
+                write(']');
             }
-        }
-    }
-
-    private static byte[] toBytes() {
-        int inp_pos = 0;
-        int out_pos = 0;
-        int blc_pos = 0;
-        while (inp_pos < tmp_buf_pos) {
-            if (out_pos > tmp_bbf.length - 4) {
-                byte[] tmp = new byte[tmp_bbf.length * 2];
-                System.arraycopy(tmp_bbf, 0, tmp, 0, out_pos);
-                tmp_bbf = tmp;
-            }
-            int ch = tmp_buf[inp_pos++];
-            if (ch >= 0xd800 && ch <= 0xdfff) {
-                if (inp_pos < tmp_buf_pos &&
-                        ch >= 0xd800 && ch <= 0xdbff &&
-                        tmp_buf[inp_pos] >= 0xdc00 && tmp_buf[inp_pos] <= 0xdfff) {
-                    int cl = tmp_buf[inp_pos++];
-                    ch = 0x10000 + ((ch - 0xd800) << 10) + (cl - 0xdc00);
+            else if (o instanceof Object[]) {
+                write('[');
+                Object[] arr = (Object[])o;
+                boolean comma = false;
+                for (int i = 0; i < arr.length; i++) {
+                    if (comma) write(',');
+                    writeObject(arr[i]);
+                    comma = true;
+                }
+                write(']');
+            }
+            else if (o instanceof Collection) {
+                write('[');
+                boolean comma = false;
+                for (Iterator<Object> i = ((Collection<Object>)o).iterator(); i.hasNext();) {
+                    if (comma) write(',');
+                    writeObject(i.next());
+                    comma = true;
+                }
+                write(']');
+            }
+            else if (o instanceof Map) {
+                Map<String,Object> map = (Map<String,Object>)o;
+                write('{');
+                boolean comma = false;
+                for (Iterator<Map.Entry<String,Object>> i = map.entrySet().iterator(); i.hasNext();) {
+                    if (comma) write(',');
+                    Map.Entry<String,Object> e = i.next();
+                    writeObject(e.getKey());
+                    write(':');
+                    writeObject(e.getValue());
+                    comma = true;
+                }
+                write('}');
+            }
+            else {
+                ObjectWriter writer = object_writers.get(o.getClass());
+                if (writer == null) {
+                    for (Class<?> c : object_writers.keySet()) {
+                        if (c.isInstance(o)) {
+                            writer = object_writers.get(c);
+                            break;
+                        }
+                    }
+                }
+                if (writer != null) {
+                    writer.write(o);
                 }
                 else {
-                    ch += 0x110000;
+                    throw new IOException("JSON: unsupported object type:" + o.getClass());
                 }
             }
-            if (ch == 1) {
-                Binary b = bin_buf[blc_pos++];
-                while (out_pos > tmp_bbf.length - b.size) {
+        }
+
+        private byte[] toBytes() {
+            int inp_pos = 0;
+            int out_pos = 0;
+            int blc_pos = 0;
+            while (inp_pos < tmp_buf_pos) {
+                if (out_pos > tmp_bbf.length - 4) {
                     byte[] tmp = new byte[tmp_bbf.length * 2];
                     System.arraycopy(tmp_bbf, 0, tmp, 0, out_pos);
                     tmp_bbf = tmp;
                 }
-                System.arraycopy(b.bytes, b.offs, tmp_bbf, out_pos, b.size);
-                out_pos += b.size;
+                int ch = tmp_buf[inp_pos++];
+                if (ch >= 0xd800 && ch <= 0xdfff) {
+                    if (inp_pos < tmp_buf_pos &&
+                            ch >= 0xd800 && ch <= 0xdbff &&
+                            tmp_buf[inp_pos] >= 0xdc00 && tmp_buf[inp_pos] <= 0xdfff) {
+                        int cl = tmp_buf[inp_pos++];
+                        ch = 0x10000 + ((ch - 0xd800) << 10) + (cl - 0xdc00);
+                    }
+                    else {
+                        ch += 0x110000;
+                    }
+                }
+                if (ch == 1) {
+                    Binary b = bin_buf[blc_pos++];
+                    while (out_pos > tmp_bbf.length - b.size) {
+                        byte[] tmp = new byte[tmp_bbf.length * 2];
+                        System.arraycopy(tmp_bbf, 0, tmp, 0, out_pos);
+                        tmp_bbf = tmp;
+                    }
+                    System.arraycopy(b.bytes, b.offs, tmp_bbf, out_pos, b.size);
+                    out_pos += b.size;
+                }
+                else if (ch < 0x80) {
+                    tmp_bbf[out_pos++] = (byte)ch;
+                }
+                else if (ch < 0x800) {
+                    tmp_bbf[out_pos++] = (byte)((ch >> 6) | 0xc0);
+                    tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+                }
+                else if (ch < 0x10000) {
+                    tmp_bbf[out_pos++] = (byte)((ch >> 12) | 0xe0);
+                    tmp_bbf[out_pos++] = (byte)((ch >> 6) & 0x3f | 0x80);
+                    tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+                }
+                else {
+                    tmp_bbf[out_pos++] = (byte)((ch >> 18) | 0xf0);
+                    tmp_bbf[out_pos++] = (byte)((ch >> 12) & 0x3f | 0x80);
+                    tmp_bbf[out_pos++] = (byte)((ch >> 6) & 0x3f | 0x80);
+                    tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+                }
             }
-            else if (ch < 0x80) {
-                tmp_bbf[out_pos++] = (byte)ch;
+            byte[] res = new byte[out_pos];
+            System.arraycopy(tmp_bbf, 0, res, 0, out_pos);
+            return res;
+        }
+
+        String toJSON(Object o) throws IOException {
+            tmp_buf_pos = 0;
+            bin_buf_pos = 0;
+            zero_copy = false;
+            writeObject(o);
+            return new String(tmp_buf, 0, tmp_buf_pos);
+        }
+
+        byte[] toJASONBytes(Object o) throws IOException {
+            tmp_buf_pos = 0;
+            bin_buf_pos = 0;
+            zero_copy = false;
+            writeObject(o);
+            return toBytes();
+        }
+
+        byte[] toJSONSequence(Object[] o, boolean zero_copy) throws IOException {
+            if (o == null || o.length == 0) return null;
+            tmp_buf_pos = 0;
+            bin_buf_pos = 0;
+            this.zero_copy = zero_copy;
+            for (int i = 0; i < o.length; i++) {
+                writeObject(o[i]);
+                write((char)0);
             }
-            else if (ch < 0x800) {
-                tmp_bbf[out_pos++] = (byte)((ch >> 6) | 0xc0);
-                tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+            return toBytes();
+        }
+
+        Object parseOne(byte[] b) throws IOException {
+            if (b.length == 0) return null;
+            inp = b;
+            inp_pos = 0;
+            inp_end = b.length;
+            err_buf_pos = 0;
+            err_buf_cnt = 0;
+            read();
+            Object o = readNestedObject();
+            skipWS();
+            if (cur_ch >= 0) error();
+            return o;
+        }
+
+        Object[] parseSequence(byte[] b, int offs, int size) throws IOException {
+            inp = b;
+            inp_pos = offs;
+            inp_end = offs + size;
+            err_buf_pos = 0;
+            err_buf_cnt = 0;
+            read();
+            List<Object> l = new ArrayList<Object>();
+            while (cur_ch >= 0) {
+                if (cur_ch == 0) l.add(null);
+                else l.add(readNestedObject());
+                if (cur_ch != 0) error("missing \\0 terminator");
+                read();
             }
-            else if (ch < 0x10000) {
-                tmp_bbf[out_pos++] = (byte)((ch >> 12) | 0xe0);
-                tmp_bbf[out_pos++] = (byte)((ch >> 6) & 0x3f | 0x80);
-                tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+            return l.toArray();
+        }
+    }
+
+    private static final ThreadLocal<Codec> codecs = new ThreadLocal<Codec>() {
+        @Override
+        protected Codec initialValue() {
+            return new Codec(0x1000);
+        }
+    };
+
+    /**
+     * Get the codec to be used for a new top level conversion on the calling thread.
+     * A nested conversion, e.g. one started by an ObjectWriter, gets a temporary codec,
+     * so that the state of the outer conversion is preserved.
+     */
+    private static Codec enter() {
+        Codec c = codecs.get();
+        if (c.busy) {
+            Codec n = new Codec(0x1000);
+            n.outer = c;
+            codecs.set(n);
+            c = n;
+        }
+        c.busy = true;
+        return c;
+    }
+
+    private static void exit(Codec c) {
+        c.busy = false;
+        c.inp = null;
+        if (c.outer != null) codecs.set(c.outer);
+    }
+
+    /**
+     * Pull parser for a sequence of zero terminated UTF-8 encoded JSON strings.
+     * Unlike parseSequence(), the reader does not create a generic object tree for whole sequence,
+     * so a client can decode a message directly into its own data types.
+     * A reader does not share state with other readers or with static methods of this class,
+     * so it can be used by any thread.
+     *
+     * Typical usage:
+     *
+     *  JSON.Reader r = new JSON.Reader(data);
+     *  Object error = r.nextValue();
+     *  r.endArgument();
+     *  String[] ids = r.nextStringArray();
+     *  r.endArgument();
+     *
+     * @since 1.7
+     */
+    public static final class Reader {
+
+        /** Token types, see peek() */
+        public static final int
+            END_SEQUENCE = -1,
+            END_ARGUMENT = 0,
+            NULL = 1,
+            BOOLEAN = 2,
+            NUMBER = 3,
+            STRING = 4,
+            BINARY = 5,
+            BEGIN_ARRAY = 6,
+            END_ARRAY = 7,
+            BEGIN_OBJECT = 8,
+            END_OBJECT = 9;
+
+        private final Codec c = new Codec(0x100);
+        private final Binary src;
+        private int depth;
+        private boolean first;
+
+        public Reader(byte[] buf) throws IOException {
+            this(buf, 0, buf == null ? 0 : buf.length);
+        }
+
+        public Reader(byte[] buf, int offs, int size) throws IOException {
+            this(new Binary(buf, offs, size));
+        }
+
+        /**
+         * Create a reader for binary data bloc.
+         * Slices returned by nextBinarySlice() share the bloc buffer.
+         * @param data - binary data bloc.
+         * @throws IOException
+         * @since 1.7
+         */
+        public Reader(Binary data) throws IOException {
+            src = data;
+            c.inp = data.bytes;
+            c.inp_pos = data.offs;
+            c.inp_end = data.offs + data.size;
+            c.read();
+        }
+
+        /**
+         * Get type of next token without consuming it.
+         * @return one of token type constants.
+         */
+        public int peek() throws IOException {
+            c.skipWS();
+            switch (c.cur_ch) {
+            case -1: return END_SEQUENCE;
+            case 0: return END_ARGUMENT;
+            case 'n': return NULL;
+            case 't':
+            case 'f': return BOOLEAN;
+            case '"': return STRING;
+            case '(': return BINARY;
+            case '[': return BEGIN_ARRAY;
+            case ']': return END_ARRAY;
+            case '{': return BEGIN_OBJECT;
+            case '}': return END_OBJECT;
             }
-            else {
-                tmp_bbf[out_pos++] = (byte)((ch >> 18) | 0xf0);
-                tmp_bbf[out_pos++] = (byte)((ch >> 12) & 0x3f | 0x80);
-                tmp_bbf[out_pos++] = (byte)((ch >> 6) & 0x3f | 0x80);
-                tmp_bbf[out_pos++] = (byte)(ch & 0x3f | 0x80);
+            return NUMBER;
+        }
+
+        /**
+         * Check if current argument is empty, that is, it is null.
+         * Empty arguments are allowed only at top level of the sequence.
+         */
+        private boolean isEmptyArgument() throws IOException {
+            c.skipWS();
+            return depth == 0 && c.cur_ch == 0;
+        }
+
+        public void beginArray() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != '[') c.error("array expected");
+            c.read();
+            depth++;
+            first = true;
+        }
+
+        public void endArray() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != ']') c.error();
+            c.read();
+            depth--;
+            first = false;
+        }
+
+        public void beginObject() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != '{') c.error("object expected");
+            c.read();
+            depth++;
+            first = true;
+        }
+
+        public void endObject() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != '}') c.error();
+            c.read();
+            depth--;
+            first = false;
+        }
+
+        /**
+         * Check if current array or object has more elements.
+         * The method must be called before reading each element.
+         * @return true if there is next element.
+         */
+        public boolean hasNext() throws IOException {
+            c.skipWS();
+            if (c.cur_ch == ']' || c.cur_ch == '}') return false;
+            if (!first) {
+                if (c.cur_ch != ',') c.error();
+                c.read();
+                c.skipWS();
+                first = true;
             }
+            return true;
+        }
+
+        /**
+         * Read name of next object member.
+         * @return member name.
+         */
+        public String nextName() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != '"') c.error();
+            String s = c.readString();
+            c.skipWS();
+            if (c.cur_ch != ':') c.error();
+            c.read();
+            return s;
+        }
+
+        /**
+         * Read next value as generic object, see parseSequence().
+         * @return Boolean, Number, String, byte[], List, Map or null.
+         */
+        public Object nextValue() throws IOException {
+            if (isEmptyArgument()) return null;
+            Object o = c.readNestedObject();
+            first = false;
+            return o;
+        }
+
+        public String nextString() throws IOException {
+            if (isEmptyArgument()) return null;
+            String s = null;
+            if (c.cur_ch == '"') s = c.readString();
+            else if (c.readNestedObject() != null) c.error("string expected");
+            first = false;
+            return s;
         }
-        byte[] res = new byte[out_pos];
-        System.arraycopy(tmp_bbf, 0, res, 0, out_pos);
-        return res;
+
+        public Number nextNumber() throws IOException {
+            if (isEmptyArgument()) return null;
+            Object o = c.readNestedObject();
+            if (o != null && !(o instanceof Number)) c.error("number expected");
+            first = false;
+            return (Number)o;
+        }
+
+        public int nextInt() throws IOException {
+            Number n = nextNumber();
+            if (n == null) c.error("number expected");
+            return n.intValue();
+        }
+
+        public long nextLong() throws IOException {
+            Number n = nextNumber();
+            if (n == null) c.error("number expected");
+            return n.longValue();
+        }
+
+        public boolean nextBoolean() throws IOException {
+            Object o = isEmptyArgument() ? null : c.readNestedObject();
+            if (!(o instanceof Boolean)) c.error("boolean expected");
+            first = false;
+            return ((Boolean)o).booleanValue();
+        }
+
+        /**
+         * Read next value as binary data.
+         * The value can be either "zero copy" binary bloc or BASE64 encoded string.
+         * @return array of bytes or null.
+         */
+        public byte[] nextBinary() throws IOException {
+            if (isEmptyArgument()) return null;
+            byte[] res = null;
+            if (c.cur_ch == '(') {
+                res = c.readBinary();
+            }
+            else if (c.cur_ch == '"') {
+                /* BASE64 encoded data cannot contain escape sequences,
+                 * so it is decoded directly from the input buffer */
+                int pos = c.inp_pos;
+                int end = pos;
+                while (end < c.inp_end && c.inp[end] != '"') end++;
+                if (end >= c.inp_end) c.error();
+                try {
+                    res = Base64.toByteArray(c.inp, pos, end - pos);
+                }
+                catch (IllegalArgumentException x) {
+                    c.error(x.getMessage());
+                }
+                c.inp_pos = end + 1;
+                c.read();
+            }
+            else if (c.readNestedObject() != null) {
+                c.error("binary data expected");
+            }
+            first = false;
+            return res;
+        }
+
+        /**
+         * Read next value as binary data.
+         * Unlike nextBinary(), "zero copy" binary bloc is not copied:
+         * the method returns a slice of the reader input, see Binary.slice().
+         * The caller should release the slice when the data is not needed anymore.
+         * @return binary data bloc or null.
+         * @since 1.7
+         */
+        public Binary nextBinarySlice() throws IOException {
+            if (isEmptyArgument()) return null;
+            if (c.cur_ch == '(') {
+                c.read();
+                int len = 0;
+                while (c.cur_ch >= '0' && c.cur_ch <= '9') {
+                    len = len * 10 + (c.cur_ch - '0');
+                    c.read();
+                }
+                if (c.cur_ch != ')' || len > c.inp_end - c.inp_pos) c.error();
+                Binary res = src.slice(c.inp_pos, len);
+                c.inp_pos += len;
+                c.read();
+                first = false;
+                return res;
+            }
+            byte[] buf = nextBinary();
+            if (buf == null) return null;
+            return new Binary(buf, 0, buf.length);
+        }
+
+        /**
+         * Read next value as array of strings.
+         * @return array of strings or null.
+         */
+        public String[] nextStringArray() throws IOException {
+            if (isEmptyArgument()) return null;
+            if (c.cur_ch == 'n') {
+                c.readNestedObject();
+                first = false;
+                return null;
+            }
+            List<String> l = new ArrayList<String>();
+            beginArray();
+            while (hasNext()) l.add(nextString());
+            endArray();
+            return l.toArray(new String[l.size()]);
+        }
+
+        /**
+         * Skip next value without creating objects for it.
+         */
+        public void skipValue() throws IOException {
+            if (isEmptyArgument()) return;
+            switch (c.cur_ch) {
+            case '[':
+                beginArray();
+                while (hasNext()) skipValue();
+                endArray();
+                break;
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    skipString();
+                    c.skipWS();
+                    if (c.cur_ch != ':') c.error();
+                    c.read();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '"':
+                skipString();
+                break;
+            case '(':
+                c.read();
+                int len = 0;
+                while (c.cur_ch >= '0' && c.cur_ch <= '9') {
+                    len = len * 10 + (c.cur_ch - '0');
+                    c.read();
+                }
+                if (c.cur_ch != ')' || len > c.inp_end - c.inp_pos) c.error();
+                c.inp_pos += len;
+                c.read();
+                break;
+            default:
+                c.readNestedObject();
+                break;
+            }
+            first = false;
+        }
+
+        private void skipString() throws IOException {
+            c.skipWS();
+            if (c.cur_ch != '"') c.error();
+            c.read();
+            while (c.cur_ch != '"') {
+                if (c.cur_ch < 0) c.error();
+                if (c.cur_ch == '\\') c.read();
+                c.read();
+            }
+            c.read();
+            first = false;
+        }
+
+        /**
+         * Consume zero terminator of current top level value.
+         */
+        public void endArgument() throws IOException {
+            c.skipWS();
+            if (depth != 0 || c.cur_ch != 0) c.error("missing \\0 terminator");
+            c.read();
+            first = false;
+        }
+
+        /**
+         * Check if the sequence has more arguments.
+         * @return true if there is next argument.
+         */
+        public boolean hasNextArgument() {
+            return c.cur_ch >= 0;
+        }
+    }
+
+    /**
+     * Add a handler for converting objects of a particular class into JSON.
+     * @param cls - a class
+     * @param writer - ObjectWriter implementation that provides generation of JSON for a given class.
+     */
+    public static <X> void addObjectWriter(Class<X> cls, ObjectWriter<X> writer) {
+        object_writers.put(cls, writer);
+    }
+
+    /**
+     * Write a character into JSON output buffer.
+     * Clients should not call this method directly, except from ObjectWriter implementation.
+     * @param ch
+     */
+    public static void write(char ch) {
+        codecs.get().write(ch);
+    }
+
+    /**
+     * Write a string into JSON output buffer.
+     * The string is written "as-is". Call writeObject() to convert a String into JSON string.
+     * Clients should not call this method directly, except from ObjectWriter implementation.
+     * @param s - a string
+     */
+    public static void write(String s) {
+        codecs.get().write(s);
+    }
+
+    /**
+     * Write a non-negative integer number into JSON output buffer.
+     * Clients should not call this method directly, except from ObjectWriter implementation.
+     * @param n - a number
+     */
+    public static void writeUInt(int n) {
+        codecs.get().writeUInt(n);
+    }
+
+    /**
+     * Write an object into JSON output buffer.
+     * Clients should not call this method directly, except from ObjectWriter implementation.
+     * @param o - an object to write
+     */
+    public static void writeObject(Object o) throws IOException {
+        codecs.get().writeObject(o);
     }
 
     /**
@@ -680,12 +1238,13 @@ public final class JSON {
      * @throws IOException
      */
     public static String toJSON(Object o) throws IOException {
-        assert Protocol.isDispatchThread();
-        tmp_buf_pos = 0;
-        bin_buf_pos = 0;
-        zero_copy = false;
-        writeObject(o);
-        return new String(tmp_buf, 0, tmp_buf_pos);
+        Codec c = enter();
+        try {
+            return c.toJSON(o);
+        }
+        finally {
+            exit(c);
+        }
     }
 
     /**
@@ -695,12 +1254,13 @@ public final class JSON {
      * @throws IOException
      */
     public static byte[] toJASONBytes(Object o) throws IOException {
-        assert Protocol.isDispatchThread();
-        tmp_buf_pos = 0;
-        bin_buf_pos = 0;
-        zero_copy = false;
-        writeObject(o);
-        return toBytes();
+        Codec c = enter();
+        try {
+            return c.toJASONBytes(o);
+        }
+        finally {
+            exit(c);
+        }
     }
 
     /**
@@ -711,16 +1271,7 @@ public final class JSON {
      * @throws IOException
      */
     public static byte[] toJSONSequence(Object[] o) throws IOException {
-        assert Protocol.isDispatchThread();
-        if (o == null || o.length == 0) return null;
-        tmp_buf_pos = 0;
-        bin_buf_pos = 0;
-        zero_copy = false;
-        for (int i = 0; i < o.length; i++) {
-            writeObject(o[i]);
-            write((char)0);
-        }
-        return toBytes();
+        return toJSONSequence(o, false);
     }
 
     /**
@@ -734,16 +1285,14 @@ public final class JSON {
      * @throws IOException
      */
     public static byte[] toJSONSequence(Object[] o, boolean zero_copy) throws IOException {
-        assert Protocol.isDispatchThread();
         if (o == null || o.length == 0) return null;
-        tmp_buf_pos = 0;
-        bin_buf_pos = 0;
-        JSON.zero_copy = zero_copy;
-        for (int i = 0; i < o.length; i++) {
-            writeObject(o[i]);
-            write((char)0);
-        }
-        return toBytes();
+        Codec c = enter();
+        try {
+            return c.toJSONSequence(o, zero_copy);
+        }
+        finally {
+            exit(c);
+        }
     }
 
     /**
@@ -753,17 +1302,13 @@ public final class JSON {
      * @throws IOException
      */
     public static Object parseOne(byte[] b) throws IOException {
-        assert Protocol.isDispatchThread();
-        if (b.length == 0) return null;
-        inp = b;
-        inp_pos = 0;
-        err_buf_pos = 0;
-        err_buf_cnt = 0;
-        read();
-        Object o = readNestedObject();
-        skipWS();
-        if (cur_ch >= 0) error();
-        return o;
+        Codec c = enter();
+        try {
+            return c.parseOne(b);
+        }
+        finally {
+            exit(c);
+        }
     }
 
     /**
@@ -774,21 +1319,27 @@ public final class JSON {
      * @throws IOException
      */
     public static Object[] parseSequence(byte[] b) throws IOException {
-        assert Protocol.isDispatchThread();
         if (b == null) return new Object[0];
-        inp = b;
-        inp_pos = 0;
-        err_buf_pos = 0;
-        err_buf_cnt = 0;
-        read();
-        List<Object> l = new ArrayList<Object>();
-        while (cur_ch >= 0) {
-            if (cur_ch == 0) l.add(null);
-            else l.add(readNestedObject());
-            if (cur_ch != 0) error("missing \\0 terminator");
-            read();
+        return parseSequence(b, 0, b.length);
+    }
+
+    /**
+     * Parses a sequence of zero-terminated JSON strings in a part of an array of bytes.
+     * @param b - array of bytes.
+     * @param offs - offset of the sequence in the array.
+     * @param size - size of the sequence.
+     * @return array of Java objects.
+     * @throws IOException
+     * @since 1.7
+     */
+    public static Object[] parseSequence(byte[] b, int offs, int size) throws IOException {
+        Codec c = enter();
+        try {
+            return c.parseSequence(b, offs, size);
+        }
+        finally {
+            exit(c);
         }
-        return l.toArray();
     }
 
     /**
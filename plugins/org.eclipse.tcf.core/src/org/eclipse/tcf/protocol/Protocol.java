@@ -194,6 +194,27 @@ public final class Protocol {
         event_queue.invokeLater(runnable);
     }
 
+    /**
+     * Causes <code>runnable</code> event to have its <code>run</code>
+     * method called in the dispatch thread of the framework.
+     * Events of same partition are dispatched in same order as queued.
+     * If the event queue implements IPartitionedEventQueue, events of
+     * different partitions can be dispatched out of order, otherwise the method
+     * is same as invokeLater(Runnable).
+     *
+     * This method can be invoked from any thread.
+     *
+     * @param partition - object that identifies the event source, for example, a channel.
+     * @param runnable  the <code>Runnable</code> whose <code>run</code>
+     *                  method should be executed asynchronously.
+     * @since 1.7
+     */
+    public static void invokeLaterInPartition(Object partition, Runnable runnable) {
+        IEventQueue q = event_queue;
+        if (q instanceof IPartitionedEventQueue) ((IPartitionedEventQueue)q).invokeLater(partition, runnable);
+        else q.invokeLater(runnable);
+    }
+
     /**
      * Causes <code>runnable</code> event to have its <code>run</code>
      * method called in the dispatch thread of the framework.
@@ -15,6 +15,7 @@ import java.util.Map;
 
 import org.eclipse.tcf.protocol.IService;
 import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.JSON;
 
 
 /**
@@ -391,6 +392,18 @@ public interface IFileSystem extends IService {
         void doneRead(IToken token, FileSystemException error, byte[] data, boolean eof);
     }
 
+    /**
+     * Extended read call back interface.
+     * If read() call back object implements DoneReadBinary, doneReadBinary() is called instead of doneRead(),
+     * and the data is passed as a slice of the channel receive buffer, without copying.
+     * The client should call data.release() when the data is not needed anymore,
+     * so the buffer can be reused by the channel.
+     * @since 1.7
+     */
+    interface DoneReadBinary extends DoneRead {
+        void doneReadBinary(IToken token, FileSystemException error, JSON.Binary data, boolean eof);
+    }
+
     /**
      * Write bytes into an open file.
      * The write will extend the file if writing beyond the end of the file.
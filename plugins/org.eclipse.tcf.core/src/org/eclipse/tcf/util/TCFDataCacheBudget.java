@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * TCFDataCacheBudget limits total number of cache items in a group of TCFDataCacheMap objects.
+ * Typically, one budget is shared by all address-keyed lookup caches of a debug session.
+ * When the limit is exceeded, least recently used cache items are disposed.
+ * Pending cache items are never evicted.
+ *
+ * The budget also counts cache hits, misses and evictions, which helps to choose a proper limit.
+ * All methods must be called from the dispatch thread.
+ *
+ * @since 1.7
+ */
+public class TCFDataCacheBudget {
+
+    /* All cache items of the group in access order, the value is the owner map */
+    private final LinkedHashMap<TCFDataCache<?>,TCFDataCacheMap<?,?>> lru =
+            new LinkedHashMap<TCFDataCache<?>,TCFDataCacheMap<?,?>>(64, 0.75f, true);
+
+    private int limit;
+    private long hit_cnt;
+    private long miss_cnt;
+    private long evict_cnt;
+
+    /**
+     * Create a budget.
+     * @param limit - max number of cache items, 0 means no limit.
+     */
+    public TCFDataCacheBudget(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return max number of cache items, 0 means no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Change max number of cache items.
+     * If the number of items is above the new limit, least recently used items are disposed.
+     * @param limit - max number of cache items, 0 means no limit.
+     */
+    public void setLimit(int limit) {
+        assert Protocol.isDispatchThread();
+        this.limit = limit;
+        evict();
+    }
+
+    /**
+     * @return current number of cache items in all maps that use this budget.
+     */
+    public int getSize() {
+        return lru.size();
+    }
+
+    /**
+     * @return number of successful lookups.
+     */
+    public long getHitCount() {
+        return hit_cnt;
+    }
+
+    /**
+     * @return number of lookups that did not find a cache item.
+     */
+    public long getMissCount() {
+        return miss_cnt;
+    }
+
+    /**
+     * @return number of cache items that were disposed because of the limit.
+     */
+    public long getEvictionCount() {
+        return evict_cnt;
+    }
+
+    void onHit(TCFDataCache<?> cache) {
+        hit_cnt++;
+        lru.get(cache);
+    }
+
+    void onMiss() {
+        miss_cnt++;
+    }
+
+    void onAdd(TCFDataCache<?> cache, TCFDataCacheMap<?,?> map) {
+        lru.put(cache, map);
+        evict();
+    }
+
+    void onRemove(TCFDataCache<?> cache) {
+        lru.remove(cache);
+    }
+
+    private void evict() {
+        if (limit <= 0) return;
+        Iterator<Map.Entry<TCFDataCache<?>,TCFDataCacheMap<?,?>>> i = lru.entrySet().iterator();
+        while (lru.size() > limit && i.hasNext()) {
+            Map.Entry<TCFDataCache<?>,TCFDataCacheMap<?,?>> e = i.next();
+            TCFDataCache<?> cache = e.getKey();
+            if (cache.isPending()) continue;
+            i.remove();
+            e.getValue().evict(cache);
+            cache.dispose();
+            evict_cnt++;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * TCFDataCacheMap is a map of cache items, for example, symbol or line info lookup caches keyed by address.
+ * The map disposes cache items that it owns when they are removed, evicted or when the map is cleared.
+ * Size of the map is limited by a TCFDataCacheBudget that can be shared by many maps,
+ * least recently used items are evicted when the budget is exceeded.
+ * Pending cache items are never evicted.
+ *
+ * All methods must be called from the dispatch thread.
+ *
+ * @param <K> - type of keys.
+ * @param <V> - type of cache items.
+ *
+ * @since 1.7
+ */
+public class TCFDataCacheMap<K,V extends TCFDataCache<?>> {
+
+    private final TCFDataCacheBudget budget;
+    private final LinkedHashMap<K,V> map = new LinkedHashMap<K,V>(11, 0.75f, true);
+    private final Map<TCFDataCache<?>,K> keys = new HashMap<TCFDataCache<?>,K>();
+
+    /**
+     * Create a map.
+     * @param budget - budget that limits number of cache items, can be shared by many maps.
+     */
+    public TCFDataCacheMap(TCFDataCacheBudget budget) {
+        assert budget != null;
+        this.budget = budget;
+    }
+
+    /**
+     * @return the budget of the map.
+     */
+    public TCFDataCacheBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Find a cache item.
+     * @param key - item key.
+     * @return the cache item or null.
+     */
+    public V get(K key) {
+        assert Protocol.isDispatchThread();
+        V cache = map.get(key);
+        if (cache != null) budget.onHit(cache);
+        else budget.onMiss();
+        return cache;
+    }
+
+    /**
+     * Add a cache item to the map.
+     * The item can be disposed later, when least recently used items are evicted.
+     * A cache item that was previously mapped to same key is disposed.
+     * @param key - item key.
+     * @param cache - cache item.
+     */
+    public void put(K key, V cache) {
+        assert Protocol.isDispatchThread();
+        V prev = map.put(key, cache);
+        if (prev != null) {
+            keys.remove(prev);
+            budget.onRemove(prev);
+            prev.dispose();
+        }
+        keys.put(cache, key);
+        budget.onAdd(cache, this);
+    }
+
+    /**
+     * Remove and dispose a cache item.
+     * @param key - item key.
+     */
+    public void remove(K key) {
+        assert Protocol.isDispatchThread();
+        V cache = map.remove(key);
+        if (cache == null) return;
+        keys.remove(cache);
+        budget.onRemove(cache);
+        cache.dispose();
+    }
+
+    /**
+     * @return number of cache items in the map.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Dispose least recently used cache item, unless it is pending.
+     * Can be used to shrink the map periodically.
+     */
+    public void disposeEldest() {
+        assert Protocol.isDispatchThread();
+        if (map.size() == 0) return;
+        K key = map.keySet().iterator().next();
+        V cache = map.get(key);
+        if (!cache.isPending()) remove(key);
+    }
+
+    /**
+     * Dispose all cache items that are not pending.
+     */
+    public void clear() {
+        assert Protocol.isDispatchThread();
+        Iterator<V> i = map.values().iterator();
+        while (i.hasNext()) {
+            V cache = i.next();
+            if (cache.isPending()) continue;
+            i.remove();
+            keys.remove(cache);
+            budget.onRemove(cache);
+            cache.dispose();
+        }
+    }
+
+    /**
+     * Dispose all cache items, including pending ones.
+     */
+    public void dispose() {
+        assert Protocol.isDispatchThread();
+        for (V cache : map.values()) {
+            budget.onRemove(cache);
+            cache.dispose();
+        }
+        map.clear();
+        keys.clear();
+    }
+
+    void evict(TCFDataCache<?> cache) {
+        K key = keys.remove(cache);
+        map.remove(key);
+    }
+}
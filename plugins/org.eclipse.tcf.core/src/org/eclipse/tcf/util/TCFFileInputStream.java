@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.tcf.util;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -24,21 +26,25 @@ import org.eclipse.tcf.services.IFileSystem.IFileHandle;
 /**
  * TCFFileInputStream is high performance InputStream implementation over TCF FileSystem service.
  * The class uses read-ahead buffers to achieve maximum throughput.
+ * Number and size of read-ahead buffers are adjusted to measured round trip time and bandwidth
+ * of the connection, see TransferWindow.
  */
 public final class TCFFileInputStream extends InputStream {
 
-    private static final int MAX_READ_AHEAD = 8;
-
     private static class Buffer {
 
         final long offset;
+        final int size;
+        final long time;
 
         IToken token;
         byte[] buf;
         boolean eof;
 
-        Buffer(long offset) {
+        Buffer(long offset, int size) {
             this.offset = offset;
+            this.size = size;
+            time = System.nanoTime();
         }
 
         @Override
@@ -59,6 +65,8 @@ public final class TCFFileInputStream extends InputStream {
     private Runnable waiting_client;
     private final LinkedList<Buffer> read_ahead_buffers = new LinkedList<Buffer>();
 
+    private final TransferWindow window;
+
     public TCFFileInputStream(IFileHandle handle) {
         this(handle, 0x1000);
     }
@@ -67,6 +75,7 @@ public final class TCFFileInputStream extends InputStream {
         this.handle = handle;
         this.fs = handle.getService();
         this.buf_size = buf_size;
+        window = new TransferWindow(buf_size);
     }
 
     private void startReadAhead(Buffer prv) {
@@ -75,10 +84,10 @@ public final class TCFFileInputStream extends InputStream {
             prv = read_ahead_buffers.getLast();
         }
         if (prv.eof) return;
-        long pos = prv.offset + (prv.buf == null ? buf_size : prv.buf.length);
-        while (read_ahead_buffers.size() < MAX_READ_AHEAD) {
-            final Buffer buf = new Buffer(pos);
-            buf.token = fs.read(handle, pos, buf_size, new IFileSystem.DoneRead() {
+        long pos = prv.offset + (prv.buf == null ? prv.size : prv.buf.length);
+        while (read_ahead_buffers.size() < window.getCount()) {
+            final Buffer buf = new Buffer(pos, window.getChunkSize());
+            buf.token = fs.read(handle, pos, buf.size, new IFileSystem.DoneRead() {
                 public void doneRead(IToken token, FileSystemException error,
                         byte[] data, boolean eof) {
                     assert buf.token == token;
@@ -88,7 +97,7 @@ public final class TCFFileInputStream extends InputStream {
                         suspend_read_ahead = true;
                         read_ahead_buffers.remove(buf);
                     }
-                    else if (data.length != buf_size) {
+                    else if (data.length != buf.size) {
                         buf.buf = data;
                         buf.eof = eof;
                         if (!eof) suspend_read_ahead = true;
@@ -96,6 +105,7 @@ public final class TCFFileInputStream extends InputStream {
                     else {
                         buf.buf = data;
                         buf.eof = eof;
+                        window.update(buf.time, data.length);
                         startReadAhead(buf);
                     }
                     if (waiting_client != null) {
@@ -105,7 +115,7 @@ public final class TCFFileInputStream extends InputStream {
                 }
             });
             read_ahead_buffers.add(buf);
-            pos += buf_size;
+            pos += buf.size;
         }
     }
 
@@ -160,11 +170,12 @@ public final class TCFFileInputStream extends InputStream {
                                 return;
                             }
                             assert data != null && data.length <= buf_size;
-                            Buffer buf = new Buffer(offset);
+                            Buffer buf = new Buffer(offset, buf_size);
                             buf.buf = data;
                             buf.eof = eof;
                             if (!eof) {
                                 suspend_read_ahead = false;
+                                window.reset();
                                 startReadAhead(buf);
                             }
                             done(buf);
@@ -205,6 +216,82 @@ public final class TCFFileInputStream extends InputStream {
         return pos;
     }
 
+    /**
+     * Read several regions of the file in parallel.
+     * Data of the regions is stored in the buffer one after another, starting at the buffer position.
+     * On return, the buffer position is advanced by total length of the regions.
+     * The method does not change the stream position and does not use read-ahead buffers.
+     * @param offsets - file offsets of the regions.
+     * @param lengths - lengths of the regions.
+     * @param buffer - destination buffer, must have enough remaining space for all the regions.
+     * @throws EOFException if a region extends beyond end of the file.
+     * @throws IOException if reading fails.
+     * @since 1.7
+     */
+    public synchronized void read(final long[] offsets, final int[] lengths, final ByteBuffer buffer) throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+        if (offsets.length != lengths.length) throw new IllegalArgumentException();
+        long total = 0;
+        for (int l : lengths) {
+            if (l < 0) throw new IllegalArgumentException();
+            total += l;
+        }
+        if (total > buffer.remaining()) throw new IndexOutOfBoundsException();
+        final int base = buffer.position();
+        new TCFTask<Object>() {
+            LinkedList<long[]> chunks;
+            int pending;
+            public void run() {
+                /* Each chunk is {file offset, buffer position, length} */
+                chunks = new LinkedList<long[]>();
+                int pos = base;
+                for (int i = 0; i < offsets.length; i++) {
+                    long ofs = offsets[i];
+                    int len = lengths[i];
+                    while (len > 0) {
+                        int n = Math.min(len, TransferWindow.MAX_CHUNK_SIZE);
+                        chunks.add(new long[]{ ofs, pos, n });
+                        ofs += n;
+                        pos += n;
+                        len -= n;
+                    }
+                }
+                sendRequests();
+            }
+            private void sendRequests() {
+                while (!isDone() && pending < window.getCount() && chunks.size() > 0) {
+                    final long[] c = chunks.removeFirst();
+                    pending++;
+                    fs.read(handle, c[0], (int)c[2], new IFileSystem.DoneRead() {
+                        public void doneRead(IToken token, FileSystemException error, byte[] data, boolean eof) {
+                            pending--;
+                            if (isDone()) return;
+                            if (error != null) {
+                                error(error);
+                                return;
+                            }
+                            ByteBuffer b = buffer.duplicate();
+                            b.position((int)c[1]);
+                            b.put(data);
+                            if (data.length < c[2]) {
+                                if (eof || data.length == 0) {
+                                    error(new EOFException("Read beyond end of file"));
+                                    return;
+                                }
+                                /* Short read, request the rest of the chunk */
+                                chunks.addFirst(new long[]{ c[0] + data.length, c[1] + data.length, c[2] - data.length });
+                            }
+                            if (pending == 0 && chunks.size() == 0) done(this);
+                            else sendRequests();
+                        }
+                    });
+                }
+                if (!isDone() && pending == 0 && chunks.size() == 0) done(this);
+            }
+        }.getIO();
+        buffer.position(base + (int)total);
+    }
+
     @Override
     public boolean markSupported() {
         return true;
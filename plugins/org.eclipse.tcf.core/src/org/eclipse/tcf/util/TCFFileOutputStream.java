@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -25,54 +25,83 @@ import org.eclipse.tcf.services.IFileSystem.IFileHandle;
 /**
  * TCFFileOutputStream is high performance OutputStream implementation over TCF FileSystem service.
  * The class uses write-back buffers to achieve maximum throughput.
+ * Small writes are coalesced into write commands of up to chunk size bytes.
+ * Number of write commands in flight and chunk size are adjusted to measured round trip time and bandwidth
+ * of the connection, see TransferWindow, unless the window size is given explicitly.
+ * Write errors are reported by a subsequent write, flush or close call; close() waits for all pending writes,
+ * closes the file handle, and reports the first error.
  */
 public final class TCFFileOutputStream extends OutputStream {
 
-    private static final int MAX_WRITE_BACK = 8;
-
     private final IFileHandle handle;
     private final IFileSystem fs;
-    private final int buf_size;
+    private final TransferWindow window;
     private final Set<IToken> write_commands = new HashSet<IToken>();
     private final int[] dirty = new int[1];
-    private final byte[] buf;
+    private byte[] buf;
     private int buf_pos = 0;
     private long offset = 0;
     private IOException flush_error;
     private boolean closed;
 
+    /* Copies of the window parameters for client threads, guarded by 'dirty' */
+    private int max_write_back;
+    private int chunk_size;
+
     public TCFFileOutputStream(IFileHandle handle) {
         this(handle, 0x1000);
     }
 
     public TCFFileOutputStream(IFileHandle handle, int buf_size) {
+        this(handle, buf_size, new TransferWindow(buf_size));
+    }
+
+    /**
+     * Create output stream with fixed size write-back window.
+     * @param handle - file handle.
+     * @param buf_size - size of write buffers.
+     * @param window - max number of bytes in flight, 0 means auto-tune the window.
+     * @since 1.7
+     */
+    public TCFFileOutputStream(IFileHandle handle, int buf_size, long window) {
+        this(handle, buf_size, window > 0 ? new TransferWindow(buf_size, window) : new TransferWindow(buf_size));
+    }
+
+    private TCFFileOutputStream(IFileHandle handle, int buf_size, TransferWindow window) {
         this.handle = handle;
         this.fs = handle.getService();
-        this.buf_size = buf_size;
+        this.window = window;
+        max_write_back = window.getCount();
+        chunk_size = window.getChunkSize();
         buf = new byte[buf_size];
     }
 
     @Override
     public synchronized void write(int b) throws IOException {
         if (closed) throw new IOException("Stream is closed");
-        if (buf_pos == buf_size) flush();
+        if (buf_pos == buf.length) flush();
         buf[buf_pos++] = (byte)b;
     }
 
     @Override
-    public void write(byte b[], int off, int len) throws IOException {
+    public synchronized void write(byte b[], int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream is closed");
         if (len == 0) return;
         if (b == null) throw new NullPointerException();
         if (off < 0 || off > b.length || len < 0 ||
                    off + len > b.length || off + len < 0)
             throw new IndexOutOfBoundsException();
         while (len > 0) {
-            if (buf_pos == buf_size) flush();
-            if (buf_pos == 0 && len > buf_size) {
-                flush(b, off, len);
-                return;
+            if (buf_pos == buf.length) flush();
+            if (buf_pos == 0 && len >= buf.length) {
+                /* Write directly from the caller's array, the command copies the data */
+                int n = Math.min(len, getChunkSize());
+                flush(b, off, n);
+                off += n;
+                len -= n;
+                continue;
             }
-            int n = buf_size - buf_pos;
+            int n = buf.length - buf_pos;
             if (len < n) n = len;
             System.arraycopy(b, off, buf, buf_pos, n);
             off += n;
@@ -86,22 +115,34 @@ public final class TCFFileOutputStream extends OutputStream {
         if (buf_pos == 0) return;
         flush(buf, 0, buf_pos);
         buf_pos = 0;
+        /* Grow the coalescing buffer when the window chunk size grows */
+        int n = getChunkSize();
+        if (n > buf.length) buf = new byte[n];
+    }
+
+    private int getChunkSize() {
+        synchronized (dirty) {
+            return chunk_size;
+        }
     }
 
     private void flush(final byte[] buf, final int off, final int len) throws IOException {
         synchronized (dirty) {
             if (flush_error != null) throw flush_error;
-            while (dirty[0] >= MAX_WRITE_BACK) {
+            while (dirty[0] >= max_write_back) {
                 try {
                     dirty.wait();
                 }
                 catch (InterruptedException e) {
                     throw new InterruptedIOException();
                 }
+                if (flush_error != null) throw flush_error;
             }
         }
         new TCFTask<Object>() {
             public void run() {
+                final long time = System.nanoTime();
+                if (write_commands.isEmpty()) window.reset();
                 write_commands.add(fs.write(handle, offset, buf, off, len, new IFileSystem.DoneWrite() {
                     public void doneWrite(IToken token, FileSystemException error) {
                         assert write_commands.contains(token);
@@ -111,9 +152,14 @@ public final class TCFFileOutputStream extends OutputStream {
                                 if (i.next().cancel()) i.remove();
                             }
                         }
+                        else {
+                            window.update(time, len);
+                        }
                         synchronized (dirty) {
                             if (error != null && flush_error == null) flush_error = error;
                             dirty[0] = write_commands.size();
+                            max_write_back = window.getCount();
+                            chunk_size = window.getChunkSize();
                             dirty.notifyAll();
                         }
                     }
@@ -130,7 +176,13 @@ public final class TCFFileOutputStream extends OutputStream {
     @Override
     public synchronized void close() throws IOException {
         if (closed) return;
-        flush();
+        IOException error = null;
+        try {
+            flush();
+        }
+        catch (IOException x) {
+            error = x;
+        }
         synchronized (dirty) {
             while (dirty[0] > 0) {
                 try {
@@ -140,17 +192,24 @@ public final class TCFFileOutputStream extends OutputStream {
                     throw new InterruptedIOException();
                 }
             }
+            if (error == null) error = flush_error;
         }
-        new TCFTask<Object>() {
-            public void run() {
-                fs.close(handle, new IFileSystem.DoneClose() {
-                    public void doneClose(IToken token, FileSystemException error) {
-                        if (error != null) error(error);
-                        else done(this);
-                    }
-                });
-            }
-        }.getIO();
         closed = true;
+        try {
+            new TCFTask<Object>() {
+                public void run() {
+                    fs.close(handle, new IFileSystem.DoneClose() {
+                        public void doneClose(IToken token, FileSystemException error) {
+                            if (error != null) error(error);
+                            else done(this);
+                        }
+                    });
+                }
+            }.getIO();
+        }
+        catch (IOException x) {
+            if (error == null) error = x;
+        }
+        if (error != null) throw error;
     }
 }
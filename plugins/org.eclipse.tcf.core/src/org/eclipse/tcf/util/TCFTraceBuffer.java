@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * TCFTraceBuffer is a lock-free bounded ring buffer of trace records.
+ * Producers, typically channel trace listeners, capture messages as records without formatting them,
+ * and never block. Records are handed to a consumer in batches, on a thread of the given executor,
+ * so formatting and writing of trace output is done in the background, and the output can be
+ * flushed once per batch.
+ *
+ * The buffer is bounded by number of records and by total size of message data.
+ * When the buffer is full, new records are dropped and counted; the count is reported to the consumer
+ * with the next batch. Records that must not be dropped are added with addReliable(), they are queued
+ * outside of the buffer when it is full, and still delivered in order with other records.
+ * The buffer can be used by any number of producer threads.
+ *
+ * @since 1.7
+ */
+public class TCFTraceBuffer {
+
+    /**
+     * Trace record. Record objects are owned by the buffer and reused,
+     * a consumer must not keep references to them.
+     */
+    public static final class Record {
+        /** Capture time, as returned by System.currentTimeMillis() */
+        public long time;
+        /** Producer defined record source, for example, a trace listener */
+        public Object source;
+        /** Message type, or a producer defined record type */
+        public char type;
+        /** true if the message was received, false if it was sent */
+        public boolean received;
+        public String token;
+        public String service;
+        public String name;
+        /** Message data, not copied */
+        public byte[] data;
+        /** Producer defined record argument */
+        public Object arg;
+        /* Size of message data, accounted by the buffer */
+        int size;
+    }
+
+    /**
+     * Trace buffer consumer interface. Methods are called on a thread of the buffer executor,
+     * one batch at a time.
+     */
+    public interface Consumer {
+
+        /**
+         * Called for every record of a batch, in order the records were added.
+         * @param record - the record, valid only during the call.
+         */
+        void onRecord(Record record);
+
+        /**
+         * Called at the end of a batch.
+         * @param dropped - number of records dropped since previous batch because the buffer was full.
+         */
+        void onBatchDone(long dropped);
+    }
+
+    /* A record that did not fit into the buffer, delivered before the record at given buffer position */
+    private static final class Overflow {
+        final long pos;
+        final Record record;
+
+        Overflow(long pos, Record record) {
+            this.pos = pos;
+            this.record = record;
+        }
+    }
+
+    private final Record[] records;
+    private final AtomicLongArray sequence;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    private final long max_bytes;
+    private final AtomicLong bytes = new AtomicLong();
+    private final ConcurrentLinkedQueue<Overflow> overflow = new ConcurrentLinkedQueue<Overflow>();
+
+    private final Executor executor;
+    private final Consumer consumer;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong dropped_total = new AtomicLong();
+
+    private final Runnable drain = new Runnable() {
+        public void run() {
+            for (;;) {
+                try {
+                    drainRecords();
+                }
+                catch (Throwable x) {
+                    Protocol.log("Exception in trace buffer consumer", x);
+                }
+                scheduled.set(false);
+                if (isEmpty() || !scheduled.compareAndSet(false, true)) break;
+            }
+        }
+    };
+
+    /**
+     * Create trace buffer that is bounded by number of records only.
+     * @param capacity - max number of records in the buffer, rounded up to a power of two.
+     * @param executor - executor to run the consumer; it should execute tasks in submission order.
+     * @param consumer - trace records consumer.
+     */
+    public TCFTraceBuffer(int capacity, Executor executor, Consumer consumer) {
+        this(capacity, Long.MAX_VALUE, executor, consumer);
+    }
+
+    /**
+     * Create trace buffer.
+     * @param capacity - max number of records in the buffer, rounded up to a power of two.
+     * @param max_bytes - max total size of message data of the records in the buffer.
+     * @param executor - executor to run the consumer; it should execute tasks in submission order.
+     * @param consumer - trace records consumer.
+     */
+    public TCFTraceBuffer(int capacity, long max_bytes, Executor executor, Consumer consumer) {
+        int n = 2;
+        while (n < capacity) n <<= 1;
+        records = new Record[n];
+        sequence = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            records[i] = new Record();
+            sequence.set(i, i);
+        }
+        mask = n - 1;
+        this.max_bytes = max_bytes;
+        this.executor = executor;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Add a message record.
+     * @return false if the buffer is full and the record was dropped.
+     */
+    public boolean add(Object source, char type, boolean received,
+            String token, String service, String name, byte[] data) {
+        return add(source, type, received, token, service, name, data, null, false);
+    }
+
+    /**
+     * Add a record with a producer defined argument.
+     * @return false if the buffer is full and the record was dropped.
+     */
+    public boolean add(Object source, char type, Object arg) {
+        return add(source, type, false, null, null, null, null, arg, false);
+    }
+
+    /**
+     * Add a record with a producer defined argument. The record is never dropped:
+     * if the buffer is full, it is queued outside of the buffer, and delivered
+     * after records that were added before it.
+     */
+    public void addReliable(Object source, char type, Object arg) {
+        add(source, type, false, null, null, null, null, arg, true);
+    }
+
+    private boolean add(Object source, char type, boolean received,
+            String token, String service, String name, byte[] data, Object arg, boolean reliable) {
+        long time = System.currentTimeMillis();
+        int size = data != null ? data.length : 0;
+        if (size > 0 && bytes.addAndGet(size) > max_bytes) {
+            bytes.addAndGet(-size);
+            return drop();
+        }
+        long pos = tail.get();
+        for (;;) {
+            int i = (int)pos & mask;
+            long d = sequence.get(i) - pos;
+            if (d == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    Record r = records[i];
+                    r.time = time;
+                    r.source = source;
+                    r.type = type;
+                    r.received = received;
+                    r.token = token;
+                    r.service = service;
+                    r.name = name;
+                    r.data = data;
+                    r.arg = arg;
+                    r.size = size;
+                    /* Publish the record */
+                    sequence.set(i, pos + 1);
+                    break;
+                }
+                pos = tail.get();
+            }
+            else if (d < 0) {
+                if (size > 0) bytes.addAndGet(-size);
+                if (!reliable) return drop();
+                Record r = new Record();
+                r.time = time;
+                r.source = source;
+                r.type = type;
+                r.arg = arg;
+                overflow.add(new Overflow(pos, r));
+                break;
+            }
+            else {
+                pos = tail.get();
+            }
+        }
+        schedule();
+        return true;
+    }
+
+    private boolean drop() {
+        dropped.incrementAndGet();
+        dropped_total.incrementAndGet();
+        schedule();
+        return false;
+    }
+
+    /**
+     * @return total number of records dropped because the buffer was full.
+     */
+    public long getDropped() {
+        return dropped_total.get();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(drain);
+        }
+        catch (RejectedExecutionException x) {
+            scheduled.set(false);
+        }
+    }
+
+    private boolean isEmpty() {
+        if (sequence.get((int)head & mask) == head + 1) return false;
+        Overflow o = overflow.peek();
+        return o == null || o.pos > head;
+    }
+
+    private void drainOverflow() {
+        for (;;) {
+            Overflow o = overflow.peek();
+            if (o == null || o.pos > head) break;
+            overflow.poll();
+            consumer.onRecord(o.record);
+        }
+    }
+
+    private void drainRecords() {
+        for (;;) {
+            drainOverflow();
+            int i = (int)head & mask;
+            if (sequence.get(i) != head + 1) break;
+            Record r = records[i];
+            try {
+                consumer.onRecord(r);
+            }
+            finally {
+                r.source = null;
+                r.token = null;
+                r.service = null;
+                r.name = null;
+                r.data = null;
+                r.arg = null;
+                if (r.size > 0) bytes.addAndGet(-r.size);
+                /* Release the slot for producers */
+                sequence.set(i, head + records.length);
+                head++;
+            }
+        }
+        consumer.onBatchDone(dropped.getAndSet(0));
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Xilinx, Inc. and others.
+ * Copyright (c) 2013-2026 Xilinx, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -21,13 +21,15 @@ import org.eclipse.tcf.services.IStreams;
 
 /**
  * TCFVirtualInputStream is OutputStream implementation over TCF Streams service.
+ * While write commands are in flight, data of small writes is coalesced into larger write commands.
+ * Data is not delayed when no commands are in flight, so interactive streams don't need explicit flush.
+ * Number of write commands in flight and their size are adjusted to measured round trip time
+ * and bandwidth of the connection, see TransferWindow.
  *
  * @since 1.2
  */
 public final class TCFVirtualOutputStream extends OutputStream {
 
-    private static final int MAX_QUEUE = 32;
-
     private final IChannel channel;
     private final IStreams streams;
     private final String id;
@@ -37,8 +39,13 @@ public final class TCFVirtualOutputStream extends OutputStream {
     private final HashSet<IToken> queue = new HashSet<IToken>();
     private final LinkedList<Exception> errors = new LinkedList<Exception>();
     private final HashSet<Runnable> wait_list = new HashSet<Runnable>();
+    private final TransferWindow window = new TransferWindow(0x1000);
     private boolean closed;
 
+    /* Coalesced data that is not sent yet, accessed only by the dispatch thread */
+    private byte[] pending = new byte[0x1000];
+    private int pending_len;
+
     public TCFVirtualOutputStream(IChannel channel, String id, boolean send_eos, Runnable on_close) throws IOException {
         this.channel = channel;
         streams = channel.getRemoteService(IStreams.class);
@@ -56,7 +63,7 @@ public final class TCFVirtualOutputStream extends OutputStream {
         if (len == 0) return;
         new TCFTask<Object>() {
             public void run() {
-                if (queue.size() > MAX_QUEUE) {
+                if (queue.size() >= window.getCount() && pending_len >= window.getChunkSize()) {
                     wait_list.add(this);
                     return;
                 }
@@ -64,22 +71,65 @@ public final class TCFVirtualOutputStream extends OutputStream {
                     error(errors.removeFirst());
                     return;
                 }
-                queue.add(streams.write(id, b, off, len, new IStreams.DoneWrite() {
-                    public void doneWrite(IToken token, Exception error) {
-                        if (error != null) errors.add(error);
-                        queue.remove(token);
-                        if (wait_list.size() > 0) {
-                            Runnable[] list = wait_list.toArray(new Runnable[wait_list.size()]);
-                            wait_list.clear();
-                            for (Runnable r : list) r.run();
-                        }
+                if (queue.size() == 0 && pending_len == 0) {
+                    /* Nothing in flight - send the data right away, without copying */
+                    for (int pos = 0; pos < len;) {
+                        int n = Math.min(len - pos, window.getChunkSize());
+                        sendData(b, off + pos, n);
+                        pos += n;
+                    }
+                }
+                else {
+                    if (pending_len + len > pending.length) {
+                        byte[] tmp = new byte[Math.max(pending.length * 2, pending_len + len)];
+                        System.arraycopy(pending, 0, tmp, 0, pending_len);
+                        pending = tmp;
                     }
-                }));
+                    System.arraycopy(b, off, pending, pending_len, len);
+                    pending_len += len;
+                    sendPending();
+                }
                 done(this);
             }
         }.getIO();
     }
 
+    private void sendData(byte[] buf, int off, final int len) {
+        final long time = System.nanoTime();
+        if (queue.size() == 0) window.reset();
+        queue.add(streams.write(id, buf, off, len, new IStreams.DoneWrite() {
+            public void doneWrite(IToken token, Exception error) {
+                if (error != null) errors.add(error);
+                else window.update(time, len);
+                queue.remove(token);
+                sendPending();
+                if (wait_list.size() > 0) {
+                    Runnable[] list = wait_list.toArray(new Runnable[wait_list.size()]);
+                    wait_list.clear();
+                    for (Runnable r : list) r.run();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Send coalesced data: full chunks while the window allows, and the rest when nothing is in flight.
+     */
+    private void sendPending() {
+        int pos = 0;
+        int chunk = window.getChunkSize();
+        while (pos < pending_len && queue.size() < window.getCount()) {
+            int n = Math.min(pending_len - pos, chunk);
+            if (n < chunk && queue.size() > 0) break;
+            sendData(pending, pos, n);
+            pos += n;
+        }
+        if (pos > 0) {
+            System.arraycopy(pending, pos, pending, 0, pending_len - pos);
+            pending_len -= pos;
+        }
+    }
+
     @Override
     public synchronized void write(int b) throws IOException {
         buf[0] = (byte)b;
@@ -91,7 +141,7 @@ public final class TCFVirtualOutputStream extends OutputStream {
         if (closed) throw new IOException("Stream is closed"); //$NON-NLS-1$
         new TCFTask<Object>() {
             public void run() {
-                if (queue.size() > 0) {
+                if (queue.size() > 0 || pending_len > 0) {
                     wait_list.add(this);
                 }
                 else if (errors.size() > 0) {
@@ -106,9 +156,24 @@ public final class TCFVirtualOutputStream extends OutputStream {
 
     @Override
     public void close() throws IOException {
-        flush();
         if (closed) return;
+        IOException error = null;
+        try {
+            flush();
+        }
+        catch (IOException x) {
+            error = x;
+        }
         closed = true;
+        if (error != null) {
+            /* Don't send EOS after lost data, but still disconnect the stream */
+            try {
+                disconnect();
+            }
+            catch (IOException x) {
+            }
+            throw error;
+        }
         if (send_eos) {
             new TCFTask<Object>() {
                 public void run() {
@@ -125,6 +190,10 @@ public final class TCFVirtualOutputStream extends OutputStream {
                 }
             }.getIO();
         }
+        disconnect();
+    }
+
+    private void disconnect() throws IOException {
         new TCFTask<Object>() {
             public void run() {
                 streams.disconnect(id, new IStreams.DoneDisconnect() {
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.util;
+
+/**
+ * TransferWindow controls number and size of data transfer commands in flight.
+ * Round trip time and bandwidth are measured on command replies, and the window grows
+ * until data in flight covers twice the bandwidth-delay product, like TCP window auto-tuning.
+ * The number of commands grows first, then the command size, up to MAX_CHUNK_SIZE.
+ * The window shrinks back when the data consumer is slower than the link.
+ *
+ * The class is not thread safe, it is intended to be used by the TCF dispatch thread.
+ *
+ * @since 1.7
+ */
+public final class TransferWindow {
+
+    public static final int MIN_COUNT = 8;
+    public static final int MAX_COUNT = 64;
+    public static final int MAX_CHUNK_SIZE = 0x40000;
+
+    private final boolean fixed;
+    private int count = MIN_COUNT;
+    private int chunk_size;
+    private long rtt; /* min round trip time, nanoseconds */
+    private long bandwidth; /* bytes per second */
+    private long last_done_time;
+
+    /**
+     * Create auto-tuned window.
+     * @param chunk_size - initial size of a command.
+     */
+    public TransferWindow(int chunk_size) {
+        this.chunk_size = chunk_size;
+        fixed = false;
+    }
+
+    /**
+     * Create a window of fixed size.
+     * @param chunk_size - size of a command.
+     * @param window - max amount of data in flight, in bytes.
+     */
+    public TransferWindow(int chunk_size, long window) {
+        this.chunk_size = chunk_size;
+        count = (int)Math.max(1, Math.min(Integer.MAX_VALUE, window / chunk_size));
+        fixed = true;
+    }
+
+    /**
+     * @return max number of commands in flight.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return size of a command.
+     */
+    public int getChunkSize() {
+        return chunk_size;
+    }
+
+    /**
+     * Restart bandwidth and round trip time measurement, should be called when the transfer was paused.
+     */
+    public void reset() {
+        last_done_time = 0;
+        rtt = 0;
+    }
+
+    /**
+     * Update the window using a command reply.
+     * @param start_time - value of System.nanoTime() when the command was sent.
+     * @param size - number of bytes transferred by the command.
+     */
+    public void update(long start_time, int size) {
+        update(start_time, System.nanoTime(), size);
+    }
+
+    /**
+     * Update the window using a command reply.
+     * @param start_time - value of System.nanoTime() when the command was sent.
+     * @param time - value of System.nanoTime() when the reply was received.
+     * @param size - number of bytes transferred by the command.
+     */
+    public void update(long start_time, long time, int size) {
+        if (fixed) return;
+        long t = Math.max(1, time - start_time);
+        /* Replies queue behind each other when the window is full, so only the minimum
+         * is a measure of link latency, otherwise the window would feed its own growth */
+        if (rtt == 0 || t < rtt) rtt = t;
+        if (last_done_time != 0) {
+            /* Bytes per second, measured as reply inter-arrival rate */
+            long b = size * 1000000000L / Math.max(1, time - last_done_time);
+            bandwidth = bandwidth == 0 ? b : (bandwidth * 7 + b) / 8;
+        }
+        last_done_time = time;
+        if (bandwidth == 0) return;
+        long target = bandwidth / 1000 * (rtt / 1000) / 1000 * 2;
+        long window = (long)count * chunk_size;
+        if (target > window) {
+            if (count < MAX_COUNT) {
+                count = (int)Math.min(MAX_COUNT, Math.max(count + 1, target / chunk_size));
+            }
+            else if (chunk_size < MAX_CHUNK_SIZE) {
+                chunk_size = Math.min(MAX_CHUNK_SIZE, chunk_size * 2);
+                count = MAX_COUNT / 2;
+            }
+        }
+        else if (target < window / 4 && count > MIN_COUNT) {
+            count--;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.debug.ui.model;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.tcf.protocol.JSON;
+import org.eclipse.tcf.services.IExpressions;
+import org.eclipse.tcf.services.ISymbols;
+
+/**
+ * Value of an array element, computed locally from the array value or memory contents,
+ * without creating and evaluating a remote expression for the element.
+ * Only elements of simple types - integer, cardinal, real, enumeration, pointer - are computed locally,
+ * other elements are evaluated by the Expressions service.
+ */
+public class TCFArrayElementValue implements IExpressions.Value {
+
+    private final ISymbols.Symbol type;
+    private final boolean big_endian;
+    private final BigInteger addr;
+    private final byte[] value;
+
+    /**
+     * Create an element value.
+     * @param type - element type.
+     * @param big_endian - byte order of the value.
+     * @param addr - element address, or null if the array is not in memory.
+     * @param value - element bytes.
+     */
+    public TCFArrayElementValue(ISymbols.Symbol type, boolean big_endian, BigInteger addr, byte[] value) {
+        this.type = type;
+        this.big_endian = big_endian;
+        this.addr = addr;
+        this.value = value;
+    }
+
+    /**
+     * Check if elements of an array type can be computed locally.
+     * Element type modifiers, like typedefs, must be checked separately, see isScaled().
+     * @param array_type - array type.
+     * @param elem_type - array element type.
+     * @return true if the elements can be computed locally.
+     */
+    public static boolean isSimpleArray(ISymbols.Symbol array_type, ISymbols.Symbol elem_type) {
+        if (array_type == null || array_type.getTypeClass() != ISymbols.TypeClass.array) return false;
+        if (array_type.getProperties().get(ISymbols.PROP_BIT_STRIDE) != null) return false;
+        if (elem_type == null) return false;
+        switch (elem_type.getTypeClass()) {
+        case integer:
+        case cardinal:
+        case real:
+        case enumeration:
+        case pointer:
+            break;
+        default:
+            return false;
+        }
+        int size = elem_type.getSize();
+        return size > 0 && (long)size * array_type.getLength() == array_type.getSize();
+    }
+
+    /**
+     * Check if a type has a scale factor, values of such type cannot be computed locally.
+     * @param type - element type, or a type in the element type chain.
+     * @return true if the type has binary or decimal scale.
+     */
+    public static boolean isScaled(ISymbols.Symbol type) {
+        Map<String,Object> props = type.getProperties();
+        return props.get(ISymbols.PROP_BINARY_SCALE) != null || props.get(ISymbols.PROP_DECIMAL_SCALE) != null;
+    }
+
+    /**
+     * Check if elements of an array value can be computed from the array value bytes or array memory.
+     * @param array_value - value of the array.
+     * @return false if the array is in registers or consists of pieces.
+     */
+    public static boolean isSimpleValue(IExpressions.Value array_value) {
+        if (array_value.getRegisterID() != null || array_value.isImplicitPointer()) return false;
+        return array_value.getProperties().get(IExpressions.VAL_PIECES) == null;
+    }
+
+    /**
+     * Get memory address of an array element.
+     * @param array_value - value of the array.
+     * @param elem_size - element size in bytes.
+     * @param index - element index.
+     * @return the element address, or null if the array is not in memory.
+     */
+    public static BigInteger getAddress(IExpressions.Value array_value, int elem_size, int index) {
+        if (array_value.getAddress() == null) return null;
+        return JSON.toBigInteger(array_value.getAddress()).add(BigInteger.valueOf((long)index * elem_size));
+    }
+
+    /**
+     * Create an element value from the array value bytes.
+     * @param elem_type - element type.
+     * @param array_value - value of the array.
+     * @param index - element index.
+     * @return the element value, or null if the array value does not contain the element bytes.
+     */
+    public static TCFArrayElementValue create(ISymbols.Symbol elem_type, IExpressions.Value array_value, int index) {
+        int size = elem_type.getSize();
+        long offs = (long)index * size;
+        byte[] data = array_value.getValue();
+        if (data == null || data.length < offs + size) return null;
+        byte[] buf = new byte[size];
+        System.arraycopy(data, (int)offs, buf, 0, size);
+        return new TCFArrayElementValue(elem_type, array_value.isBigEndian(), getAddress(array_value, size, index), buf);
+    }
+
+    public ISymbols.TypeClass getTypeClass() {
+        return type.getTypeClass();
+    }
+
+    public String getTypeID() {
+        return type.getID();
+    }
+
+    public boolean isBigEndian() {
+        return big_endian;
+    }
+
+    public boolean isImplicitPointer() {
+        return false;
+    }
+
+    public String getRegisterID() {
+        return null;
+    }
+
+    public String getSymbolID() {
+        return null;
+    }
+
+    public Number getAddress() {
+        return addr;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+
+    public Map<String,Object> getProperties() {
+        Map<String,Object> props = new HashMap<String,Object>();
+        props.put(IExpressions.VAL_TYPE, type.getID());
+        props.put(IExpressions.VAL_BIG_ENDIAN, big_endian);
+        if (addr != null) props.put(IExpressions.VAL_ADDRESS, addr);
+        return props;
+    }
+}
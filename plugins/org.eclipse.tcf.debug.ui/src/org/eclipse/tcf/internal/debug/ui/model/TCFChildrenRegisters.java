@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -10,32 +10,132 @@
  *******************************************************************************/
 package org.eclipse.tcf.internal.debug.ui.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.tcf.protocol.IErrorReport;
 import org.eclipse.tcf.protocol.IToken;
 import org.eclipse.tcf.services.IRegisters;
+import org.eclipse.tcf.util.TCFDataCache;
 
 
 public class TCFChildrenRegisters extends TCFChildren {
 
+    private final TCFDataCache<Map<String,byte[]>> values;
+
+    private boolean getm_not_supported;
+
+    /**
+     * Bulk retrieval of register values can be disabled with "org.eclipse.tcf.debug.ui.registers_getm" system property,
+     * in which case register values are retrieved one by one, same as when the agent does not support Registers.getm.
+     */
+    private static boolean isGetmEnabled() {
+        return !"false".equals(System.getProperty("org.eclipse.tcf.debug.ui.registers_getm"));
+    }
+
     TCFChildrenRegisters(TCFNode node) {
         super(node, 128);
+        values = new TCFDataCache<Map<String,byte[]>>(node.channel) {
+            @Override
+            protected boolean startDataRetrieval() {
+                IRegisters regs = TCFChildrenRegisters.this.node.model.getLaunch().getService(IRegisters.class);
+                if (regs == null || getm_not_supported || !isGetmEnabled()) {
+                    set(null, null, null);
+                    return true;
+                }
+                if (!TCFChildrenRegisters.this.validate(this)) return false;
+                boolean pending = false;
+                for (TCFNode n : getNodes()) {
+                    if (!((TCFNodeRegister)n).getContext().validate(this)) pending = true;
+                }
+                if (pending) return false;
+                final List<String> ids = new ArrayList<String>();
+                final List<IRegisters.Location> locs = new ArrayList<IRegisters.Location>();
+                for (TCFNode n : getNodes()) {
+                    IRegisters.RegistersContext ctx = ((TCFNodeRegister)n).getContext().getData();
+                    if (ctx == null || ctx.getSize() <= 0 || ctx.getBitNumbers() != null) continue;
+                    if (!ctx.isReadable() || ctx.isReadOnce() || ctx.hasSideEffects()) continue;
+                    ids.add(n.id);
+                    locs.add(new IRegisters.Location(n.id, 0, ctx.getSize()));
+                }
+                if (locs.size() < 2) {
+                    set(null, null, null);
+                    return true;
+                }
+                command = regs.getm(locs.toArray(new IRegisters.Location[locs.size()]), new IRegisters.DoneGet() {
+                    public void doneGet(IToken token, Exception error, byte[] value) {
+                        Map<String,byte[]> data = null;
+                        if (error != null) {
+                            if (error instanceof IErrorReport && ((IErrorReport)error).getErrorCode() == IErrorReport.TCF_ERROR_INV_COMMAND) {
+                                getm_not_supported = true;
+                            }
+                        }
+                        else if (value != null) {
+                            int pos = 0;
+                            data = new HashMap<String,byte[]>();
+                            for (int i = 0; i < locs.size(); i++) {
+                                int size = locs.get(i).size;
+                                if (pos + size > value.length) break;
+                                byte[] v = new byte[size];
+                                System.arraycopy(value, pos, v, 0, size);
+                                data.put(ids.get(i), v);
+                                pos += size;
+                            }
+                        }
+                        // Registers missing in the map, or all registers if getm failed, are retrieved by Registers.get
+                        set(token, null, data);
+                    }
+                });
+                return false;
+            }
+            @Override
+            public void dispose() {
+                TCFChildrenRegisters.this.node.removeDataCache(this);
+                super.dispose();
+            }
+        };
+        node.addDataCache(values);
+    }
+
+    /**
+     * Get values of all registers in the list, retrieved with single Registers.getm command.
+     * The map is null if bulk retrieval is not available, in which case
+     * register values should be retrieved one by one.
+     * Registers that have side effects on read or are bit fields are not included.
+     * @return cache of a map: register ID -> register value.
+     */
+    TCFDataCache<Map<String,byte[]>> getValues() {
+        return values;
     }
 
     void onSuspended(boolean func_call) {
+        if (!func_call) values.cancel();
         for (TCFNode n : getNodes()) ((TCFNodeRegister)n).onSuspended(func_call);
     }
 
     void onParentValueChanged() {
+        values.cancel();
         for (TCFNode n : getNodes()) ((TCFNodeRegister)n).onParentValueChanged();
     }
 
     void onRegistersChanged() {
+        values.cancel();
         for (TCFNode n : getNodes()) ((TCFNodeRegister)n).onRegistersChanged();
         reset();
     }
 
+    /**
+     * Called when value of a register in the list is changed.
+     * Only the register entry is removed from the snapshot, values of other registers are still valid.
+     * @param id - register ID.
+     */
+    void onValueChanged(String id) {
+        if (!values.isValid()) values.cancel();
+        else if (values.getData() != null) values.getData().remove(id);
+    }
+
     @Override
     void onNodeDisposed(String id) {
         super.onNodeDisposed(id);
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.debug.ui.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.tcf.internal.debug.ui.Activator;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IExpressions;
+import org.eclipse.tcf.util.TCFDataCache;
+
+/**
+ * TCFExpressionPool keeps remote expressions created by Expressions.create,
+ * so they can be shared by expression nodes and reused after the nodes are disposed.
+ * Expressions are identified by context ID and script. Watch and hover expressions that are
+ * created again for same stack frame, for example, after a step, reuse existing remote expression
+ * instead of creating a new one.
+ *
+ * Remote expressions that are not used by any node are disposed lazily:
+ * they are kept for a while, and then disposed together, in a single batch of commands.
+ * Unused expressions are disposed immediately when the memory map changes,
+ * since symbols they refer to might be not valid anymore.
+ *
+ * All methods must be called from the dispatch thread.
+ */
+public class TCFExpressionPool {
+
+    /* Time in milliseconds to keep unused remote expressions */
+    private static final long UNUSED_TIMEOUT = 10000;
+
+    /* Max number of unused remote expressions */
+    private static final int MAX_UNUSED = 256;
+
+    private final IChannel channel;
+    private final IExpressions service;
+    private final long unused_timeout;
+    private final Map<String,Map<String,Handle>> handles = new HashMap<String,Map<String,Handle>>();
+    private final LinkedHashMap<Handle,Long> unused = new LinkedHashMap<Handle,Long>();
+    private boolean timer_posted;
+    private boolean disposed;
+
+    private class Handle extends TCFDataCache<IExpressions.Expression> {
+
+        final String ctx_id;
+        final String script;
+
+        int ref_cnt;
+
+        Handle(String ctx_id, String script) {
+            super(TCFExpressionPool.this.channel);
+            this.ctx_id = ctx_id;
+            this.script = script;
+        }
+
+        @Override
+        protected boolean startDataRetrieval() {
+            if (service == null) {
+                set(null, null, null);
+                return true;
+            }
+            command = service.create(ctx_id, null, script, new IExpressions.DoneCreate() {
+                public void doneCreate(IToken token, Exception error, IExpressions.Expression context) {
+                    if (command != token) {
+                        if (context != null) disposeRemote(context.getID());
+                        return;
+                    }
+                    if (context == null) {
+                        // Don't share the error, next acquire() will try again
+                        removeHandle(Handle.this);
+                    }
+                    set(token, error, context);
+                }
+            });
+            return false;
+        }
+    }
+
+    private final Runnable timer = new Runnable() {
+        public void run() {
+            timer_posted = false;
+            if (disposed) return;
+            long time = System.currentTimeMillis();
+            ArrayList<Handle> list = new ArrayList<Handle>();
+            for (Map.Entry<Handle,Long> e : unused.entrySet()) {
+                if (time - e.getValue() < unused_timeout) break;
+                list.add(e.getKey());
+            }
+            for (Handle h : list) disposeHandle(h);
+            postTimer();
+        }
+    };
+
+    TCFExpressionPool(TCFModel model) {
+        this(model.getChannel(), model.getLaunch().getService(IExpressions.class), UNUSED_TIMEOUT);
+    }
+
+    /**
+     * Create an expression pool.
+     * @param channel - communication channel.
+     * @param service - Expressions service proxy, can be null if the service is not available.
+     * @param unused_timeout - time in milliseconds to keep unused remote expressions.
+     */
+    public TCFExpressionPool(IChannel channel, IExpressions service, long unused_timeout) {
+        this.channel = channel;
+        this.service = service;
+        this.unused_timeout = unused_timeout;
+    }
+
+    /**
+     * Get remote expression for given context and script, and add a reference to it.
+     * The reference must be released by calling release().
+     * @param ctx_id - expression context ID: stack frame or execution context.
+     * @param script - expression script.
+     * @return cache of the remote expression properties.
+     */
+    public TCFDataCache<IExpressions.Expression> acquire(String ctx_id, String script) {
+        assert Protocol.isDispatchThread();
+        assert !disposed;
+        Map<String,Handle> m = handles.get(ctx_id);
+        if (m == null) handles.put(ctx_id, m = new HashMap<String,Handle>());
+        Handle h = m.get(script);
+        if (h == null) m.put(script, h = new Handle(ctx_id, script));
+        if (h.ref_cnt++ == 0) unused.remove(h);
+        return h;
+    }
+
+    /**
+     * Check if a remote expression cache was returned by acquire() for given context and script.
+     * @param cache - remote expression cache returned by acquire().
+     * @param ctx_id - expression context ID.
+     * @param script - expression script.
+     * @return true if the cache represents same expression.
+     */
+    public boolean isSame(TCFDataCache<IExpressions.Expression> cache, String ctx_id, String script) {
+        Handle h = (Handle)cache;
+        return h.ctx_id.equals(ctx_id) && h.script.equals(script);
+    }
+
+    /**
+     * Release a reference to a remote expression.
+     * @param cache - remote expression cache returned by acquire().
+     */
+    public void release(TCFDataCache<IExpressions.Expression> cache) {
+        assert Protocol.isDispatchThread();
+        Handle h = (Handle)cache;
+        assert h.ref_cnt > 0;
+        if (--h.ref_cnt > 0) return;
+        if (disposed || h.isValid() && h.getData() == null) {
+            disposeHandle(h);
+            return;
+        }
+        unused.put(h, System.currentTimeMillis());
+        if (unused.size() > MAX_UNUSED) disposeHandle(unused.keySet().iterator().next());
+        postTimer();
+    }
+
+    /**
+     * Dispose all remote expressions that are not used by expression nodes.
+     */
+    public void onMemoryMapChanged() {
+        if (unused.size() == 0) return;
+        for (Handle h : unused.keySet().toArray(new Handle[unused.size()])) disposeHandle(h);
+    }
+
+    /**
+     * Dispose the pool. Remote expressions are not disposed: the pool is disposed when the channel is closed.
+     */
+    public void dispose() {
+        disposed = true;
+        for (Map<String,Handle> m : handles.values()) {
+            for (Handle h : m.values()) h.cancel();
+        }
+        handles.clear();
+        unused.clear();
+    }
+
+    private void postTimer() {
+        if (timer_posted || unused.size() == 0) return;
+        Iterator<Long> i = unused.values().iterator();
+        long delay = i.next() + unused_timeout - System.currentTimeMillis();
+        Protocol.invokeLater(Math.max(delay, 0), timer);
+        timer_posted = true;
+    }
+
+    private void disposeHandle(Handle h) {
+        assert h.ref_cnt == 0;
+        unused.remove(h);
+        removeHandle(h);
+        if (h.isValid() && h.getData() != null) disposeRemote(h.getData().getID());
+        // If the handle is pending, the remote expression is disposed when the reply arrives
+        h.cancel();
+    }
+
+    private void removeHandle(Handle h) {
+        Map<String,Handle> m = handles.get(h.ctx_id);
+        if (m != null && m.get(h.script) == h) {
+            m.remove(h.script);
+            if (m.size() == 0) handles.remove(h.ctx_id);
+        }
+    }
+
+    private void disposeRemote(String id) {
+        if (service == null || channel.getState() != IChannel.STATE_OPEN) return;
+        service.dispose(id, new IExpressions.DoneDispose() {
+            public void doneDispose(IToken token, Exception error) {
+                if (error == null) return;
+                if (channel.getState() != IChannel.STATE_OPEN) return;
+                Activator.log("Error disposing remote expression evaluator", error);
+            }
+        });
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -174,9 +174,7 @@ class TCFMemoryBlock extends PlatformObject implements IMemoryBlockExtension, IM
     private final TCFDataCache<IExpressions.Value> expression_value;
     private final LinkedList<ModelProxy> model_proxies = new LinkedList<ModelProxy>();
 
-    private MemData mem_data; // current memory block data
-    private MemData mem_prev; // previous data - before last suspend
-    private MemData mem_last; // last retrieved memory block data
+    private MemData mem_data; // last retrieved memory block data
 
     private boolean disposed;
 
@@ -398,23 +396,9 @@ class TCFMemoryBlock extends PlatformObject implements IMemoryBlockExtension, IM
     @Override
     public MemoryByte[] getBytesFromAddress(final BigInteger address, final long units) throws DebugException {
         return new TCFDebugTask<MemoryByte[]>(model.getChannel()) {
-            int offs = 0;
             @Override
             public void run() {
-                if (mem_data != null &&
-                        address.compareTo(mem_data.addr) >= 0 &&
-                        address.add(BigInteger.valueOf(units)).compareTo(
-                                mem_data.addr.add(BigInteger.valueOf(mem_data.data.length))) <= 0) {
-                    offs = address.subtract(mem_data.addr).intValue();
-                    MemoryByte[] res = mem_data.data;
-                    if (units < mem_data.data.length) {
-                        res = new MemoryByte[(int)units];
-                        System.arraycopy(mem_data.data, offs, res, 0, res.length);
-                    }
-                    setHistoryFlags();
-                    done(res);
-                    return;
-                }
+                if (isDone()) return;
                 TCFNode node = model.getNode(ctx_id);
                 if (node == null) {
                     error("Context is disposed");
@@ -436,77 +420,32 @@ class TCFMemoryBlock extends PlatformObject implements IMemoryBlockExtension, IM
                     return;
                 }
                 final int size = (int)units;
+                TCFMemoryCache mem_cache = ((TCFNodeExecContext)node).getMemoryCache();
                 final int mode = IMemory.MODE_CONTINUEONERROR | IMemory.MODE_VERIFY;
-                final byte[] buf = new byte[size];
-                final MemoryByte[] res = new MemoryByte[size];
-                mem.get(address, 1, buf, 0, size, mode, new IMemory.DoneMemory() {
-                    @Override
-                    public void doneMemory(IToken token, MemoryError error) {
-                        int big_endian = 0;
-                        if (mem.getProperties().get(IMemory.PROP_BIG_ENDIAN) != null) {
-                            big_endian |= MemoryByte.ENDIANESS_KNOWN;
-                            if (mem.isBigEndian()) big_endian |= MemoryByte.BIG_ENDIAN;
-                        }
-                        int cnt = 0;
-                        while (offs < size) {
-                            int flags = big_endian;
-                            if (error instanceof IMemory.ErrorOffset) {
-                                IMemory.ErrorOffset ofs = (IMemory.ErrorOffset)error;
-                                int status = ofs.getStatus(cnt);
-                                if (status == IMemory.ErrorOffset.BYTE_VALID) {
-                                    flags |= MemoryByte.READABLE | MemoryByte.WRITABLE;
-                                }
-                                else if ((status & IMemory.ErrorOffset.BYTE_UNKNOWN) != 0) {
-                                    if (cnt > 0) break;
-                                }
-                            }
-                            else if (error == null) {
-                                flags |= MemoryByte.READABLE | MemoryByte.WRITABLE;
-                            }
-                            res[offs] = new MemoryByte(buf[offs], (byte)flags);
-                            offs++;
-                            cnt++;
-                        }
-                        if (offs < size) {
-                            mem.get(address.add(BigInteger.valueOf(offs)), 1, buf, offs, size - offs, mode, this);
-                        }
-                        else {
-                            mem_last = mem_data = new MemData(address, res);
-                            setHistoryFlags();
-                            done(res);
-                        }
-                    }
-                });
+                if (!mem_cache.validate(address, size, mode, this)) return;
+                byte[] buf = new byte[size];
+                byte[] status = new byte[size];
+                mem_cache.read(address, buf, 0, size, status);
+                int big_endian = 0;
+                if (mem.getProperties().get(IMemory.PROP_BIG_ENDIAN) != null) {
+                    big_endian |= MemoryByte.ENDIANESS_KNOWN;
+                    if (mem.isBigEndian()) big_endian |= MemoryByte.BIG_ENDIAN;
+                }
+                MemoryByte[] res = new MemoryByte[size];
+                for (int i = 0; i < size; i++) {
+                    int flags = big_endian;
+                    int s = status[i];
+                    if ((s & TCFMemoryCache.BYTE_VALID) != 0) flags |= MemoryByte.READABLE | MemoryByte.WRITABLE;
+                    if ((s & TCFMemoryCache.BYTE_HISTORY_KNOWN) != 0) flags |= MemoryByte.HISTORY_KNOWN;
+                    if ((s & TCFMemoryCache.BYTE_CHANGED) != 0) flags |= MemoryByte.CHANGED;
+                    res[i] = new MemoryByte(buf[i], (byte)flags);
+                }
+                mem_data = new MemData(address, res);
+                done(res);
             }
         }.getD();
     }
 
-    private void setHistoryFlags() {
-        if (mem_data == null) return;
-        BigInteger addr = mem_data.addr;
-        BigInteger his_start = null;
-        BigInteger his_end = null;
-        if (mem_prev != null) {
-            his_start = mem_prev.addr;
-            his_end = mem_prev.addr.add(BigInteger.valueOf(mem_prev.data.length));
-        }
-        for (MemoryByte b : mem_data.data) {
-            int flags = b.getFlags();
-            if (mem_prev != null && addr.compareTo(his_start) >= 0 && addr.compareTo(his_end) < 0) {
-                flags |= MemoryByte.HISTORY_KNOWN;
-                int offs = addr.subtract(his_start).intValue();
-                if (b.getValue() != mem_prev.data[offs].getValue()) {
-                    flags |= MemoryByte.CHANGED;
-                }
-            }
-            else {
-                flags &= ~(MemoryByte.HISTORY_KNOWN | MemoryByte.CHANGED);
-            }
-            b.setFlags((byte)flags);
-            addr = addr.add(BigInteger.valueOf(1));
-        }
-    }
-
     @Override
     public MemoryByte[] getBytesFromOffset(BigInteger offset, long units) throws DebugException {
         return getBytesFromAddress(getBigBaseAddress().add(offset), units);
@@ -578,9 +517,11 @@ class TCFMemoryBlock extends PlatformObject implements IMemoryBlockExtension, IM
                     return;
                 }
                 final int mode = IMemory.MODE_CONTINUEONERROR | IMemory.MODE_VERIFY;
+                final TCFMemoryCache mem_cache = ((TCFNodeExecContext)node).getMemoryCache();
                 mem.set(address, 1, bytes, 0, bytes.length, mode, new IMemory.DoneMemory() {
                     @Override
                     public void doneMemory(IToken token, MemoryError error) {
+                        mem_cache.onMemoryChanged(new Number[]{ address }, new long[]{ bytes.length }, false);
                         if (error != null) {
                             error(error);
                         }
@@ -660,7 +601,6 @@ class TCFMemoryBlock extends PlatformObject implements IMemoryBlockExtension, IM
         assert Protocol.isDispatchThread();
         remote_expression.reset();
         expression_value.reset();
-        if (suspended) mem_prev = mem_last;
         mem_data = null;
         synchronized (model_proxies) {
             for (ModelProxy p : model_proxies) {
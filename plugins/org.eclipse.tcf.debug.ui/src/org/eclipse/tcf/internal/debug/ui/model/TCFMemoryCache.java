@@ -0,0 +1,366 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.internal.debug.ui.model;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.JSON;
+import org.eclipse.tcf.services.IMemory;
+import org.eclipse.tcf.services.IMemory.MemoryError;
+import org.eclipse.tcf.util.TCFDataCache;
+import org.eclipse.tcf.util.TCFDataCacheBudget;
+import org.eclipse.tcf.util.TCFDataCacheMap;
+
+/**
+ * TCFMemoryCache caches memory contents of a memory context in pages of PAGE_SIZE bytes.
+ * The cache is shared by all clients that read memory of the context: memory blocks,
+ * disassembly, expression value formatting.
+ *
+ * Pages are filled on demand: only bytes requested by clients, and not already in the cache, are read
+ * from the target, using the read mode of the client. So a client that reads a few bytes does not read
+ * whole pages, and does not touch memory around the requested range.
+ *
+ * Pages are invalidated when memory changes: ranges reported by Memory.memoryChanged
+ * invalidate only bytes they overlap, other events - suspend, resume, memory context change -
+ * invalidate all pages. Invalidation is lazy: bytes are read again when they are next validated,
+ * so only memory that is actually used is re-read.
+ *
+ * For each page, the cache keeps data as it was before last suspend,
+ * which allows clients to highlight changed bytes.
+ *
+ * Total number of pages is limited by the model memory cache budget.
+ * Ranges that need more pages than the budget allows are not cached, reading them returns an error.
+ */
+public class TCFMemoryCache {
+
+    /** Size of a cache page, pages are aligned to the size */
+    public static final int PAGE_SIZE = 0x1000;
+
+    /** The byte value is valid */
+    public static final int BYTE_VALID = 1;
+
+    /** Value of the byte before last suspend is known */
+    public static final int BYTE_HISTORY_KNOWN = 2;
+
+    /** Value of the byte is different from the value before last suspend */
+    public static final int BYTE_CHANGED = 4;
+
+    /* Page byte status: the byte is not read yet, or it is invalidated */
+    private static final byte ST_UNKNOWN = 0;
+
+    /* Page byte status: the byte is valid */
+    private static final byte ST_VALID = 1;
+
+    /* Page byte status: the byte cannot be read */
+    private static final byte ST_ERROR = 2;
+
+    /* Page byte status: a read without MODE_CONTINUEONERROR failed, the byte might still be readable */
+    private static final byte ST_FAILED = 3;
+
+    private static final BigInteger PAGE_MASK = BigInteger.valueOf(PAGE_SIZE - 1).not();
+    private static final BigInteger PAGE_SIZE_BIG = BigInteger.valueOf(PAGE_SIZE);
+
+    /* Max number of pages invalidated one by one, larger ranges invalidate whole cache */
+    private static final int MAX_RANGE_PAGES = 256;
+
+    private final IChannel channel;
+    private final TCFDataCache<IMemory.MemoryContext> mem_ctx;
+    private final TCFDataCacheMap<BigInteger,Page> pages;
+
+    /* Cache generation, incremented when all pages are invalidated */
+    private int mem_gen;
+
+    /* Generation that started with last suspend */
+    private int suspend_gen;
+
+    private class Page extends TCFDataCache<byte[]> {
+
+        final BigInteger addr;
+
+        /* Generation of the page contents */
+        int gen = mem_gen;
+        byte[] bytes = new byte[PAGE_SIZE];
+        byte[] status = new byte[PAGE_SIZE];
+
+        /* Error of last failed read */
+        Throwable read_error;
+
+        /* Requested ranges that are not read yet: { start offset, end offset, read mode } */
+        final LinkedList<int[]> requests = new LinkedList<int[]>();
+
+        /* Data before last suspend */
+        byte[] prev;
+        byte[] prev_status;
+
+        Page(BigInteger addr) {
+            super(TCFMemoryCache.this.channel);
+            this.addr = addr;
+        }
+
+        /**
+         * Discard page contents if the cache generation has changed.
+         */
+        void update() {
+            if (gen == mem_gen) return;
+            if (isPending()) cancel();
+            if (gen < suspend_gen) {
+                prev = bytes;
+                prev_status = status;
+                bytes = new byte[PAGE_SIZE];
+                status = new byte[PAGE_SIZE];
+            }
+            else {
+                Arrays.fill(status, ST_UNKNOWN);
+            }
+            read_error = null;
+            gen = mem_gen;
+        }
+
+        /**
+         * Invalidate a range of bytes of the page.
+         */
+        void invalidate(int offs, int end) {
+            if (isPending()) cancel();
+            Arrays.fill(status, offs, end, ST_UNKNOWN);
+        }
+
+        boolean isMissing(int offs, int mode) {
+            byte s = status[offs];
+            return s == ST_UNKNOWN || s == ST_FAILED && (mode & IMemory.MODE_CONTINUEONERROR) != 0;
+        }
+
+        /**
+         * Validate a range of bytes of the page, read bytes that are missing.
+         * @return true if all bytes of the range are known, valid or not.
+         */
+        boolean validate(int offs, int size, int mode, Runnable done) {
+            update();
+            int end = offs + size;
+            while (offs < end && !isMissing(offs, mode)) offs++;
+            if (offs == end) return true;
+            requests.add(new int[]{ offs, end, mode });
+            if (isValid()) reset();
+            return validate(done);
+        }
+
+        @Override
+        public void cancel() {
+            requests.clear();
+            super.cancel();
+        }
+
+        @Override
+        protected boolean startDataRetrieval() {
+            if (!mem_ctx.validate(this)) return false;
+            IMemory.MemoryContext mem = mem_ctx.getData();
+            if (mem == null) {
+                read_error = mem_ctx.getError();
+                if (read_error == null) read_error = new Exception("Context does not provide memory access");
+                for (int[] r : requests) Arrays.fill(status, r[0], r[1], ST_ERROR);
+                requests.clear();
+                set(null, null, bytes);
+                return true;
+            }
+            while (!requests.isEmpty()) {
+                int[] r = requests.getFirst();
+                int mode = r[2];
+                while (r[0] < r[1] && !isMissing(r[0], mode)) r[0]++;
+                if (r[0] == r[1]) {
+                    requests.removeFirst();
+                    continue;
+                }
+                int end = r[0] + 1;
+                while (end < r[1] && isMissing(end, mode)) end++;
+                read(mem, r[0], end - r[0], mode);
+                return false;
+            }
+            set(null, null, bytes);
+            return true;
+        }
+
+        private void read(final IMemory.MemoryContext mem, final int offs, final int size, final int mode) {
+            /* Read into a separate buffer: if the command is canceled, page bytes must not be overwritten */
+            final byte[] buf = new byte[size];
+            command = mem.get(addr.add(BigInteger.valueOf(offs)), 1, buf, 0, size, mode, new IMemory.DoneMemory() {
+                public void doneMemory(IToken token, MemoryError err) {
+                    if (command != token) return;
+                    command = null;
+                    boolean continue_on_error = (mode & IMemory.MODE_CONTINUEONERROR) != 0;
+                    for (int i = 0; i < size; i++) {
+                        byte s = ST_VALID;
+                        if (err instanceof IMemory.ErrorOffset) {
+                            int x = ((IMemory.ErrorOffset)err).getStatus(i);
+                            if (x != IMemory.ErrorOffset.BYTE_VALID) {
+                                // The agent did not try to read the rest, it is read again
+                                if (continue_on_error && i > 0 && (x & IMemory.ErrorOffset.BYTE_UNKNOWN) != 0) break;
+                                s = continue_on_error ? ST_ERROR : ST_FAILED;
+                            }
+                        }
+                        else if (err != null) {
+                            s = continue_on_error ? ST_ERROR : ST_FAILED;
+                        }
+                        if (s == ST_VALID) bytes[offs + i] = buf[i];
+                        status[offs + i] = s;
+                    }
+                    if (err != null) read_error = err;
+                    startDataRetrieval();
+                }
+            });
+        }
+    }
+
+    TCFMemoryCache(TCFNodeExecContext node) {
+        this(node.channel, node.getMemoryContext(), node.model.getMemoryCacheBudget());
+    }
+
+    /**
+     * Create a memory cache.
+     * @param channel - communication channel.
+     * @param mem_ctx - cache of the memory context.
+     * @param budget - budget that limits number of cached pages.
+     */
+    public TCFMemoryCache(IChannel channel, TCFDataCache<IMemory.MemoryContext> mem_ctx, TCFDataCacheBudget budget) {
+        this.channel = channel;
+        this.mem_ctx = mem_ctx;
+        pages = new TCFDataCacheMap<BigInteger,Page>(budget);
+    }
+
+    private Page getPage(BigInteger addr) {
+        Page p = pages.get(addr);
+        if (p == null) pages.put(addr, p = new Page(addr));
+        return p;
+    }
+
+    /* A range that needs more pages than the budget allows would evict its own pages */
+    private boolean isTooLarge(BigInteger addr, int size) {
+        int limit = pages.getBudget().getLimit();
+        if (limit <= 0) return false;
+        long offs = addr.subtract(addr.and(PAGE_MASK)).longValue();
+        return (offs + size + PAGE_SIZE - 1) / PAGE_SIZE > limit;
+    }
+
+    /**
+     * Validate a memory range: read bytes of the range that are not in the cache.
+     * @param addr - range start address.
+     * @param size - range size in bytes.
+     * @param mode - memory read mode, see IMemory.MODE_*.
+     * With MODE_CONTINUEONERROR, bytes that failed to read without the mode are read again.
+     * @param done - call-back that is invoked when a page state changes.
+     * @return true if all bytes of the range are known, valid or not.
+     */
+    public boolean validate(BigInteger addr, int size, int mode, Runnable done) {
+        if (isTooLarge(addr, size)) return true;
+        boolean valid = true;
+        BigInteger page_addr = addr.and(PAGE_MASK);
+        int pos = addr.subtract(page_addr).intValue();
+        int i = 0;
+        while (i < size) {
+            int n = Math.min(size - i, PAGE_SIZE - pos);
+            if (!getPage(page_addr).validate(pos, n, mode, done)) valid = false;
+            i += n;
+            pos = 0;
+            page_addr = page_addr.add(PAGE_SIZE_BIG);
+        }
+        return valid;
+    }
+
+    /**
+     * Copy memory contents from the cache.
+     * The range must be validated before calling this method.
+     * @param addr - range start address.
+     * @param buf - destination buffer.
+     * @param offs - offset in the destination buffer.
+     * @param size - range size in bytes.
+     * @param status - optional array to receive byte status flags, indexed same as 'buf'.
+     * @return error of the first byte that could not be read, or null if all bytes are valid.
+     */
+    public Throwable read(BigInteger addr, byte[] buf, int offs, int size, byte[] status) {
+        if (isTooLarge(addr, size)) {
+            if (status != null) Arrays.fill(status, offs, offs + size, (byte)0);
+            return new Exception("Memory range is too large for the memory cache: " + size + " bytes");
+        }
+        Throwable error = null;
+        BigInteger page_addr = addr.and(PAGE_MASK);
+        int pos = addr.subtract(page_addr).intValue();
+        int i = 0;
+        while (i < size) {
+            Page p = pages.get(page_addr);
+            assert p != null && p.gen == mem_gen;
+            if (p != null && p.gen != mem_gen) p = null;
+            int n = Math.min(size - i, PAGE_SIZE - pos);
+            for (int k = 0; k < n; k++, pos++, i++) {
+                int s = 0;
+                if (p != null && p.status[pos] == ST_VALID) {
+                    byte b = p.bytes[pos];
+                    buf[offs + i] = b;
+                    s = BYTE_VALID;
+                    if (p.prev != null && p.prev_status[pos] == ST_VALID) {
+                        s |= BYTE_HISTORY_KNOWN;
+                        if (p.prev[pos] != b) s |= BYTE_CHANGED;
+                    }
+                }
+                else if (error == null) {
+                    if (p != null) error = p.read_error;
+                    if (error == null) error = new Exception("Cannot read memory at " + page_addr.add(BigInteger.valueOf(pos)).toString(16));
+                }
+                if (status != null) status[offs + i] = (byte)s;
+            }
+            pos = 0;
+            page_addr = page_addr.add(PAGE_SIZE_BIG);
+        }
+        return error;
+    }
+
+    /**
+     * Invalidate cached memory.
+     * @param addr - start addresses of changed ranges, null means all memory.
+     * @param size - sizes of changed ranges.
+     * @param suspended - true if memory changed because the context was suspended,
+     * in which case current data becomes history data.
+     */
+    void onMemoryChanged(Number[] addr, long[] size, boolean suspended) {
+        if (!suspended && addr != null && size != null) {
+            int cnt = 0;
+            for (long s : size) cnt += Math.min(MAX_RANGE_PAGES + 1, s / PAGE_SIZE + 2);
+            if (cnt <= MAX_RANGE_PAGES) {
+                for (int i = 0; i < addr.length && i < size.length; i++) {
+                    BigInteger a = JSON.toBigInteger(addr[i]);
+                    BigInteger end = a.add(BigInteger.valueOf(size[i]));
+                    BigInteger page_addr = a.and(PAGE_MASK);
+                    while (page_addr.compareTo(end) < 0) {
+                        Page p = pages.get(page_addr);
+                        if (p != null) {
+                            BigInteger page_end = page_addr.add(PAGE_SIZE_BIG);
+                            int x = a.compareTo(page_addr) > 0 ? a.subtract(page_addr).intValue() : 0;
+                            int y = end.compareTo(page_end) < 0 ? end.subtract(page_addr).intValue() : PAGE_SIZE;
+                            p.invalidate(x, y);
+                        }
+                        page_addr = page_addr.add(PAGE_SIZE_BIG);
+                    }
+                }
+                return;
+            }
+        }
+        mem_gen++;
+        if (suspended) suspend_gen = mem_gen;
+    }
+
+    /**
+     * Dispose the cache, pending reads are canceled.
+     */
+    public void dispose() {
+        pages.dispose();
+    }
+}
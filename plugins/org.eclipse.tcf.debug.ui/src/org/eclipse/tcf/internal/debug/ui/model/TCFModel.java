@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007-2020 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -133,6 +133,7 @@ import org.eclipse.tcf.services.IRunControl;
 import org.eclipse.tcf.services.IStackTrace;
 import org.eclipse.tcf.services.ISymbols;
 import org.eclipse.tcf.util.TCFDataCache;
+import org.eclipse.tcf.util.TCFDataCacheBudget;
 import org.eclipse.tcf.util.TCFTask;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
@@ -328,6 +329,16 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
 
     private final Map<String,Object> context_map = new HashMap<String,Object>();
 
+    /* Limits total number of address-keyed lookup cache items of the debug session */
+    private final TCFDataCacheBudget lookup_cache_budget =
+            new TCFDataCacheBudget(Integer.getInteger("org.eclipse.tcf.debug.ui.lookup_cache_limit", 0x4000));
+
+    /* Limits total number of memory cache pages of the debug session */
+    private final TCFDataCacheBudget memory_cache_budget =
+            new TCFDataCacheBudget(Integer.getInteger("org.eclipse.tcf.debug.ui.memory_cache_limit", 0x400));
+
+    private TCFExpressionPool expression_pool;
+
     private final Map<IWorkbenchPart,TCFNode> pins = new HashMap<IWorkbenchPart,TCFNode>();
     private final Map<IWorkbenchPart,TCFSnapshot> locks = new HashMap<IWorkbenchPart,TCFSnapshot>();
     private final Map<IWorkbenchPart,Integer> lock_policy = new HashMap<IWorkbenchPart,Integer>();
@@ -430,6 +441,7 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
             launch_node.onAnyContextSuspendedOrChanged();
             if (!func_call && action_cnt == 0) {
                 setDebugViewSelection(node, reason);
+                if (node instanceof TCFNodeExecContext) ((TCFNodeExecContext)node).prefetch();
                 updateAnnotations(null);
                 TCFNodePropertySource.refresh(node);
             }
@@ -502,6 +514,7 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
             launch_node.onAnyContextSuspendedOrChanged();
             if (!func_call && active_actions.get(id) == null) {
                 setDebugViewSelection(node, reason);
+                if (node instanceof TCFNodeExecContext) ((TCFNodeExecContext)node).prefetch();
                 updateAnnotations(null);
                 TCFNodePropertySource.refresh(node);
             }
@@ -524,6 +537,7 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
                 TCFNodeExecContext exe = (TCFNodeExecContext)node;
                 exe.onMemoryMapChanged();
             }
+            expression_pool.onMemoryMapChanged();
             onMemoryChanged(id, true, false, true);
             refreshSourceView();
         }
@@ -655,6 +669,7 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
                                 String reason = action_results.get(id);
                                 if (reason == null) reason = state_data.suspend_reason;
                                 setDebugViewSelection(id2node.get(id), reason);
+                                ((TCFNodeExecContext)node).prefetch();
                             }
                         }
                         for (TCFModelProxy p : model_proxies) p.post();
@@ -937,6 +952,7 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
         assert Protocol.isDispatchThread();
         assert launch_node == null;
         channel = launch.getChannel();
+        expression_pool = new TCFExpressionPool(this);
         launch_node = new TCFNodeLaunch(this);
         IMemory mem = launch.getService(IMemory.class);
         if (mem != null) mem.addListener(mem_listener);
@@ -993,6 +1009,10 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
             launch_node.dispose();
             launch_node = null;
         }
+        if (expression_pool != null) {
+            expression_pool.dispose();
+            expression_pool = null;
+        }
         // Dispose memory monitors
         TCFMemoryBlock.onModelDisconnected(this);
         mem_retrieval.clear();
@@ -1086,6 +1106,30 @@ public class TCFModel implements ITCFModel, IElementContentProvider, IElementLab
         return action_results.get(id);
     }
 
+    /**
+     * Get the budget that is shared by symbol, line and function info lookup caches of the debug session.
+     * @return the lookup cache budget.
+     */
+    public TCFDataCacheBudget getLookupCacheBudget() {
+        return lookup_cache_budget;
+    }
+
+    /**
+     * Get the budget that is shared by memory caches of the debug session.
+     * @return the memory cache budget, in pages.
+     */
+    public TCFDataCacheBudget getMemoryCacheBudget() {
+        return memory_cache_budget;
+    }
+
+    /**
+     * Get the pool of remote expressions that are shared by expression nodes.
+     * @return the expression pool.
+     */
+    TCFExpressionPool getExpressionPool() {
+        return expression_pool;
+    }
+
     public long getMinViewUpdatesInterval() {
         return min_view_updates_interval;
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007-2019 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -14,8 +14,6 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -54,6 +52,7 @@ import org.eclipse.tcf.services.IProcesses;
 import org.eclipse.tcf.services.IRunControl;
 import org.eclipse.tcf.services.ISymbols;
 import org.eclipse.tcf.util.TCFDataCache;
+import org.eclipse.tcf.util.TCFDataCacheMap;
 import org.eclipse.ui.IWorkbenchPart;
 
 public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExecContext {
@@ -80,16 +79,23 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
     private final TCFData<String> full_name;
     private final TCFData<Collection<Map<String,Object>>> reset_capabilities;
 
-    private LinkedHashMap<BigInteger,TCFDataCache<TCFSymFileRef>> syms_info_lookup_cache;
-    private LinkedHashMap<BigInteger,TCFDataCache<TCFSourceRef>> line_info_lookup_cache;
-    private LinkedHashMap<BigInteger,TCFDataCache<TCFFunctionRef>> func_info_lookup_cache;
+    private TCFDataCacheMap<BigInteger,TCFDataCache<TCFSymFileRef>> syms_info_lookup_cache;
+    private TCFDataCacheMap<BigInteger,TCFDataCache<TCFSourceRef>> line_info_lookup_cache;
+    private TCFDataCacheMap<BigInteger,TCFDataCache<TCFFunctionRef>> func_info_lookup_cache;
     private LookupCacheTimer lookup_cache_timer;
+    private TCFMemoryCache mem_cache;
 
     private int mem_seq_no;
     private int exe_seq_no;
 
     private static final TCFNode[] empty_node_array = new TCFNode[0];
 
+    /* Number of top stack frames that are retrieved speculatively when the context is suspended, 0 disables the prefetch */
+    private static final int prefetch_frames = Integer.getInteger("org.eclipse.tcf.debug.ui.prefetch_frames", 4);
+
+    /* Default max number of prefetch runs per suspend */
+    private static final int PREFETCH_MAX_RUNS = 64;
+
     /*
      * LookupCacheTimer is executed periodically to dispose least-recently
      * accessed entries in line_info_lookup_cache and func_info_lookup_cache.
@@ -104,28 +110,16 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         public void run() {
             if (isDisposed()) return;
             if (syms_info_lookup_cache != null) {
-                BigInteger addr = syms_info_lookup_cache.keySet().iterator().next();
-                TCFDataCache<?> cache = syms_info_lookup_cache.get(addr);
-                if (!cache.isPending()) {
-                    syms_info_lookup_cache.remove(addr).dispose();
-                    if (syms_info_lookup_cache.size() == 0) syms_info_lookup_cache = null;
-                }
+                syms_info_lookup_cache.disposeEldest();
+                if (syms_info_lookup_cache.size() == 0) syms_info_lookup_cache = null;
             }
             if (line_info_lookup_cache != null) {
-                BigInteger addr = line_info_lookup_cache.keySet().iterator().next();
-                TCFDataCache<?> cache = line_info_lookup_cache.get(addr);
-                if (!cache.isPending()) {
-                    line_info_lookup_cache.remove(addr).dispose();
-                    if (line_info_lookup_cache.size() == 0) line_info_lookup_cache = null;
-                }
+                line_info_lookup_cache.disposeEldest();
+                if (line_info_lookup_cache.size() == 0) line_info_lookup_cache = null;
             }
             if (func_info_lookup_cache != null) {
-                BigInteger addr = func_info_lookup_cache.keySet().iterator().next();
-                TCFDataCache<?> cache = func_info_lookup_cache.get(addr);
-                if (!cache.isPending()) {
-                    func_info_lookup_cache.remove(addr).dispose();
-                    if (func_info_lookup_cache.size() == 0) func_info_lookup_cache = null;
-                }
+                func_info_lookup_cache.disposeEldest();
+                if (func_info_lookup_cache.size() == 0) func_info_lookup_cache = null;
             }
             if (syms_info_lookup_cache == null && line_info_lookup_cache == null && func_info_lookup_cache == null) {
                 lookup_cache_timer = null;
@@ -146,6 +140,8 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
     private final Map<String,TCFNodeSymbol> symbols = new HashMap<String,TCFNodeSymbol>();
 
     private int resumed_cnt;
+    private int prefetch_cnt;
+    private int prefetch_runs;
     private boolean resume_pending;
     private boolean resumed_by_action;
     private TCFNode[] last_stack_trace;
@@ -533,6 +529,10 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         ArrayList<TCFNodeSymbol> l = new ArrayList<TCFNodeSymbol>(symbols.values());
         for (TCFNodeSymbol s : l) s.dispose();
         assert symbols.size() == 0;
+        if (syms_info_lookup_cache != null) syms_info_lookup_cache.dispose();
+        if (line_info_lookup_cache != null) line_info_lookup_cache.dispose();
+        if (func_info_lookup_cache != null) func_info_lookup_cache.dispose();
+        if (mem_cache != null) mem_cache.dispose();
         super.dispose();
     }
 
@@ -595,7 +595,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         final ISymbols syms = launch.getService(ISymbols.class);
         if (syms == null) return null;
         if (syms_info_lookup_cache == null) {
-            syms_info_lookup_cache = new LinkedHashMap<BigInteger,TCFDataCache<TCFSymFileRef>>(11, 0.75f, true);
+            syms_info_lookup_cache = new TCFDataCacheMap<BigInteger,TCFDataCache<TCFSymFileRef>>(model.getLookupCacheBudget());
             if (lookup_cache_timer == null) lookup_cache_timer = new LookupCacheTimer();
         }
         syms_info_lookup_cache.put(addr, ref_cache = new TCFData<TCFSymFileRef>(channel) {
@@ -640,7 +640,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         final BigInteger n0 = addr;
         final BigInteger n1 = n0.add(BigInteger.valueOf(1));
         if (line_info_lookup_cache == null) {
-            line_info_lookup_cache = new LinkedHashMap<BigInteger,TCFDataCache<TCFSourceRef>>(11, 0.75f, true);
+            line_info_lookup_cache = new TCFDataCacheMap<BigInteger,TCFDataCache<TCFSourceRef>>(model.getLookupCacheBudget());
             if (lookup_cache_timer == null) lookup_cache_timer = new LookupCacheTimer();
         }
         line_info_lookup_cache.put(addr, ref_cache = new TCFData<TCFSourceRef>(channel) {
@@ -707,7 +707,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         final ISymbols syms = launch.getService(ISymbols.class);
         if (syms == null) return null;
         if (func_info_lookup_cache == null) {
-            func_info_lookup_cache = new LinkedHashMap<BigInteger,TCFDataCache<TCFFunctionRef>>(11, 0.75f, true);
+            func_info_lookup_cache = new TCFDataCacheMap<BigInteger,TCFDataCache<TCFFunctionRef>>(model.getLookupCacheBudget());
             if (lookup_cache_timer == null) lookup_cache_timer = new LookupCacheTimer();
         }
         func_info_lookup_cache.put(addr, ref_cache = new TCFData<TCFFunctionRef>(channel) {
@@ -742,33 +742,15 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
 
     private void clearLookupCaches() {
         if (syms_info_lookup_cache != null) {
-            Iterator<TCFDataCache<TCFSymFileRef>> i = syms_info_lookup_cache.values().iterator();
-            while (i.hasNext()) {
-                TCFDataCache<TCFSymFileRef> cache = i.next();
-                if (cache.isPending()) continue;
-                cache.dispose();
-                i.remove();
-            }
+            syms_info_lookup_cache.clear();
             if (syms_info_lookup_cache.size() == 0) syms_info_lookup_cache = null;
         }
         if (line_info_lookup_cache != null) {
-            Iterator<TCFDataCache<TCFSourceRef>> i = line_info_lookup_cache.values().iterator();
-            while (i.hasNext()) {
-                TCFDataCache<TCFSourceRef> cache = i.next();
-                if (cache.isPending()) continue;
-                cache.dispose();
-                i.remove();
-            }
+            line_info_lookup_cache.clear();
             if (line_info_lookup_cache.size() == 0) line_info_lookup_cache = null;
         }
         if (func_info_lookup_cache != null) {
-            Iterator<TCFDataCache<TCFFunctionRef>> i = func_info_lookup_cache.values().iterator();
-            while (i.hasNext()) {
-                TCFDataCache<TCFFunctionRef> cache = i.next();
-                if (cache.isPending()) continue;
-                cache.dispose();
-                i.remove();
-            }
+            func_info_lookup_cache.clear();
             if (func_info_lookup_cache.size() == 0) func_info_lookup_cache = null;
         }
     }
@@ -814,6 +796,27 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         return mem_context;
     }
 
+    /**
+     * Get memory contents cache of this context.
+     * The node must be a memory node, see getMemoryNode().
+     * @return the memory cache.
+     */
+    public TCFMemoryCache getMemoryCache() {
+        assert !isDisposed();
+        if (mem_cache == null) mem_cache = new TCFMemoryCache(this);
+        return mem_cache;
+    }
+
+    private void onMemoryCacheChanged(boolean suspended) {
+        if (mem_cache != null) mem_cache.onMemoryChanged(null, null, suspended);
+        if (memory_node.isValid()) {
+            TCFNodeExecContext mem = memory_node.getData();
+            if (mem != null && mem != this && mem.mem_cache != null) {
+                mem.mem_cache.onMemoryChanged(null, null, suspended);
+            }
+        }
+    }
+
     public TCFDataCache<BigInteger> getAddress() {
         return address;
     }
@@ -1529,6 +1532,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
     void onContextChanged(IMemory.MemoryContext context) {
         assert !isDisposed();
         clearLookupCaches();
+        if (mem_cache != null) mem_cache.onMemoryChanged(null, null, false);
         mem_context.reset(context);
         for (TCFNodeSymbol s : symbols.values()) s.onMemoryMapChanged();
         postAllChangedDelta();
@@ -1569,6 +1573,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
 
     void onContextSuspended(String pc, String reason, Map<String,Object> params, boolean func_call) {
         assert !isDisposed();
+        prefetch_runs = 0;
         if (pc != null) {
             TCFContextState s = new TCFContextState();
             s.is_suspended = true;
@@ -1582,6 +1587,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         }
         address.reset();
         signal_mask.reset();
+        onMemoryCacheChanged(!func_call);
         children_stack.onSuspended(func_call);
         children_exps.onSuspended(func_call);
         children_hover_exps.onSuspended(func_call);
@@ -1616,6 +1622,8 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
     void onContextResumed() {
         assert !isDisposed();
         state.reset();
+        prefetch_cnt++;
+        onMemoryCacheChanged(false);
         if (!resume_pending) {
             final int cnt = ++resumed_cnt;
             resume_pending = true;
@@ -1633,6 +1641,44 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
         }
     }
 
+    /**
+     * Speculatively retrieve data that views are going to show when the suspended context is selected:
+     * stack trace, contexts and source lines of top frames, local variables and registers of the top frame
+     * if Variables and Registers views are open.
+     * Requests that don't depend on each other are sent together, without waiting for replies,
+     * so the data is usually available before views ask for it.
+     * The prefetch is re-run each time a cache it waits for changes state, number of runs per suspend
+     * is limited by "org.eclipse.tcf.debug.ui.prefetch_max_runs" system property, so caches that keep
+     * being invalidated don't keep the prefetch going until next resume.
+     */
+    void prefetch() {
+        assert !isDisposed();
+        if (prefetch_frames <= 0) return;
+        final int cnt = ++prefetch_cnt;
+        final int max_runs = Integer.getInteger("org.eclipse.tcf.debug.ui.prefetch_max_runs", PREFETCH_MAX_RUNS);
+        new Runnable() {
+            public void run() {
+                if (cnt != prefetch_cnt) return;
+                if (isDisposed()) return;
+                if (prefetch_runs >= max_runs) return;
+                prefetch_runs++;
+                if (!children_stack.validate(this)) return;
+                for (TCFNode n : children_stack.toArray()) {
+                    TCFNodeStackFrame f = (TCFNodeStackFrame)n;
+                    int frame_no = f.getFrameNo();
+                    if (frame_no >= 0 && frame_no < prefetch_frames) f.prefetch(frame_no == 0, this);
+                }
+            }
+        }.run();
+    }
+
+    /**
+     * @return number of times the data prefetch was run since the context was last suspended.
+     */
+    public int getPrefetchRuns() {
+        return prefetch_runs;
+    }
+
     void onContextStateChanged() {
         assert !isDisposed();
         state.reset();
@@ -1656,6 +1702,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
     void onOtherContextSuspended() {
         // Other context suspended in same memory space
         // Expressions with global variables should be invalidated
+        onMemoryCacheChanged(true);
         children_exps.onMemoryChanged();
         children_hover_exps.onMemoryChanged();
         children_log_exps.onMemoryChanged();
@@ -1663,6 +1710,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
 
     void onMemoryChanged(Number[] addr, long[] size) {
         assert !isDisposed();
+        if (mem_cache != null) mem_cache.onMemoryChanged(addr, size, false);
         children_stack.onMemoryChanged();
         children_exps.onMemoryChanged();
         children_hover_exps.onMemoryChanged();
@@ -1672,6 +1720,7 @@ public class TCFNodeExecContext extends TCFNode implements ISymbolOwner, ITCFExe
 
     void onMemoryMapChanged() {
         clearLookupCaches();
+        if (mem_cache != null) mem_cache.onMemoryChanged(null, null, false);
         memory_map.reset();
         children_modules.onMemoryMapChanged();
         children_stack.onMemoryMapChanged();
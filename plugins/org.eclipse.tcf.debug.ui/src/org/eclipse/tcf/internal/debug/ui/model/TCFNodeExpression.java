@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008-2020 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -41,15 +41,12 @@ import org.eclipse.tcf.debug.ui.ITCFExpression;
 import org.eclipse.tcf.debug.ui.ITCFPrettyExpressionProvider;
 import org.eclipse.tcf.internal.debug.actions.TCFAction;
 import org.eclipse.tcf.internal.debug.model.TCFContextState;
-import org.eclipse.tcf.internal.debug.ui.Activator;
 import org.eclipse.tcf.internal.debug.ui.ColorCache;
 import org.eclipse.tcf.internal.debug.ui.ImageCache;
-import org.eclipse.tcf.protocol.IChannel;
 import org.eclipse.tcf.protocol.IToken;
 import org.eclipse.tcf.protocol.JSON;
 import org.eclipse.tcf.services.IExpressions;
 import org.eclipse.tcf.services.IMemory;
-import org.eclipse.tcf.services.IMemory.MemoryError;
 import org.eclipse.tcf.services.IRegisters;
 import org.eclipse.tcf.services.ISymbols;
 import org.eclipse.tcf.util.TCFDataCache;
@@ -84,7 +81,7 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
     private IExpressions.Value prev_value;
     private IExpressions.Value next_value;
     private byte[] parent_value;
-    private String remote_expression_id;
+    private TCFDataCache<IExpressions.Expression> remote_expression;
     private Object update_generation;
 
     private static int expr_cnt;
@@ -346,27 +343,30 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
                 String cast = model.getCastToType(id);
                 if (var_id != null && cast == null) {
                     if (!var_expression.validate(this)) return false;
+                    releaseRemoteExpression();
                     set(null, var_expression.getError(), var_expression.getData());
                     return true;
                 }
                 if (!base_text.validate(this)) return false;
                 String e = base_text.getData();
                 if (e == null) {
+                    releaseRemoteExpression();
                     set(null, base_text.getError(), null);
                     return true;
                 }
                 if (cast != null) e = "(" + cast + ")(" + e + ")";
                 TCFNode n = getRootExpression().parent;
                 if (n instanceof TCFNodeStackFrame && ((TCFNodeStackFrame)n).isEmulated()) n = n.parent;
-                command = exps.create(n.id, null, e, new IExpressions.DoneCreate() {
-                    public void doneCreate(IToken token, Exception error, IExpressions.Expression context) {
-                        disposeRemoteExpression();
-                        if (context != null) remote_expression_id = context.getID();
-                        if (!isDisposed()) set(token, error, context);
-                        else disposeRemoteExpression();
-                    }
-                });
-                return false;
+                // Remote expressions are shared and reused, see TCFExpressionPool
+                TCFExpressionPool pool = model.getExpressionPool();
+                if (remote_expression == null || !pool.isSame(remote_expression, n.id, e)) {
+                    TCFDataCache<IExpressions.Expression> cache = pool.acquire(n.id, e);
+                    releaseRemoteExpression();
+                    remote_expression = cache;
+                }
+                if (!remote_expression.validate(this)) return false;
+                set(null, remote_expression.getError(), remote_expression.getData());
+                return true;
             }
         };
         value = new TCFData<IExpressions.Value>(channel) {
@@ -378,6 +378,11 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
                     set(null, null, prev_value);
                     return true;
                 }
+                if (index >= 0) {
+                    Boolean e = readArrayElement();
+                    if (e == null) return false;
+                    if (e) return true;
+                }
                 if (!rem_expression.validate(this)) return false;
                 final IExpressions.Expression exp = rem_expression.getData();
                 if (exp == null) {
@@ -403,6 +408,71 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
                 });
                 return false;
             }
+            /*
+             * Compute value of an array element of a simple type from the array value or memory contents,
+             * without creating and evaluating a remote expression for the element.
+             * Memory of the whole leaf partition that contains the element - or of the whole array,
+             * if it is not partitioned - is validated at once, so elements that are shown in a view
+             * are read by a single memory command.
+             * Return null if waiting for cache update, false if the element should be evaluated remotely.
+             */
+            private Boolean readArrayElement() {
+                if (model.getCastToType(id) != null) return false;
+                TCFNode n = parent;
+                while (n instanceof TCFNodeArrayPartition) n = n.parent;
+                TCFNodeExpression array = (TCFNodeExpression)n;
+                if (!array.type.validate(this)) return null;
+                ISymbols.Symbol array_type = array.type.getData();
+                if (array_type == null || array_type.getTypeClass() != ISymbols.TypeClass.array) return false;
+                TCFDataCache<ISymbols.Symbol> elem_cache = model.getSymbolInfoCache(array_type.getBaseTypeID());
+                if (elem_cache == null) return false;
+                if (!elem_cache.validate(this)) return null;
+                ISymbols.Symbol elem_type = elem_cache.getData();
+                if (!TCFArrayElementValue.isSimpleArray(array_type, elem_type)) return false;
+                ISymbols.Symbol t = elem_type;
+                for (int i = 0; i < max_type_chain_length; i++) {
+                    if (TCFArrayElementValue.isScaled(t)) return false;
+                    String type_id = t.getTypeID();
+                    if (type_id == null || type_id.equals(t.getID())) break;
+                    TCFDataCache<ISymbols.Symbol> type_cache = model.getSymbolInfoCache(type_id);
+                    if (!type_cache.validate(this)) return null;
+                    t = type_cache.getData();
+                    if (t == null) return false;
+                }
+                if (!array.value.validate(this)) return null;
+                IExpressions.Value array_value = array.value.getData();
+                if (array_value == null) return false;
+                if (!TCFArrayElementValue.isSimpleValue(array_value)) return false;
+                TCFArrayElementValue elem_value = TCFArrayElementValue.create(elem_type, array_value, index);
+                if (elem_value == null) {
+                    int size = elem_type.getSize();
+                    BigInteger addr = TCFArrayElementValue.getAddress(array_value, size, index);
+                    if (addr == null) return false;
+                    int win_offs = 0;
+                    int win_size = array_type.getLength();
+                    if (parent instanceof TCFNodeArrayPartition) {
+                        win_offs = ((TCFNodeArrayPartition)parent).getOffset();
+                        win_size = ((TCFNodeArrayPartition)parent).getSize();
+                    }
+                    if (index < win_offs || index >= win_offs + win_size) {
+                        win_offs = index;
+                        win_size = 1;
+                    }
+                    TCFDataCache<TCFNodeExecContext> mem_node_cache = model.searchMemoryContext(parent);
+                    if (mem_node_cache == null) return false;
+                    if (!mem_node_cache.validate(this)) return null;
+                    TCFNodeExecContext mem_node = mem_node_cache.getData();
+                    if (mem_node == null) return false;
+                    TCFMemoryCache mem_cache = mem_node.getMemoryCache();
+                    BigInteger win_addr = TCFArrayElementValue.getAddress(array_value, size, win_offs);
+                    if (!mem_cache.validate(win_addr, win_size * size, 0, this)) return null;
+                    byte[] buf = new byte[size];
+                    if (mem_cache.read(addr, buf, 0, size, null) != null) return false;
+                    elem_value = new TCFArrayElementValue(elem_type, array_value.isBigEndian(), addr, buf);
+                }
+                set(null, null, elem_value);
+                return true;
+            }
         };
         type = new TCFData<ISymbols.Symbol>(channel) {
             @Override
@@ -444,6 +514,7 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
             ISymbols.Symbol base_type_data;
             BigInteger addr;
             byte[] buf;
+            byte[] buf_status;
             int size;
             int offs;
             @Override
@@ -594,64 +665,53 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
                     set(null, mem_ctx_cache.getError(), null);
                     return true;
                 }
-                IMemory.MemoryContext mem_space_data = mem_ctx_cache.getData();
-                if (mem_space_data == null) {
+                if (mem_ctx_cache.getData() == null) {
                     set(null, new Exception("Context does not provide memory access"), null);
                     return true;
                 }
+                TCFMemoryCache mem_cache = mem_node.getMemoryCache();
                 if (size == 0) {
                     // c-string: read until 0
-                    BigInteger get_addr = addr.add(BigInteger.valueOf(offs));
-                    final int get_size = 16 - (get_addr.intValue() & 0xf);
-                    if (buf == null) buf = new byte[256];
-                    if (offs + get_size > buf.length) {
-                        byte[] tmp = new byte[buf.length * 2];
-                        System.arraycopy(buf, 0, tmp, 0, buf.length);
-                        buf = tmp;
-                    }
-                    command = mem_space_data.get(get_addr, 1, buf, offs, get_size, 0, new IMemory.DoneMemory() {
-                        public void doneMemory(IToken token, MemoryError error) {
-                            if (command != token) return;
-                            IMemory.ErrorOffset err_offs = null;
-                            if (error instanceof IMemory.ErrorOffset) err_offs = (IMemory.ErrorOffset)error;
-                            for (int i = 0; i < get_size; i++) {
-                                MemoryError byte_error = null;
-                                if (error != null && (err_offs == null || err_offs.getStatus(i) != IMemory.ErrorOffset.BYTE_VALID)) {
-                                    byte_error = error;
-                                    if (offs == 0) {
-                                        set(command, byte_error, null);
-                                        return;
-                                    }
-                                }
-                                if (buf[offs] == 0 || offs >= 2048 || byte_error != null) {
-                                    StyledStringBuffer bf = new StyledStringBuffer();
-                                    bf.append(toASCIIString(buf, 0, offs, '"'), StyledStringBuffer.MONOSPACED);
-                                    set(command, null, bf);
-                                    return;
-                                }
-                                offs++;
+                    for (;;) {
+                        BigInteger get_addr = addr.add(BigInteger.valueOf(offs));
+                        int get_size = 16 - (get_addr.intValue() & 0xf);
+                        if (!mem_cache.validate(get_addr, get_size, 0, this)) return false;
+                        if (buf == null) {
+                            buf = new byte[256];
+                            buf_status = new byte[256];
+                        }
+                        if (offs + get_size > buf.length) {
+                            byte[] tmp = new byte[buf.length * 2];
+                            System.arraycopy(buf, 0, tmp, 0, buf.length);
+                            buf = tmp;
+                            buf_status = new byte[buf.length];
+                        }
+                        Throwable error = mem_cache.read(get_addr, buf, offs, get_size, buf_status);
+                        for (int i = 0; i < get_size; i++) {
+                            boolean byte_error = (buf_status[offs] & TCFMemoryCache.BYTE_VALID) == 0;
+                            if (byte_error && offs == 0) {
+                                set(null, error, null);
+                                return true;
+                            }
+                            if (buf[offs] == 0 || offs >= 2048 || byte_error) {
+                                StyledStringBuffer bf = new StyledStringBuffer();
+                                bf.append(toASCIIString(buf, 0, offs, '"'), StyledStringBuffer.MONOSPACED);
+                                set(null, null, bf);
+                                return true;
                             }
-                            command = null;
-                            run();
+                            offs++;
                         }
-                    });
-                    return false;
+                    }
                 }
                 if (offs == 0) {
+                    if (!mem_cache.validate(addr, size, 0, this)) return false;
                     buf = new byte[size];
-                    command = mem_space_data.get(addr, 1, buf, 0, size, 0, new IMemory.DoneMemory() {
-                        public void doneMemory(IToken token, MemoryError error) {
-                            if (error != null) {
-                                set(command, error, null);
-                            }
-                            else if (command == token) {
-                                command = null;
-                                offs++;
-                                run();
-                            }
-                        }
-                    });
-                    return false;
+                    Throwable error = mem_cache.read(addr, buf, 0, size, null);
+                    if (error != null) {
+                        set(null, error, null);
+                        return true;
+                    }
+                    offs++;
                 }
                 StyledStringBuffer bf = new StyledStringBuffer();
                 bf.append('{');
@@ -703,24 +763,18 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
         postAllChangedDelta();
     }
 
-    private void disposeRemoteExpression() {
-        if (remote_expression_id != null && channel.getState() == IChannel.STATE_OPEN) {
-            IExpressions exps = channel.getRemoteService(IExpressions.class);
-            exps.dispose(remote_expression_id, new IExpressions.DoneDispose() {
-                public void doneDispose(IToken token, Exception error) {
-                    if (error == null) return;
-                    if (channel.getState() != IChannel.STATE_OPEN) return;
-                    Activator.log("Error disposing remote expression evaluator", error);
-                }
-            });
-            remote_expression_id = null;
+    private void releaseRemoteExpression() {
+        if (remote_expression != null) {
+            TCFExpressionPool pool = model.getExpressionPool();
+            if (pool != null) pool.release(remote_expression);
+            remote_expression = null;
         }
     }
 
     @Override
     public void dispose() {
         for (ITCFPrettyExpressionProvider p : TCFPrettyExpressionProvider.getProviders()) p.dispose(this);
-        disposeRemoteExpression();
+        releaseRemoteExpression();
         super.dispose();
     }
 
@@ -756,7 +810,10 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
         if (update_generation == generation) return;
         prev_value = null;
         update_generation = generation;
-        if (rem_expression.isValid() && rem_expression.getError() != null) rem_expression.reset();
+        if (rem_expression.isValid() && rem_expression.getError() != null) {
+            releaseRemoteExpression();
+            rem_expression.reset();
+        }
         type.reset();
         type_name.reset();
         value.reset();
@@ -773,7 +830,10 @@ public class TCFNodeExpression extends TCFNode implements IElementEditor, ICastT
             type.reset();
             type_name.reset();
         }
-        if (rem_expression.isValid() && rem_expression.getError() != null) rem_expression.reset();
+        if (rem_expression.isValid() && rem_expression.getError() != null) {
+            releaseRemoteExpression();
+            rem_expression.reset();
+        }
         if (!func_call || value.isValid() && value.getError() != null) value.reset();
         if (!func_call || string.isValid() && string.getError() != null) string.reset();
         for (ITCFPrettyExpressionProvider p : TCFPrettyExpressionProvider.getProviders()) p.cancel(this);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -174,6 +174,17 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
                         set(null, context.getError(), null);
                         return true;
                     }
+                    TCFChildrenRegisters siblings = getParentRegisters();
+                    if (siblings != null) {
+                        // Use the bulk snapshot of the register list, if the agent supports it
+                        TCFDataCache<Map<String,byte[]>> values = siblings.getValues();
+                        if (!values.validate(this)) return false;
+                        Map<String,byte[]> map = values.getData();
+                        if (map != null && map.get(id) != null) {
+                            set(null, null, map.get(id));
+                            return true;
+                        }
+                    }
                     final TCFDataCache<?> cache = this;
                     command = ctx.get(new IRegisters.DoneGet() {
                         public void doneGet(IToken token, Exception error, byte[] value) {
@@ -217,6 +228,19 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
         this.index = index;
     }
 
+    private TCFChildrenRegisters getParentRegisters() {
+        if (parent instanceof TCFNodeRegister) return ((TCFNodeRegister)parent).children;
+        if (parent instanceof TCFNodeStackFrame) return (TCFChildrenRegisters)((TCFNodeStackFrame)parent).getRegisters();
+        if (parent instanceof TCFNodeExecContext) return (TCFChildrenRegisters)((TCFNodeExecContext)parent).getRegisters();
+        return null;
+    }
+
+    private void resetValue() {
+        TCFChildrenRegisters siblings = getParentRegisters();
+        if (siblings != null) siblings.onValueChanged(id);
+        value.reset();
+    }
+
     private Boolean usePrevValue(Runnable done) {
         // Check if view should show old value.
         // Old value is shown if context is running or
@@ -634,7 +658,7 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
 
     void onValueChanged() {
         prev_value = next_value;
-        value.reset();
+        resetValue();
         TCFNode n = parent;
         while (n != null) {
             if (n instanceof TCFNodeExecContext) {
@@ -644,7 +668,7 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
             else if (n instanceof TCFNodeRegister) {
                 TCFNodeRegister r = (TCFNodeRegister)n;
                 if (r.value.isValid() && r.value.getData() != null) {
-                    r.value.reset();
+                    r.resetValue();
                     r.postStateChangedDelta();
                 }
             }
@@ -826,7 +850,7 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
                                                         done(Boolean.FALSE);
                                                     }
                                                     else {
-                                                        p.value.reset();
+                                                        p.resetValue();
                                                         p.postStateChangedDelta();
                                                         done(Boolean.TRUE);
                                                     }
@@ -843,7 +867,7 @@ public class TCFNodeRegister extends TCFNode implements IElementEditor, IWatchIn
                                                     done(Boolean.FALSE);
                                                 }
                                                 else {
-                                                    node.value.reset();
+                                                    node.resetValue();
                                                     node.postStateChangedDelta();
                                                     done(Boolean.TRUE);
                                                 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007-2026 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -549,6 +549,40 @@ public class TCFNodeStackFrame extends TCFNode implements ITCFStackFrame {
         postStateChangedDelta();
     }
 
+    /**
+     * Validate data that views are likely to request right after the context is suspended.
+     * @param top - true for the top frame: register values and local variables are validated too,
+     * if Registers or Variables view is open.
+     * @param done - call-back that is invoked when a cache state changes.
+     * @return true if all the data is valid.
+     */
+    boolean prefetch(boolean top, Runnable done) {
+        boolean valid = true;
+        if (!stack_trace_context.validate(done)) valid = false;
+        if (!line_info.validate(done)) valid = false;
+        if (!top) return valid;
+        boolean regs = false;
+        boolean vars = false;
+        for (TCFModelProxy p : model.getModelProxies()) {
+            String view_id = p.getPresentationContext().getId();
+            if (IDebugUIConstants.ID_REGISTER_VIEW.equals(view_id)) regs = true;
+            else if (IDebugUIConstants.ID_VARIABLE_VIEW.equals(view_id)) vars = true;
+        }
+        if (regs) {
+            if (!children_regs.validate(done)) valid = false;
+            else if (!children_regs.getValues().validate(done)) valid = false;
+        }
+        if (vars) {
+            if (!children_vars.validate(done)) valid = false;
+            else {
+                for (TCFNode n : children_vars.toArray()) {
+                    if (!((TCFNodeExpression)n).getValue().validate(done)) valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
     void onSuspended(boolean func_call) {
         stack_trace_context.cancel();
         line_info.cancel();
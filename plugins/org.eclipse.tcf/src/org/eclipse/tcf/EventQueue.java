@@ -10,22 +10,44 @@
  *******************************************************************************/
 package org.eclipse.tcf;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.IJobChangeListener;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.tcf.protocol.IEventQueue;
+import org.eclipse.tcf.protocol.IPartitionedEventQueue;
 import org.eclipse.tcf.protocol.Protocol;
 
 
 /**
  * Implementation of Target Communication Framework event queue.
  * This implementation is intended for Eclipse environment.
+ *
+ * If "org.eclipse.tcf.event_queue.partitioned" system property is true, the queue
+ * dispatches events of different partitions (channels) in round robin order,
+ * so a channel that receives a burst of messages does not delay other channels.
+ * Otherwise all events are dispatched in same order as queued.
  */
-class EventQueue implements IEventQueue, Runnable {
+class EventQueue implements IPartitionedEventQueue, Runnable {
+
+    private static final boolean partitioned = Boolean.getBoolean("org.eclipse.tcf.event_queue.partitioned"); //$NON-NLS-1$
+
+    private static class Partition {
+        final Object key;
+        final ArrayDeque<Runnable> queue = new ArrayDeque<Runnable>();
+
+        Partition(Object key) {
+            this.key = key;
+        }
+    }
 
-    private final LinkedList<Runnable> queue = new LinkedList<Runnable>();
+    /* Partitions that have pending events, in dispatch order */
+    private final ArrayDeque<Partition> ready = new ArrayDeque<Partition>();
+    private final Map<Object,Partition> partitions = new IdentityHashMap<Object,Partition>();
+    private final Partition default_partition = new Partition(null);
+    private int queue_size;
     private final Thread thread;
     private boolean waiting;
     private boolean shutdown;
@@ -87,12 +109,16 @@ class EventQueue implements IEventQueue, Runnable {
             try {
                 Runnable r = null;
                 synchronized (this) {
-                    while (queue.size() == 0) {
+                    while (queue_size == 0) {
                         if (shutdown) return;
                         waiting = true;
                         wait();
                     }
-                    r = queue.removeFirst();
+                    Partition p = ready.removeFirst();
+                    r = p.queue.removeFirst();
+                    if (!p.queue.isEmpty()) ready.addLast(p);
+                    else if (p != default_partition) partitions.remove(p.key);
+                    queue_size--;
                 }
                 r.run();
             }
@@ -102,10 +128,24 @@ class EventQueue implements IEventQueue, Runnable {
         }
     }
 
-    public synchronized void invokeLater(final Runnable r) {
+    public void invokeLater(final Runnable r) {
+        invokeLater(null, r);
+    }
+
+    public synchronized void invokeLater(Object partition, final Runnable r) {
         assert r != null;
         if (shutdown) throw new IllegalStateException("TCF event dispatcher has shut down"); //$NON-NLS-1$
-        queue.add(r);
+        Partition p = default_partition;
+        if (partition != null && partitioned) {
+            p = partitions.get(partition);
+            if (p == null) {
+                p = new Partition(partition);
+                partitions.put(partition, p);
+            }
+        }
+        if (p.queue.isEmpty()) ready.addLast(p);
+        p.queue.add(r);
+        queue_size++;
         if (waiting) {
             waiting = false;
             notifyAll();
@@ -119,7 +159,7 @@ class EventQueue implements IEventQueue, Runnable {
     public synchronized int getCongestion() {
         if (Job.getJobManager().isIdle()) job_cnt = 0;
         int l0 = job_cnt / 10 - 100;
-        int l1 = queue.size() / 10 - 100;
+        int l1 = queue_size / 10 - 100;
         if (l1 > l0) l0 = l1;
         if (l0 > 100) l0 = 100;
         return l0;
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others. All rights reserved.
+ * This program and the accompanying materials are made available under the terms
+ * of the Eclipse Public License 2.0 which accompanies this distribution, and is
+ * available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.te.tcf.locator.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.tcf.core.AbstractChannel;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IDiagnostics;
+import org.eclipse.tcf.te.core.interfaces.IConnectable;
+import org.eclipse.tcf.te.tcf.locator.activator.CoreBundleActivator;
+import org.eclipse.tcf.te.tcf.locator.interfaces.ITracing;
+import org.eclipse.tcf.te.tcf.locator.interfaces.nodes.IPeerNode;
+
+/**
+ * Liveness monitor for connected peers.
+ * <p>
+ * All peers are pinged from the TCF dispatch thread timer, no thread or timer is created per peer.
+ * Ping intervals are jittered, so pings of many peers don't come in bursts. The interval is backed off
+ * while the peer answers slowly. A ping is skipped if the channel received other messages during the
+ * last interval, since that traffic already proves the peer is alive.
+ * <p>
+ * All methods must be called from the TCF dispatch thread.
+ */
+public final class PingMonitor {
+
+	/* Max ping interval, as a multiple of the configured interval, when backing off */
+	private static final int MAX_BACK_OFF = 4;
+
+	/* Jitter of ping interval, in percents */
+	private static final int JITTER = 10;
+
+	private static final Map<IChannel, Monitor> monitors = new HashMap<IChannel, Monitor>();
+	private static final Random random = new Random();
+
+	/**
+	 * Ping round trip time statistics of a peer.
+	 */
+	public static final class Statistics {
+		/** Number of answered pings */
+		public int count;
+		/** Number of skipped pings */
+		public int skipped;
+		/** Min round trip time in milliseconds */
+		public long min;
+		/** Max round trip time in milliseconds */
+		public long max;
+		/** Exponential moving average of round trip time in milliseconds */
+		public long average;
+		/** Current ping interval in milliseconds */
+		public long interval;
+	}
+
+	private static class Monitor implements Runnable, IChannel.IChannelListener {
+		final IPeerNode peerNode;
+		final IChannel channel;
+		final IDiagnostics diagnostics;
+		final int pingInterval;
+		final int pingTimeout;
+		final Statistics stats = new Statistics();
+
+		long interval;
+		IToken pending;
+		long startTime;
+		long replyTime;
+		boolean disposed;
+
+		Monitor(IPeerNode peerNode, IChannel channel, IDiagnostics diagnostics, int pingInterval, int pingTimeout) {
+			this.peerNode = peerNode;
+			this.channel = channel;
+			this.diagnostics = diagnostics;
+			this.pingInterval = pingInterval;
+			this.pingTimeout = pingTimeout;
+			interval = pingInterval;
+			stats.interval = interval;
+		}
+
+		void schedule() {
+			Protocol.invokeLater(getDelay(interval, random), this);
+		}
+
+		void dispose() {
+			if (disposed) return;
+			disposed = true;
+			pending = null;
+			monitors.remove(channel);
+			channel.removeChannelListener(this);
+		}
+
+		@Override
+		public void run() {
+			if (disposed) return;
+			if (peerNode.getConnectState() != IConnectable.STATE_CONNECTED || channel.getState() != IChannel.STATE_OPEN) {
+				trace("Connection no longer connected - cancel."); //$NON-NLS-1$
+				dispose();
+				return;
+			}
+			if (channel instanceof AbstractChannel) {
+				long inputTime = ((AbstractChannel)channel).getInputTime();
+				if (isTrafficSeen(inputTime, replyTime, System.currentTimeMillis(), interval)) {
+					/* Other traffic has proven the peer is alive */
+					stats.skipped++;
+					schedule();
+					return;
+				}
+			}
+			trace("Send ping."); //$NON-NLS-1$
+			startTime = System.currentTimeMillis();
+			final IToken token = pending = diagnostics.echo("ping", new IDiagnostics.DoneEcho() { //$NON-NLS-1$
+				@Override
+				public void doneEcho(IToken token, Throwable error, String s) {
+					if (token != pending) return;
+					pending = null;
+					if (channel instanceof AbstractChannel) replyTime = ((AbstractChannel)channel).getInputTime();
+					long rtt = System.currentTimeMillis() - startTime;
+					trace("Received ping after " + rtt + "ms."); //$NON-NLS-1$ //$NON-NLS-2$
+					if (error != null) {
+						trace("Received error '" + error.getMessage() + "'."); //$NON-NLS-1$ //$NON-NLS-2$
+						dispose();
+						return;
+					}
+					onRoundTrip(rtt);
+					schedule();
+				}
+			});
+			Protocol.invokeLater(pingTimeout, new Runnable() {
+				@Override
+				public void run() {
+					if (token != pending) return;
+					trace("Timeout after " + (System.currentTimeMillis() - startTime) + "ms."); //$NON-NLS-1$ //$NON-NLS-2$
+					dispose();
+					trace("Close channel."); //$NON-NLS-1$
+					channel.close();
+				}
+			});
+		}
+
+		void onRoundTrip(long rtt) {
+			if (stats.count == 0 || rtt < stats.min) stats.min = rtt;
+			if (rtt > stats.max) stats.max = rtt;
+			stats.average = stats.count == 0 ? rtt : (stats.average * 7 + rtt) / 8;
+			stats.count++;
+			interval = getNextInterval(interval, rtt, pingInterval, pingTimeout);
+			stats.interval = interval;
+		}
+
+		void trace(String message) {
+			if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
+				CoreBundleActivator.getTraceHandler().trace(peerNode.getName() + ": " + message, ITracing.ID_TRACE_PING, PingMonitor.class); //$NON-NLS-1$
+			}
+		}
+
+		@Override
+		public void onChannelOpened() {
+		}
+
+		@Override
+		public void congestionLevel(int level) {
+		}
+
+		@Override
+		public void onChannelClosed(Throwable error) {
+			dispose();
+		}
+	}
+
+	private PingMonitor() {
+	}
+
+	/**
+	 * Get the delay until the next ping: the interval with a random jitter of +/- {@value #JITTER} percent.
+	 *
+	 * @param interval The current ping interval in milliseconds.
+	 * @param random The random number generator. Must not be <code>null</code>.
+	 * @return The delay in milliseconds, at least 1.
+	 */
+	public static long getDelay(long interval, Random random) {
+		long delay = interval + (interval * (random.nextInt(2 * JITTER + 1) - JITTER)) / 100;
+		return Math.max(delay, 1);
+	}
+
+	/**
+	 * Get the ping interval after a ping is answered. The interval is backed off while the peer
+	 * answers slowly, so the pings don't add to its load, up to {@value #MAX_BACK_OFF} times the
+	 * configured interval. It is reset to the configured interval once the peer answers quickly again.
+	 *
+	 * @param interval The current ping interval in milliseconds.
+	 * @param rtt The round trip time of the ping in milliseconds.
+	 * @param pingInterval The configured ping interval in milliseconds.
+	 * @param pingTimeout The ping timeout in milliseconds.
+	 * @return The next ping interval in milliseconds.
+	 */
+	public static long getNextInterval(long interval, long rtt, int pingInterval, int pingTimeout) {
+		if (rtt > pingTimeout / 4) return Math.min(interval * 2, (long)pingInterval * MAX_BACK_OFF);
+		return pingInterval;
+	}
+
+	/**
+	 * Check if the channel received other messages than the ping reply during the last interval.
+	 *
+	 * @param inputTime The time of the last message received by the channel.
+	 * @param replyTime The input time of the channel when the last ping reply was received.
+	 * @param now The current time.
+	 * @param interval The current ping interval in milliseconds.
+	 * @return <code>true</code> if the traffic proves the peer is alive and the ping can be skipped.
+	 */
+	public static boolean isTrafficSeen(long inputTime, long replyTime, long now, long interval) {
+		return inputTime > replyTime && now - inputTime < interval;
+	}
+
+	/**
+	 * Start pinging a peer. If the peer does not answer a ping in time, the channel is closed.
+	 *
+	 * @param peerNode The peer node. Must not be <code>null</code>.
+	 * @param channel The open channel to the peer. Must not be <code>null</code>.
+	 * @param diagnostics The remote diagnostics service of the channel. Must not be <code>null</code>.
+	 * @param pingInterval The ping interval in milliseconds.
+	 * @param pingTimeout The ping timeout in milliseconds.
+	 */
+	public static void start(IPeerNode peerNode, IChannel channel, IDiagnostics diagnostics, int pingInterval, int pingTimeout) {
+		Assert.isTrue(Protocol.isDispatchThread());
+		stop(channel);
+		Monitor m = new Monitor(peerNode, channel, diagnostics, pingInterval, pingTimeout);
+		monitors.put(channel, m);
+		channel.addChannelListener(m);
+		m.schedule();
+	}
+
+	/**
+	 * Stop pinging the peer of a channel.
+	 *
+	 * @param channel The channel. Must not be <code>null</code>.
+	 */
+	public static void stop(IChannel channel) {
+		Assert.isTrue(Protocol.isDispatchThread());
+		Monitor m = monitors.get(channel);
+		if (m != null) m.dispose();
+	}
+
+	/**
+	 * Get ping statistics of the peer of a channel.
+	 *
+	 * @param channel The channel. Must not be <code>null</code>.
+	 * @return The statistics or <code>null</code> if the peer is not monitored.
+	 */
+	public static Statistics getStatistics(IChannel channel) {
+		Assert.isTrue(Protocol.isDispatchThread());
+		Monitor m = monitors.get(channel);
+		return m != null ? m.stats : null;
+	}
+}
@@ -10,9 +10,6 @@
 package org.eclipse.tcf.te.tcf.locator.steps;
 
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -21,10 +18,8 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.tcf.protocol.IChannel;
-import org.eclipse.tcf.protocol.IToken;
 import org.eclipse.tcf.protocol.Protocol;
 import org.eclipse.tcf.services.IDiagnostics;
-import org.eclipse.tcf.te.core.interfaces.IConnectable;
 import org.eclipse.tcf.te.runtime.interfaces.callback.ICallback;
 import org.eclipse.tcf.te.runtime.interfaces.properties.IPropertiesContainer;
 import org.eclipse.tcf.te.runtime.stepper.StepperAttributeUtil;
@@ -36,6 +31,7 @@ import org.eclipse.tcf.te.tcf.locator.activator.CoreBundleActivator;
 import org.eclipse.tcf.te.tcf.locator.interfaces.IStepAttributes;
 import org.eclipse.tcf.te.tcf.locator.interfaces.ITracing;
 import org.eclipse.tcf.te.tcf.locator.interfaces.nodes.IPeerNode;
+import org.eclipse.tcf.te.tcf.locator.internal.PingMonitor;
 import org.eclipse.tcf.te.tcf.locator.nls.Messages;
 import org.eclipse.tcf.te.tcf.locator.utils.SimulatorUtils;
 
@@ -110,101 +106,7 @@ public class StartPingTimerStep extends AbstractPeerNodeStep {
 						final String name = peerNode.getName();
 						final IDiagnostics diagnostics = channel.getRemoteService(IDiagnostics.class);
 						if (diagnostics != null) {
-							final Timer pingTimer = new Timer(name + " ping"); //$NON-NLS-1$
-							TimerTask pingTask = new TimerTask() {
-								final AtomicBoolean running = new AtomicBoolean(false);
-								@Override
-								public void run() {
-									try {
-										if (!running.get()) {
-											running.set(true);
-											Protocol.invokeLater(new Runnable() {
-												TimerTask timeoutTask = null;
-												long startTime = 0;
-												@Override
-												public void run() {
-													try {
-														if (peerNode.getConnectState() == IConnectable.STATE_CONNECTED) {
-															if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																startTime = System.currentTimeMillis();
-																CoreBundleActivator.getTraceHandler().trace("Send ping.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$
-															}
-															diagnostics.echo("ping", new IDiagnostics.DoneEcho() { //$NON-NLS-1$
-																@Override
-																public void doneEcho(IToken token, Throwable error, String s) {
-																	if (!running.get()) {
-																		return;
-																	}
-																	if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																		long endTime = System.currentTimeMillis();
-																		CoreBundleActivator.getTraceHandler().trace("Received ping after "+(endTime-startTime)+"ms.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-																	}
-																	if (timeoutTask != null) {
-																		timeoutTask.cancel();
-																		timeoutTask = null;
-																	}
-																	running.set(false);
-																	if (error != null) {
-																		if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																			CoreBundleActivator.getTraceHandler().trace("Received error '"+error.getMessage()+"'.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-																		}
-																		pingTimer.cancel();
-																	}
-																}
-															});
-															timeoutTask = new TimerTask() {
-																@Override
-									                            public void run() {
-																	if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																		long endTime = System.currentTimeMillis();
-																		CoreBundleActivator.getTraceHandler().trace("Timeout after "+(endTime-startTime)+"ms.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-																	}
-																	try {
-																		pingTimer.cancel();
-																		running.set(false);
-																		Protocol.invokeLater(new Runnable() {
-																			@Override
-																			public void run() {
-																				if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																					CoreBundleActivator.getTraceHandler().trace("Close channel.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$
-																				}
-																				channel.close();
-																			}
-																		});
-																	}
-																	catch (Throwable e) {
-																		if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																			CoreBundleActivator.getTraceHandler().trace("Error '"+e.getMessage()+"'.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-																		}
-																	}
-																}
-															};
-															pingTimer.schedule(timeoutTask, pingTimeout);
-														}
-														else {
-															if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-																CoreBundleActivator.getTraceHandler().trace("Connection no longer connected - cancel.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$
-															}
-															pingTimer.cancel();
-														}
-													}
-													catch (Throwable e) {
-														if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-															CoreBundleActivator.getTraceHandler().trace("Error '"+e.getMessage()+"'.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-														}
-													}
-												}
-											});
-										}
-									}
-									catch (Throwable e) {
-										if (CoreBundleActivator.getTraceHandler().isSlotEnabled(0, ITracing.ID_TRACE_PING)) {
-											CoreBundleActivator.getTraceHandler().trace("Error '"+e.getMessage()+"'.", ITracing.ID_TRACE_PING, StartPingTimerStep.this); //$NON-NLS-1$ //$NON-NLS-2$
-										}
-									}
-								}
-							};
-							pingTimer.schedule(pingTask, pingInterval, pingInterval);
+							PingMonitor.start(peerNode, channel, diagnostics, pingInterval, pingTimeout);
 						}
 						else if (Platform.inDebugMode()) {
 							Platform.getLog(CoreBundleActivator.getDefault().getBundle()).log(new Status(IStatus.WARNING,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011 - 2015 Wind River Systems, Inc. and others. All rights reserved.
+ * Copyright (c) 2011 - 2026 Wind River Systems, Inc. and others. All rights reserved.
  * This program and the accompanying materials are made available under the terms
  * of the Eclipse Public License 2.0 which accompanies this distribution, and is
  * available at https://www.eclipse.org/legal/epl-2.0/
@@ -14,6 +14,11 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.osgi.util.NLS;
@@ -30,9 +35,17 @@ import org.eclipse.tcf.te.tcf.log.core.interfaces.IPreferenceKeys;
 import org.eclipse.tcf.te.tcf.log.core.interfaces.ITracing;
 import org.eclipse.tcf.te.tcf.log.core.internal.nls.Messages;
 import org.eclipse.tcf.te.tcf.log.core.manager.LogManager;
+import org.eclipse.tcf.util.TCFTraceBuffer;
 
 /**
  * TCF logging channel trace listener implementation.
+ * <p>
+ * Messages are captured as binary records into a lock-free ring buffer shared by all
+ * channel trace listeners. The records are formatted and written to the log files in
+ * batches in the executor thread, and the log files are flushed once per batch.
+ * If the buffer overflows, message records are dropped and the number of dropped records is
+ * written to the log instead, so tracing never blocks the channel. Channel closed records
+ * and log tasks are never dropped.
  */
 public final class ChannelTraceListener implements TraceListener {
 	/**
@@ -45,6 +58,23 @@ public final class ChannelTraceListener implements TraceListener {
 	 */
 	public final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"); //$NON-NLS-1$
 
+	// Max number of records in the trace buffer
+	private static final int BUFFER_SIZE = 0x4000;
+	// Max total size of message data in the trace buffer
+	private static final long BUFFER_BYTES = 0x1000000;
+
+	// Record types that are not TCF message types
+	private static final char RECORD_CLOSED = 0;
+	private static final char RECORD_RUNNABLE = 1;
+
+	// The trace buffer shared by all channel trace listeners
+	private static final TCFTraceBuffer buffer = new TCFTraceBuffer(BUFFER_SIZE, BUFFER_BYTES, new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			ExecutorsUtil.execute(command);
+		}
+	}, new BatchWriter());
+
 	// Reference to the channel
 	/* default */ final IChannel channel;
 	// The log name
@@ -52,6 +82,112 @@ public final class ChannelTraceListener implements TraceListener {
 
 	/* default */ final boolean reverseReceived;
 
+	/**
+	 * Writes trace records to the log files. Called in the executor thread only.
+	 */
+	private static final class BatchWriter implements TCFTraceBuffer.Consumer {
+		// The file writers used by the current batch
+		private final Map<ChannelTraceListener, FileWriter> writers = new IdentityHashMap<ChannelTraceListener, FileWriter>();
+		// The listeners that had records in the current batch
+		private final Set<ChannelTraceListener> listeners = new LinkedHashSet<ChannelTraceListener>();
+		// The listener of the last record, the dropped records are reported to its log if a batch has no records
+		private ChannelTraceListener lastListener;
+		// Number of dropped records not reported yet
+		private long droppedPending;
+		// The preferences, read once per batch
+		/* default */ boolean batchStarted;
+		/* default */ boolean locatorEvents;
+		/* default */ boolean showHeartbeats;
+		/* default */ boolean frameworkEvents;
+
+		/**
+		 * Constructor.
+		 */
+		public BatchWriter() {
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.tcf.util.TCFTraceBuffer.Consumer#onRecord(org.eclipse.tcf.util.TCFTraceBuffer.Record)
+		 */
+		@Override
+		public void onRecord(TCFTraceBuffer.Record record) {
+			if (record.type == RECORD_RUNNABLE) {
+				// Other log tasks may rotate or close the log files
+				flushWriters();
+				((Runnable)record.arg).run();
+				return;
+			}
+			if (!batchStarted) {
+				batchStarted = true;
+				locatorEvents = CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_LOCATOR_EVENTS);
+				showHeartbeats = CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_HEARTBEATS);
+				frameworkEvents = CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_FRAMEWORK_EVENTS);
+			}
+			ChannelTraceListener listener = (ChannelTraceListener)record.source;
+			listeners.add(listener);
+			lastListener = listener;
+			if (record.type == RECORD_CLOSED) {
+				listener.doLogClosed(this, record.time, (Throwable)record.arg);
+			}
+			else {
+				listener.doLogMessage(this, record);
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.tcf.util.TCFTraceBuffer.Consumer#onBatchDone(long)
+		 */
+		@Override
+		public void onBatchDone(long dropped) {
+			droppedPending += dropped;
+			if (listeners.isEmpty() && lastListener != null) listeners.add(lastListener);
+			// Report to the logs of the channels of the batch, even if all their records were filtered out.
+			// If nothing is traced yet, the count is kept till the next batch.
+			if (droppedPending > 0 && !listeners.isEmpty()) {
+				String message = NLS.bind(Messages.ChannelTraceListener_dropped_message, Long.valueOf(droppedPending));
+				for (ChannelTraceListener listener : listeners) {
+					IPeer peer = listener.channel.getRemotePeer();
+					FileWriter writer = peer != null ? getWriter(listener, peer) : null;
+					if (writer == null) continue;
+					try {
+						writer.write(message);
+						writer.write("\n"); //$NON-NLS-1$
+					} catch (IOException e) {
+						/* ignored on purpose */
+					}
+				}
+				droppedPending = 0;
+			}
+			flushWriters();
+			listeners.clear();
+			batchStarted = false;
+		}
+
+		/**
+		 * Returns the file writer of the given listener, the writer is cached till the end of the batch.
+		 */
+		/* default */ FileWriter getWriter(ChannelTraceListener listener, IPeer peer) {
+			FileWriter writer = writers.get(listener);
+			if (writer == null && !writers.containsKey(listener)) {
+				writer = LogManager.getInstance().getWriter(listener.logname, peer);
+				writers.put(listener, writer);
+			}
+			return writer;
+		}
+
+		private void flushWriters() {
+			for (FileWriter writer : writers.values()) {
+				if (writer == null) continue;
+				try {
+					writer.flush();
+				} catch (IOException e) {
+					/* ignored on purpose */
+				}
+			}
+			writers.clear();
+		}
+	}
+
 	/**
 	 * Constructor.
 	 *
@@ -67,6 +203,19 @@ public final class ChannelTraceListener implements TraceListener {
 		reverseReceived = channel.getRemotePeer().getName() != null && channel.getRemotePeer().getName().endsWith("Command Server"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Execute a log task in the executor thread, in order with the trace records.
+	 * <p>
+	 * Note: This method is callable from every thread.
+	 *
+	 * @param runnable The log task. Must not be <code>null</code>.
+	 */
+	public static void execute(Runnable runnable) {
+		Assert.isNotNull(runnable);
+		// Log tasks must not get lost, they are kept in order even if the buffer is full
+		buffer.addReliable(null, RECORD_RUNNABLE, runnable);
+	}
+
 	/**
 	 * Return the associated channel.
 	 *
@@ -92,38 +241,8 @@ public final class ChannelTraceListener implements TraceListener {
 		final IPeer peer = channel.getRemotePeer();
 		if (peer == null) return;
 
-		// Determine the date and time of the message before spawning to the log thread.
-		final String date = DATE_FORMAT.format(new Date(System.currentTimeMillis()));
-
-		// This method is called in the TCF event dispatch thread. There
-		// is no need that the logging itself keeps the TCF event dispatch
-		// thread busy. Execute the logging itself in a separate thread but
-		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
-			@Override
-			public void run() {
-				final String message = NLS.bind(Messages.ChannelTraceListener_channelClosed_message,
-												new Object[] {
-													date,
-													Integer.toHexString(channel.hashCode()),
-													error
-												});
-
-				// Get the file writer
-				FileWriter writer = LogManager.getInstance().getWriter(logname, peer);
-				if (writer != null) {
-					try {
-						writer.write(message);
-						writer.write("\n"); //$NON-NLS-1$
-						writer.flush();
-					} catch (IOException e) {
-						/* ignored on purpose */
-					}
-				}
-
-				LogManager.getInstance().monitor(peer, MonitorEvent.Type.CLOSE, new MonitorEvent.Message('F', message));
-			}
-		});
+		// The closed message must not get lost, it is logged in order with the trace records
+		buffer.addReliable(this, RECORD_CLOSED, error);
 	}
 
 	/* (non-Javadoc)
@@ -139,20 +258,8 @@ public final class ChannelTraceListener implements TraceListener {
 														ITracing.ID_TRACE_CHANNEL_TRACE_LISTENER, this);
 		}
 
-		// Determine the remote peer from the channel
-		final IPeer peer = channel.getRemotePeer();
-		if (peer == null) return;
-
-		// This method is called in the TCF event dispatch thread. There
-		// is no need that the logging itself keeps the TCF event dispatch
-		// thread busy. Execute the logging itself in a separate thread but
-		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
-			@Override
-			public void run() {
-				doLogMessage(peer, type, token, service, name, data, reverseReceived ? false : true);
-			}
-		});
+		// Capture the message only, formatting and writing is done in the executor thread
+		buffer.add(this, type, reverseReceived ? false : true, token, service, name, data);
 	}
 
 	/* (non-Javadoc)
@@ -168,47 +275,72 @@ public final class ChannelTraceListener implements TraceListener {
 														ITracing.ID_TRACE_CHANNEL_TRACE_LISTENER, this);
 		}
 
+		// Capture the message only, formatting and writing is done in the executor thread
+		buffer.add(this, type, reverseReceived ? true : false, token, service, name, data);
+	}
+
+	/**
+	 * Helper method to output the channel closed message to the logger.
+	 */
+	/* default */ void doLogClosed(BatchWriter batch, long time, Throwable error) {
+		Assert.isNotNull(batch);
+		Assert.isTrue(ExecutorsUtil.isExecutorThread(), "Illegal Thread Access"); //$NON-NLS-1$
+
 		// Determine the remote peer from the channel
-		final IPeer peer = channel.getRemotePeer();
+		IPeer peer = channel.getRemotePeer();
 		if (peer == null) return;
 
-		// This method is called in the TCF event dispatch thread. There
-		// is no need that the logging itself keeps the TCF event dispatch
-		// thread busy. Execute the logging itself in a separate thread but
-		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
-			@Override
-			public void run() {
-				doLogMessage(peer, type, token, service, name, data, reverseReceived ? true : false);
+		final String message = NLS.bind(Messages.ChannelTraceListener_channelClosed_message,
+										new Object[] {
+											DATE_FORMAT.format(new Date(time)),
+											Integer.toHexString(channel.hashCode()),
+											error
+										});
+
+		// Get the file writer
+		FileWriter writer = batch.getWriter(this, peer);
+		if (writer != null) {
+			try {
+				writer.write(message);
+				writer.write("\n"); //$NON-NLS-1$
+			} catch (IOException e) {
+				/* ignored on purpose */
 			}
-		});
+		}
+
+		LogManager.getInstance().monitor(peer, MonitorEvent.Type.CLOSE, new MonitorEvent.Message('F', message));
 	}
 
 	/**
 	 * Helper method to output the message to the logger.
 	 */
-	/* default */ void doLogMessage(final IPeer peer, final char type, String token, String service, String name, byte[] data, boolean received) {
-		Assert.isNotNull(peer);
+	/* default */ void doLogMessage(BatchWriter batch, TCFTraceBuffer.Record record) {
+		Assert.isNotNull(batch);
 		Assert.isTrue(ExecutorsUtil.isExecutorThread(), "Illegal Thread Access"); //$NON-NLS-1$
 
+		char type = record.type;
+		String service = record.service;
+		String name = record.name;
+
 		// Filter out the locator service messages
-		boolean locatorEvents =  CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_LOCATOR_EVENTS);
-		if (!locatorEvents && service != null && service.toLowerCase().equals("locator")) { //$NON-NLS-1$
+		if (!batch.locatorEvents && service != null && service.toLowerCase().equals("locator")) { //$NON-NLS-1$
 			return;
 		}
 		// Filter out the heart beat messages if not overwritten by the preferences
-		boolean showHeartbeats = CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_HEARTBEATS);
-		if (!showHeartbeats && name != null && name.toLowerCase().contains("heartbeat")) { //$NON-NLS-1$
+		if (!batch.showHeartbeats && name != null && name.toLowerCase().contains("heartbeat")) { //$NON-NLS-1$
 			return;
 		}
 		// Filter out framework events if not overwritten by the preferences
-		boolean frameworkEvents = CoreBundleActivator.getScopedPreferences().getBoolean(IPreferenceKeys.PREF_SHOW_FRAMEWORK_EVENTS);
-		if (!frameworkEvents && type == 'F') {
+		if (!batch.frameworkEvents && type == 'F') {
 			return;
 		}
 
+		// Determine the remote peer from the channel
+		IPeer peer = channel.getRemotePeer();
+		if (peer == null) return;
+
 		// Decode the arguments again for tracing purpose
-		String args = JSONUtils.decodeStringFromByteArray(data);
+		String args = JSONUtils.decodeStringFromByteArray(record.data);
 
 		// Filter out 'Diagnostic echo "ping"' and response
 		if ((type == 'C' && IDiagnostics.NAME.equals(service) && "echo".equals(name) && "\"ping\"".equals(args)) //$NON-NLS-1$ //$NON-NLS-2$
@@ -217,14 +349,13 @@ public final class ChannelTraceListener implements TraceListener {
 		}
 
 		// Format the message
-		final String message = formatMessage(type, token, service, name, args, received);
+		final String message = formatMessage(record.time, type, record.token, service, name, args, record.received);
 		// Get the file writer
-		FileWriter writer = LogManager.getInstance().getWriter(logname, peer);
+		FileWriter writer = batch.getWriter(this, peer);
 		if (writer != null) {
 			try {
 				writer.write(message);
 				writer.write("\n"); //$NON-NLS-1$
-				writer.flush();
 			} catch (IOException e) {
 				/* ignored on purpose */
 			}
@@ -236,9 +367,9 @@ public final class ChannelTraceListener implements TraceListener {
 	/**
 	 * Format the trace message.
 	 */
-	private String formatMessage(char type, String token, String service, String name, String args, boolean received) {
-		// Get the current time stamp
-		String time = TIME_FORMAT.format(new Date(System.currentTimeMillis()));
+	private String formatMessage(long timestamp, char type, String token, String service, String name, String args, boolean received) {
+		// Get the time stamp of the message capture
+		String time = TIME_FORMAT.format(new Date(timestamp));
 
 		// Construct the full message
 		//
@@ -25,7 +25,6 @@ import org.eclipse.tcf.core.AbstractChannel;
 import org.eclipse.tcf.protocol.IChannel;
 import org.eclipse.tcf.protocol.IPeer;
 import org.eclipse.tcf.protocol.Protocol;
-import org.eclipse.tcf.te.runtime.concurrent.util.ExecutorsUtil;
 import org.eclipse.tcf.te.tcf.log.core.activator.CoreBundleActivator;
 import org.eclipse.tcf.te.tcf.log.core.events.MonitorEvent;
 import org.eclipse.tcf.te.tcf.log.core.interfaces.IPreferenceKeys;
@@ -115,7 +114,7 @@ public final class ChannelTraceListenerManager {
 		// is no need that the logging itself keeps the TCF event dispatch
 		// thread busy. Execute the logging itself in a separate thread but
 		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				String fullMessage = NLS.bind(Messages.ChannelTraceListener_channelOpened_message,
@@ -187,7 +186,7 @@ public final class ChannelTraceListenerManager {
 		// is no need that the logging itself keeps the TCF event dispatch
 		// thread busy. Execute the logging itself in a separate thread but
 		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				String fullMessage = NLS.bind(Messages.ChannelTraceListener_channelOpening_message,
@@ -235,7 +234,7 @@ public final class ChannelTraceListenerManager {
 		// is no need that the logging itself keeps the TCF event dispatch
 		// thread busy. Execute the logging itself in a separate thread but
 		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				String fullMessage = NLS.bind(Messages.ChannelTraceListener_channelRedirected_message,
@@ -283,7 +282,7 @@ public final class ChannelTraceListenerManager {
 		// is no need that the logging itself keeps the TCF event dispatch
 		// thread busy. Execute the logging itself in a separate thread but
 		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				String fullMessage = NLS.bind(Messages.ChannelTraceListener_channelServices_message,
@@ -337,7 +336,7 @@ public final class ChannelTraceListenerManager {
 		// is no need that the logging itself keeps the TCF event dispatch
 		// thread busy. Execute the logging itself in a separate thread but
 		// still maintain the order of the messages.
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				String fullMessage = NLS.bind(Messages.ChannelTraceListener_channelMark_message,
@@ -373,7 +372,7 @@ public final class ChannelTraceListenerManager {
 		Assert.isNotNull(channel);
 		Assert.isTrue(Protocol.isDispatchThread(), "Illegal Thread Access"); //$NON-NLS-1$
 
-		ExecutorsUtil.execute(new Runnable() {
+		ChannelTraceListener.execute(new Runnable() {
 			@Override
 			public void run() {
 				// Remove the queued messages
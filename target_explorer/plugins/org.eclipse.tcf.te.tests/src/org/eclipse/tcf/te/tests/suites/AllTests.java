@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Wind River Systems, Inc. and others. All rights reserved.
+ * Copyright (c) 2011, 2026 Wind River Systems, Inc. and others. All rights reserved.
  * This program and the accompanying materials are made available under the terms
  * of the Eclipse Public License 2.0 which accompanies this distribution, and is
  * available at https://www.eclipse.org/legal/epl-2.0/
@@ -15,6 +15,7 @@ import org.eclipse.tcf.te.tests.model.ModelTestCase;
 import org.eclipse.tcf.te.tests.statushandler.StatusHandlerTestCase;
 import org.eclipse.tcf.te.tests.stepper.StepperTests;
 import org.eclipse.tcf.te.tests.tcf.locator.LocatorModelTestCase;
+import org.eclipse.tcf.te.tests.tcf.locator.PingMonitorTestCase;
 import org.eclipse.tcf.te.tests.tcf.processes.model.ProcessModelTestCase;
 import org.eclipse.tcf.te.tests.utils.UtilityTestCase;
 
@@ -66,6 +67,7 @@ public class AllTests {
 		suite.addTest(ConcurrentTestCase.getTestSuite());
 		suite.addTest(StatusHandlerTestCase.getTestSuite());
 		suite.addTest(LocatorModelTestCase.getTestSuite());
+		suite.addTest(PingMonitorTestCase.getTestSuite());
 
 		suite.addTest(StepperTests.getTestSuite());
 //		suite.addTest(TcfLaunchTests.getTestSuite());
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others. All rights reserved.
+ * This program and the accompanying materials are made available under the terms
+ * of the Eclipse Public License 2.0 which accompanies this distribution, and is
+ * available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.te.tests.tcf.locator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IDiagnostics;
+import org.eclipse.tcf.te.core.interfaces.IConnectable;
+import org.eclipse.tcf.te.tcf.locator.interfaces.nodes.IPeerNode;
+import org.eclipse.tcf.te.tcf.locator.internal.PingMonitor;
+import org.eclipse.tcf.te.tests.CoreTestCase;
+
+/**
+ * Peer liveness monitor test cases.
+ */
+@SuppressWarnings("restriction")
+public class PingMonitorTestCase extends CoreTestCase {
+
+	/**
+	 * Provides a test suite to the caller which combines all single
+	 * test bundled within this category.
+	 *
+	 * @return Test suite containing all test for this test category.
+	 */
+	public static Test getTestSuite() {
+		TestSuite testSuite = new TestSuite("Test peer liveness monitor"); //$NON-NLS-1$
+
+			// add ourself to the test suite
+			testSuite.addTestSuite(PingMonitorTestCase.class);
+
+		return testSuite;
+	}
+
+	/**
+	 * Creates a peer node that is always connected.
+	 */
+	private static IPeerNode createPeerNode() {
+		return (IPeerNode)Proxy.newProxyInstance(PingMonitorTestCase.class.getClassLoader(), new Class<?>[] { IPeerNode.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if ("getConnectState".equals(name)) return Integer.valueOf(IConnectable.STATE_CONNECTED); //$NON-NLS-1$
+				if ("getName".equals(name)) return "PingMonitorTest"; //$NON-NLS-1$ //$NON-NLS-2$
+				if ("hashCode".equals(name)) return Integer.valueOf(System.identityHashCode(proxy)); //$NON-NLS-1$
+				if ("equals".equals(name)) return Boolean.valueOf(proxy == args[0]); //$NON-NLS-1$
+				Class<?> type = method.getReturnType();
+				if (type == boolean.class) return Boolean.FALSE;
+				if (type == int.class) return Integer.valueOf(0);
+				if (type == long.class) return Long.valueOf(0);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Opens a channel over the loop back transport, which provides the local Diagnostics service.
+	 */
+	private static IChannel openChannel() throws InterruptedException {
+		final IChannel[] channel = new IChannel[1];
+		final CountDownLatch opened = new CountDownLatch(1);
+		Protocol.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				Map<String, String> attrs = new HashMap<String, String>();
+				attrs.put(IPeer.ATTR_ID, "PingMonitorTest"); //$NON-NLS-1$
+				attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop"); //$NON-NLS-1$
+				channel[0] = new TransientPeer(attrs).openChannel();
+				channel[0].addChannelListener(new IChannel.IChannelListener() {
+					@Override
+					public void onChannelOpened() {
+						opened.countDown();
+					}
+					@Override
+					public void congestionLevel(int level) {
+					}
+					@Override
+					public void onChannelClosed(Throwable error) {
+					}
+				});
+			}
+		});
+		assertTrue("Channel not opened.", opened.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+		return channel[0];
+	}
+
+	private static PingMonitor.Statistics getStatistics(final IChannel channel) {
+		final PingMonitor.Statistics[] stats = new PingMonitor.Statistics[1];
+		Protocol.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				PingMonitor.Statistics s = PingMonitor.getStatistics(channel);
+				if (s == null) return;
+				stats[0] = new PingMonitor.Statistics();
+				stats[0].count = s.count;
+				stats[0].skipped = s.skipped;
+				stats[0].interval = s.interval;
+			}
+		});
+		return stats[0];
+	}
+
+	private static void close(final IChannel channel) {
+		Protocol.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				PingMonitor.stop(channel);
+				channel.close();
+			}
+		});
+	}
+
+	//***** BEGIN SECTION: Single test methods *****
+	//NOTE: All method which represents a single test case must
+	//      start with 'test'!
+
+	public void testBackOff() {
+		// Fast replies keep the configured interval
+		assertEquals(1000, PingMonitor.getNextInterval(1000, 10, 1000, 4000));
+		assertEquals(1000, PingMonitor.getNextInterval(1000, 1000, 1000, 4000));
+		// Slow replies double the interval, up to 4 times the configured interval
+		long interval = 1000;
+		interval = PingMonitor.getNextInterval(interval, 1001, 1000, 4000);
+		assertEquals(2000, interval);
+		interval = PingMonitor.getNextInterval(interval, 1500, 1000, 4000);
+		assertEquals(4000, interval);
+		interval = PingMonitor.getNextInterval(interval, 3000, 1000, 4000);
+		assertEquals(4000, interval);
+		// The interval is reset as soon as the peer answers quickly again
+		assertEquals(1000, PingMonitor.getNextInterval(interval, 100, 1000, 4000));
+	}
+
+	public void testJitter() {
+		Random random = new Random(1);
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			long delay = PingMonitor.getDelay(1000, random);
+			min = Math.min(min, delay);
+			max = Math.max(max, delay);
+		}
+		// Delays are spread over +/- 10% of the interval
+		assertTrue("Delay below 90% of interval: " + min, min >= 900); //$NON-NLS-1$
+		assertTrue("Delay above 110% of interval: " + max, max <= 1100); //$NON-NLS-1$
+		assertTrue("Delays not jittered: " + min + ".." + max, max - min >= 100); //$NON-NLS-1$ //$NON-NLS-2$
+		// Short intervals still give a positive delay
+		assertEquals(1, PingMonitor.getDelay(0, random));
+	}
+
+	public void testTrafficSeen() {
+		// No message since the last ping reply
+		assertFalse(PingMonitor.isTrafficSeen(1000, 1000, 1500, 1000));
+		// Other message during the last interval
+		assertTrue(PingMonitor.isTrafficSeen(1200, 1000, 1500, 1000));
+		// Other message, but before the last interval
+		assertFalse(PingMonitor.isTrafficSeen(1200, 1000, 2500, 1000));
+	}
+
+	public void testPingIdleChannel() throws Exception {
+		final IChannel channel = openChannel();
+		try {
+			Protocol.invokeAndWait(new Runnable() {
+				@Override
+				public void run() {
+					PingMonitor.start(createPeerNode(), channel, channel.getRemoteService(IDiagnostics.class), 50, 5000);
+				}
+			});
+			Thread.sleep(1000);
+			PingMonitor.Statistics stats = getStatistics(channel);
+			assertNotNull("Peer not monitored.", stats); //$NON-NLS-1$
+			// Idle channel is pinged at every interval
+			assertTrue("Idle channel not pinged: " + stats.count, stats.count >= 5); //$NON-NLS-1$
+			assertEquals(0, stats.skipped);
+			assertEquals(50, stats.interval);
+		}
+		finally {
+			close(channel);
+		}
+		// Monitor is disposed with the channel
+		assertNull(getStatistics(channel));
+	}
+
+	public void testSkipPingOnTraffic() throws Exception {
+		final IChannel channel = openChannel();
+		final boolean[] stopped = new boolean[1];
+		try {
+			Protocol.invokeAndWait(new Runnable() {
+				@Override
+				public void run() {
+					final IDiagnostics diagnostics = channel.getRemoteService(IDiagnostics.class);
+					PingMonitor.start(createPeerNode(), channel, diagnostics, 200, 5000);
+					// Keep the channel busy with other messages
+					new Runnable() {
+						@Override
+						public void run() {
+							if (stopped[0] || channel.getState() != IChannel.STATE_OPEN) return;
+							final Runnable next = this;
+							diagnostics.echo("traffic", new IDiagnostics.DoneEcho() { //$NON-NLS-1$
+								@Override
+								public void doneEcho(IToken token, Throwable error, String s) {
+									Protocol.invokeLater(20, next);
+								}
+							});
+						}
+					}.run();
+				}
+			});
+			Thread.sleep(2000);
+			PingMonitor.Statistics stats = getStatistics(channel);
+			assertNotNull("Peer not monitored.", stats); //$NON-NLS-1$
+			assertTrue("Pings not skipped: " + stats.skipped, stats.skipped >= 5); //$NON-NLS-1$
+			assertTrue("Busy channel pinged: " + stats.count, stats.count <= 1); //$NON-NLS-1$
+		}
+		finally {
+			Protocol.invokeAndWait(new Runnable() {
+				@Override
+				public void run() {
+					stopped[0] = true;
+				}
+			});
+			close(channel);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.internal.debug.ui.model.TCFArrayElementValue;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNumberFormat;
+import org.eclipse.tcf.services.IExpressions;
+import org.eclipse.tcf.services.ISymbols;
+
+/**
+ * Tests that exercise local computation of array element values by TCFArrayElementValue,
+ * and detection of arrays that must be evaluated by the Expressions service.
+ */
+@SuppressWarnings("restriction")
+public class ArrayElementValueTests extends TestCase {
+
+    private static final BigInteger ARRAY_ADDR = BigInteger.valueOf(0x8000);
+
+    /* Create a proxy object: method calls return values from the map, or null */
+    private static Object createProxy(Class<?> cls, final Map<String,Object> attrs) {
+        return Proxy.newProxyInstance(ArrayElementValueTests.class.getClassLoader(), new Class<?>[]{ cls }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("hashCode".equals(name)) return Integer.valueOf(System.identityHashCode(proxy));
+                if ("equals".equals(name)) return Boolean.valueOf(proxy == args[0]);
+                if ("getProperties".equals(name)) return attrs;
+                Object x = attrs.get(name);
+                if (x != null) return x;
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class) return Boolean.FALSE;
+                if (type == int.class) return Integer.valueOf(0);
+                return null;
+            }
+        });
+    }
+
+    private static ISymbols.Symbol createType(String id, ISymbols.TypeClass type_class, int size, int length, String... props) {
+        Map<String,Object> attrs = new HashMap<String,Object>();
+        attrs.put("getID", id);
+        attrs.put("getTypeClass", type_class);
+        attrs.put("getSize", size);
+        attrs.put("getLength", length);
+        for (String p : props) attrs.put(p, 1);
+        return (ISymbols.Symbol)createProxy(ISymbols.Symbol.class, attrs);
+    }
+
+    private static IExpressions.Value createValue(byte[] data, boolean big_endian, BigInteger addr, String... props) {
+        Map<String,Object> attrs = new HashMap<String,Object>();
+        if (data != null) attrs.put("getValue", data);
+        attrs.put("isBigEndian", big_endian);
+        if (addr != null) attrs.put("getAddress", addr);
+        for (String p : props) attrs.put(p, new ArrayList<Object>());
+        return (IExpressions.Value)createProxy(IExpressions.Value.class, attrs);
+    }
+
+    /* Encode array elements in given byte order */
+    private static byte[] encode(long[] elements, int size, boolean big_endian) {
+        byte[] data = new byte[elements.length * size];
+        for (int i = 0; i < elements.length; i++) {
+            for (int j = 0; j < size; j++) {
+                byte b = (byte)(elements[i] >> (j * 8));
+                data[i * size + (big_endian ? size - j - 1 : j)] = b;
+            }
+        }
+        return data;
+    }
+
+    private static void checkElements(ISymbols.Symbol elem_type, long[] elements, boolean big_endian, boolean signed) {
+        int size = elem_type.getSize();
+        ISymbols.Symbol array_type = createType("A", ISymbols.TypeClass.array, size * elements.length, elements.length);
+        assertTrue(TCFArrayElementValue.isSimpleArray(array_type, elem_type));
+        assertFalse(TCFArrayElementValue.isScaled(elem_type));
+        IExpressions.Value array_value = createValue(encode(elements, size, big_endian), big_endian, ARRAY_ADDR);
+        assertTrue(TCFArrayElementValue.isSimpleValue(array_value));
+        for (int i = 0; i < elements.length; i++) {
+            TCFArrayElementValue v = TCFArrayElementValue.create(elem_type, array_value, i);
+            assertNotNull(v);
+            assertEquals(elem_type.getID(), v.getTypeID());
+            assertEquals(elem_type.getTypeClass(), v.getTypeClass());
+            assertEquals(big_endian, v.isBigEndian());
+            assertEquals(size, v.getValue().length);
+            assertEquals(ARRAY_ADDR.add(BigInteger.valueOf(i * size)), v.getAddress());
+            BigInteger n = BigInteger.valueOf(elements[i]);
+            if (!signed) n = n.and(BigInteger.ONE.shiftLeft(size * 8).subtract(BigInteger.ONE));
+            assertEquals(n, TCFNumberFormat.toBigInteger(v.getValue(), v.isBigEndian(), signed));
+            Map<String,Object> props = v.getProperties();
+            assertEquals(elem_type.getID(), props.get(IExpressions.VAL_TYPE));
+            assertEquals(big_endian, props.get(IExpressions.VAL_BIG_ENDIAN));
+        }
+    }
+
+    public void testLittleEndianElements() {
+        ISymbols.Symbol int_type = createType("int", ISymbols.TypeClass.integer, 4, 0);
+        checkElements(int_type, new long[]{ 1, -2, 0x12345678, Integer.MIN_VALUE }, false, true);
+    }
+
+    public void testBigEndianElements() {
+        ISymbols.Symbol short_type = createType("short", ISymbols.TypeClass.integer, 2, 0);
+        checkElements(short_type, new long[]{ 1, -2, 0x1234, Short.MAX_VALUE }, true, true);
+        ISymbols.Symbol uint_type = createType("unsigned", ISymbols.TypeClass.cardinal, 4, 0);
+        checkElements(uint_type, new long[]{ 0x80000000L, 0xfffffffeL, 3 }, true, false);
+    }
+
+    public void testPointerElements() {
+        ISymbols.Symbol ptr_type = createType("ptr", ISymbols.TypeClass.pointer, 8, 0);
+        checkElements(ptr_type, new long[]{ 0, 0x7fff12345678L, 0x400000 }, false, false);
+        checkElements(ptr_type, new long[]{ 0x7fff12345678L, 0x400000 }, true, false);
+    }
+
+    public void testEnumElements() {
+        ISymbols.Symbol enum_type = createType("enum", ISymbols.TypeClass.enumeration, 4, 0);
+        checkElements(enum_type, new long[]{ 0, 1, 2, -1 }, false, true);
+        checkElements(enum_type, new long[]{ 2, 1, 0 }, true, true);
+    }
+
+    public void testElementsInMemory() {
+        ISymbols.Symbol int_type = createType("int", ISymbols.TypeClass.integer, 4, 0);
+        /* The array value does not contain element bytes: elements are read from memory */
+        IExpressions.Value array_value = createValue(null, false, ARRAY_ADDR);
+        assertNull(TCFArrayElementValue.create(int_type, array_value, 0));
+        assertEquals(ARRAY_ADDR.add(BigInteger.valueOf(12)), TCFArrayElementValue.getAddress(array_value, 4, 3));
+        /* Truncated array value */
+        array_value = createValue(new byte[6], false, ARRAY_ADDR);
+        assertNotNull(TCFArrayElementValue.create(int_type, array_value, 0));
+        assertNull(TCFArrayElementValue.create(int_type, array_value, 1));
+        /* Array that is not in memory */
+        array_value = createValue(null, false, null);
+        assertNull(TCFArrayElementValue.getAddress(array_value, 4, 3));
+    }
+
+    public void testFallbackToRemoteEvaluation() {
+        ISymbols.Symbol int_type = createType("int", ISymbols.TypeClass.integer, 4, 0);
+        ISymbols.Symbol array_type = createType("A", ISymbols.TypeClass.array, 16, 4);
+        assertTrue(TCFArrayElementValue.isSimpleArray(array_type, int_type));
+        /* Bit stride */
+        ISymbols.Symbol packed_type = createType("A", ISymbols.TypeClass.array, 16, 4, ISymbols.PROP_BIT_STRIDE);
+        assertFalse(TCFArrayElementValue.isSimpleArray(packed_type, int_type));
+        /* Scaled element types */
+        ISymbols.Symbol bin_type = createType("fixed", ISymbols.TypeClass.integer, 4, 0, ISymbols.PROP_BINARY_SCALE);
+        assertTrue(TCFArrayElementValue.isScaled(bin_type));
+        ISymbols.Symbol dec_type = createType("decimal", ISymbols.TypeClass.integer, 4, 0, ISymbols.PROP_DECIMAL_SCALE);
+        assertTrue(TCFArrayElementValue.isScaled(dec_type));
+        assertFalse(TCFArrayElementValue.isScaled(int_type));
+        /* Element types that are not simple */
+        List<ISymbols.TypeClass> classes = new ArrayList<ISymbols.TypeClass>();
+        classes.add(ISymbols.TypeClass.composite);
+        classes.add(ISymbols.TypeClass.array);
+        classes.add(ISymbols.TypeClass.function);
+        classes.add(ISymbols.TypeClass.unknown);
+        for (ISymbols.TypeClass c : classes) {
+            assertFalse(TCFArrayElementValue.isSimpleArray(array_type, createType("T", c, 4, 0)));
+        }
+        /* Element size does not match array size, e.g. padding */
+        assertFalse(TCFArrayElementValue.isSimpleArray(createType("A", ISymbols.TypeClass.array, 32, 4), int_type));
+        assertFalse(TCFArrayElementValue.isSimpleArray(array_type, createType("int", ISymbols.TypeClass.integer, 0, 0)));
+        /* Not an array */
+        assertFalse(TCFArrayElementValue.isSimpleArray(int_type, int_type));
+        /* Array values in registers or pieces */
+        Map<String,Object> attrs = new HashMap<String,Object>();
+        attrs.put("getRegisterID", "R0");
+        assertFalse(TCFArrayElementValue.isSimpleValue((IExpressions.Value)createProxy(IExpressions.Value.class, attrs)));
+        assertFalse(TCFArrayElementValue.isSimpleValue(createValue(new byte[16], false, null, IExpressions.VAL_PIECES)));
+        assertTrue(TCFArrayElementValue.isSimpleValue(createValue(new byte[16], false, ARRAY_ADDR)));
+    }
+}
@@ -43,6 +43,21 @@ public class AutomatedSuite extends TestSuite {
         addTest(new TestSuite(CacheTests.class));
         addTest(new TestSuite(RangeCacheTests.class));
         addTest(new TestSuite(QueryTests.class));
+        addTest(new TestSuite(JSONReaderTests.class));
+        addTest(new TestSuite(TCFDataCacheBudgetTests.class));
+        addTest(new TestSuite(TransferWindowTests.class));
+        addTest(new TestSuite(TokenMapTests.class));
+        addTest(new TestSuite(TCFTraceBufferTests.class));
+        addTest(new TestSuite(LocatorInputQueueTests.class));
+        addTest(new TestSuite(ChannelCaptureTests.class));
+        addTest(new TestSuite(FoldCommandsTests.class));
+        addTest(new TestSuite(PendingCommandsTests.class));
+        addTest(new TestSuite(MemoryCacheTests.class));
+        addTest(new TestSuite(ExpressionPoolTests.class));
+        addTest(new TestSuite(ArrayElementValueTests.class));
+        addTest(new TestSuite(LocatorDiscoveryTests.class));
         addTest(new TestSuite(SampleTest.class));
+        addTest(new TestSuite(RegistersModelTest.class));
+        addTest(new TestSuite(PrefetchModelTest.class));
     }
 }
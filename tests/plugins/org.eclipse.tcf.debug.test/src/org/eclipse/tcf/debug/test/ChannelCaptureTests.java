@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.AbstractChannel;
+import org.eclipse.tcf.core.ChannelCapture;
+import org.eclipse.tcf.core.ChannelReplay;
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IDiagnostics;
+
+/**
+ * Tests that record a channel capture and play it back with ChannelReplay.
+ */
+public class ChannelCaptureTests extends TestCase {
+
+    private File file;
+
+    /* Capture that counts messages it gets after it is closed */
+    private static class TestCapture extends ChannelCapture {
+
+        boolean closed;
+        int late_messages;
+
+        TestCapture(File file) {
+            super(file);
+        }
+
+        @Override
+        public void onMessageSent(char type, String token, String service, String name, byte[] data) {
+            if (closed) late_messages++;
+            super.onMessageSent(type, token, service, name, data);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("tcf", ".tcfcap");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        new File(file.getPath() + ChannelCapture.INDEX_FILE_EXT).delete();
+    }
+
+    private static byte[] data(String json) throws Exception {
+        return (json + '\0').getBytes("UTF-8");
+    }
+
+    private List<ChannelCapture.Record> readCapture() throws Exception {
+        List<ChannelCapture.Record> list = new ArrayList<ChannelCapture.Record>();
+        ChannelCapture.Reader reader = new ChannelCapture.Reader(file);
+        try {
+            for (;;) {
+                ChannelCapture.Record r = reader.next();
+                if (r == null) break;
+                list.add(r);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return list;
+    }
+
+    public void testCaptureChannel() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Object> res = new ArrayList<Object>();
+        final TestCapture[] capture = new TestCapture[1];
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "TestLoop");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                final IChannel channel = new TransientPeer(attrs).openChannel();
+                /* Start before the channel is open, so Hello message is captured */
+                capture[0] = new TestCapture(file);
+                capture[0].attach((AbstractChannel)channel);
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        final IDiagnostics diag = channel.getRemoteService(IDiagnostics.class);
+                        diag.echo("a", new IDiagnostics.DoneEcho() {
+                            public void doneEcho(IToken token, Throwable error, String s) {
+                                res.add(error != null ? error : s);
+                                capture[0].close();
+                                /* Not captured, the capture is not a channel listener anymore */
+                                diag.echo("b", new IDiagnostics.DoneEcho() {
+                                    public void doneEcho(IToken token, Throwable error, String s) {
+                                        res.add(error != null ? error : s);
+                                        channel.close();
+                                    }
+                                });
+                            }
+                        });
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                        if (error != null) res.add(error);
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, res.size());
+        assertEquals("a", res.get(0));
+        assertEquals("b", res.get(1));
+        assertTrue(capture[0].waitClosed(10000));
+        assertEquals(0, capture[0].getDropped());
+        assertEquals(0, capture[0].late_messages);
+        boolean hello = false;
+        int commands = 0;
+        int replies = 0;
+        List<ChannelCapture.Record> records = readCapture();
+        for (ChannelCapture.Record r : records) {
+            if (r.kind != ChannelCapture.RECORD_MESSAGE) continue;
+            if (r.type == 'E' && "Hello".equals(r.name)) hello = true;
+            if (r.type == 'C' && !r.received) {
+                assertEquals("echo", r.name);
+                assertEquals("\"a\"\0", new String(r.data, "UTF-8"));
+                commands++;
+            }
+            if (r.type == 'R' && r.received) replies++;
+        }
+        assertTrue(hello);
+        assertEquals(1, commands);
+        assertEquals(1, replies);
+        /* Closed by close(), not by the channel */
+        ChannelCapture.Record last = records.get(records.size() - 1);
+        assertEquals(ChannelCapture.RECORD_CLOSED, last.kind);
+        assertNull(last.error);
+    }
+
+    public void testReplay() throws Exception {
+        ChannelCapture capture = new ChannelCapture(file);
+        capture.onMessageReceived('E', null, "Locator", "Hello", data("[\"Diagnostics\"]"));
+        /* Reply to a command that was sent before capturing started */
+        capture.onMessageReceived('R', "99", null, null, data("\"z\""));
+        capture.onMessageSent('C', "1", "Diagnostics", "echo", data("\"a\""));
+        capture.onMessageReceived('R', "1", null, null, data("\"a\""));
+        capture.onMessageSent('C', "2", "Diagnostics", "echo", data("\"b\""));
+        capture.onMessageReceived('R', "2", null, null, data("\"b\""));
+        Thread.sleep(1000);
+        capture.onMessageSent('C', "3", "Diagnostics", "echo", data("\"c\""));
+        capture.onMessageReceived('R', "3", null, null, data("\"c\""));
+        capture.close();
+        assertTrue(capture.waitClosed(10000));
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Object> res = new ArrayList<Object>();
+        final Throwable[] closed = new Throwable[1];
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "TestReplay");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Replay");
+                final IChannel channel;
+                try {
+                    /* Original timing, short command timeout */
+                    channel = new ChannelReplay(new TransientPeer(attrs), file, 1, 200);
+                }
+                catch (Exception x) {
+                    res.add(x);
+                    done.countDown();
+                    return;
+                }
+                final IDiagnostics.DoneEcho done_echo = new IDiagnostics.DoneEcho() {
+                    public void doneEcho(IToken token, Throwable error, String s) {
+                        res.add(error != null ? error : s);
+                    }
+                };
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        final IDiagnostics diag = channel.getRemoteService(IDiagnostics.class);
+                        diag.echo("x", new IDiagnostics.DoneEcho() {
+                            public void doneEcho(IToken token, Throwable error, String s) {
+                                done_echo.doneEcho(token, error, s);
+                                /* After the reply to the second command is skipped,
+                                 * but before the third command of the capture is replied */
+                                Protocol.invokeLater(600, new Runnable() {
+                                    public void run() {
+                                        diag.echo("y", done_echo);
+                                    }
+                                });
+                            }
+                        });
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                        closed[0] = error;
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(closed[0]);
+        /* Replies are matched to client commands by order, the skipped reply is not matched to a later command */
+        assertEquals(2, res.size());
+        assertEquals("a", res.get(0));
+        assertEquals("c", res.get(1));
+    }
+}
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.internal.debug.ui.model.TCFExpressionPool;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IExpressions;
+import org.eclipse.tcf.util.TCFDataCache;
+
+/**
+ * Tests that exercise TCFExpressionPool: sharing of remote expressions by reference counting,
+ * lazy disposal of unused expressions and disposal on memory map change.
+ * Remote expressions are created by a test Expressions service, which records create and dispose commands.
+ */
+@SuppressWarnings("restriction")
+public class ExpressionPoolTests extends TestCase {
+
+    private static final long UNUSED_TIMEOUT = 500;
+
+    private IChannel channel;
+    private TCFExpressionPool pool;
+
+    /* Commands received by the test Expressions service: "create <script>", "dispose <id>" */
+    private final List<String> commands = new ArrayList<String>();
+    private int expression_cnt;
+
+    private final IToken token = new IToken() {
+        public boolean cancel() {
+            return false;
+        }
+    };
+
+    private static IExpressions.Expression createExpression(final String id) {
+        return (IExpressions.Expression)Proxy.newProxyInstance(ExpressionPoolTests.class.getClassLoader(),
+                new Class<?>[]{ IExpressions.Expression.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("hashCode".equals(name)) return Integer.valueOf(System.identityHashCode(proxy));
+                if ("equals".equals(name)) return Boolean.valueOf(proxy == args[0]);
+                if ("getID".equals(name)) return id;
+                return null;
+            }
+        });
+    }
+
+    private final InvocationHandler expressions = new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, final Object[] args) {
+            String name = method.getName();
+            if ("hashCode".equals(name)) return Integer.valueOf(System.identityHashCode(proxy));
+            if ("equals".equals(name)) return Boolean.valueOf(proxy == args[0]);
+            if ("getName".equals(name)) return IExpressions.NAME;
+            if ("create".equals(name)) {
+                commands.add("create " + args[2]);
+                final String id = "E" + expression_cnt++;
+                Protocol.invokeLater(new Runnable() {
+                    public void run() {
+                        ((IExpressions.DoneCreate)args[3]).doneCreate(token, null, createExpression(id));
+                    }
+                });
+                return token;
+            }
+            if ("dispose".equals(name)) {
+                commands.add("dispose " + args[0]);
+                Protocol.invokeLater(new Runnable() {
+                    public void run() {
+                        ((IExpressions.DoneDispose)args[1]).doneDispose(token, null);
+                    }
+                });
+                return token;
+            }
+            return null;
+        }
+    };
+
+    private static <V> V invoke(final Callable<V> c) throws Exception {
+        final Object[] res = new Object[2];
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                try {
+                    res[0] = c.call();
+                }
+                catch (Exception x) {
+                    res[1] = x;
+                }
+            }
+        });
+        if (res[1] != null) throw (Exception)res[1];
+        @SuppressWarnings("unchecked")
+        V v = (V)res[0];
+        return v;
+    }
+
+    private TCFDataCache<IExpressions.Expression> acquire(final String ctx_id, final String script) throws Exception {
+        return invoke(new Callable<TCFDataCache<IExpressions.Expression>>() {
+            public TCFDataCache<IExpressions.Expression> call() {
+                return pool.acquire(ctx_id, script);
+            }
+        });
+    }
+
+    private void release(final TCFDataCache<IExpressions.Expression> cache) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                pool.release(cache);
+                return null;
+            }
+        });
+    }
+
+    /* Validate remote expression cache, return the remote expression ID */
+    private String validate(final TCFDataCache<IExpressions.Expression> cache) throws Exception {
+        final String[] id = new String[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        Protocol.invokeLater(new Runnable() {
+            public void run() {
+                if (done.getCount() == 0) return;
+                if (!cache.validate(this)) return;
+                if (cache.getData() != null) id[0] = cache.getData().getID();
+                done.countDown();
+            }
+        });
+        assertTrue("Timeout", done.await(10, TimeUnit.SECONDS));
+        return id[0];
+    }
+
+    private List<String> getCommands() throws Exception {
+        return invoke(new Callable<List<String>>() {
+            public List<String> call() {
+                List<String> list = new ArrayList<String>(commands);
+                commands.clear();
+                return list;
+            }
+        });
+    }
+
+    private void createPool(final IExpressions service) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                pool = new TCFExpressionPool(channel, service, UNUSED_TIMEOUT);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "TestLoop");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                channel = new TransientPeer(attrs).openChannel();
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        done.countDown();
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(IChannel.STATE_OPEN, channel.getState());
+        createPool((IExpressions)Proxy.newProxyInstance(ExpressionPoolTests.class.getClassLoader(),
+                new Class<?>[]{ IExpressions.class }, expressions));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                pool.dispose();
+                channel.close();
+            }
+        });
+    }
+
+    public void testSharedExpression() throws Exception {
+        TCFDataCache<IExpressions.Expression> c1 = acquire("F1", "a");
+        TCFDataCache<IExpressions.Expression> c2 = acquire("F1", "a");
+        TCFDataCache<IExpressions.Expression> c3 = acquire("F2", "a");
+        /* Same context and script share the remote expression */
+        assertSame(c1, c2);
+        assertNotSame(c1, c3);
+        String id = validate(c1);
+        assertEquals(id, validate(c2));
+        String id3 = validate(c3);
+        assertEquals(Arrays.asList("create a", "create a"), getCommands());
+        /* The expression is kept while it has references */
+        release(c1);
+        release(c3);
+        Thread.sleep(UNUSED_TIMEOUT * 2);
+        assertEquals(Arrays.asList("dispose " + id3), getCommands());
+        assertEquals(id, validate(c2));
+        release(c2);
+        /* Unused expression is reused if it is acquired again before the timeout */
+        TCFDataCache<IExpressions.Expression> c4 = acquire("F1", "a");
+        assertSame(c1, c4);
+        assertEquals(id, validate(c4));
+        assertEquals(0, getCommands().size());
+        release(c4);
+    }
+
+    public void testLazyDisposal() throws Exception {
+        TCFDataCache<IExpressions.Expression> c1 = acquire("F1", "a");
+        TCFDataCache<IExpressions.Expression> c2 = acquire("F1", "b");
+        String id1 = validate(c1);
+        String id2 = validate(c2);
+        assertEquals(2, getCommands().size());
+        release(c1);
+        release(c2);
+        /* Unused expressions are not disposed right away */
+        Thread.sleep(UNUSED_TIMEOUT / 5);
+        assertEquals(0, getCommands().size());
+        /* Unused expressions are disposed after the timeout */
+        Thread.sleep(UNUSED_TIMEOUT * 2);
+        assertEquals(Arrays.asList("dispose " + id1, "dispose " + id2), getCommands());
+        /* Disposed expression is created again */
+        TCFDataCache<IExpressions.Expression> c3 = acquire("F1", "a");
+        assertNotSame(c1, c3);
+        assertFalse(id1.equals(validate(c3)));
+        assertEquals(Arrays.asList("create a"), getCommands());
+        release(c3);
+    }
+
+    public void testMemoryMapChanged() throws Exception {
+        TCFDataCache<IExpressions.Expression> c1 = acquire("F1", "a");
+        TCFDataCache<IExpressions.Expression> c2 = acquire("F1", "b");
+        String id1 = validate(c1);
+        String id2 = validate(c2);
+        getCommands();
+        release(c1);
+        invoke(new Callable<Object>() {
+            public Object call() {
+                pool.onMemoryMapChanged();
+                return null;
+            }
+        });
+        /* Unused expressions are disposed immediately, expressions in use are kept */
+        assertEquals(Arrays.asList("dispose " + id1), getCommands());
+        assertEquals(id2, validate(c2));
+        Thread.sleep(UNUSED_TIMEOUT * 2);
+        assertEquals(0, getCommands().size());
+        release(c2);
+    }
+
+    public void testNoService() throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                pool.dispose();
+                return null;
+            }
+        });
+        createPool(null);
+        TCFDataCache<IExpressions.Expression> c1 = acquire("F1", "a");
+        assertNull(validate(c1));
+        release(c1);
+        Thread.sleep(UNUSED_TIMEOUT * 2);
+        assertEquals(0, getCommands().size());
+    }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.Command;
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IErrorReport;
+import org.eclipse.tcf.protocol.IService;
+import org.eclipse.tcf.protocol.IServiceProvider;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.JSON;
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * Tests that exercise folding of identical query commands by AbstractChannel.
+ * The channel is a loop back channel, its local RunControl service holds commands
+ * until a test replies to them.
+ */
+public class FoldCommandsTests extends TestCase {
+
+    private static final String SERVICE = "RunControl";
+
+    /* Commands received by the local service */
+    private final List<String> received = new ArrayList<String>();
+    private final List<IToken> received_tokens = new ArrayList<IToken>();
+    /* Results of commands, in the order they are delivered */
+    private final List<String> results = new ArrayList<String>();
+
+    private IChannel channel;
+    private IService service;
+
+    private final IServiceProvider provider = new IServiceProvider() {
+        public IService[] getLocalService(final IChannel channel) {
+            IService s = new IService() {
+                public String getName() {
+                    return SERVICE;
+                }
+            };
+            channel.addCommandServer(s, new IChannel.ICommandServer() {
+                public void command(IToken token, String name, byte[] data) {
+                    try {
+                        received.add(name + " " + JSON.parseSequence(data)[0]);
+                        received_tokens.add(token);
+                    }
+                    catch (Exception x) {
+                        channel.terminate(x);
+                    }
+                }
+            });
+            return new IService[]{ s };
+        }
+        public IService getServiceProxy(IChannel channel, String service_name) {
+            return null;
+        }
+    };
+
+    private class TestCommand extends Command {
+
+        final String tag;
+
+        TestCommand(String tag, String name, String id) {
+            super(channel, service, name, new Object[]{ id });
+            this.tag = tag;
+        }
+
+        @Override
+        public void done(Exception error, Object[] args) {
+            if (error != null) {
+                results.add(tag + " error " + (error instanceof IErrorReport ? ((IErrorReport)error).getErrorCode() : -1));
+            }
+            else {
+                results.add(tag + " " + args[0]);
+            }
+        }
+    }
+
+    private static <V> V invoke(final Callable<V> c) throws Exception {
+        final Object[] res = new Object[2];
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                try {
+                    res[0] = c.call();
+                }
+                catch (Exception x) {
+                    res[1] = x;
+                }
+            }
+        });
+        if (res[1] != null) throw (Exception)res[1];
+        @SuppressWarnings("unchecked")
+        V v = (V)res[0];
+        return v;
+    }
+
+    /* Wait until the loop back channel delivers all messages that are sent so far */
+    private void sync(final int received_cnt, final int results_cnt) throws Exception {
+        long time = System.currentTimeMillis();
+        for (;;) {
+            boolean ok = invoke(new Callable<Boolean>() {
+                public Boolean call() {
+                    return received.size() >= received_cnt && results.size() >= results_cnt;
+                }
+            });
+            if (ok) break;
+            assertTrue("Timeout", System.currentTimeMillis() - time < 10000);
+            Thread.sleep(10);
+        }
+        /* Give the channel time to deliver any unexpected messages */
+        Thread.sleep(100);
+        invoke(new Callable<Object>() {
+            public Object call() {
+                return null;
+            }
+        });
+    }
+
+    private IToken send(final String tag, final String name, final String id) throws Exception {
+        return invoke(new Callable<IToken>() {
+            public IToken call() {
+                return new TestCommand(tag, name, id).token;
+            }
+        });
+    }
+
+    private void reply(final int n, final String value) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() throws Exception {
+                channel.sendResult(received_tokens.get(n), JSON.toJSONSequence(new Object[]{ value }));
+                return null;
+            }
+        });
+    }
+
+    private void reject(final int n) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                channel.rejectCommand(received_tokens.get(n));
+                return null;
+            }
+        });
+    }
+
+    private boolean cancel(final IToken token) throws Exception {
+        return invoke(new Callable<Boolean>() {
+            public Boolean call() {
+                return token.cancel();
+            }
+        });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        final CountDownLatch opened = new CountDownLatch(1);
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Protocol.addServiceProvider(provider);
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "FoldCommandsTest");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                channel = new TransientPeer(attrs).openChannel();
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        service = channel.getRemoteService(SERVICE);
+                        opened.countDown();
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                    }
+                });
+            }
+        });
+        assertTrue(opened.await(10, TimeUnit.SECONDS));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Protocol.removeServiceProvider(provider);
+                if (channel.getState() != IChannel.STATE_CLOSED) channel.close();
+            }
+        });
+    }
+
+    public void testFoldedResultsInSendOrder() throws Exception {
+        send("a1", "getContext", "A");
+        send("b1", "getContext", "B");
+        send("a2", "getContext", "A");
+        sync(2, 0);
+        /* The second query of A is not transmitted */
+        assertEquals(2, received.size());
+        assertEquals("getContext A", received.get(0));
+        assertEquals("getContext B", received.get(1));
+        reply(0, "ctx A");
+        sync(2, 1);
+        /* The folded query waits for the result of B, which is sent before it */
+        assertEquals(1, results.size());
+        assertEquals("a1 ctx A", results.get(0));
+        reply(1, "ctx B");
+        sync(2, 3);
+        assertEquals(3, results.size());
+        assertEquals("b1 ctx B", results.get(1));
+        assertEquals("a2 ctx A", results.get(2));
+    }
+
+    public void testNotFolded() throws Exception {
+        /* Commands that are not in the list of read-only queries */
+        send("r1", "resume", "A");
+        send("r2", "resume", "A");
+        /* Other command makes results of pending queries stale */
+        send("a1", "getContext", "A");
+        send("s1", "suspend", "A");
+        send("a2", "getContext", "A");
+        sync(5, 0);
+        assertEquals(5, received.size());
+        assertEquals("getContext A", received.get(4));
+        for (int i = 0; i < 5; i++) reply(i, "r" + i);
+        sync(5, 5);
+        assertEquals("a1 r2", results.get(2));
+        assertEquals("a2 r4", results.get(4));
+    }
+
+    public void testCancelFolded() throws Exception {
+        IToken a1 = send("a1", "getContext", "A");
+        IToken a2 = send("a2", "getContext", "A");
+        IToken a3 = send("a3", "getContext", "A");
+        sync(1, 0);
+        assertEquals(1, received.size());
+        /* The transmitted command cannot be canceled while other commands wait for its result */
+        assertFalse(cancel(a1));
+        assertTrue(cancel(a2));
+        assertFalse(cancel(a2));
+        reply(0, "ctx A");
+        sync(1, 2);
+        assertEquals(2, results.size());
+        assertEquals("a1 ctx A", results.get(0));
+        assertEquals("a3 ctx A", results.get(1));
+        /* Result is delivered, too late to cancel */
+        assertFalse(cancel(a3));
+    }
+
+    public void testFoldedErrors() throws Exception {
+        send("a1", "getContext", "A");
+        send("a2", "getContext", "A");
+        sync(1, 0);
+        reject(0);
+        sync(1, 2);
+        assertEquals(2, results.size());
+        assertEquals("a1 error " + IErrorReport.TCF_ERROR_INV_COMMAND, results.get(0));
+        assertEquals("a2 error " + IErrorReport.TCF_ERROR_INV_COMMAND, results.get(1));
+    }
+
+    public void testFoldedOnChannelClose() throws Exception {
+        send("a1", "getContext", "A");
+        send("a2", "getContext", "A");
+        sync(1, 0);
+        invoke(new Callable<Object>() {
+            public Object call() {
+                channel.close();
+                return null;
+            }
+        });
+        sync(1, 2);
+        assertEquals(2, results.size());
+        assertEquals("a1 error -1", results.get(0));
+        assertEquals("a2 error -1", results.get(1));
+    }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.protocol.JSON;
+
+/**
+ * Tests that exercise the JSON.Reader pull parser.
+ */
+public class JSONReaderTests extends TestCase {
+
+    private static byte[] seq(Object... args) throws IOException {
+        return JSON.toJSONSequence(args);
+    }
+
+    public void testScalars() throws Exception {
+        JSON.Reader r = new JSON.Reader(seq("abc", 123, -5L, true, null, 1.5));
+        assertEquals(JSON.Reader.STRING, r.peek());
+        assertEquals("abc", r.nextString());
+        r.endArgument();
+        assertEquals(JSON.Reader.NUMBER, r.peek());
+        assertEquals(123, r.nextInt());
+        r.endArgument();
+        assertEquals(-5L, r.nextLong());
+        r.endArgument();
+        assertEquals(JSON.Reader.BOOLEAN, r.peek());
+        assertTrue(r.nextBoolean());
+        r.endArgument();
+        assertEquals(JSON.Reader.NULL, r.peek());
+        assertNull(r.nextString());
+        r.endArgument();
+        assertEquals(1.5, r.nextNumber().doubleValue(), 0);
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+        assertEquals(JSON.Reader.END_SEQUENCE, r.peek());
+    }
+
+    public void testEmptyArgument() throws Exception {
+        /* Empty top level argument is read as null */
+        JSON.Reader r = new JSON.Reader(new byte[] { 0, '1', 0 });
+        assertEquals(JSON.Reader.END_ARGUMENT, r.peek());
+        assertNull(r.nextValue());
+        r.endArgument();
+        assertEquals(1, r.nextInt());
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+    }
+
+    public void testStringEscapes() throws Exception {
+        String s = "a\"b\\c\n\t\u00e9\u4e2d";
+        JSON.Reader r = new JSON.Reader(seq(s));
+        assertEquals(s, r.nextString());
+        r.endArgument();
+    }
+
+    public void testStringArray() throws Exception {
+        JSON.Reader r = new JSON.Reader(seq(new String[] { "x", "y", "z" }, new String[0], null));
+        assertTrue(Arrays.equals(new String[] { "x", "y", "z" }, r.nextStringArray()));
+        r.endArgument();
+        assertEquals(0, r.nextStringArray().length);
+        r.endArgument();
+        assertNull(r.nextStringArray());
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+    }
+
+    public void testObject() throws Exception {
+        Map<String,Object> m = new HashMap<String,Object>();
+        m.put("ID", "R1");
+        m.put("Size", 4);
+        m.put("Nested", Arrays.asList(1, 2, Arrays.asList(3)));
+        m.put("Skip", new HashMap<String,Object>(m));
+        JSON.Reader r = new JSON.Reader(seq(m));
+        Map<String,Object> res = new HashMap<String,Object>();
+        assertEquals(JSON.Reader.BEGIN_OBJECT, r.peek());
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            if (name.equals("Skip")) r.skipValue();
+            else res.put(name, r.nextValue());
+        }
+        assertEquals(JSON.Reader.END_OBJECT, r.peek());
+        r.endObject();
+        r.endArgument();
+        assertEquals(3, res.size());
+        assertEquals("R1", res.get("ID"));
+        assertEquals(4, ((Number)res.get("Size")).intValue());
+        List<?> l = (List<?>)res.get("Nested");
+        assertEquals(3, l.size());
+        assertEquals(3, ((Number)((List<?>)l.get(2)).get(0)).intValue());
+    }
+
+    public void testNestedArrays() throws Exception {
+        JSON.Reader r = new JSON.Reader("[[1,2],[],[3]]\0".getBytes("UTF-8"));
+        int sum = 0;
+        int cnt = 0;
+        r.beginArray();
+        while (r.hasNext()) {
+            r.beginArray();
+            while (r.hasNext()) sum += r.nextInt();
+            r.endArray();
+            cnt++;
+        }
+        r.endArray();
+        r.endArgument();
+        assertEquals(3, cnt);
+        assertEquals(6, sum);
+    }
+
+    public void testBase64Binary() throws Exception {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte)(i * 7);
+        JSON.Reader r = new JSON.Reader(seq(new JSON.Binary(data, 0, data.length), data));
+        assertEquals(JSON.Reader.STRING, r.peek());
+        assertTrue(Arrays.equals(data, r.nextBinary()));
+        r.endArgument();
+        /* Plain byte[] is written as array of numbers */
+        assertEquals(JSON.Reader.BEGIN_ARRAY, r.peek());
+        r.skipValue();
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+    }
+
+    public void testBase64BinarySlice() throws Exception {
+        byte[] data = new byte[] { 1, 2, 3, 4, 5 };
+        JSON.Reader r = new JSON.Reader(seq(new JSON.Binary(data, 1, 3)));
+        JSON.Binary b = r.nextBinarySlice();
+        assertTrue(Arrays.equals(new byte[] { 2, 3, 4 }, b.toByteArray()));
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+    }
+
+    public void testZeroCopyBinary() throws Exception {
+        byte[] data = new byte[300];
+        for (int i = 0; i < data.length; i++) data[i] = (byte)i;
+        JSON.Binary bin = new JSON.Binary(data, 0, data.length);
+        byte[] buf = JSON.toJSONSequence(new Object[] { bin, bin, "end" }, true);
+        JSON.Reader r = new JSON.Reader(new JSON.Binary(buf, 0, buf.length));
+        assertEquals(JSON.Reader.BINARY, r.peek());
+        assertTrue(Arrays.equals(data, r.nextBinary()));
+        r.endArgument();
+        JSON.Binary b = r.nextBinarySlice();
+        assertSame(buf, b.bytes);
+        assertEquals(data.length, b.size);
+        assertTrue(Arrays.equals(data, b.toByteArray()));
+        b.release();
+        r.endArgument();
+        assertEquals("end", r.nextString());
+        r.endArgument();
+        assertFalse(r.hasNextArgument());
+    }
+
+    public void testTypeErrors() throws Exception {
+        try {
+            new JSON.Reader(seq("abc")).nextNumber();
+            fail("number expected");
+        }
+        catch (IOException x) {
+        }
+        try {
+            new JSON.Reader(seq(1)).nextString();
+            fail("string expected");
+        }
+        catch (IOException x) {
+        }
+        try {
+            new JSON.Reader(seq(1)).beginArray();
+            fail("array expected");
+        }
+        catch (IOException x) {
+        }
+        try {
+            JSON.Reader r = new JSON.Reader("[1,2]\0".getBytes("UTF-8"));
+            r.beginArray();
+            r.nextInt();
+            r.endArgument();
+            fail("missing terminator");
+        }
+        catch (IOException x) {
+        }
+    }
+
+    public void testMatchesParseSequence() throws Exception {
+        Map<String,Object> m = new HashMap<String,Object>();
+        m.put("A", Arrays.asList("x", 1, false, null));
+        m.put("B", -1234567890123L);
+        Object[] args = new Object[] { m, "s", 42 };
+        byte[] buf = seq(args);
+        Object[] exp = JSON.parseSequence(buf);
+        JSON.Reader r = new JSON.Reader(buf);
+        for (Object o : exp) {
+            assertEquals(o, r.nextValue());
+            r.endArgument();
+        }
+        assertFalse(r.hasNextArgument());
+    }
+}
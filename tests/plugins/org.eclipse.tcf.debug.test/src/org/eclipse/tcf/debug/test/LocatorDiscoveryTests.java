@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.internal.services.local.LocatorMulticastGroup;
+import org.eclipse.tcf.internal.services.local.LocatorRegistryClient;
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * Tests that exercise multicast and registry discovery of the Locator service.
+ * Both use local loop-back stand-ins instead of a lab network.
+ */
+public class LocatorDiscoveryTests extends TestCase {
+
+    private static final String REGISTRY_PEER_ID = "TestRegistry:127.0.0.1:1";
+
+    /**
+     * Minimal locator registry agent: it speaks TCF wire protocol over a loop-back socket,
+     * and provides only Locator service with a single peer.
+     */
+    private static class RegistryStandIn extends Thread {
+
+        final ServerSocket server;
+        OutputStream out;
+
+        RegistryStandIn() throws IOException {
+            server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+            setName("Locator Registry Stand-in");
+            setDaemon(true);
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Socket socket = server.accept();
+                InputStream inp = socket.getInputStream();
+                synchronized (this) {
+                    out = socket.getOutputStream();
+                }
+                send("E", "Locator", "Hello", "[\"Locator\"]");
+                for (;;) {
+                    List<String> msg = read(inp);
+                    if (msg == null) break;
+                    if (msg.get(0).equals("C") && msg.get(3).equals("getPeers")) {
+                        send("R", msg.get(1), "null", "[{\"ID\":\"" + REGISTRY_PEER_ID + "\"," +
+                                "\"Name\":\"Registry Peer\",\"TransportName\":\"TCP\"," +
+                                "\"Host\":\"127.0.0.1\",\"Port\":\"1\"}]");
+                    }
+                }
+                socket.close();
+            }
+            catch (IOException x) {
+                // Closed by the test
+            }
+        }
+
+        /* Read a message, return its fields, or null at end of stream */
+        private List<String> read(InputStream inp) throws IOException {
+            List<String> res = new ArrayList<String>();
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            for (;;) {
+                int ch = inp.read();
+                if (ch < 0) return null;
+                if (ch == 3) {
+                    int n = inp.read();
+                    if (n == 1) break;
+                    if (n != 0) return null;
+                }
+                if (ch == 0) {
+                    res.add(buf.toString("UTF-8"));
+                    buf.reset();
+                }
+                else {
+                    buf.write(ch);
+                }
+            }
+            if (buf.size() > 0) res.add(buf.toString("UTF-8"));
+            return res;
+        }
+
+        synchronized void send(String... fields) throws IOException {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            for (String s : fields) {
+                buf.write(s.getBytes("UTF-8"));
+                buf.write(0);
+            }
+            buf.write(3);
+            buf.write(1);
+            out.write(buf.toByteArray());
+            out.flush();
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+    }
+
+    private boolean waitForPeer(final String id, final boolean present) throws Exception {
+        long time = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < time) {
+            final boolean[] res = new boolean[1];
+            Protocol.invokeAndWait(new Runnable() {
+                public void run() {
+                    res[0] = Protocol.getLocator().getPeers().containsKey(id) == present;
+                }
+            });
+            if (res[0]) return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    public void testMulticastLoopback() throws Exception {
+        InetAddress group = InetAddress.getByName("239.255.15.34");
+        DatagramSocket tmp = new DatagramSocket(0);
+        int port = tmp.getLocalPort();
+        tmp.close();
+        /* Two locators on a host that has no network connection */
+        LocatorMulticastGroup g1 = new LocatorMulticastGroup(group, port, false);
+        LocatorMulticastGroup g2 = new LocatorMulticastGroup(group, port, false);
+        MulticastSocket out = new MulticastSocket();
+        try {
+            NetworkInterface lo = NetworkInterface.getByInetAddress(InetAddress.getByName("127.0.0.1"));
+            assertNotNull(lo);
+            byte[] data = "TCF test".getBytes("UTF-8");
+            g1.send(out, lo, data, data.length);
+            for (LocatorMulticastGroup g : new LocatorMulticastGroup[] { g1, g2 }) {
+                DatagramPacket p = new DatagramPacket(new byte[0x100], 0x100);
+                g.getSocket().setSoTimeout(5000);
+                g.getSocket().receive(p);
+                assertTrue(Arrays.equals(data, Arrays.copyOf(p.getData(), p.getLength())));
+            }
+        }
+        finally {
+            out.close();
+            g1.close();
+            g2.close();
+        }
+    }
+
+    public void testRegistryClient() throws Exception {
+        final RegistryStandIn registry = new RegistryStandIn();
+        registry.start();
+        final LocatorRegistryClient[] client = new LocatorRegistryClient[1];
+        try {
+            Protocol.invokeAndWait(new Runnable() {
+                public void run() {
+                    client[0] = new LocatorRegistryClient("127.0.0.1:" + registry.getPort(), false);
+                    client[0].connect();
+                }
+            });
+            /* Initial peer list */
+            assertTrue(waitForPeer(REGISTRY_PEER_ID, true));
+            /* Delta */
+            registry.send("E", "Locator", "peerRemoved", "\"" + REGISTRY_PEER_ID + "\"");
+            assertTrue(waitForPeer(REGISTRY_PEER_ID, false));
+        }
+        finally {
+            Protocol.invokeAndWait(new Runnable() {
+                public void run() {
+                    if (client[0] != null) client[0].close();
+                }
+            });
+            registry.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.internal.services.local.LocatorInputQueue;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.ILocator;
+
+/**
+ * Tests that exercise the queue of discovery packets of the Locator service.
+ */
+public class LocatorInputQueueTests extends TestCase {
+
+    private final List<LocatorInputQueue.InputPacket> handled = new ArrayList<LocatorInputQueue.InputPacket>();
+    private boolean wrong_thread;
+
+    private final LocatorInputQueue.Handler handler = new LocatorInputQueue.Handler() {
+        public void handlePacket(LocatorInputQueue.InputPacket p) {
+            if (!Protocol.isDispatchThread()) wrong_thread = true;
+            handled.add(p);
+        }
+    };
+
+    private static byte[] packet(int type, String... attrs) throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write('T');
+        buf.write('C');
+        buf.write('F');
+        buf.write(ILocator.CONF_VERSION);
+        buf.write(type);
+        buf.write(0);
+        buf.write(0);
+        buf.write(0);
+        for (String s : attrs) {
+            buf.write(s.getBytes("UTF-8"));
+            buf.write(0);
+        }
+        return buf.toByteArray();
+    }
+
+    private static DatagramPacket datagram(byte[] buf, byte[] data) throws Exception {
+        System.arraycopy(data, 0, buf, 0, data.length);
+        return new DatagramPacket(buf, data.length, InetAddress.getByName("127.0.0.1"), 1534);
+    }
+
+    /* Wait until the dispatch thread handles all packets that are queued so far */
+    private static void sync() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+            }
+        });
+    }
+
+    public void testPeerInfoIsParsedAndInterned() throws Exception {
+        LocatorInputQueue queue = new LocatorInputQueue(16, handler);
+        /* Receiver threads reuse the buffer for every packet */
+        byte[] buf = new byte[0x100];
+        assertTrue(queue.add(datagram(buf, packet(ILocator.CONF_PEER_INFO,
+                "ID=TCP:10.0.0.1:1534", "Name=Agent", "TransportName=TCP"))));
+        assertTrue(queue.add(datagram(buf, packet(ILocator.CONF_PEER_INFO,
+                "ID=TCP:10.0.0.2:1534", "Name=Agent", "TransportName=TCP"))));
+        assertTrue(queue.add(datagram(buf, packet(ILocator.CONF_REQ_INFO))));
+        sync();
+        assertFalse(wrong_thread);
+        assertEquals(3, handled.size());
+        assertEquals(0, queue.size());
+        Map<String,String> a1 = handled.get(0).getAttributes();
+        Map<String,String> a2 = handled.get(1).getAttributes();
+        assertEquals("TCP:10.0.0.1:1534", a1.get("ID"));
+        assertEquals("TCP:10.0.0.2:1534", a2.get("ID"));
+        assertEquals("Agent", a1.get("Name"));
+        /* Repeated attribute names and values share strings */
+        assertSame(a1.get("Name"), a2.get("Name"));
+        assertSame(a1.get("TransportName"), a2.get("TransportName"));
+        for (String k1 : a1.keySet()) {
+            for (String k2 : a2.keySet()) {
+                if (k1.equals(k2)) assertSame(k1, k2);
+            }
+        }
+        /* Other packets are not parsed */
+        assertNull(handled.get(2).getAttributes());
+        assertEquals(ILocator.CONF_REQ_INFO, handled.get(2).getData()[4]);
+        /* Queued packets own a copy of the data */
+        assertEquals(packet(ILocator.CONF_REQ_INFO).length, handled.get(2).getLength());
+        assertEquals(ILocator.CONF_PEER_INFO, handled.get(0).getData()[4]);
+    }
+
+    public void testFullQueueDropsPackets() throws Exception {
+        LocatorInputQueue queue = new LocatorInputQueue(3, handler);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        /* Keep the dispatch thread busy, like a slow listener would */
+        Protocol.invokeLater(new Runnable() {
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        byte[] buf = new byte[0x100];
+        for (int i = 0; i < 5; i++) {
+            /* The receiver thread does not wait for the dispatch thread */
+            boolean ok = queue.add(datagram(buf, packet(ILocator.CONF_PEER_INFO, "ID=P" + i)));
+            assertEquals(i < 3, ok);
+        }
+        assertEquals(3, queue.size());
+        release.countDown();
+        sync();
+        assertFalse(wrong_thread);
+        assertEquals(3, handled.size());
+        for (int i = 0; i < 3; i++) assertEquals("P" + i, handled.get(i).getAttributes().get("ID"));
+        /* The queue accepts packets again after it is drained */
+        assertTrue(queue.add(datagram(buf, packet(ILocator.CONF_PEER_INFO, "ID=P5"))));
+        sync();
+        assertEquals("P5", handled.get(3).getAttributes().get("ID"));
+    }
+}
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.internal.debug.ui.model.TCFMemoryCache;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.services.IMemory;
+import org.eclipse.tcf.util.TCFDataCache;
+import org.eclipse.tcf.util.TCFDataCacheBudget;
+
+/**
+ * Tests that exercise TCFMemoryCache: reading of missing bytes only,
+ * per-byte read errors and eviction of pages under the cache budget.
+ * Memory is provided by a test memory context, value of a byte is the low byte of its address,
+ * bytes in range [BAD_ADDR, BAD_ADDR + BAD_SIZE) cannot be read.
+ */
+@SuppressWarnings("restriction")
+public class MemoryCacheTests extends TestCase {
+
+    private static final int BAD_ADDR = 0x2100;
+    private static final int BAD_SIZE = 0x10;
+
+    private IChannel channel;
+    private TCFDataCacheBudget budget;
+    private TCFMemoryCache cache;
+
+    /* Memory.get commands received by the test memory context: "address:size:mode" */
+    private final List<String> commands = new ArrayList<String>();
+
+    private static boolean isBad(long addr) {
+        return addr >= BAD_ADDR && addr < BAD_ADDR + BAD_SIZE;
+    }
+
+    private static class ByteError extends IMemory.MemoryError implements IMemory.ErrorOffset {
+
+        private static final long serialVersionUID = 1L;
+
+        final long addr;
+
+        ByteError(long addr) {
+            super("Cannot read memory");
+            this.addr = addr;
+        }
+
+        public int getStatus(int offset) {
+            return isBad(addr + offset) ? BYTE_INVALID | BYTE_CANNOT_READ : BYTE_VALID;
+        }
+
+        public String getMessage(int offset) {
+            return isBad(addr + offset) ? getMessage() : null;
+        }
+    }
+
+    private final InvocationHandler memory = new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("hashCode".equals(name)) return Integer.valueOf(System.identityHashCode(proxy));
+            if ("equals".equals(name)) return Boolean.valueOf(proxy == args[0]);
+            if ("getID".equals(name)) return "TestMemory";
+            if (!"get".equals(name) || args.length != 7) return null;
+            final long addr = ((Number)args[0]).longValue();
+            final byte[] buf = (byte[])args[2];
+            final int offs = (Integer)args[3];
+            final int size = (Integer)args[4];
+            final int mode = (Integer)args[5];
+            final IMemory.DoneMemory done = (IMemory.DoneMemory)args[6];
+            commands.add(Long.toHexString(addr) + ":" + size + ":" + mode);
+            final IToken token = new IToken() {
+                public boolean cancel() {
+                    return false;
+                }
+            };
+            Protocol.invokeLater(new Runnable() {
+                public void run() {
+                    boolean error = false;
+                    for (int i = 0; i < size; i++) {
+                        if (isBad(addr + i)) error = true;
+                        else buf[offs + i] = (byte)(addr + i);
+                    }
+                    IMemory.MemoryError x = null;
+                    if (error && (mode & IMemory.MODE_CONTINUEONERROR) != 0) x = new ByteError(addr);
+                    else if (error) x = new IMemory.MemoryError("Cannot read memory");
+                    done.doneMemory(token, x);
+                }
+            });
+            return token;
+        }
+    };
+
+    /* Result of a cache read */
+    private static class Result {
+        byte[] data;
+        byte[] status;
+        Throwable error;
+    }
+
+    private Result read(final long addr, final int size, final int mode) throws Exception {
+        final Result res = new Result();
+        final CountDownLatch done = new CountDownLatch(1);
+        Protocol.invokeLater(new Runnable() {
+            public void run() {
+                if (done.getCount() == 0) return;
+                if (!cache.validate(BigInteger.valueOf(addr), size, mode, this)) return;
+                res.data = new byte[size];
+                res.status = new byte[size];
+                res.error = cache.read(BigInteger.valueOf(addr), res.data, 0, size, res.status);
+                done.countDown();
+            }
+        });
+        assertTrue("Timeout", done.await(10, TimeUnit.SECONDS));
+        return res;
+    }
+
+    private List<String> getCommands() throws Exception {
+        final List<String> list = new ArrayList<String>();
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                list.addAll(commands);
+                commands.clear();
+            }
+        });
+        return list;
+    }
+
+    private static void checkData(long addr, Result res) {
+        for (int i = 0; i < res.data.length; i++) {
+            if (isBad(addr + i)) continue;
+            assertEquals((byte)(addr + i), res.data[i]);
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "TestLoop");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                channel = new TransientPeer(attrs).openChannel();
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        done.countDown();
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(IChannel.STATE_OPEN, channel.getState());
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                final IMemory.MemoryContext mem = (IMemory.MemoryContext)Proxy.newProxyInstance(
+                        MemoryCacheTests.class.getClassLoader(), new Class<?>[]{ IMemory.MemoryContext.class }, memory);
+                TCFDataCache<IMemory.MemoryContext> mem_ctx = new TCFDataCache<IMemory.MemoryContext>(channel) {
+                    @Override
+                    protected boolean startDataRetrieval() {
+                        set(null, null, mem);
+                        return true;
+                    }
+                };
+                budget = new TCFDataCacheBudget(4);
+                cache = new TCFMemoryCache(channel, mem_ctx, budget);
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                cache.dispose();
+                channel.close();
+            }
+        });
+    }
+
+    public void testPartialPageRead() throws Exception {
+        Result res = read(0x1010, 16, 0);
+        assertNull(res.error);
+        checkData(0x1010, res);
+        /* Only requested bytes are read, not the whole page */
+        assertEquals(Arrays.asList("1010:16:0"), getCommands());
+        /* Overlapping range reads only bytes that are not in the cache */
+        int mode = IMemory.MODE_CONTINUEONERROR | IMemory.MODE_VERIFY;
+        res = read(0x1000, 0x40, mode);
+        assertNull(res.error);
+        checkData(0x1000, res);
+        assertEquals(Arrays.asList("1000:16:" + mode, "1020:32:" + mode), getCommands());
+        for (byte s : res.status) assertEquals(TCFMemoryCache.BYTE_VALID, s);
+        /* Cached range is not read again */
+        res = read(0x1008, 0x20, 0);
+        assertNull(res.error);
+        checkData(0x1008, res);
+        assertEquals(0, getCommands().size());
+    }
+
+    public void testByteErrors() throws Exception {
+        long addr = BAD_ADDR - 8;
+        int size = BAD_SIZE + 16;
+        /* Without MODE_CONTINUEONERROR the whole read fails */
+        Result res = read(addr, size, 0);
+        assertNotNull(res.error);
+        for (byte s : res.status) assertEquals(0, s);
+        assertEquals(Arrays.asList(Long.toHexString(addr) + ":" + size + ":0"), getCommands());
+        /* Failed bytes are not read again with same mode */
+        res = read(addr, size, 0);
+        assertNotNull(res.error);
+        assertEquals(0, getCommands().size());
+        /* MODE_CONTINUEONERROR reads failed bytes again, status is reported per byte */
+        res = read(addr, size, IMemory.MODE_CONTINUEONERROR);
+        assertNotNull(res.error);
+        assertEquals(Arrays.asList(Long.toHexString(addr) + ":" + size + ":" + IMemory.MODE_CONTINUEONERROR), getCommands());
+        for (int i = 0; i < size; i++) {
+            assertEquals(isBad(addr + i) ? 0 : TCFMemoryCache.BYTE_VALID, res.status[i]);
+        }
+        checkData(addr, res);
+        /* Readable bytes around the bad range are valid */
+        res = read(addr, 8, 0);
+        assertNull(res.error);
+        checkData(addr, res);
+        res = read(BAD_ADDR + BAD_SIZE, 8, 0);
+        assertNull(res.error);
+        checkData(BAD_ADDR + BAD_SIZE, res);
+        /* Bytes that cannot be read are not read again */
+        res = read(BAD_ADDR, 1, IMemory.MODE_CONTINUEONERROR);
+        assertNotNull(res.error);
+        assertEquals(0, getCommands().size());
+    }
+
+    public void testEvictionUnderBudget() throws Exception {
+        int limit = budget.getLimit();
+        for (int i = 0; i <= limit; i++) {
+            long addr = 0x10000 + i * TCFMemoryCache.PAGE_SIZE;
+            Result res = read(addr, 16, 0);
+            assertNull(res.error);
+            checkData(addr, res);
+        }
+        assertEquals(limit + 1, getCommands().size());
+        assertEquals(limit, budget.getSize());
+        assertEquals(1, budget.getEvictionCount());
+        /* Most recently used page is kept */
+        long last = 0x10000 + limit * TCFMemoryCache.PAGE_SIZE;
+        assertNull(read(last, 16, 0).error);
+        assertEquals(0, getCommands().size());
+        /* Least recently used page is evicted, it is read again */
+        Result res = read(0x10000, 16, 0);
+        assertNull(res.error);
+        checkData(0x10000, res);
+        assertEquals(Arrays.asList("10000:16:0"), getCommands());
+        assertEquals(limit, budget.getSize());
+    }
+
+    public void testRangeOverBudget() throws Exception {
+        int size = (budget.getLimit() + 1) * TCFMemoryCache.PAGE_SIZE;
+        /* The range would evict its own pages, it is not read */
+        Result res = read(0x10000, size, 0);
+        assertNotNull(res.error);
+        for (byte s : res.status) assertEquals(0, s);
+        assertEquals(0, getCommands().size());
+        assertEquals(0, budget.getSize());
+        /* A range that fits the budget is cached */
+        size = budget.getLimit() * TCFMemoryCache.PAGE_SIZE;
+        res = read(0x10000, size, 0);
+        assertNull(res.error);
+        checkData(0x10000, res);
+        assertEquals(budget.getLimit(), getCommands().size());
+        assertEquals(budget.getLimit(), budget.getSize());
+    }
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.Command;
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IService;
+import org.eclipse.tcf.protocol.IServiceProvider;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.JSON;
+import org.eclipse.tcf.protocol.Protocol;
+
+/**
+ * Tests that exercise pending command count, per-service pending command limit
+ * and congestion listeners of a channel.
+ * The channel is a loop back channel, its local services hold commands
+ * until a test replies to them.
+ */
+public class PendingCommandsTests extends TestCase {
+
+    private static final String SERVICE_A = "TestPendingA";
+    private static final String SERVICE_B = "TestPendingB";
+
+    /* Commands received by the local services */
+    private final List<String> received = new ArrayList<String>();
+    private final List<IToken> received_tokens = new ArrayList<IToken>();
+    private int results;
+    private int errors;
+    /* Congestion listener notifications */
+    private final List<Boolean> congestion = new ArrayList<Boolean>();
+    private boolean bad_level;
+
+    private IChannel channel;
+
+    private final IChannel.ICongestionListener congestion_listener = new IChannel.ICongestionListener() {
+        public void congestionChanged(int level, boolean congested) {
+            if (congested != level > 0) bad_level = true;
+            congestion.add(Boolean.valueOf(congested));
+        }
+    };
+
+    private final IServiceProvider provider = new IServiceProvider() {
+        public IService[] getLocalService(final IChannel channel) {
+            IService[] arr = new IService[2];
+            for (int i = 0; i < arr.length; i++) {
+                final String name = i == 0 ? SERVICE_A : SERVICE_B;
+                arr[i] = new IService() {
+                    public String getName() {
+                        return name;
+                    }
+                };
+                channel.addCommandServer(arr[i], new IChannel.ICommandServer() {
+                    public void command(IToken token, String cmd, byte[] data) {
+                        try {
+                            received.add(name + " " + JSON.parseSequence(data)[0]);
+                            received_tokens.add(token);
+                        }
+                        catch (Exception x) {
+                            channel.terminate(x);
+                        }
+                    }
+                });
+            }
+            return arr;
+        }
+        public IService getServiceProxy(IChannel channel, String service_name) {
+            return null;
+        }
+    };
+
+    private static <V> V invoke(final Callable<V> c) throws Exception {
+        final Object[] res = new Object[2];
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                try {
+                    res[0] = c.call();
+                }
+                catch (Exception x) {
+                    res[1] = x;
+                }
+            }
+        });
+        if (res[1] != null) throw (Exception)res[1];
+        @SuppressWarnings("unchecked")
+        V v = (V)res[0];
+        return v;
+    }
+
+    /* Wait until the loop back channel delivers all messages that are sent so far */
+    private void sync(final int received_cnt, final int results_cnt) throws Exception {
+        long time = System.currentTimeMillis();
+        for (;;) {
+            boolean ok = invoke(new Callable<Boolean>() {
+                public Boolean call() {
+                    return received.size() >= received_cnt && results >= results_cnt;
+                }
+            });
+            if (ok) break;
+            assertTrue("Timeout", System.currentTimeMillis() - time < 10000);
+            Thread.sleep(10);
+        }
+        /* Give the channel time to deliver any unexpected messages */
+        Thread.sleep(100);
+        invoke(new Callable<Object>() {
+            public Object call() {
+                return null;
+            }
+        });
+        assertEquals(0, errors);
+    }
+
+    private IToken send(final String service, final String id) throws Exception {
+        return invoke(new Callable<IToken>() {
+            public IToken call() {
+                return new Command(channel, channel.getRemoteService(service), "get", new Object[]{ id }) {
+                    @Override
+                    public void done(Exception error, Object[] args) {
+                        if (error != null) errors++;
+                        results++;
+                    }
+                }.token;
+            }
+        });
+    }
+
+    private void reply(final int n) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() throws Exception {
+                channel.sendResult(received_tokens.get(n), JSON.toJSONSequence(new Object[]{ null }));
+                return null;
+            }
+        });
+    }
+
+    private int getPendingCount(final String service) throws Exception {
+        return invoke(new Callable<Integer>() {
+            public Integer call() {
+                return channel.getPendingCommandCount(service);
+            }
+        });
+    }
+
+    private void setLimit(final String service, final int limit) throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                channel.setPendingCommandLimit(service, limit);
+                return null;
+            }
+        });
+    }
+
+    private boolean cancel(final IToken token) throws Exception {
+        return invoke(new Callable<Boolean>() {
+            public Boolean call() {
+                return token.cancel();
+            }
+        });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        final CountDownLatch opened = new CountDownLatch(1);
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Protocol.addServiceProvider(provider);
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "PendingCommandsTest");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                channel = new TransientPeer(attrs).openChannel();
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        opened.countDown();
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                    }
+                });
+            }
+        });
+        assertTrue(opened.await(10, TimeUnit.SECONDS));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Protocol.removeServiceProvider(provider);
+                if (channel.getState() != IChannel.STATE_CLOSED) channel.close();
+            }
+        });
+    }
+
+    public void testPendingCommandCount() throws Exception {
+        for (int i = 0; i < 3; i++) send(SERVICE_A, "a" + i);
+        for (int i = 0; i < 2; i++) send(SERVICE_B, "b" + i);
+        sync(5, 0);
+        assertEquals(3, getPendingCount(SERVICE_A));
+        assertEquals(2, getPendingCount(SERVICE_B));
+        assertEquals(5, getPendingCount(null));
+        assertEquals(0, getPendingCount("NoSuchService"));
+        reply(0);
+        reply(3);
+        sync(5, 2);
+        assertEquals(2, getPendingCount(SERVICE_A));
+        assertEquals(1, getPendingCount(SERVICE_B));
+        assertEquals(3, getPendingCount(null));
+        reply(1);
+        reply(2);
+        reply(4);
+        sync(5, 5);
+        assertEquals(0, getPendingCount(SERVICE_A));
+        assertEquals(0, getPendingCount(SERVICE_B));
+        assertEquals(0, getPendingCount(null));
+    }
+
+    public void testPendingCommandLimit() throws Exception {
+        setLimit(SERVICE_A, 2);
+        IToken[] tokens = new IToken[5];
+        for (int i = 0; i < tokens.length; i++) tokens[i] = send(SERVICE_A, "a" + i);
+        send(SERVICE_B, "b0");
+        sync(3, 0);
+        /* Commands above the limit are held, other services are not affected */
+        assertEquals(3, received.size());
+        assertEquals(SERVICE_A + " a0", received.get(0));
+        assertEquals(SERVICE_A + " a1", received.get(1));
+        assertEquals(SERVICE_B + " b0", received.get(2));
+        /* Held commands are counted as pending */
+        assertEquals(5, getPendingCount(SERVICE_A));
+        /* A held command can be canceled */
+        assertTrue(cancel(tokens[3]));
+        assertEquals(4, getPendingCount(SERVICE_A));
+        /* Result of a command releases next held command */
+        reply(0);
+        sync(4, 1);
+        assertEquals(4, received.size());
+        assertEquals(SERVICE_A + " a2", received.get(3));
+        assertEquals(3, getPendingCount(SERVICE_A));
+        /* Removing the limit releases all held commands, in order */
+        setLimit(SERVICE_A, 0);
+        sync(5, 1);
+        assertEquals(5, received.size());
+        assertEquals(SERVICE_A + " a4", received.get(4));
+        for (int i = 1; i < 5; i++) reply(i);
+        sync(5, 5);
+        assertEquals(0, getPendingCount(null));
+    }
+
+    public void testCongestionListener() throws Exception {
+        invoke(new Callable<Object>() {
+            public Object call() {
+                channel.addCongestionListener(0, congestion_listener);
+                return null;
+            }
+        });
+        /* The listener is notified only when the level crosses the threshold */
+        assertEquals(0, congestion.size());
+        int n = 40;
+        for (int i = 0; i < n; i++) send(SERVICE_A, "a" + i);
+        sync(n, 0);
+        assertEquals(1, congestion.size());
+        assertEquals(Boolean.TRUE, congestion.get(0));
+        for (int i = 0; i < n; i++) reply(i);
+        sync(n, n);
+        assertEquals(2, congestion.size());
+        assertEquals(Boolean.FALSE, congestion.get(1));
+        /* Held commands are pending too */
+        setLimit(SERVICE_A, 1);
+        for (int i = 0; i < n; i++) send(SERVICE_A, "c" + i);
+        sync(n + 1, n);
+        assertEquals(3, congestion.size());
+        assertEquals(Boolean.TRUE, congestion.get(2));
+        invoke(new Callable<Object>() {
+            public Object call() {
+                channel.removeCongestionListener(congestion_listener);
+                return null;
+            }
+        });
+        setLimit(SERVICE_A, 0);
+        sync(2 * n, n);
+        for (int i = n; i < 2 * n; i++) reply(i);
+        sync(2 * n, 2 * n);
+        /* Removed listener is not notified */
+        assertEquals(3, congestion.size());
+        assertFalse(bad_level);
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others. All rights reserved.
+ * This program and the accompanying materials are made available under the terms
+ * of the Eclipse Public License 2.0 which accompanies this distribution, and is
+ * available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import org.eclipse.tcf.internal.debug.model.TCFLaunch;
+import org.eclipse.tcf.internal.debug.ui.model.TCFModel;
+import org.eclipse.tcf.internal.debug.ui.model.TCFModelManager;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNodeExecContext;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNodeStackFrame;
+import org.eclipse.tcf.services.IRunControl;
+import org.eclipse.tcf.util.TCFTask;
+import org.junit.Assert;
+
+/**
+ * Tests speculative retrieval of top stack frame data by the debug model when a context is suspended.
+ */
+@SuppressWarnings("restriction")
+public class PrefetchModelTest extends AbstractTcfUITest {
+
+    private static final String MAX_RUNS_PROPERTY = "org.eclipse.tcf.debug.ui.prefetch_max_runs";
+
+    /* Prefetch state of the top frame */
+    private static class Prefetch {
+        int runs;
+        boolean frame_valid;
+        boolean regs_valid;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        System.clearProperty(MAX_RUNS_PROPERTY);
+        super.tearDown();
+    }
+
+    private Prefetch getPrefetch(final String context_id) throws Exception {
+        return new TCFTask<Prefetch>() {
+            public void run() {
+                TCFModel model = TCFModelManager.getModelManager().getModel((TCFLaunch)fLaunch);
+                TCFNodeExecContext exe = (TCFNodeExecContext)model.getNode(context_id);
+                Prefetch res = new Prefetch();
+                res.runs = exe.getPrefetchRuns();
+                if (exe.getStackTrace().isValid()) {
+                    TCFNodeStackFrame frame = exe.getStackTrace().getTopFrame();
+                    if (frame != null) {
+                        res.frame_valid = frame.getStackTraceContext().isValid() && frame.getLineInfo().isValid();
+                        res.regs_valid = frame.getRegisters().isValid();
+                    }
+                }
+                done(res);
+            }
+        }.get();
+    }
+
+    /* Step the context and wait until the prefetch stops running */
+    private Prefetch stepAndWaitPrefetch(TestProcessInfo processInfo) throws Exception {
+        resumeAndWaitForSuspend(processInfo.fThreadCtx, IRunControl.RM_STEP_INTO_LINE);
+        long timeout = System.currentTimeMillis() + TIMEOUT_DEFAULT;
+        Prefetch prev = getPrefetch(processInfo.fThreadId);
+        for (;;) {
+            Thread.sleep(500);
+            Prefetch p = getPrefetch(processInfo.fThreadId);
+            if (p.runs == prev.runs && p.frame_valid) return p;
+            Assert.assertTrue("Prefetch is not finished", System.currentTimeMillis() < timeout);
+            prev = p;
+        }
+    }
+
+    public void testPrefetchOnSuspend() throws Exception {
+        TestProcessInfo processInfo = initProcessModel("tcf_test_func0");
+        Prefetch p = stepAndWaitPrefetch(processInfo);
+        // The stack trace is retrieved first, then top frames data
+        Assert.assertTrue("Prefetch is not re-run: " + p.runs, p.runs >= 2);
+        Assert.assertTrue("Prefetch runs are not limited: " + p.runs, p.runs <= 64);
+        Assert.assertTrue(p.frame_valid);
+        // Registers view is open
+        Assert.assertTrue(p.regs_valid);
+    }
+
+    public void testPrefetchRunsLimit() throws Exception {
+        TestProcessInfo processInfo = initProcessModel("tcf_test_func0");
+        Prefetch p = stepAndWaitPrefetch(processInfo);
+        Assert.assertTrue(p.runs >= 2);
+        // Limit is per suspend: runs of previous suspend are not counted
+        System.setProperty(MAX_RUNS_PROPERTY, "1");
+        p = stepAndWaitPrefetch(processInfo);
+        Assert.assertEquals(1, p.runs);
+    }
+}
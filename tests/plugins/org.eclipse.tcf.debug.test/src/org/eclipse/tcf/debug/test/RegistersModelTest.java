@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems, Inc. and others. All rights reserved.
+ * This program and the accompanying materials are made available under the terms
+ * of the Eclipse Public License 2.0 which accompanies this distribution, and is
+ * available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ * Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.tcf.core.AbstractChannel;
+import org.eclipse.tcf.internal.debug.model.TCFLaunch;
+import org.eclipse.tcf.internal.debug.ui.model.TCFChildren;
+import org.eclipse.tcf.internal.debug.ui.model.TCFModel;
+import org.eclipse.tcf.internal.debug.ui.model.TCFModelManager;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNode;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNodeExecContext;
+import org.eclipse.tcf.internal.debug.ui.model.TCFNodeRegister;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.services.IRegisters;
+import org.eclipse.tcf.util.TCFTask;
+import org.junit.Assert;
+
+/**
+ * Tests retrieval of register values by the debug model: values of a register list
+ * are retrieved with a single Registers.getm command, with a fall back to Registers.get.
+ */
+@SuppressWarnings("restriction")
+public class RegistersModelTest extends AbstractTcfUITest {
+
+    private static final String GETM_PROPERTY = "org.eclipse.tcf.debug.ui.registers_getm";
+
+    private final AtomicInteger getm_cnt = new AtomicInteger();
+    private final AtomicInteger get_cnt = new AtomicInteger();
+
+    private final AbstractChannel.TraceListener trace = new AbstractChannel.TraceListener() {
+        public void onMessageReceived(char type, String token, String service, String name, byte[] data) {
+        }
+        public void onMessageSent(char type, String token, String service, String name, byte[] data) {
+            if (type != 'C' || !IRegisters.NAME.equals(service)) return;
+            if ("getm".equals(name)) getm_cnt.incrementAndGet();
+            if ("get".equals(name)) get_cnt.incrementAndGet();
+        }
+        public void onChannelClosed(Throwable error) {
+        }
+    };
+
+    /* Register values of a context, and number of registers that can be retrieved by getm */
+    private static class Registers {
+        final List<TCFNodeRegister> nodes = new ArrayList<TCFNodeRegister>();
+        final List<byte[]> values = new ArrayList<byte[]>();
+        int bulk;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        System.clearProperty(GETM_PROPERTY);
+        new TCFTask<Object>() {
+            public void run() {
+                ((AbstractChannel)((TCFLaunch)fLaunch).getChannel()).removeTraceListener(trace);
+                done(null);
+            }
+        }.get();
+        super.tearDown();
+    }
+
+    private void startTrace() throws Exception {
+        new TCFTask<Object>() {
+            public void run() {
+                ((AbstractChannel)((TCFLaunch)fLaunch).getChannel()).addTraceListener(trace);
+                done(null);
+            }
+        }.get();
+    }
+
+    private void resetCounters() {
+        getm_cnt.set(0);
+        get_cnt.set(0);
+    }
+
+    private static boolean isBulkReadable(IRegisters.RegistersContext ctx) {
+        if (ctx == null || ctx.getSize() <= 0 || ctx.getBitNumbers() != null) return false;
+        return ctx.isReadable() && !ctx.isReadOnce() && !ctx.hasSideEffects();
+    }
+
+    private Registers readRegisters(final String context_id) throws Exception {
+        return new TCFTask<Registers>() {
+            public void run() {
+                TCFModel model = TCFModelManager.getModelManager().getModel((TCFLaunch)fLaunch);
+                TCFNodeExecContext exe = (TCFNodeExecContext)model.getNode(context_id);
+                TCFChildren children = exe.getRegisters();
+                if (!children.validate(this)) return;
+                Registers res = new Registers();
+                for (TCFNode n : children.toArray()) {
+                    TCFNodeRegister r = (TCFNodeRegister)n;
+                    if (!r.getContext().validate(this)) return;
+                    if (!r.getValue().validate(this)) return;
+                    res.nodes.add(r);
+                    res.values.add(r.getValue().getData());
+                    if (isBulkReadable(r.getContext().getData())) res.bulk++;
+                }
+                done(res);
+            }
+        }.get();
+    }
+
+    public void testRegisterValuesFromGetm() throws Exception {
+        TestProcessInfo processInfo = initProcessModel("tcf_test_func0");
+        startTrace();
+        resetCounters();
+        Registers regs = readRegisters(processInfo.fThreadId);
+        Assert.assertTrue("Not enough registers", regs.bulk >= 2);
+        Assert.assertEquals(1, getm_cnt.get());
+        Assert.assertEquals(regs.nodes.size() - regs.bulk, get_cnt.get());
+        for (int i = 0; i < regs.nodes.size(); i++) {
+            if (isBulkReadable(regs.nodes.get(i).getContext().getData())) {
+                Assert.assertNotNull(regs.values.get(i));
+            }
+        }
+    }
+
+    public void testChangedRegisterIsReadAlone() throws Exception {
+        TestProcessInfo processInfo = initProcessModel("tcf_test_func0");
+        startTrace();
+        Registers regs = readRegisters(processInfo.fThreadId);
+
+        // Find a general purpose register that is retrieved by getm
+        TCFNodeRegister reg = null;
+        byte[] value = null;
+        for (int i = 0; i < regs.nodes.size() && reg == null; i++) {
+            IRegisters.RegistersContext ctx = regs.nodes.get(i).getContext().getData();
+            if (!isBulkReadable(ctx) || !ctx.isWriteable() || ctx.getRole() != null) continue;
+            reg = regs.nodes.get(i);
+            value = regs.values.get(i);
+        }
+        Assert.assertNotNull("No writable general purpose register", reg);
+
+        // Write the same value through another channel, the agent sends registerChanged event
+        final String reg_id = reg.getID();
+        final byte[] reg_value = value;
+        new TCFTask<Object>() {
+            public void run() {
+                fRegisters.getContext(reg_id, new IRegisters.DoneGetContext() {
+                    public void doneGetContext(IToken token, Exception error, IRegisters.RegistersContext ctx) {
+                        if (error != null) {
+                            error(error);
+                            return;
+                        }
+                        ctx.set(reg_value, new IRegisters.DoneSet() {
+                            public void doneSet(IToken token, Exception error) {
+                                if (error != null) error(error);
+                                else done(null);
+                            }
+                        });
+                    }
+                });
+            }
+        }.get();
+
+        // Wait until the model gets the event
+        final TCFNodeRegister node = reg;
+        long timeout = System.currentTimeMillis() + TIMEOUT_DEFAULT;
+        for (;;) {
+            boolean valid = new TCFTask<Boolean>() {
+                public void run() {
+                    done(node.getValue().isValid());
+                }
+            }.get();
+            if (!valid) break;
+            Assert.assertTrue("Register value is not reset", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+
+        // Only the changed register is retrieved again, the snapshot of other registers is kept
+        resetCounters();
+        Registers regs2 = readRegisters(processInfo.fThreadId);
+        Assert.assertEquals(regs.nodes.size(), regs2.nodes.size());
+        Assert.assertEquals(0, getm_cnt.get());
+        Assert.assertEquals(1, get_cnt.get());
+        Assert.assertTrue(Arrays.equals(value, regs2.values.get(regs2.nodes.indexOf(reg))));
+    }
+
+    public void testFallbackWithoutGetm() throws Exception {
+        // Same as an agent that does not support getm
+        System.setProperty(GETM_PROPERTY, "false");
+        TestProcessInfo processInfo = initProcessModel("tcf_test_func0");
+        startTrace();
+        resetCounters();
+        Registers regs = readRegisters(processInfo.fThreadId);
+        Assert.assertTrue("Not enough registers", regs.bulk >= 2);
+        Assert.assertEquals(0, getm_cnt.get());
+        Assert.assertEquals(regs.nodes.size(), get_cnt.get());
+        for (int i = 0; i < regs.nodes.size(); i++) {
+            if (isBulkReadable(regs.nodes.get(i).getContext().getData())) {
+                Assert.assertNotNull(regs.values.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.core.TransientPeer;
+import org.eclipse.tcf.protocol.IChannel;
+import org.eclipse.tcf.protocol.IPeer;
+import org.eclipse.tcf.protocol.IToken;
+import org.eclipse.tcf.protocol.Protocol;
+import org.eclipse.tcf.util.TCFDataCache;
+import org.eclipse.tcf.util.TCFDataCacheBudget;
+import org.eclipse.tcf.util.TCFDataCacheMap;
+
+/**
+ * Tests that exercise TCFDataCacheMap and TCFDataCacheBudget.
+ */
+public class TCFDataCacheBudgetTests extends TestCase {
+
+    private IChannel channel;
+
+    /**
+     * Cache item that either gets its data right away, or stays pending until finish() is called.
+     */
+    private static class TestCache extends TCFDataCache<Integer> {
+
+        final int value;
+        final boolean hold;
+
+        TestCache(IChannel channel, int value, boolean hold) {
+            super(channel);
+            this.value = value;
+            this.hold = hold;
+        }
+
+        @Override
+        protected boolean startDataRetrieval() {
+            if (hold) {
+                command = new IToken() {
+                    public boolean cancel() {
+                        return false;
+                    }
+                };
+                return false;
+            }
+            set(null, null, value);
+            return true;
+        }
+
+        void finish() {
+            set(command, null, value);
+        }
+    }
+
+    private abstract class DispatchTest implements Runnable {
+
+        Throwable error;
+
+        public void run() {
+            try {
+                test();
+            }
+            catch (Throwable x) {
+                error = x;
+            }
+        }
+
+        abstract void test() throws Exception;
+
+        void invoke() throws Exception {
+            Protocol.invokeAndWait(this);
+            if (error instanceof Exception) throw (Exception)error;
+            if (error instanceof Error) throw (Error)error;
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                Map<String,String> attrs = new HashMap<String,String>();
+                attrs.put(IPeer.ATTR_ID, "TestLoop");
+                attrs.put(IPeer.ATTR_TRANSPORT_NAME, "Loop");
+                channel = new TransientPeer(attrs).openChannel();
+                channel.addChannelListener(new IChannel.IChannelListener() {
+                    public void onChannelOpened() {
+                        done.countDown();
+                    }
+                    public void congestionLevel(int level) {
+                    }
+                    public void onChannelClosed(Throwable error) {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(IChannel.STATE_OPEN, channel.getState());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Protocol.invokeAndWait(new Runnable() {
+            public void run() {
+                channel.close();
+            }
+        });
+    }
+
+    private TestCache add(TCFDataCacheMap<Integer,TestCache> map, int key, boolean hold) {
+        TestCache c = new TestCache(channel, key, hold);
+        assertEquals(hold, !c.validate());
+        map.put(key, c);
+        return c;
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        new DispatchTest() {
+            void test() {
+                TCFDataCacheBudget budget = new TCFDataCacheBudget(3);
+                TCFDataCacheMap<Integer,TestCache> map = new TCFDataCacheMap<Integer,TestCache>(budget);
+                TestCache c1 = add(map, 1, false);
+                TestCache c2 = add(map, 2, false);
+                add(map, 3, false);
+                assertSame(c1, map.get(1));
+                add(map, 4, false);
+                assertEquals(3, map.size());
+                assertEquals(3, budget.getSize());
+                assertNull(map.get(2));
+                assertTrue(c2.isDisposed());
+                assertFalse(c1.isDisposed());
+                assertEquals(1, budget.getEvictionCount());
+                assertEquals(1, budget.getHitCount());
+                assertEquals(1, budget.getMissCount());
+                map.dispose();
+                assertEquals(0, budget.getSize());
+                assertTrue(c1.isDisposed());
+            }
+        }.invoke();
+    }
+
+    public void testPendingItemsAreNotEvicted() throws Exception {
+        new DispatchTest() {
+            void test() {
+                TCFDataCacheBudget budget = new TCFDataCacheBudget(2);
+                TCFDataCacheMap<Integer,TestCache> map = new TCFDataCacheMap<Integer,TestCache>(budget);
+                TestCache c1 = add(map, 1, true);
+                TestCache c2 = add(map, 2, false);
+                add(map, 3, false);
+                assertSame(c1, map.get(1));
+                assertTrue(c2.isDisposed());
+                assertEquals(2, map.size());
+                c1.finish();
+                assertFalse(c1.isPending());
+                map.clear();
+                assertEquals(0, map.size());
+                assertEquals(0, budget.getSize());
+            }
+        }.invoke();
+    }
+
+    public void testSharedBudget() throws Exception {
+        new DispatchTest() {
+            void test() {
+                TCFDataCacheBudget budget = new TCFDataCacheBudget(0);
+                TCFDataCacheMap<Integer,TestCache> m1 = new TCFDataCacheMap<Integer,TestCache>(budget);
+                TCFDataCacheMap<Integer,TestCache> m2 = new TCFDataCacheMap<Integer,TestCache>(budget);
+                for (int i = 0; i < 10; i++) {
+                    add(m1, i, false);
+                    add(m2, i, false);
+                }
+                /* No limit */
+                assertEquals(20, budget.getSize());
+                assertEquals(0, budget.getEvictionCount());
+                /* Items of m2 were used last, shrinking evicts items of m1 first */
+                for (int i = 0; i < 10; i++) assertNotNull(m2.get(i));
+                budget.setLimit(12);
+                assertEquals(12, budget.getSize());
+                assertEquals(2, m1.size());
+                assertEquals(10, m2.size());
+                assertNotNull(m1.get(9));
+                assertNull(m1.get(0));
+                m1.dispose();
+                m2.dispose();
+                assertEquals(0, budget.getSize());
+            }
+        }.invoke();
+    }
+
+    public void testReplaceAndRemove() throws Exception {
+        new DispatchTest() {
+            void test() {
+                TCFDataCacheBudget budget = new TCFDataCacheBudget(10);
+                TCFDataCacheMap<Integer,TestCache> map = new TCFDataCacheMap<Integer,TestCache>(budget);
+                TestCache c1 = add(map, 1, false);
+                TestCache c2 = add(map, 1, false);
+                assertTrue(c1.isDisposed());
+                assertEquals(1, map.size());
+                assertEquals(1, budget.getSize());
+                map.remove(1);
+                assertTrue(c2.isDisposed());
+                assertEquals(0, map.size());
+                assertEquals(0, budget.getSize());
+                TestCache c3 = add(map, 2, false);
+                add(map, 3, false);
+                map.disposeEldest();
+                assertTrue(c3.isDisposed());
+                assertEquals(1, map.size());
+                map.dispose();
+            }
+        }.invoke();
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.util.TCFTraceBuffer;
+
+/**
+ * Tests that exercise TCFTraceBuffer.
+ */
+public class TCFTraceBufferTests extends TestCase {
+
+    /* Executor that runs tasks when the test asks for it */
+    private static class ManualExecutor implements Executor {
+
+        final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+        public synchronized void execute(Runnable r) {
+            tasks.add(r);
+        }
+
+        void run() {
+            for (;;) {
+                Runnable r;
+                synchronized (this) {
+                    if (tasks.isEmpty()) return;
+                    r = tasks.removeFirst();
+                }
+                r.run();
+            }
+        }
+    }
+
+    /* Consumer that records names of the records and dropped counts */
+    private static class TestConsumer implements TCFTraceBuffer.Consumer {
+
+        final List<Object> records = new ArrayList<Object>();
+        final List<Long> batches = new ArrayList<Long>();
+        long dropped;
+
+        public void onRecord(TCFTraceBuffer.Record record) {
+            records.add(record.name != null ? record.name : record.arg);
+        }
+
+        public void onBatchDone(long dropped) {
+            batches.add(dropped);
+            this.dropped += dropped;
+        }
+    }
+
+    private static boolean add(TCFTraceBuffer buffer, String name, int size) {
+        return buffer.add(null, 'C', false, null, null, name, new byte[size]);
+    }
+
+    public void testBatchOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        TestConsumer consumer = new TestConsumer();
+        TCFTraceBuffer buffer = new TCFTraceBuffer(4, executor, consumer);
+        assertTrue(add(buffer, "a", 1));
+        assertTrue(add(buffer, "b", 1));
+        assertTrue(buffer.add(null, 'X', "c"));
+        /* One batch is scheduled for all three records */
+        assertEquals(1, executor.tasks.size());
+        executor.run();
+        assertEquals(list("a", "b", "c"), consumer.records);
+        assertEquals(list(0L), consumer.batches);
+    }
+
+    public void testDropWhenFull() {
+        ManualExecutor executor = new ManualExecutor();
+        TestConsumer consumer = new TestConsumer();
+        TCFTraceBuffer buffer = new TCFTraceBuffer(4, executor, consumer);
+        for (int i = 0; i < 4; i++) assertTrue(add(buffer, "r" + i, 1));
+        assertFalse(add(buffer, "x", 1));
+        assertFalse(add(buffer, "y", 1));
+        assertEquals(2, buffer.getDropped());
+        executor.run();
+        assertEquals(list("r0", "r1", "r2", "r3"), consumer.records);
+        assertEquals(2, consumer.dropped);
+        /* Slots are released after the batch */
+        assertTrue(add(buffer, "r4", 1));
+        executor.run();
+        assertEquals(2, consumer.dropped);
+        assertEquals(2, buffer.getDropped());
+    }
+
+    public void testByteLimit() {
+        ManualExecutor executor = new ManualExecutor();
+        TestConsumer consumer = new TestConsumer();
+        TCFTraceBuffer buffer = new TCFTraceBuffer(16, 100, executor, consumer);
+        assertTrue(add(buffer, "a", 60));
+        assertFalse(add(buffer, "b", 60));
+        assertTrue(add(buffer, "c", 40));
+        assertFalse(add(buffer, "d", 1));
+        /* Records without data are bounded by the count only */
+        assertTrue(buffer.add(null, 'X', "e"));
+        executor.run();
+        assertEquals(list("a", "c", "e"), consumer.records);
+        assertEquals(2, consumer.dropped);
+        /* Bytes are released after the batch */
+        assertTrue(add(buffer, "f", 100));
+        assertFalse(add(buffer, "g", 1));
+        executor.run();
+        assertTrue(add(buffer, "h", 100));
+    }
+
+    public void testReliableRecordsKeepOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        TestConsumer consumer = new TestConsumer();
+        TCFTraceBuffer buffer = new TCFTraceBuffer(4, executor, consumer);
+        for (int i = 0; i < 4; i++) assertTrue(add(buffer, "r" + i, 1));
+        buffer.addReliable(null, 'X', "x");
+        assertFalse(add(buffer, "dropped", 1));
+        buffer.addReliable(null, 'X', "y");
+        executor.run();
+        assertEquals(list("r0", "r1", "r2", "r3", "x", "y"), consumer.records);
+        assertEquals(1, consumer.dropped);
+        /* Records added after the overflow are delivered after it */
+        consumer.records.clear();
+        for (int i = 0; i < 4; i++) assertTrue(add(buffer, "s" + i, 1));
+        buffer.addReliable(null, 'X', "z");
+        executor.run();
+        assertTrue(add(buffer, "t", 1));
+        executor.run();
+        assertEquals(list("s0", "s1", "s2", "s3", "z", "t"), consumer.records);
+    }
+
+    public void testConcurrentProducers() throws Exception {
+        final int threads = 4;
+        final int count = 20000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final int[] last = new int[threads];
+        final long[] received = new long[1];
+        final Throwable[] error = new Throwable[1];
+        TestConsumer consumer = new TestConsumer() {
+            @Override
+            public void onRecord(TCFTraceBuffer.Record record) {
+                /* Records of each producer are delivered in order */
+                int t = (Integer)record.source;
+                int n = Integer.parseInt(record.name);
+                if (n <= last[t] && error[0] == null) error[0] = new AssertionError("Out of order: " + n);
+                last[t] = n;
+                received[0]++;
+            }
+        };
+        final TCFTraceBuffer buffer = new TCFTraceBuffer(256, executor, consumer);
+        Thread[] producers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int t = i;
+            producers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int n = 1; n <= count; n++) {
+                        buffer.add(Integer.valueOf(t), 'C', false, null, null, Integer.toString(n), null);
+                    }
+                }
+            };
+            producers[i].start();
+        }
+        for (Thread p : producers) p.join();
+        /* Drain tasks are submitted in order, wait for the last one */
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        if (error[0] != null) throw new Exception(error[0]);
+        assertEquals((long)threads * count, received[0] + consumer.dropped);
+        assertEquals(consumer.dropped, buffer.getDropped());
+    }
+
+    private static List<Object> list(Object... args) {
+        List<Object> l = new ArrayList<Object>();
+        for (Object o : args) l.add(o);
+        return l;
+    }
+}
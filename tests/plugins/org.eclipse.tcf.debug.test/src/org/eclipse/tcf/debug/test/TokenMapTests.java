@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.internal.core.TokenMap;
+
+/**
+ * Tests that exercise TokenMap, the map of outstanding command tokens of a channel.
+ */
+public class TokenMapTests extends TestCase {
+
+    public void testPutGetRemove() {
+        TokenMap<String> map = new TokenMap<String>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        assertEquals(1, map.size());
+        assertEquals("b", map.get(1));
+        assertNull(map.get(2));
+        assertNull(map.get(-1));
+        assertEquals("b", map.remove(1));
+        assertNull(map.remove(1));
+        assertTrue(map.isEmpty());
+        try {
+            map.put(-1, "x");
+            fail();
+        }
+        catch (IllegalArgumentException x) {
+            // Expected
+        }
+    }
+
+    /* Keep adding and removing random keys with a small key space, so probe sequences collide and wrap */
+    public void testRemoveKeepsProbeSequences() {
+        Random rnd = new Random(12345);
+        TokenMap<Integer> map = new TokenMap<Integer>();
+        Map<Integer,Integer> ref = new HashMap<Integer,Integer>();
+        for (int i = 0; i < 100000; i++) {
+            int key = rnd.nextInt(64);
+            if (rnd.nextBoolean()) {
+                assertEquals(ref.put(key, i), map.put(key, i));
+            }
+            else {
+                assertEquals(ref.remove(key), map.remove(key));
+            }
+            assertEquals(ref.size(), map.size());
+            if (i % 97 == 0) {
+                for (int k = 0; k < 64; k++) assertEquals(ref.get(k), map.get(k));
+            }
+        }
+        for (int k = 0; k < 64; k++) assertEquals(ref.get(k), map.get(k));
+    }
+
+    public void testRemoveAfterRehash() {
+        TokenMap<Integer> map = new TokenMap<Integer>();
+        for (int i = 0; i < 1000; i++) map.put(i * 32, i);
+        for (int i = 0; i < 1000; i += 2) assertEquals(Integer.valueOf(i), map.remove(i * 32));
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1000; i++) assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i * 32));
+    }
+
+    public void testValuesInInsertionOrder() {
+        TokenMap<Integer> map = new TokenMap<Integer>();
+        List<Integer> exp = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            /* Token numbers are masked to 31 bit and wrap to 0 */
+            int key = (Integer.MAX_VALUE - 49 + i) & 0x7fffffff;
+            map.put(key, i);
+            exp.add(i);
+        }
+        assertEquals(exp, map.values());
+        /* Removal, replacement and rehash don't change the order of the other values */
+        map.remove(Integer.MAX_VALUE);
+        exp.remove(Integer.valueOf(49));
+        map.put(0, 50);
+        assertEquals(exp, map.values());
+        for (int i = 100; i < 1000; i++) {
+            map.put(i, i);
+            exp.add(i);
+        }
+        assertEquals(exp, map.values());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(Arrays.asList(), map.values());
+    }
+}
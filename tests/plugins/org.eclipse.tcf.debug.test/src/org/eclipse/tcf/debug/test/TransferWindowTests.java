@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.tcf.debug.test;
+
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+
+import org.eclipse.tcf.util.TransferWindow;
+
+/**
+ * Tests that exercise TransferWindow auto-tuning on a simulated link.
+ */
+public class TransferWindowTests extends TestCase {
+
+    private static final long MS = 1000000;
+
+    private long time = 1000 * MS;
+
+    /**
+     * Simulate a link with given bandwidth and round trip time:
+     * the window is kept full, replies are delivered in order, and the window is updated on each reply.
+     */
+    private void simulate(TransferWindow w, long bandwidth, long rtt, int replies) {
+        LinkedList<long[]> inflight = new LinkedList<long[]>();
+        long link_time = time;
+        for (int i = 0; i < replies; i++) {
+            while (inflight.size() < w.getCount()) {
+                int size = w.getChunkSize();
+                link_time = Math.max(time + rtt, link_time + size * 1000000000L / bandwidth);
+                inflight.add(new long[] { time, size, link_time });
+            }
+            long[] cmd = inflight.removeFirst();
+            time = cmd[2];
+            w.update(cmd[0], time, (int)cmd[1]);
+            assertTrue(w.getCount() >= TransferWindow.MIN_COUNT);
+            assertTrue(w.getCount() <= TransferWindow.MAX_COUNT);
+            assertTrue(w.getChunkSize() <= TransferWindow.MAX_CHUNK_SIZE);
+        }
+    }
+
+    public void testFixedWindow() {
+        TransferWindow w = new TransferWindow(0x1000, 0x10000);
+        assertEquals(16, w.getCount());
+        simulate(w, 100000000, 10 * MS, 1000);
+        assertEquals(16, w.getCount());
+        assertEquals(0x1000, w.getChunkSize());
+        /* Window smaller than a command */
+        w = new TransferWindow(0x1000, 100);
+        assertEquals(1, w.getCount());
+    }
+
+    public void testGrowsToBandwidthDelayProduct() {
+        TransferWindow w = new TransferWindow(0x1000);
+        assertEquals(TransferWindow.MIN_COUNT, w.getCount());
+        /* 100MB/s, 10ms round trip: bandwidth-delay product is 1MB */
+        simulate(w, 100000000, 10 * MS, 5000);
+        long window = (long)w.getCount() * w.getChunkSize();
+        assertTrue("window " + window, window >= 1000000);
+        assertTrue(w.getChunkSize() > 0x1000);
+    }
+
+    public void testCountGrowsBeforeChunkSize() {
+        TransferWindow w = new TransferWindow(0x1000);
+        /* 10MB/s, 10ms round trip: 100KB product, 8 commands of 4KB are not enough */
+        simulate(w, 10000000, 10 * MS, 2000);
+        assertTrue(w.getCount() > TransferWindow.MIN_COUNT);
+        assertEquals(0x1000, w.getChunkSize());
+    }
+
+    public void testShrinksWhenConsumerIsSlow() {
+        TransferWindow w = new TransferWindow(0x1000);
+        simulate(w, 10000000, 10 * MS, 2000);
+        assertTrue(w.getCount() > TransferWindow.MIN_COUNT);
+        /* Slow consumer: 100KB/s */
+        simulate(w, 100000, 1 * MS, 2000);
+        assertEquals(TransferWindow.MIN_COUNT, w.getCount());
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Wind River Systems and others.
+ * Copyright (c) 2012-2026 Wind River Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,18 @@ public class UtilsSuite extends TestSuite {
         addTest(new TestSuite(TransactionTests.class));
         addTest(new TestSuite(QueryTests.class));
         addTest(new TestSuite(RangeCacheTests.class));
+        addTest(new TestSuite(JSONReaderTests.class));
+        addTest(new TestSuite(TCFDataCacheBudgetTests.class));
+        addTest(new TestSuite(TransferWindowTests.class));
+        addTest(new TestSuite(TokenMapTests.class));
+        addTest(new TestSuite(TCFTraceBufferTests.class));
+        addTest(new TestSuite(LocatorInputQueueTests.class));
+        addTest(new TestSuite(ChannelCaptureTests.class));
+        addTest(new TestSuite(FoldCommandsTests.class));
+        addTest(new TestSuite(PendingCommandsTests.class));
+        addTest(new TestSuite(MemoryCacheTests.class));
+        addTest(new TestSuite(ExpressionPoolTests.class));
+        addTest(new TestSuite(ArrayElementValueTests.class));
     }
 
     /**